@@ -14,6 +14,7 @@ import pt.psoft.shared.dto.author.CreateAuthorRequest;
 import pt.psoft.author.api.dto.UpdateAuthorRequest;
 import pt.psoft.author.model.command.AuthorEntity;
 import pt.psoft.author.services.AuthorCommandService;
+import pt.psoft.shared.messaging.ProjectionProgress;
 
 /**
  * REST Controller for Author Command operations (Write Side - CQRS)
@@ -39,6 +40,7 @@ public class AuthorCommandController {
 
         return ResponseEntity.created(newAuthorUri)
                 .eTag(String.valueOf(author.getVersion()))
+                .header(ProjectionProgress.CONSISTENCY_TOKEN_HEADER, String.valueOf(author.getVersion()))
                 .body(mapToAuthorView(author));
     }
 
@@ -53,6 +55,7 @@ public class AuthorCommandController {
 
         return ResponseEntity.ok()
                 .eTag(String.valueOf(author.getVersion()))
+                .header(ProjectionProgress.CONSISTENCY_TOKEN_HEADER, String.valueOf(author.getVersion()))
                 .body(mapToAuthorView(author));
     }
 
@@ -77,6 +80,7 @@ public class AuthorCommandController {
 
         return ResponseEntity.ok()
                 .eTag(String.valueOf(author.getVersion()))
+                .header(ProjectionProgress.CONSISTENCY_TOKEN_HEADER, String.valueOf(author.getVersion()))
                 .body(mapToAuthorView(author));
     }
 
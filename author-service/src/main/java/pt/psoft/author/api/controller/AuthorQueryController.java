@@ -4,11 +4,16 @@ import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import pt.psoft.author.api.dto.AuthorView;
 import pt.psoft.author.services.AuthorQueryService;
 import pt.psoft.shared.exceptions.NotFoundException;
+import pt.psoft.shared.messaging.ProjectionProgress;
+import pt.psoft.shared.utils.CollectionVersionCounter;
+import pt.psoft.shared.utils.ETags;
 
 import java.util.List;
 
@@ -22,13 +27,27 @@ import java.util.List;
 public class AuthorQueryController {
 
     private final AuthorQueryService authorQueryService;
+    private final CollectionVersionCounter collectionVersionCounter;
 
     @Operation(summary = "Get Author by number")
     @GetMapping("/{authorNumber}")
     public ResponseEntity<AuthorView> getAuthorByNumber(
-            @PathVariable @Parameter(description = "Author number") Long authorNumber) {
+            @PathVariable @Parameter(description = "Author number") Long authorNumber,
+            @RequestHeader(value = ProjectionProgress.CONSISTENCY_TOKEN_HEADER, required = false)
+            @Parameter(description = "Minimum version returned by a previous command") Long minVersion,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
 
-        AuthorView author = authorQueryService.findByAuthorNumber(authorNumber);
+        // conditional GET answered from the cached version, without loading the author
+        if (minVersion == null) {
+            String etag = authorQueryService.findETag(authorNumber);
+            if (ETags.matches(ifNoneMatch, etag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+            }
+        }
+
+        AuthorView author = minVersion != null
+                ? authorQueryService.findByAuthorNumber(authorNumber, minVersion)
+                : authorQueryService.findByAuthorNumber(authorNumber);
 
         if (author == null) {
             throw new NotFoundException("Author with number " + authorNumber + " not found");
@@ -42,10 +61,34 @@ public class AuthorQueryController {
     @Operation(summary = "Search Authors by name")
     @GetMapping
     public ResponseEntity<List<AuthorView>> searchAuthors(
-            @RequestParam(required = false) @Parameter(description = "Name to search") String name) {
+            @RequestParam(required = false) @Parameter(description = "Name to search") String name,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+
+        String etag = collectionVersionCounter.currentETag();
+        if (ETags.matches(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
 
         List<AuthorView> authors = authorQueryService.searchByName(name);
 
-        return ResponseEntity.ok(authors);
+        return etag != null
+                ? ResponseEntity.ok().eTag(etag).body(authors)
+                : ResponseEntity.ok(authors);
+    }
+
+    @Operation(summary = "Find Author by exact name",
+            description = "Single author whose name matches exactly (case insensitive), 404 if none")
+    @GetMapping("/by-name")
+    public ResponseEntity<AuthorView> findByExactName(
+            @RequestParam @Parameter(description = "Author name") String name) {
+
+        AuthorView author = authorQueryService.findByExactName(name);
+        if (author == null) {
+            throw new NotFoundException("Author with name " + name + " not found");
+        }
+
+        return ResponseEntity.ok()
+                .eTag(String.valueOf(author.getVersion()))
+                .body(author);
     }
 }
\ No newline at end of file
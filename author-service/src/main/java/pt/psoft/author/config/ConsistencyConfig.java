@@ -0,0 +1,22 @@
+package pt.psoft.author.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import pt.psoft.shared.messaging.ProjectionProgress;
+
+import java.time.Duration;
+
+/**
+ * Read-your-writes configuration (consistency tokens from the command side)
+ */
+@Configuration
+public class ConsistencyConfig {
+
+    @Bean
+    public ProjectionProgress projectionProgress(
+            @Value("${author.consistency.max-wait-ms:2000}") long maxWaitMs,
+            @Value("${author.consistency.poll-interval-ms:100}") long pollIntervalMs) {
+        return new ProjectionProgress(Duration.ofMillis(maxWaitMs), Duration.ofMillis(pollIntervalMs));
+    }
+}
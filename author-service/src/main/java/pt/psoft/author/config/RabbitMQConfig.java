@@ -6,6 +6,7 @@ import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import pt.psoft.shared.messaging.SagaCommand;
 
 /**
  * RabbitMQ Configuration for Author Service
@@ -19,6 +20,9 @@ public class RabbitMQConfig {
     // Queue for this service
     public static final String QUEUE_NAME = "author-service.events";
 
+    // Queue of the saga commands, shared by all replicas
+    public static final String COMMAND_QUEUE_NAME = "author-service.commands";
+
     // Routing keys
     public static final String ROUTING_KEY_AUTHOR_CREATED = "catalog.author.created";
     public static final String ROUTING_KEY_AUTHOR_UPDATED = "catalog.author.updated";
@@ -56,6 +60,20 @@ public class RabbitMQConfig {
                 .with(ROUTING_KEY_AUTHOR_DELETED);
     }
 
+    // Commands of the saga orchestrator (messaging mode)
+    @Bean
+    public Queue authorCommandsQueue() {
+        return QueueBuilder.durable(COMMAND_QUEUE_NAME)
+                .build();
+    }
+
+    @Bean
+    public Binding bindingAuthorCommands(Queue authorCommandsQueue, TopicExchange exchange) {
+        return BindingBuilder.bind(authorCommandsQueue)
+                .to(exchange)
+                .with(SagaCommand.ROUTING_KEY_RESOLVE_AUTHOR);
+    }
+
     @Bean
     public Jackson2JsonMessageConverter messageConverter() {
         return new Jackson2JsonMessageConverter();
@@ -9,9 +9,11 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.cache.RedisCacheConfiguration;
 import org.springframework.data.redis.cache.RedisCacheManager;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.RedisSerializationContext;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
+import pt.psoft.shared.utils.CollectionVersionCounter;
 
 import java.time.Duration;
 
@@ -41,4 +43,12 @@ public class RedisConfig {
                 .cacheDefaults(config)
                 .build();
     }
-}
\ No newline at end of file
+
+    /**
+     * Collection ETag of the authors list/search endpoints
+     */
+    @Bean
+    public CollectionVersionCounter collectionVersionCounter(StringRedisTemplate redisTemplate) {
+        return new CollectionVersionCounter(redisTemplate, "authors");
+    }
+}
@@ -11,6 +11,8 @@ import pt.psoft.author.repositories.mongo.AuthorQueryRepository;
 import pt.psoft.shared.events.author.AuthorCreatedEvent;
 import pt.psoft.shared.events.author.AuthorDeletedEvent;
 import pt.psoft.shared.events.author.AuthorUpdatedEvent;
+import pt.psoft.shared.messaging.ProjectionProgress;
+import pt.psoft.shared.utils.CollectionVersionCounter;
 
 /**
  * Event Handler for Author Domain Events
@@ -24,6 +26,8 @@ import pt.psoft.shared.events.author.AuthorUpdatedEvent;
 public class AuthorEventHandler {
 
     private final AuthorQueryRepository authorQueryRepository;
+    private final ProjectionProgress projectionProgress;
+    private final CollectionVersionCounter collectionVersionCounter;
 
     /**
      * Handle Author Created Event
@@ -47,6 +51,8 @@ public class AuthorEventHandler {
                     .build();
 
             authorQueryRepository.save(readModel);
+            projectionProgress.signal(String.valueOf(event.getAuthorNumber()));
+            collectionVersionCounter.increment();
 
             log.info("✅ [MONGODB] Created read model for author: {} (ID: {})",
                     event.getName(), event.getAuthorNumber());
@@ -87,6 +93,8 @@ public class AuthorEventHandler {
             );
 
             authorQueryRepository.save(readModel);
+            projectionProgress.signal(String.valueOf(event.getAuthorNumber()));
+            collectionVersionCounter.increment();
 
             log.info("✅ [MONGODB] Updated read model for author: {} (ID: {})",
                     event.getName(), event.getAuthorNumber());
@@ -109,6 +117,7 @@ public class AuthorEventHandler {
 
         try {
             authorQueryRepository.deleteByAuthorNumber(event.getAuthorNumber());
+            collectionVersionCounter.increment();
 
             log.info("✅ [MONGODB] Deleted read model for author number: {}",
                     event.getAuthorNumber());
@@ -0,0 +1,67 @@
+package pt.psoft.author.messaging;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.stereotype.Component;
+import pt.psoft.author.api.dto.AuthorView;
+import pt.psoft.author.config.RabbitMQConfig;
+import pt.psoft.author.model.command.AuthorEntity;
+import pt.psoft.author.services.AuthorCommandService;
+import pt.psoft.author.services.AuthorQueryService;
+import pt.psoft.shared.dto.author.AuthorDTO;
+import pt.psoft.shared.dto.author.CreateAuthorRequest;
+import pt.psoft.shared.messaging.SagaCommand;
+import pt.psoft.shared.messaging.SagaCommandProcessor;
+import pt.psoft.shared.messaging.SagaReply;
+
+/**
+ * Handles ResolveAuthor commands of the saga orchestrator (messaging mode):
+ * finds the author by exact name or creates it, and replies on lms.events
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class SagaCommandConsumer {
+
+    private final SagaCommandProcessor sagaCommandProcessor;
+    private final AuthorQueryService authorQueryService;
+    private final AuthorCommandService authorCommandService;
+    private final RabbitTemplate rabbitTemplate;
+
+    @RabbitListener(queues = RabbitMQConfig.COMMAND_QUEUE_NAME)
+    public void handleCommand(String message) {
+        SagaCommand command = sagaCommandProcessor.read(message);
+        if (command == null) {
+            return;
+        }
+        if (!SagaCommand.RESOLVE_AUTHOR.equals(command.getType())) {
+            log.warn("Ignoring saga command type: {}", command.getType());
+            return;
+        }
+
+        SagaReply reply = sagaCommandProcessor.process(command, this::resolveAuthor);
+        if (reply != null) {
+            rabbitTemplate.convertAndSend(RabbitMQConfig.EXCHANGE_NAME, command.getReplyTo(),
+                    sagaCommandProcessor.write(reply));
+        }
+    }
+
+    private SagaReply resolveAuthor(SagaCommand command) {
+        CreateAuthorRequest request = sagaCommandProcessor.payload(command, CreateAuthorRequest.class);
+
+        AuthorView existing = authorQueryService.findByExactName(request.getName());
+        if (existing != null) {
+            return SagaReply.success(command, true, sagaCommandProcessor.write(new AuthorDTO(
+                    existing.getAuthorNumber(), existing.getName(), existing.getBio(),
+                    existing.getPhotoURI(), existing.getVersion())));
+        }
+
+        AuthorEntity author = authorCommandService.createAuthor(request);
+        log.info("Author {} created for Saga {}", author.getAuthorNumber(), command.getSagaId());
+        return SagaReply.success(command, false, sagaCommandProcessor.write(new AuthorDTO(
+                author.getAuthorNumber(), author.getNameValue(), author.getBioValue(),
+                author.getPhotoURI(), author.getVersion())));
+    }
+}
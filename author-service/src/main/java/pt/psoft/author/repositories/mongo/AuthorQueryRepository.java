@@ -1,6 +1,7 @@
 package pt.psoft.author.repositories.mongo;
 
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
 import pt.psoft.author.model.query.AuthorReadModel;
 
@@ -19,12 +20,23 @@ public interface AuthorQueryRepository extends MongoRepository<AuthorReadModel,
      */
     Optional<AuthorReadModel> findByAuthorNumber(Long authorNumber);
 
+    /**
+     * Version only (ETag computation without loading the whole document)
+     */
+    @Query(value = "{ 'author_number': ?0 }", fields = "{ 'version': 1 }")
+    Optional<AuthorReadModel> findVersionByAuthorNumber(Long authorNumber);
+
     /**
      * Search Authors by name (starts with, case insensitive)
      * MongoDB's regex query
      */
     List<AuthorReadModel> findByNameStartingWithIgnoreCase(String name);
 
+    /**
+     * Author with exactly this name (case insensitive), the oldest if several share it
+     */
+    Optional<AuthorReadModel> findFirstByNameIgnoreCaseOrderByAuthorNumberAsc(String name);
+
     /**
      * Find all Authors ordered by name ascending
      */
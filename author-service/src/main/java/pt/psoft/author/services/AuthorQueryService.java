@@ -14,11 +14,26 @@ public interface AuthorQueryService {
      */
     AuthorView findByAuthorNumber(Long authorNumber);
 
+    /**
+     * Find Author once the read model has reached the given version (read-your-writes)
+     */
+    AuthorView findByAuthorNumber(Long authorNumber, long minVersion);
+
+    /**
+     * ETag (current version) of an Author, null if it does not exist
+     */
+    String findETag(Long authorNumber);
+
     /**
      * Search Authors by name (starts with)
      */
     List<AuthorView> searchByName(String name);
 
+    /**
+     * Find the Author with exactly this name (case insensitive), null if none
+     */
+    AuthorView findByExactName(String name);
+
     /**
      * Get all Authors ordered by name
      */
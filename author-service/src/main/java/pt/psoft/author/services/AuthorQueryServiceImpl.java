@@ -8,6 +8,7 @@ import org.springframework.transaction.annotation.Transactional;
 import pt.psoft.author.api.dto.AuthorView;
 import pt.psoft.author.model.query.AuthorReadModel;
 import pt.psoft.author.repositories.mongo.AuthorQueryRepository;
+import pt.psoft.shared.messaging.ProjectionProgress;
 
 import java.util.List;
 import java.util.stream.Collectors;
@@ -21,6 +22,7 @@ import java.util.stream.Collectors;
 public class AuthorQueryServiceImpl implements AuthorQueryService {
 
     private final AuthorQueryRepository authorQueryRepository;
+    private final ProjectionProgress projectionProgress;
 
     @Override
     @Transactional(readOnly = true)
@@ -32,6 +34,29 @@ public class AuthorQueryServiceImpl implements AuthorQueryService {
                 .orElse(null);
     }
 
+    /**
+     * Waits for the MongoDB projection, then reads it directly (the cache may still be stale)
+     */
+    @Override
+    public AuthorView findByAuthorNumber(Long authorNumber, long minVersion) {
+        log.debug("Finding author by number: {} at version >= {}", authorNumber, minVersion);
+
+        projectionProgress.await("Author", String.valueOf(authorNumber), minVersion,
+                id -> authorQueryRepository.findByAuthorNumber(Long.valueOf(id)).map(AuthorReadModel::getVersion));
+
+        return authorQueryRepository.findByAuthorNumber(authorNumber)
+                .map(this::toAuthorView)
+                .orElse(null);
+    }
+
+    @Override
+    @Cacheable(value = "authors", key = "'version:' + #authorNumber", unless = "#result == null")
+    public String findETag(Long authorNumber) {
+        return authorQueryRepository.findVersionByAuthorNumber(authorNumber)
+                .map(author -> String.valueOf(author.getVersion()))
+                .orElse(null);
+    }
+
     @Override
     @Transactional(readOnly = true)
     @Cacheable(value = "authors-search", key = "#name != null ? #name : 'all'", unless = "#result == null || #result.isEmpty()")
@@ -46,6 +71,15 @@ public class AuthorQueryServiceImpl implements AuthorQueryService {
                 .collect(Collectors.toList());
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public AuthorView findByExactName(String name) {
+        log.debug("Finding author by exact name: {}", name);
+        return authorQueryRepository.findFirstByNameIgnoreCaseOrderByAuthorNumberAsc(name.trim())
+                .map(this::toAuthorView)
+                .orElse(null);
+    }
+
     @Override
     @Transactional(readOnly = true)
     @Cacheable(value = "authors-all", unless = "#result == null || #result.isEmpty()")
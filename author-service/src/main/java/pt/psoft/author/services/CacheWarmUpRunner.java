@@ -0,0 +1,77 @@
+package pt.psoft.author.services;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import pt.psoft.author.api.dto.AuthorView;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Preloads the full author directory into Redis at startup.
+ *
+ * Runs as an ApplicationRunner, so readiness (and the /actuator/health
+ * check used by Traefik) only goes UP once the caches are warm.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class CacheWarmUpRunner implements ApplicationRunner {
+
+    private final AuthorQueryService authorQueryService;
+    private final CacheManager cacheManager;
+
+    @Value("${author.warmup.enabled:true}")
+    private boolean enabled;
+
+    @Value("${author.warmup.batch-size:200}")
+    private int batchSize;
+
+    @Value("${author.warmup.parallelism:4}")
+    private int parallelism;
+
+    @Value("${author.warmup.timeout-seconds:60}")
+    private long timeoutSeconds;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!enabled) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+
+        try {
+            // one bulk read through the proxy also fills "authors-all"
+            List<AuthorView> authors = authorQueryService.findAll();
+            Cache cache = cacheManager.getCache("authors");
+
+            ExecutorService pool = Executors.newFixedThreadPool(parallelism);
+            for (int i = 0; i < authors.size(); i += batchSize) {
+                List<AuthorView> batch = authors.subList(i, Math.min(i + batchSize, authors.size()));
+                // same key as AuthorQueryServiceImpl.findByAuthorNumber
+                pool.submit(() -> batch.forEach(author -> cache.put(author.getAuthorNumber(), author)));
+            }
+            pool.shutdown();
+            if (!pool.awaitTermination(timeoutSeconds, TimeUnit.SECONDS)) {
+                log.warn("Cache warm-up timed out after {}s, continuing startup", timeoutSeconds);
+                pool.shutdownNow();
+            }
+
+            log.info("✅ Cache warm-up: {} authors preloaded in {} ms",
+                    authors.size(), System.currentTimeMillis() - start);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            // a cold cache is still a working service
+            log.warn("Cache warm-up failed: {}", e.getMessage());
+        }
+    }
+}
@@ -11,6 +11,7 @@ import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 import pt.psoft.bookcommand.model.BookEntity;
 import pt.psoft.bookcommand.services.BookCommandService;
 import pt.psoft.shared.dto.book.CreateBookRequest;
+import pt.psoft.shared.messaging.ProjectionProgress;
 import pt.psoft.shared.utils.IsbnGenerator;
 
 import java.util.Collections;
@@ -40,6 +41,7 @@ public class BookCommandController {
 
         return ResponseEntity.created(newBookUri)
                 .eTag(String.valueOf(book.getVersion()))
+                .header(ProjectionProgress.CONSISTENCY_TOKEN_HEADER, String.valueOf(book.getVersion()))
                 .body(mapToBookView(book));
     }
 
@@ -57,6 +59,7 @@ public class BookCommandController {
 
         return ResponseEntity.created(newBookUri)
                 .eTag(String.valueOf(book.getVersion()))
+                .header(ProjectionProgress.CONSISTENCY_TOKEN_HEADER, String.valueOf(book.getVersion()))
                 .body(mapToBookView(book));
     }
 
@@ -71,6 +74,7 @@ public class BookCommandController {
 
         return ResponseEntity.ok()
                 .eTag(String.valueOf(book.getVersion()))
+                .header(ProjectionProgress.CONSISTENCY_TOKEN_HEADER, String.valueOf(book.getVersion()))
                 .body(mapToBookView(book));
     }
 
@@ -95,6 +99,7 @@ public class BookCommandController {
 
         return ResponseEntity.ok()
                 .eTag(String.valueOf(book.getVersion()))
+                .header(ProjectionProgress.CONSISTENCY_TOKEN_HEADER, String.valueOf(book.getVersion()))
                 .body(mapToBookView(book));
     }
 
@@ -1,26 +1,47 @@
 package pt.psoft.bookcommand.config;
 
+import org.springframework.amqp.core.Binding;
+import org.springframework.amqp.core.BindingBuilder;
+import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.core.QueueBuilder;
 import org.springframework.amqp.core.TopicExchange;
 import org.springframework.amqp.rabbit.connection.ConnectionFactory;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import pt.psoft.shared.messaging.SagaCommand;
 
 /**
  * RabbitMQ Configuration for Book Command Service
- * Only publishing configuration - no queue consumption
+ * Publishes book events; consumes only the saga's CreateBook commands
  */
 @Configuration
 public class RabbitMQConfig {
 
     public static final String EXCHANGE_NAME = "lms.events";
 
+    // Queue of the saga commands, shared by all replicas
+    public static final String COMMAND_QUEUE_NAME = "book-command-service.commands";
+
     @Bean
     public TopicExchange lmsEventsExchange() {
         return new TopicExchange(EXCHANGE_NAME, true, false);
     }
 
+    @Bean
+    public Queue bookCommandsQueue() {
+        return QueueBuilder.durable(COMMAND_QUEUE_NAME)
+                .build();
+    }
+
+    @Bean
+    public Binding bindingBookCommands(Queue bookCommandsQueue, TopicExchange lmsEventsExchange) {
+        return BindingBuilder.bind(bookCommandsQueue)
+                .to(lmsEventsExchange)
+                .with(SagaCommand.ROUTING_KEY_CREATE_BOOK);
+    }
+
     @Bean
     public Jackson2JsonMessageConverter messageConverter() {
         return new Jackson2JsonMessageConverter();
@@ -0,0 +1,59 @@
+package pt.psoft.bookcommand.messaging;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.stereotype.Component;
+import pt.psoft.bookcommand.config.RabbitMQConfig;
+import pt.psoft.bookcommand.model.BookEntity;
+import pt.psoft.bookcommand.services.BookCommandService;
+import pt.psoft.shared.dto.book.BookDTO;
+import pt.psoft.shared.dto.book.CreateBookRequest;
+import pt.psoft.shared.messaging.SagaCommand;
+import pt.psoft.shared.messaging.SagaCommandProcessor;
+import pt.psoft.shared.messaging.SagaReply;
+import pt.psoft.shared.utils.IsbnGenerator;
+
+/**
+ * Handles CreateBook commands of the saga orchestrator (messaging mode):
+ * creates the book with a generated ISBN and replies on lms.events
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class SagaCommandConsumer {
+
+    private final SagaCommandProcessor sagaCommandProcessor;
+    private final BookCommandService bookCommandService;
+    private final RabbitTemplate rabbitTemplate;
+
+    @RabbitListener(queues = RabbitMQConfig.COMMAND_QUEUE_NAME)
+    public void handleCommand(String message) {
+        SagaCommand command = sagaCommandProcessor.read(message);
+        if (command == null) {
+            return;
+        }
+        if (!SagaCommand.CREATE_BOOK.equals(command.getType())) {
+            log.warn("Ignoring saga command type: {}", command.getType());
+            return;
+        }
+
+        SagaReply reply = sagaCommandProcessor.process(command, this::createBook);
+        if (reply != null) {
+            rabbitTemplate.convertAndSend(RabbitMQConfig.EXCHANGE_NAME, command.getReplyTo(),
+                    sagaCommandProcessor.write(reply));
+        }
+    }
+
+    private SagaReply createBook(SagaCommand command) {
+        CreateBookRequest request = sagaCommandProcessor.payload(command, CreateBookRequest.class);
+
+        BookEntity book = bookCommandService.createBook(IsbnGenerator.generateValidIsbn(), request);
+        log.info("Book {} created for Saga {}", book.getIsbnValue(), command.getSagaId());
+
+        return SagaReply.success(command, false, sagaCommandProcessor.write(new BookDTO(
+                book.getIsbnValue(), book.getTitleValue(), book.getDescriptionValue(), book.getGenreName(),
+                book.getAuthorIds(), book.getPhotoURI(), book.getVersion())));
+    }
+}
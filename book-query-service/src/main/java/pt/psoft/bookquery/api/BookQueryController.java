@@ -3,6 +3,8 @@ package pt.psoft.bookquery.api;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.data.domain.Page;
@@ -11,12 +13,21 @@ import org.springframework.data.web.PageableDefault;
 import pt.psoft.bookquery.model.BookReview;
 import pt.psoft.bookquery.repositories.BookReviewRepository;
 import pt.psoft.bookquery.services.BookQueryService;
+import pt.psoft.shared.messaging.ProjectionProgress;
+import pt.psoft.shared.utils.CollectionVersionCounter;
+import pt.psoft.shared.utils.ETags;
 
 import java.util.List;
+import java.util.Objects;
+import java.util.function.Supplier;
 
 /**
  * REST Controller for Book Queries (Read Operations)
  * GET endpoints using denormalized read model
+ * Single books carry an ETag derived from the served book itself (the off-heap
+ * index is per replica, so a tag from anywhere else could describe another copy);
+ * collections carry the collection change counter and answer If-None-Match
+ * with 304 before anything is loaded.
  */
 @Tag(name = "Books - Queries", description = "Endpoints for book read operations (CQRS Query Side)")
 @RestController
@@ -26,40 +37,55 @@ public class BookQueryController {
 
     private final BookQueryService bookQueryService;
     private final BookReviewRepository bookReviewRepository;
+    private final CollectionVersionCounter collectionVersionCounter;
 
     @Operation(summary = "Get book by ISBN")
     @GetMapping("/{isbn}")
-    public ResponseEntity<BookView> findByIsbn(@PathVariable String isbn) {
+    public ResponseEntity<BookView> findByIsbn(
+            @PathVariable String isbn,
+            @RequestHeader(value = ProjectionProgress.CONSISTENCY_TOKEN_HEADER, required = false) Long minVersion,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        if (minVersion != null) {
+            BookView book = bookQueryService.findByIsbn(isbn, minVersion);
+            return ResponseEntity.ok(book);
+        }
         BookView book = bookQueryService.findByIsbn(isbn);
-        return ResponseEntity.ok(book);
+        return conditionalGet(ifNoneMatch, bookETag(book), () -> book);
     }
 
     @Operation(summary = "Get all books")
     @GetMapping
-    public ResponseEntity<List<BookView>> findAll() {
-        List<BookView> books = bookQueryService.findAll();
-        return ResponseEntity.ok(books);
+    public ResponseEntity<List<BookView>> findAll(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return conditionalGet(ifNoneMatch, collectionVersionCounter.currentETag(),
+                bookQueryService::findAll);
     }
 
     @Operation(summary = "Search books by title")
     @GetMapping("/search/title")
-    public ResponseEntity<List<BookView>> findByTitle(@RequestParam String title) {
-        List<BookView> books = bookQueryService.findByTitle(title);
-        return ResponseEntity.ok(books);
+    public ResponseEntity<List<BookView>> findByTitle(
+            @RequestParam String title,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return conditionalGet(ifNoneMatch, collectionVersionCounter.currentETag(),
+                () -> bookQueryService.findByTitle(title));
     }
 
     @Operation(summary = "Search books by genre")
     @GetMapping("/search/genre")
-    public ResponseEntity<List<BookView>> findByGenre(@RequestParam String genre) {
-        List<BookView> books = bookQueryService.findByGenre(genre);
-        return ResponseEntity.ok(books);
+    public ResponseEntity<List<BookView>> findByGenre(
+            @RequestParam String genre,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return conditionalGet(ifNoneMatch, collectionVersionCounter.currentETag(),
+                () -> bookQueryService.findByGenre(genre));
     }
 
     @Operation(summary = "Search books by author name")
     @GetMapping("/search/author")
-    public ResponseEntity<List<BookView>> findByAuthorName(@RequestParam String authorName) {
-        List<BookView> books = bookQueryService.findByAuthorName(authorName);
-        return ResponseEntity.ok(books);
+    public ResponseEntity<List<BookView>> findByAuthorName(
+            @RequestParam String authorName,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return conditionalGet(ifNoneMatch, collectionVersionCounter.currentETag(),
+                () -> bookQueryService.findByAuthorName(authorName));
     }
 
     @Operation(summary = "Search books with multiple criteria")
@@ -71,29 +97,54 @@ public class BookQueryController {
 
     @Operation(summary = "Count books by genre")
     @GetMapping("/count/genre")
-    public ResponseEntity<Long> countByGenre(@RequestParam String genre) {
-        long count = bookQueryService.countByGenre(genre);
-        return ResponseEntity.ok(count);
+    public ResponseEntity<Long> countByGenre(
+            @RequestParam String genre,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return conditionalGet(ifNoneMatch, collectionVersionCounter.currentETag(),
+                () -> bookQueryService.countByGenre(genre));
     }
 
     @Operation(summary = "Get reviews for a book by ISBN")
     @GetMapping("/{isbn}/reviews")
     public ResponseEntity<Page<ReviewView>> getBookReviews(
             @PathVariable String isbn,
-            @PageableDefault(size = 20) Pageable pageable) {
-        Page<BookReview> reviews = bookReviewRepository.findByIsbnOrderByReturnDateDesc(isbn, pageable);
-        Page<ReviewView> reviewViews = reviews.map(this::mapToReviewView);
-        return ResponseEntity.ok(reviewViews);
+            @PageableDefault(size = 20) Pageable pageable,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return conditionalGet(ifNoneMatch, collectionVersionCounter.currentETag(),
+                () -> bookReviewRepository.findByIsbnOrderByReturnDateDesc(isbn, pageable)
+                        .map(this::mapToReviewView));
     }
 
     @Operation(summary = "Get all reviews for a book (no pagination)")
     @GetMapping("/{isbn}/reviews/all")
-    public ResponseEntity<List<ReviewView>> getAllBookReviews(@PathVariable String isbn) {
-        List<BookReview> reviews = bookReviewRepository.findByIsbnOrderByReturnDateDesc(isbn);
-        List<ReviewView> reviewViews = reviews.stream()
-                .map(this::mapToReviewView)
-                .toList();
-        return ResponseEntity.ok(reviewViews);
+    public ResponseEntity<List<ReviewView>> getAllBookReviews(
+            @PathVariable String isbn,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return conditionalGet(ifNoneMatch, collectionVersionCounter.currentETag(),
+                () -> bookReviewRepository.findByIsbnOrderByReturnDateDesc(isbn).stream()
+                        .map(this::mapToReviewView)
+                        .toList());
+    }
+
+    /**
+     * 304 if the client already has this ETag, otherwise load and tag the body.
+     * Without an ETag (e.g. Redis down) the request is served unconditionally.
+     */
+    private <T> ResponseEntity<T> conditionalGet(String ifNoneMatch, String etag, Supplier<T> loader) {
+        if (etag == null) {
+            return ResponseEntity.ok(loader.get());
+        }
+        if (ETags.matches(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        return ResponseEntity.ok().eTag(etag).body(loader.get());
+    }
+
+    /**
+     * Version plus the review aggregates, which change without a version bump
+     */
+    private static String bookETag(BookView book) {
+        return book.getVersion() + "-" + Integer.toHexString(Objects.hash(book.getAverageRating(), book.getTotalReviews()));
     }
 
     private ReviewView mapToReviewView(BookReview review) {
@@ -0,0 +1,115 @@
+package pt.psoft.bookquery.cache;
+
+import pt.psoft.bookquery.model.BookReadModel;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Compact binary layout for a BookReadModel.
+ *
+ * <pre>
+ * [version:8][averageRating:8][totalReviews:4]
+ * [isbn][title][description][genreName][authorNames][authorIds][photoURI]
+ * </pre>
+ * Each string is a 4-byte length (-1 for null) followed by its UTF-8 bytes.
+ */
+public final class BookRecordCodec {
+
+    private static final int FIXED_SIZE = Long.BYTES + Double.BYTES + Integer.BYTES;
+
+    private BookRecordCodec() {
+    }
+
+    /**
+     * Encode a read model into a standalone byte array
+     */
+    public static byte[] encode(BookReadModel book) {
+        byte[][] strings = {
+                utf8(book.getIsbn()),
+                utf8(book.getTitle()),
+                utf8(book.getDescription()),
+                utf8(book.getGenreName()),
+                utf8(book.getAuthorNames()),
+                utf8(book.getAuthorIds()),
+                utf8(book.getPhotoURI())
+        };
+
+        int size = FIXED_SIZE;
+        for (byte[] s : strings) {
+            size += Integer.BYTES + (s != null ? s.length : 0);
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        buffer.putLong(book.getVersion() != null ? book.getVersion() : 0L);
+        buffer.putDouble(book.getAverageRating() != null ? book.getAverageRating() : 0.0);
+        buffer.putInt(book.getTotalReviews() != null ? book.getTotalReviews() : 0);
+        for (byte[] s : strings) {
+            if (s == null) {
+                buffer.putInt(-1);
+            } else {
+                buffer.putInt(s.length);
+                buffer.put(s);
+            }
+        }
+        return buffer.array();
+    }
+
+    /**
+     * Decode a record stored at an absolute offset of the given buffer.
+     * Uses absolute reads only, so it is safe for concurrent readers.
+     */
+    public static BookReadModel decode(ByteBuffer buffer, int offset) {
+        int[] cursor = {offset + FIXED_SIZE};
+
+        long version = buffer.getLong(offset);
+        double averageRating = buffer.getDouble(offset + Long.BYTES);
+        int totalReviews = buffer.getInt(offset + Long.BYTES + Double.BYTES);
+
+        BookReadModel book = new BookReadModel(
+                readString(buffer, cursor),
+                readString(buffer, cursor),
+                readString(buffer, cursor),
+                readString(buffer, cursor),
+                readString(buffer, cursor),
+                readString(buffer, cursor),
+                readString(buffer, cursor),
+                version
+        );
+        book.setAverageRating(averageRating);
+        book.setTotalReviews(totalReviews);
+        return book;
+    }
+
+    /**
+     * Read only the ISBN of a stored record (used to reject aliased keys)
+     */
+    public static String decodeIsbn(ByteBuffer buffer, int offset) {
+        return readString(buffer, new int[]{offset + FIXED_SIZE});
+    }
+
+    /**
+     * Whether a stored record has this version and these rating aggregates (which change without a version bump)
+     */
+    public static boolean hasVersion(ByteBuffer buffer, int offset, Long version, Double averageRating, Integer totalReviews) {
+        return buffer.getLong(offset) == (version != null ? version : 0L)
+                && buffer.getDouble(offset + Long.BYTES) == (averageRating != null ? averageRating : 0.0)
+                && buffer.getInt(offset + Long.BYTES + Double.BYTES) == (totalReviews != null ? totalReviews : 0);
+    }
+
+    private static String readString(ByteBuffer buffer, int[] cursor) {
+        int length = buffer.getInt(cursor[0]);
+        cursor[0] += Integer.BYTES;
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(cursor[0], bytes);
+        cursor[0] += length;
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static byte[] utf8(String value) {
+        return value != null ? value.getBytes(StandardCharsets.UTF_8) : null;
+    }
+}
@@ -0,0 +1,233 @@
+package pt.psoft.bookquery.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import pt.psoft.bookquery.model.BookReadModel;
+import pt.psoft.bookquery.repositories.BookQueryRepository;
+import pt.psoft.bookquery.repositories.BookQueryRepository.BookVersion;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+/**
+ * Catalog snapshot for fast replica bootstrap.
+ *
+ * One replica at a time (the holder of a Redis lease) periodically writes every
+ * BookReadModel to a binary file (see {@link MappedCatalogSnapshot}), reading the
+ * read model with keyset paging. bookquery.snapshot.path must be on a volume
+ * shared by the replicas.
+ *
+ * A starting replica maps the file and serves misses of its off-heap index from
+ * the mapping. Before that it catches up by comparing the projected version (and
+ * rating aggregates) of every book with the snapshot: books changed or deleted
+ * since are masked and read from the database instead.
+ */
+@Service
+@Slf4j
+public class CatalogSnapshotService {
+
+    static final String WRITER_LEASE_KEY = "book-query:snapshot-writer";
+
+    private final BookQueryRepository bookQueryRepository;
+    private final OffHeapBookIndex offHeapBookIndex;
+    private final StringRedisTemplate redisTemplate;
+    private final boolean enabled;
+    private final Path snapshotPath;
+    private final int pageSize;
+    private final Duration writerLease;
+    private final String owner = UUID.randomUUID().toString();
+
+    public CatalogSnapshotService(BookQueryRepository bookQueryRepository,
+                                  OffHeapBookIndex offHeapBookIndex,
+                                  StringRedisTemplate redisTemplate,
+                                  @Value("${bookquery.snapshot.enabled:true}") boolean enabled,
+                                  @Value("${bookquery.snapshot.path:/data/book-query/catalog.snapshot}") String snapshotPath,
+                                  @Value("${bookquery.snapshot.page-size:1000}") int pageSize,
+                                  @Value("${bookquery.snapshot.interval-ms:300000}") long intervalMs) {
+        this.bookQueryRepository = bookQueryRepository;
+        this.offHeapBookIndex = offHeapBookIndex;
+        this.redisTemplate = redisTemplate;
+        this.enabled = enabled && offHeapBookIndex.isEnabled();
+        this.snapshotPath = Path.of(snapshotPath);
+        this.pageSize = pageSize;
+        // outlives a round, so the writer keeps it; a dead writer is replaced within two rounds
+        this.writerLease = Duration.ofMillis(2 * intervalMs);
+    }
+
+    /**
+     * Serve the off-heap index misses from the latest snapshot, after catching up
+     */
+    @EventListener(ApplicationStartedEvent.class)
+    public void restoreOnStartup() {
+        if (!enabled || !Files.exists(snapshotPath)) {
+            log.info("No catalog snapshot to restore ({})", snapshotPath);
+            return;
+        }
+
+        long start = System.currentTimeMillis();
+        try {
+            MappedCatalogSnapshot snapshot = MappedCatalogSnapshot.open(snapshotPath);
+            offHeapBookIndex.attachSnapshot(snapshot);
+            int stale = catchUp(snapshot);
+            offHeapBookIndex.serveSnapshot();
+            log.info("✅ Catalog snapshot mapped: {} books ({} changed since) in {} ms",
+                    snapshot.count(), stale, System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            // a bad snapshot must never block startup; fall back to a cold index
+            log.warn("Failed to restore catalog snapshot {}, starting cold", snapshotPath, e);
+            offHeapBookIndex.clear();
+        }
+    }
+
+    /**
+     * Write a fresh snapshot (temp file + atomic rename), on the lease holder only
+     */
+    @Scheduled(fixedDelayString = "${bookquery.snapshot.interval-ms:300000}",
+            initialDelayString = "${bookquery.snapshot.initial-delay-ms:60000}")
+    public void writeSnapshot() {
+        if (!enabled || !holdsWriterLease()) {
+            return;
+        }
+
+        long start = System.currentTimeMillis();
+        try {
+            Files.createDirectories(snapshotPath.toAbsolutePath().getParent());
+            Path tmp = snapshotPath.resolveSibling(snapshotPath.getFileName() + "." + owner + ".tmp");
+
+            int count = 0;
+            long[] keys = new long[Math.max(pageSize, 16)];
+            int[] offsets = new int[keys.length];
+            long offset = MappedCatalogSnapshot.HEADER_SIZE;
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                    Files.newOutputStream(tmp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING),
+                    1 << 16))) {
+                out.writeInt(MappedCatalogSnapshot.MAGIC);
+                out.writeInt(MappedCatalogSnapshot.FORMAT);
+                out.writeLong(start);
+                out.writeInt(0); // count, patched below
+                out.writeInt(0); // directory offset, patched below
+
+                String after = "";
+                List<BookReadModel> page;
+                do {
+                    page = bookQueryRepository.findPageAfter(after, PageRequest.of(0, pageSize));
+                    for (BookReadModel book : page) {
+                        long key = IsbnKeys.toKey(book.getIsbn());
+                        if (key == IsbnKeys.NO_KEY) {
+                            continue;
+                        }
+                        byte[] record = BookRecordCodec.encode(book);
+                        if (offset + 4 + record.length > Integer.MAX_VALUE) {
+                            throw new IOException("Catalog snapshot would exceed 2 GB");
+                        }
+                        if (count == keys.length) {
+                            keys = Arrays.copyOf(keys, count * 2);
+                            offsets = Arrays.copyOf(offsets, count * 2);
+                        }
+                        keys[count] = key;
+                        offsets[count] = (int) offset;
+                        count++;
+                        out.writeInt(record.length);
+                        out.write(record);
+                        offset += 4 + record.length;
+                    }
+                    if (!page.isEmpty()) {
+                        after = page.get(page.size() - 1).getIsbn();
+                    }
+                } while (page.size() == pageSize);
+
+                long directoryEnd = offset + (long) count * MappedCatalogSnapshot.ENTRY_SIZE;
+                if (directoryEnd > Integer.MAX_VALUE) {
+                    throw new IOException("Catalog snapshot would exceed 2 GB");
+                }
+                long[] sortedKeys = keys;
+                int[] sortedOffsets = offsets;
+                for (int entry : IntStream.range(0, count).boxed()
+                        .sorted(Comparator.comparingLong(entry -> sortedKeys[entry]))
+                        .mapToInt(Integer::intValue).toArray()) {
+                    out.writeLong(sortedKeys[entry]);
+                    out.writeInt(sortedOffsets[entry]);
+                }
+            }
+
+            try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+                channel.write(ByteBuffer.allocate(8).putInt(0, count).putInt(4, (int) offset), 16);
+            }
+            Files.move(tmp, snapshotPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+            log.info("Catalog snapshot written: {} books, {} bytes in {} ms",
+                    count, Files.size(snapshotPath), System.currentTimeMillis() - start);
+        } catch (IOException e) {
+            log.error("Failed to write catalog snapshot {}", snapshotPath, e);
+        }
+    }
+
+    private boolean holdsWriterLease() {
+        try {
+            if (Boolean.TRUE.equals(redisTemplate.opsForValue().setIfAbsent(WRITER_LEASE_KEY, owner, writerLease))) {
+                return true;
+            }
+            return owner.equals(redisTemplate.opsForValue().get(WRITER_LEASE_KEY))
+                    && Boolean.TRUE.equals(redisTemplate.expire(WRITER_LEASE_KEY, writerLease));
+        } catch (DataAccessException e) {
+            log.warn("Could not take the catalog snapshot lease: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Mask snapshot books whose projected version changed since, or that were deleted since.
+     * Books created since are not in the snapshot and are read from the database anyway.
+     */
+    private int catchUp(MappedCatalogSnapshot snapshot) {
+        BitSet live = new BitSet(snapshot.count());
+        int stale = 0;
+
+        String after = "";
+        List<BookVersion> page;
+        do {
+            page = bookQueryRepository.findVersionsAfter(after, PageRequest.of(0, pageSize));
+            for (BookVersion book : page) {
+                int entry = snapshot.indexOf(book.getIsbn());
+                if (entry < 0) {
+                    continue;
+                }
+                live.set(entry);
+                if (!snapshot.matches(entry, book.getVersion(), book.getAverageRating(), book.getTotalReviews())) {
+                    offHeapBookIndex.remove(book.getIsbn());
+                    stale++;
+                }
+            }
+            if (!page.isEmpty()) {
+                after = page.get(page.size() - 1).getIsbn();
+            }
+        } while (page.size() == pageSize);
+
+        for (int entry = live.nextClearBit(0); entry < snapshot.count(); entry = live.nextClearBit(entry + 1)) {
+            offHeapBookIndex.remove(snapshot.isbnAt(entry));
+            stale++;
+        }
+        return stale;
+    }
+}
@@ -0,0 +1,63 @@
+package pt.psoft.bookquery.cache;
+
+/**
+ * Maps ISBN strings to primitive long keys.
+ * ISBN-13 values fit in 44 bits; ISBN-10 values are promoted to their 978-prefixed ISBN-13 form.
+ */
+public final class IsbnKeys {
+
+    /** Returned when the ISBN cannot be represented as a key */
+    public static final long NO_KEY = 0L;
+
+    private IsbnKeys() {
+    }
+
+    /**
+     * Convert an ISBN (with or without hyphens/spaces) to its long key
+     */
+    public static long toKey(String isbn) {
+        if (isbn == null) {
+            return NO_KEY;
+        }
+
+        String digits = isbn.replaceAll("[\\s-]", "");
+
+        if (digits.length() == 13) {
+            return parseDigits(digits, 13);
+        }
+
+        if (digits.length() == 10) {
+            // ISBN-10 -> ISBN-13: drop the old check digit, prefix 978, recompute
+            long body = parseDigits(digits, 9);
+            if (body == NO_KEY && !digits.startsWith("000000000")) {
+                return NO_KEY;
+            }
+            long prefixed = 978_000_000_000L + body;
+            return prefixed * 10 + isbn13CheckDigit(prefixed);
+        }
+
+        return NO_KEY;
+    }
+
+    private static long parseDigits(String digits, int count) {
+        long value = 0;
+        for (int i = 0; i < count; i++) {
+            char c = digits.charAt(i);
+            if (c < '0' || c > '9') {
+                return NO_KEY;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    private static int isbn13CheckDigit(long first12) {
+        int sum = 0;
+        for (int i = 11; i >= 0; i--) {
+            int digit = (int) (first12 % 10);
+            first12 /= 10;
+            sum += (i % 2 == 0) ? digit : digit * 3;
+        }
+        return (10 - (sum % 10)) % 10;
+    }
+}
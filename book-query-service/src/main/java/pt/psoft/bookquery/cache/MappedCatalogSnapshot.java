@@ -0,0 +1,133 @@
+package pt.psoft.bookquery.cache;
+
+import pt.psoft.bookquery.model.BookReadModel;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Optional;
+
+/**
+ * Read-only view of a catalog snapshot file, served straight from the mapping.
+ *
+ * File layout: [magic:4][format:4][written at ms:8][count:4][directory offset:4],
+ * then count x [length:4][record] using {@link BookRecordCodec}, then a directory
+ * of count x [key:8][record offset:4] sorted by ISBN key (see {@link IsbnKeys}).
+ * Lookups binary-search the directory, so nothing is copied to the heap or the index.
+ *
+ * The mapping outlives the file: a snapshot replaced by a newer one (atomic rename)
+ * stays readable until this view is dropped.
+ */
+public final class MappedCatalogSnapshot {
+
+    static final int MAGIC = 0x424B5153; // "BKQS"
+    static final int FORMAT = 2;
+    static final int HEADER_SIZE = 4 + 4 + 8 + 4 + 4;
+    static final int ENTRY_SIZE = 8 + 4;
+
+    private final MappedByteBuffer mapped;
+    private final long writtenAt;
+    private final int count;
+    private final int directory;
+
+    private MappedCatalogSnapshot(MappedByteBuffer mapped) throws IOException {
+        this.mapped = mapped;
+        if (mapped.capacity() < HEADER_SIZE || mapped.getInt(0) != MAGIC || mapped.getInt(4) != FORMAT) {
+            throw new IOException("Unsupported snapshot format");
+        }
+        this.writtenAt = mapped.getLong(8);
+        this.count = mapped.getInt(16);
+        this.directory = mapped.getInt(20);
+        if (count < 0 || directory < HEADER_SIZE || (long) directory + (long) count * ENTRY_SIZE > mapped.capacity()) {
+            throw new IOException("Truncated snapshot");
+        }
+    }
+
+    /**
+     * Map a snapshot file and check its header
+     */
+    public static MappedCatalogSnapshot open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Snapshot larger than 2 GB");
+            }
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            mapped.order(ByteOrder.BIG_ENDIAN);
+            return new MappedCatalogSnapshot(mapped);
+        }
+    }
+
+    public int count() {
+        return count;
+    }
+
+    public long writtenAt() {
+        return writtenAt;
+    }
+
+    /**
+     * Book stored for exactly this ISBN
+     */
+    public Optional<BookReadModel> find(String isbn) {
+        int entry = indexOf(isbn);
+        return entry >= 0 ? Optional.of(BookRecordCodec.decode(mapped, recordOffset(entry))) : Optional.empty();
+    }
+
+    /**
+     * Directory position of the record stored for exactly this ISBN, or -1
+     */
+    public int indexOf(String isbn) {
+        long key = IsbnKeys.toKey(isbn);
+        if (key == IsbnKeys.NO_KEY) {
+            return -1;
+        }
+
+        int low = 0;
+        int high = count - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            long midKey = keyAt(mid);
+            if (midKey < key) {
+                low = mid + 1;
+            } else if (midKey > key) {
+                high = mid - 1;
+            } else {
+                // ISBN-10 and its ISBN-13 form share a key: check the neighbours too
+                int first = mid;
+                while (first > 0 && keyAt(first - 1) == key) {
+                    first--;
+                }
+                for (int entry = first; entry < count && keyAt(entry) == key; entry++) {
+                    if (isbn.equals(isbnAt(entry))) {
+                        return entry;
+                    }
+                }
+                return -1;
+            }
+        }
+        return -1;
+    }
+
+    public String isbnAt(int entry) {
+        return BookRecordCodec.decodeIsbn(mapped, recordOffset(entry));
+    }
+
+    /**
+     * Whether the record at a directory position has this version and these rating aggregates
+     */
+    public boolean matches(int entry, Long version, Double averageRating, Integer totalReviews) {
+        return BookRecordCodec.hasVersion(mapped, recordOffset(entry), version, averageRating, totalReviews);
+    }
+
+    private long keyAt(int entry) {
+        return mapped.getLong(directory + entry * ENTRY_SIZE);
+    }
+
+    private int recordOffset(int entry) {
+        // the directory points at the length prefix
+        return mapped.getInt(directory + entry * ENTRY_SIZE + 8) + 4;
+    }
+}
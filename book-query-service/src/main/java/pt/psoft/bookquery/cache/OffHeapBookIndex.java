@@ -0,0 +1,455 @@
+package pt.psoft.bookquery.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import pt.psoft.bookquery.model.BookReadModel;
+
+import java.nio.ByteBuffer;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * Off-heap hot set of BookReadModels keyed by the ISBN as a primitive long.
+ *
+ * Slot table: open addressing with linear probing in a direct buffer,
+ * 16 bytes per slot [key:8][arenaOffset:4][length:4] (key 0 = empty).
+ * Records live in a separate direct-buffer arena (see {@link BookRecordCodec});
+ * updates append and the arena is compacted when it fills up.
+ * Nothing but the two buffers stays on the heap, regardless of the number of books.
+ *
+ * Each replica holds its own index, so writes are broadcast to every replica after commit
+ * (see ReadModelCommitListener). Read-through callers take a {@link #stamp()} before loading
+ * from the database and put with it, so a row read before an invalidation is never cached after it.
+ *
+ * A replica bootstrapped from a {@link MappedCatalogSnapshot} answers misses from the mapped file,
+ * except for books put or removed since it was attached: those are only served from the index or the database.
+ */
+@Component
+@Slf4j
+public class OffHeapBookIndex {
+
+    private static final int SLOT_SIZE = 16;
+    private static final double MAX_LOAD_FACTOR = 0.75;
+    // keeps slotCount * SLOT_SIZE within an int
+    private static final int SLOT_LIMIT = 1 << 26;
+
+    private final boolean enabled;
+    private final int maxSlots;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private ByteBuffer slots;
+    private int slotCount;
+    private int size;
+
+    private ByteBuffer arena;
+    private int arenaTop;
+    private long arenaGarbage;
+    private volatile long invalidations;
+
+    private volatile MappedCatalogSnapshot snapshot;
+    private volatile boolean snapshotServing;
+    // keys changed since the snapshot was attached
+    private final Set<Long> superseded = ConcurrentHashMap.newKeySet();
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter snapshotHits;
+    private final Counter rejected;
+    private final Timer lookupTimer;
+
+    public OffHeapBookIndex(@Value("${bookquery.offheap-index.enabled:true}") boolean enabled,
+                            @Value("${bookquery.offheap-index.initial-slots:65536}") int initialSlots,
+                            @Value("${bookquery.offheap-index.max-slots:4194304}") int maxSlots,
+                            @Value("${bookquery.offheap-index.arena-size-mb:128}") int arenaSizeMb,
+                            MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.maxSlots = Math.min(Integer.highestOneBit(Math.max(maxSlots, 16)), SLOT_LIMIT);
+        this.slotCount = Math.min(Integer.highestOneBit(Math.max(initialSlots, 16)), this.maxSlots);
+
+        if (enabled) {
+            // a direct buffer is int-indexed, so the arena must stay below 2 GB
+            long arenaBytes = (long) arenaSizeMb * 1024 * 1024;
+            if (arenaSizeMb <= 0 || arenaBytes > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException(
+                        "bookquery.offheap-index.arena-size-mb must be between 1 and 2047, was " + arenaSizeMb);
+            }
+            this.slots = ByteBuffer.allocateDirect(slotCount * SLOT_SIZE);
+            this.arena = ByteBuffer.allocateDirect((int) arenaBytes);
+            log.info("Off-heap book index enabled: {} slots, {} MB arena", slotCount, arenaSizeMb);
+        }
+
+        this.hits = Counter.builder("bookquery.offheap.index.requests").tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder("bookquery.offheap.index.requests").tag("result", "miss").register(meterRegistry);
+        this.snapshotHits = Counter.builder("bookquery.offheap.index.requests").tag("result", "snapshot").register(meterRegistry);
+        this.rejected = Counter.builder("bookquery.offheap.index.rejected").register(meterRegistry);
+        this.lookupTimer = Timer.builder("bookquery.offheap.index.lookup")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        Gauge.builder("bookquery.offheap.index.entries", this, OffHeapBookIndex::size).register(meterRegistry);
+        Gauge.builder("bookquery.offheap.index.bytes", this, OffHeapBookIndex::offHeapBytes).register(meterRegistry);
+        Gauge.builder("bookquery.offheap.index.arena.used", this, i -> i.arenaTop).register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Look up a book by ISBN
+     */
+    public Optional<BookReadModel> get(String isbn) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        long key = IsbnKeys.toKey(isbn);
+        if (key == IsbnKeys.NO_KEY) {
+            return Optional.empty();
+        }
+
+        long start = System.nanoTime();
+        lock.readLock().lock();
+        try {
+            int slot = findSlot(key);
+            if (slot >= 0) {
+                int offset = slots.getInt(slot * SLOT_SIZE + 8);
+                // ISBN-10 and its ISBN-13 form share a key; only answer for the exact ISBN
+                if (isbn.equals(BookRecordCodec.decodeIsbn(arena, offset))) {
+                    hits.increment();
+                    return Optional.of(BookRecordCodec.decode(arena, offset));
+                }
+            }
+
+            MappedCatalogSnapshot mapped = snapshot;
+            if (mapped != null && snapshotServing && !superseded.contains(key)) {
+                Optional<BookReadModel> book = mapped.find(isbn);
+                if (book.isPresent()) {
+                    snapshotHits.increment();
+                    return book;
+                }
+            }
+            misses.increment();
+            return Optional.empty();
+        } finally {
+            lock.readLock().unlock();
+            lookupTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Invalidation stamp to take before reading a book from the database
+     */
+    public long stamp() {
+        return invalidations;
+    }
+
+    /**
+     * Insert or replace a book. Returns false when the index is full.
+     */
+    public boolean put(BookReadModel book) {
+        return put(book, -1);
+    }
+
+    /**
+     * Insert or replace a book read at the given stamp.
+     * Returns false when the index is full, or when something was invalidated since the stamp.
+     */
+    public boolean put(BookReadModel book, long stamp) {
+        if (!enabled) {
+            return false;
+        }
+        long key = IsbnKeys.toKey(book.getIsbn());
+        if (key == IsbnKeys.NO_KEY) {
+            return false;
+        }
+        byte[] record = BookRecordCodec.encode(book);
+
+        lock.writeLock().lock();
+        try {
+            supersede(key);
+            if (stamp >= 0 && stamp != invalidations) {
+                return false;
+            }
+            int existing = findSlot(key);
+            if (existing < 0 && size + 1 > slotCount * MAX_LOAD_FACTOR && !growSlots()) {
+                rejected.increment();
+                return false;
+            }
+            if (!ensureArenaSpace(record.length)) {
+                // never leave a stale version behind
+                if (existing >= 0) {
+                    arenaGarbage += slots.getInt(existing * SLOT_SIZE + 12);
+                    deleteSlot(existing);
+                    size--;
+                }
+                rejected.increment();
+                return false;
+            }
+
+            // compaction may have moved records, but never slots
+            int offset = arenaTop;
+            arena.put(offset, record);
+            arenaTop += record.length;
+
+            int slot = existing >= 0 ? existing : insertionSlot(key);
+            int base = slot * SLOT_SIZE;
+            if (existing >= 0) {
+                arenaGarbage += slots.getInt(base + 12);
+            } else {
+                size++;
+            }
+            slots.putLong(base, key);
+            slots.putInt(base + 8, offset);
+            slots.putInt(base + 12, record.length);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Remove a book (no-op if absent)
+     */
+    public void remove(String isbn) {
+        if (!enabled) {
+            return;
+        }
+        long key = IsbnKeys.toKey(isbn);
+        if (key == IsbnKeys.NO_KEY) {
+            return;
+        }
+
+        lock.writeLock().lock();
+        try {
+            invalidations++;
+            supersede(key);
+            int slot = findSlot(key);
+            if (slot < 0) {
+                return;
+            }
+            arenaGarbage += slots.getInt(slot * SLOT_SIZE + 12);
+            deleteSlot(slot);
+            size--;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Drop every entry
+     */
+    public void clear() {
+        if (!enabled) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            invalidations++;
+            snapshot = null;
+            snapshotServing = false;
+            superseded.clear();
+            for (int i = 0; i < slotCount; i++) {
+                slots.putLong(i * SLOT_SIZE, IsbnKeys.NO_KEY);
+            }
+            size = 0;
+            arenaTop = 0;
+            arenaGarbage = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Answer misses from a snapshot once {@link #serveSnapshot()} is called.
+     * Books put or removed from now on are never answered from it, so catch-up
+     * can run (and mark stale books with {@link #remove}) while events keep arriving.
+     */
+    public void attachSnapshot(MappedCatalogSnapshot mapped) {
+        if (!enabled) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            superseded.clear();
+            snapshotServing = false;
+            snapshot = mapped;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Start answering from the attached snapshot (after catch-up)
+     */
+    public void serveSnapshot() {
+        snapshotServing = snapshot != null;
+    }
+
+    /**
+     * Visit the ISBN of every indexed book
+     */
+    public void forEachIsbn(Consumer<String> consumer) {
+        if (!enabled) {
+            return;
+        }
+        lock.readLock().lock();
+        try {
+            for (int i = 0; i < slotCount; i++) {
+                int base = i * SLOT_SIZE;
+                if (slots.getLong(base) != IsbnKeys.NO_KEY) {
+                    consumer.accept(BookRecordCodec.decodeIsbn(arena, slots.getInt(base + 8)));
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long offHeapBytes() {
+        if (!enabled) {
+            return 0;
+        }
+        return (long) slots.capacity() + arena.capacity();
+    }
+
+    // ===== open addressing internals (callers hold the lock) =====
+
+    private void supersede(long key) {
+        if (snapshot != null) {
+            superseded.add(key);
+        }
+    }
+
+    private int findSlot(long key) {
+        int mask = slotCount - 1;
+        int slot = hash(key) & mask;
+        while (true) {
+            long current = slots.getLong(slot * SLOT_SIZE);
+            if (current == IsbnKeys.NO_KEY) {
+                return -1;
+            }
+            if (current == key) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    private int insertionSlot(long key) {
+        int mask = slotCount - 1;
+        int slot = hash(key) & mask;
+        while (slots.getLong(slot * SLOT_SIZE) != IsbnKeys.NO_KEY) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * Backward-shift deletion keeps probe chains intact without tombstones
+     */
+    private void deleteSlot(int slot) {
+        int mask = slotCount - 1;
+        int hole = slot;
+        int next = (slot + 1) & mask;
+        while (true) {
+            long key = slots.getLong(next * SLOT_SIZE);
+            if (key == IsbnKeys.NO_KEY) {
+                break;
+            }
+            int home = hash(key) & mask;
+            // move the entry back if its home is not cyclically within (hole, next]
+            boolean movable = hole <= next
+                    ? (home <= hole || home > next)
+                    : (home <= hole && home > next);
+            if (movable) {
+                copySlot(next, hole);
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+        slots.putLong(hole * SLOT_SIZE, IsbnKeys.NO_KEY);
+    }
+
+    private void copySlot(int from, int to) {
+        int src = from * SLOT_SIZE;
+        int dst = to * SLOT_SIZE;
+        slots.putLong(dst, slots.getLong(src));
+        slots.putInt(dst + 8, slots.getInt(src + 8));
+        slots.putInt(dst + 12, slots.getInt(src + 12));
+    }
+
+    private boolean growSlots() {
+        if (slotCount >= maxSlots) {
+            return false;
+        }
+        ByteBuffer old = slots;
+        int oldCount = slotCount;
+
+        slotCount = slotCount * 2;
+        slots = ByteBuffer.allocateDirect(slotCount * SLOT_SIZE);
+        for (int i = 0; i < oldCount; i++) {
+            long key = old.getLong(i * SLOT_SIZE);
+            if (key != IsbnKeys.NO_KEY) {
+                int base = insertionSlot(key) * SLOT_SIZE;
+                slots.putLong(base, key);
+                slots.putInt(base + 8, old.getInt(i * SLOT_SIZE + 8));
+                slots.putInt(base + 12, old.getInt(i * SLOT_SIZE + 12));
+            }
+        }
+        log.debug("Off-heap book index grown to {} slots", slotCount);
+        return true;
+    }
+
+    private boolean ensureArenaSpace(int length) {
+        if (arenaTop + length <= arena.capacity()) {
+            return true;
+        }
+        if (arenaGarbage == 0 || (arenaTop - arenaGarbage) + length > arena.capacity()) {
+            return false;
+        }
+        compactArena();
+        return arenaTop + length <= arena.capacity();
+    }
+
+    private void compactArena() {
+        ByteBuffer compacted = ByteBuffer.allocateDirect(arena.capacity());
+        int top = 0;
+        for (int i = 0; i < slotCount; i++) {
+            int base = i * SLOT_SIZE;
+            if (slots.getLong(base) == IsbnKeys.NO_KEY) {
+                continue;
+            }
+            int offset = slots.getInt(base + 8);
+            int length = slots.getInt(base + 12);
+            compacted.put(top, arena, offset, length);
+            slots.putInt(base + 8, top);
+            top += length;
+        }
+        log.debug("Off-heap book index arena compacted: {} -> {} bytes", arenaTop, top);
+        arena = compacted;
+        arenaTop = top;
+        arenaGarbage = 0;
+    }
+
+    private static int hash(long key) {
+        // MurmurHash3 fmix64 - ISBNs share long common prefixes
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return (int) key;
+    }
+}
@@ -9,9 +9,11 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.cache.RedisCacheConfiguration;
 import org.springframework.data.redis.cache.RedisCacheManager;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.RedisSerializationContext;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
+import pt.psoft.shared.utils.CollectionVersionCounter;
 
 import java.time.Duration;
 
@@ -48,6 +50,15 @@ public class CacheConfig {
 
         return RedisCacheManager.builder(connectionFactory)
                 .cacheDefaults(config)
+                .enableStatistics()
                 .build();
     }
+
+    /**
+     * Collection ETag of the books list/search endpoints
+     */
+    @Bean
+    public CollectionVersionCounter collectionVersionCounter(StringRedisTemplate redisTemplate) {
+        return new CollectionVersionCounter(redisTemplate, "books");
+    }
 }
@@ -17,6 +17,9 @@ public class RabbitMQConfig {
     public static final String EXCHANGE_NAME = "lms.events";
     public static final String QUEUE_NAME = "book-query-service.events";
 
+    // Post-commit invalidations of the per-replica off-heap index
+    public static final String INVALIDATION_EXCHANGE_NAME = "book-query-service.index-invalidation";
+
     // Routing keys for Book events (consumed)
     public static final String ROUTING_KEY_CREATED = "catalog.book.created";
     public static final String ROUTING_KEY_UPDATED = "catalog.book.updated";
@@ -73,6 +76,26 @@ public class RabbitMQConfig {
                 .with(ROUTING_KEY_LENDING_RETURNED);
     }
 
+    @Bean
+    public FanoutExchange indexInvalidationExchange() {
+        return new FanoutExchange(INVALIDATION_EXCHANGE_NAME, true, false);
+    }
+
+    /**
+     * Events are shared by the replicas, but every replica has its own off-heap index,
+     * so each gets its own exclusive, auto-delete queue on the invalidation fanout.
+     */
+    @Bean
+    public Queue indexInvalidationQueue() {
+        return new AnonymousQueue(new Base64UrlNamingStrategy("book-query-service.index-invalidation."));
+    }
+
+    @Bean
+    public Binding indexInvalidationBinding(Queue indexInvalidationQueue, FanoutExchange indexInvalidationExchange) {
+        return BindingBuilder.bind(indexInvalidationQueue)
+                .to(indexInvalidationExchange);
+    }
+
     @Bean
     public Jackson2JsonMessageConverter messageConverter() {
         return new Jackson2JsonMessageConverter();
@@ -0,0 +1,25 @@
+package pt.psoft.bookquery.messaging;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.stereotype.Component;
+import pt.psoft.bookquery.cache.OffHeapBookIndex;
+
+/**
+ * Drops books from this replica's off-heap index
+ * when any replica commits a change to their read model
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class IndexInvalidationConsumer {
+
+    private final OffHeapBookIndex offHeapBookIndex;
+
+    @RabbitListener(queues = "#{indexInvalidationQueue.name}")
+    public void onInvalidation(String isbn) {
+        log.debug("Invalidating off-heap entry for ISBN: {}", isbn);
+        offHeapBookIndex.remove(isbn);
+    }
+}
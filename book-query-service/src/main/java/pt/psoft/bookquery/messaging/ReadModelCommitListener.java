@@ -0,0 +1,82 @@
+package pt.psoft.bookquery.messaging;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import pt.psoft.bookquery.cache.OffHeapBookIndex;
+import pt.psoft.bookquery.config.RabbitMQConfig;
+import pt.psoft.shared.events.book.BookCreatedEvent;
+import pt.psoft.shared.events.book.BookDeletedEvent;
+import pt.psoft.shared.events.book.BookRatingUpdatedEvent;
+import pt.psoft.shared.events.book.BookUpdatedEvent;
+import pt.psoft.shared.events.lending.LendingReturnedEvent;
+import pt.psoft.shared.messaging.ProjectionProgress;
+import pt.psoft.shared.utils.CollectionVersionCounter;
+
+/**
+ * Post-commit hooks of the read model:
+ * wakes queries waiting on a consistency token, bumps the collection ETag
+ * and invalidates the off-heap index of every replica.
+ * Evicting only after commit keeps a concurrent reader from caching the old row again.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ReadModelCommitListener {
+
+    private final ProjectionProgress projectionProgress;
+    private final CollectionVersionCounter collectionVersionCounter;
+    private final OffHeapBookIndex offHeapBookIndex;
+    private final RabbitTemplate rabbitTemplate;
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onBookCreated(BookCreatedEvent event) {
+        invalidate(event.getIsbn());
+        projectionProgress.signal(event.getIsbn());
+        collectionVersionCounter.increment();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onBookUpdated(BookUpdatedEvent event) {
+        invalidate(event.getIsbn());
+        projectionProgress.signal(event.getIsbn());
+        collectionVersionCounter.increment();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onBookDeleted(BookDeletedEvent event) {
+        invalidate(event.getIsbn());
+        collectionVersionCounter.increment();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onBookRatingUpdated(BookRatingUpdatedEvent event) {
+        invalidate(event.getIsbn());
+        collectionVersionCounter.increment();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onLendingReturned(LendingReturnedEvent event) {
+        if (event.getRating() != null) {
+            invalidate(event.getBookId());
+        }
+        collectionVersionCounter.increment();
+    }
+
+    private void invalidate(String isbn) {
+        if (!offHeapBookIndex.isEnabled()) {
+            return;
+        }
+        offHeapBookIndex.remove(isbn);
+        try {
+            rabbitTemplate.convertAndSend(RabbitMQConfig.INVALIDATION_EXCHANGE_NAME, "", isbn);
+        } catch (AmqpException e) {
+            // the change is committed; other replicas serve the old entry until they restart
+            log.error("Could not broadcast off-heap invalidation for ISBN: {}", isbn, e);
+        }
+    }
+}
@@ -73,4 +73,29 @@ public interface BookQueryRepository extends JpaRepository<BookReadModel, String
     @Cacheable(value = "books", unless = "#result == null || #result.isEmpty()")
     @Query("SELECT COUNT(b) FROM BookReadModel b WHERE LOWER(b.genreName) = LOWER(:genreName)")
     long countByGenreName(@Param("genreName") String genreName);
+
+    /** Next page of books after an ISBN, uncached (keyset paging for the catalog snapshot) */
+    @Query("SELECT b FROM BookReadModel b WHERE b.isbn > :after ORDER BY b.isbn")
+    List<BookReadModel> findPageAfter(@Param("after") String after, Pageable pageable);
+
+    /** Next page of book versions after an ISBN, uncached (snapshot catch-up) */
+    @Query("""
+        SELECT b.isbn AS isbn, b.version AS version, b.averageRating AS averageRating, b.totalReviews AS totalReviews
+        FROM BookReadModel b WHERE b.isbn > :after ORDER BY b.isbn
+    """)
+    List<BookVersion> findVersionsAfter(@Param("after") String after, Pageable pageable);
+
+    /** Projected version only, uncached (consistency token checks) */
+    @Query("SELECT b.version FROM BookReadModel b WHERE b.isbn = :isbn")
+    Optional<Long> findVersionByIsbn(@Param("isbn") String isbn);
+
+    interface BookVersion {
+        String getIsbn();
+
+        Long getVersion();
+
+        Double getAverageRating();
+
+        Integer getTotalReviews();
+    }
 }
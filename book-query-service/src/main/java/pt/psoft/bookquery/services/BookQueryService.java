@@ -9,6 +9,9 @@ public interface BookQueryService {
 
     BookView findByIsbn(String isbn);
 
+    /** Find a book once the read model has reached the given version (read-your-writes) */
+    BookView findByIsbn(String isbn, long minVersion);
+
     List<BookView> findAll();
 
     List<BookView> findByTitle(String title);
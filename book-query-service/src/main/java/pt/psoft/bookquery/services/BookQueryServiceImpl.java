@@ -4,13 +4,16 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import pt.psoft.bookquery.api.BookView;
 import pt.psoft.bookquery.api.BookViewMapper;
 import pt.psoft.bookquery.api.SearchBooksQuery;
+import pt.psoft.bookquery.cache.OffHeapBookIndex;
 import pt.psoft.bookquery.model.BookReadModel;
 import pt.psoft.bookquery.repositories.BookQueryRepository;
 import pt.psoft.shared.exceptions.NotFoundException;
+import pt.psoft.shared.messaging.ProjectionProgress;
 
 import java.util.List;
 
@@ -22,15 +25,54 @@ public class BookQueryServiceImpl implements BookQueryService {
 
     private final BookQueryRepository bookQueryRepository;
     private final BookViewMapper bookViewMapper;
+    private final OffHeapBookIndex offHeapBookIndex;
+    private final ProjectionProgress projectionProgress;
 
+    /**
+     * Single-book lookups are served from the off-heap index when it is enabled,
+     * falling back to the Redis cache otherwise.
+     */
     @Override
-    @Cacheable(value = "books", key = "#isbn")
+    @Cacheable(value = "books", key = "#isbn", condition = "!@offHeapBookIndex.enabled")
     public BookView findByIsbn(String isbn) {
         log.debug("Finding book by ISBN: {}", isbn);
 
-        BookReadModel book = bookQueryRepository.findByIsbn(isbn)
+        BookReadModel cached = offHeapBookIndex.get(isbn).orElse(null);
+        if (cached != null) {
+            return bookViewMapper.toBookView(cached);
+        }
+
+        // an invalidation racing with this read must win over the row read here; read the
+        // row itself, not the Redis entry, which may have been refilled before the commit
+        long stamp = offHeapBookIndex.stamp();
+        BookReadModel book = bookQueryRepository.findById(isbn)
+                .orElseThrow(() -> new NotFoundException("Book with ISBN " + isbn + " not found"));
+
+        offHeapBookIndex.put(book, stamp);
+        return bookViewMapper.toBookView(book);
+    }
+
+    /**
+     * Waits (without holding a connection) for the projection, then reads past the caches
+     * if they still hold an older version.
+     */
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public BookView findByIsbn(String isbn, long minVersion) {
+        log.debug("Finding book by ISBN: {} at version >= {}", isbn, minVersion);
+
+        projectionProgress.await("Book", isbn, minVersion, bookQueryRepository::findVersionByIsbn);
+
+        BookReadModel cached = offHeapBookIndex.get(isbn).orElse(null);
+        if (cached != null && cached.getVersion() >= minVersion) {
+            return bookViewMapper.toBookView(cached);
+        }
+
+        long stamp = offHeapBookIndex.stamp();
+        BookReadModel book = bookQueryRepository.findById(isbn)
                 .orElseThrow(() -> new NotFoundException("Book with ISBN " + isbn + " not found"));
 
+        offHeapBookIndex.put(book, stamp);
         return bookViewMapper.toBookView(book);
     }
 
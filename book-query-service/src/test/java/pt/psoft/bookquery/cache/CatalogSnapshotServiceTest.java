@@ -0,0 +1,128 @@
+package pt.psoft.bookquery.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import pt.psoft.bookquery.model.BookReadModel;
+import pt.psoft.bookquery.repositories.BookQueryRepository;
+import pt.psoft.bookquery.repositories.BookQueryRepository.BookVersion;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for CatalogSnapshotService
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("CatalogSnapshotService Tests")
+class CatalogSnapshotServiceTest {
+
+    @Mock
+    private BookQueryRepository bookQueryRepository;
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    @Mock
+    private ValueOperations<String, String> valueOperations;
+
+    @TempDir
+    private Path dir;
+
+    private Path snapshotPath;
+
+    @BeforeEach
+    void setUp() {
+        snapshotPath = dir.resolve("catalog.snapshot");
+        lenient().when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+    }
+
+    @Test
+    @DisplayName("Should write keyset pages, then serve unchanged books from the mapping and mask changed or deleted ones")
+    void shouldServeSnapshotAfterCatchUp() {
+        when(valueOperations.setIfAbsent(eq(CatalogSnapshotService.WRITER_LEASE_KEY), anyString(), any()))
+                .thenReturn(true);
+        // two pages of two
+        when(bookQueryRepository.findPageAfter(eq(""), any(Pageable.class)))
+                .thenReturn(List.of(book("9780000000001", 1L), book("9780000000002", 1L)));
+        when(bookQueryRepository.findPageAfter(eq("9780000000002"), any(Pageable.class)))
+                .thenReturn(List.of(book("9780000000003", 1L)));
+        service(index()).writeSnapshot();
+        assertTrue(Files.exists(snapshotPath));
+
+        // since then: book 2 was updated and book 3 deleted
+        when(bookQueryRepository.findVersionsAfter(eq(""), any(Pageable.class)))
+                .thenReturn(List.of(version("9780000000001", 1L), version("9780000000002", 2L)));
+        when(bookQueryRepository.findVersionsAfter(eq("9780000000002"), any(Pageable.class))).thenReturn(List.of());
+        OffHeapBookIndex index = index();
+        service(index).restoreOnStartup();
+
+        assertEquals("Book 9780000000001", index.get("9780000000001").orElseThrow().getTitle());
+        assertEquals(0, index.size());
+        assertTrue(index.get("9780000000002").isEmpty());
+        assertTrue(index.get("9780000000003").isEmpty());
+
+        // an invalidation masks the snapshot copy too
+        index.remove("9780000000001");
+        assertTrue(index.get("9780000000001").isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should leave writing to the replica holding the lease")
+    void shouldNotWriteWithoutLease() {
+        when(valueOperations.setIfAbsent(eq(CatalogSnapshotService.WRITER_LEASE_KEY), anyString(), any()))
+                .thenReturn(false);
+        when(valueOperations.get(CatalogSnapshotService.WRITER_LEASE_KEY)).thenReturn("another-replica");
+
+        service(index()).writeSnapshot();
+
+        assertFalse(Files.exists(snapshotPath));
+        verifyNoInteractions(bookQueryRepository);
+    }
+
+    private CatalogSnapshotService service(OffHeapBookIndex index) {
+        return new CatalogSnapshotService(bookQueryRepository, index, redisTemplate, true,
+                snapshotPath.toString(), 2, 300000);
+    }
+
+    private static OffHeapBookIndex index() {
+        return new OffHeapBookIndex(true, 1024, 1024, 1, new SimpleMeterRegistry());
+    }
+
+    private static BookReadModel book(String isbn, long version) {
+        return new BookReadModel(isbn, "Book " + isbn, "", "Science Fiction", "Isaac Asimov", "42", null, version);
+    }
+
+    private static BookVersion version(String isbn, long version) {
+        return new BookVersion() {
+            public String getIsbn() {
+                return isbn;
+            }
+
+            public Long getVersion() {
+                return version;
+            }
+
+            public Double getAverageRating() {
+                return 0.0;
+            }
+
+            public Integer getTotalReviews() {
+                return 0;
+            }
+        };
+    }
+}
@@ -0,0 +1,143 @@
+package pt.psoft.bookquery.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import pt.psoft.bookquery.model.BookReadModel;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for OffHeapBookIndex
+ */
+@DisplayName("OffHeapBookIndex Tests")
+class OffHeapBookIndexTest {
+
+    @Test
+    @DisplayName("Should return what was put, and replace it on a second put")
+    void shouldPutGetAndReplace() {
+        OffHeapBookIndex index = index(1024, 1024, 1);
+
+        assertTrue(index.put(book(1, 1L, "Foundation")));
+        assertTrue(index.put(book(1, 2L, "Foundation and Empire")));
+
+        BookReadModel found = index.get(isbn(1)).orElseThrow();
+        assertEquals("Foundation and Empire", found.getTitle());
+        assertEquals(2L, found.getVersion());
+        assertEquals(1, index.size());
+        assertTrue(index.get(isbn(2)).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should only answer for the exact ISBN stored under a shared ISBN-10/13 key")
+    void shouldNotAnswerForOtherIsbnForm() {
+        OffHeapBookIndex index = index(1024, 1024, 1);
+        index.put(new BookReadModel("9780553293357", "Foundation", "", "Science Fiction", "", "", null, 0L));
+
+        assertTrue(index.get("9780553293357").isPresent());
+        assertTrue(index.get("0553293354").isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should remove an entry and be a no-op for absent ones")
+    void shouldRemove() {
+        OffHeapBookIndex index = index(1024, 1024, 1);
+        index.put(book(1, 0L, "Foundation"));
+
+        index.remove(isbn(1));
+        index.remove(isbn(2));
+
+        assertTrue(index.get(isbn(1)).isEmpty());
+        assertEquals(0, index.size());
+    }
+
+    @Test
+    @DisplayName("Should keep colliding probe chains intact across removals")
+    void shouldKeepProbeChainsAcrossRemovals() {
+        // 12 books in 16 slots: most probe past their home slot
+        OffHeapBookIndex index = index(16, 16, 1);
+        List<Integer> books = IntStream.range(0, 12).boxed().toList();
+        books.forEach(i -> assertTrue(index.put(book(i, 0L, "Book " + i))));
+
+        Set<Integer> removed = new HashSet<>();
+        for (int i : List.of(3, 0, 11, 7, 4)) {
+            index.remove(isbn(i));
+            removed.add(i);
+            for (int j : books) {
+                assertEquals(!removed.contains(j), index.get(isbn(j)).isPresent(), "book " + j);
+            }
+        }
+        assertEquals(7, index.size());
+        assertEquals("Book 5", index.get(isbn(5)).orElseThrow().getTitle());
+    }
+
+    @Test
+    @DisplayName("Should grow the slot table up to its maximum, then reject new books")
+    void shouldRejectWhenSlotsAreFull() {
+        OffHeapBookIndex index = index(16, 32, 1);
+
+        IntStream.range(0, 24).forEach(i -> assertTrue(index.put(book(i, 0L, "Book " + i))));
+
+        assertFalse(index.put(book(24, 0L, "Book 24")));
+        assertTrue(index.put(book(0, 1L, "Book 0 revised")));
+        assertEquals(24, index.size());
+    }
+
+    @Test
+    @DisplayName("Should reject when the arena is full and never keep a stale version")
+    void shouldRejectWhenArenaIsFull() {
+        OffHeapBookIndex index = index(1024, 1024, 1);
+        String description = "x".repeat(200_000);
+
+        // five ~200 KB records fill the 1 MB arena
+        IntStream.range(0, 5).forEach(i -> assertTrue(index.put(book(i, 0L, description))));
+        assertFalse(index.put(book(5, 0L, description)));
+
+        assertFalse(index.put(book(0, 1L, description + "y")));
+        assertTrue(index.get(isbn(0)).isEmpty());
+
+        // the dropped record is garbage now, so compaction makes room again
+        assertTrue(index.put(book(5, 0L, description)));
+        assertEquals(description, index.get(isbn(4)).orElseThrow().getDescription());
+        assertEquals(5, index.size());
+    }
+
+    @Test
+    @DisplayName("Should not cache a row read before an invalidation")
+    void shouldRejectPutWithStaleStamp() {
+        OffHeapBookIndex index = index(1024, 1024, 1);
+
+        long stamp = index.stamp();
+        index.remove(isbn(1));
+
+        assertFalse(index.put(book(1, 0L, "Foundation"), stamp));
+        assertTrue(index.put(book(1, 1L, "Foundation"), index.stamp()));
+        assertEquals(1L, index.get(isbn(1)).orElseThrow().getVersion());
+    }
+
+    @Test
+    @DisplayName("Should reject arena sizes a direct buffer cannot hold")
+    void shouldValidateArenaSize() {
+        assertThrows(IllegalArgumentException.class, () -> index(1024, 1024, 2048));
+        assertThrows(IllegalArgumentException.class, () -> index(1024, 1024, 0));
+        assertEquals(0, new OffHeapBookIndex(false, 1024, 1024, 4096, new SimpleMeterRegistry()).offHeapBytes());
+    }
+
+    private static OffHeapBookIndex index(int initialSlots, int maxSlots, int arenaSizeMb) {
+        return new OffHeapBookIndex(true, initialSlots, maxSlots, arenaSizeMb, new SimpleMeterRegistry());
+    }
+
+    private static String isbn(int i) {
+        return String.format("978%010d", i + 1);
+    }
+
+    private static BookReadModel book(int i, long version, String text) {
+        return new BookReadModel(isbn(i), text.length() > 128 ? "Long" : text, text,
+                "Science Fiction", "Isaac Asimov", "42", null, version);
+    }
+}
@@ -0,0 +1,65 @@
+package pt.psoft.bookquery.services;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import pt.psoft.bookquery.api.BookViewMapper;
+import pt.psoft.bookquery.cache.OffHeapBookIndex;
+import pt.psoft.bookquery.model.BookReadModel;
+import pt.psoft.bookquery.repositories.BookQueryRepository;
+import pt.psoft.shared.messaging.ProjectionProgress;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for BookQueryServiceImpl
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("BookQueryServiceImpl Tests")
+class BookQueryServiceImplTest {
+
+    private static final String ISBN = "9780553293357";
+
+    @Mock
+    private BookQueryRepository bookQueryRepository;
+
+    @Mock
+    private BookViewMapper bookViewMapper;
+
+    @Mock
+    private ProjectionProgress projectionProgress;
+
+    private OffHeapBookIndex offHeapBookIndex;
+
+    private BookQueryServiceImpl bookQueryService;
+
+    @BeforeEach
+    void setUp() {
+        offHeapBookIndex = new OffHeapBookIndex(true, 1024, 1024, 1, new SimpleMeterRegistry());
+        bookQueryService = new BookQueryServiceImpl(bookQueryRepository, bookViewMapper, offHeapBookIndex,
+                projectionProgress);
+    }
+
+    @Test
+    @DisplayName("Should fill an off-heap miss from the row, never from the Redis cache")
+    void shouldFillIndexFromRow() {
+        BookReadModel book = new BookReadModel(ISBN, "Foundation", "", "Science Fiction", "Isaac Asimov", "42", null, 1L);
+        when(bookQueryRepository.findById(ISBN)).thenReturn(Optional.of(book));
+
+        bookQueryService.findByIsbn(ISBN);
+        bookQueryService.findByIsbn(ISBN);
+
+        // the second lookup is served by the index
+        verify(bookQueryRepository, times(1)).findById(ISBN);
+        verify(bookQueryRepository, never()).findByIsbn(any());
+        assertEquals("Foundation", offHeapBookIndex.get(ISBN).orElseThrow().getTitle());
+    }
+}
@@ -13,6 +13,7 @@ import pt.psoft.book.api.ReviewView;
 import pt.psoft.book.api.SearchBooksQuery;
 import pt.psoft.book.model.query.BookReview;
 import pt.psoft.book.repositories.BookReviewRepository;
+import pt.psoft.book.services.BookAccessStatistics;
 import pt.psoft.book.services.BookQueryService;
 
 import java.util.List;
@@ -29,11 +30,13 @@ public class BookQueryController {
 
     private final BookQueryService bookQueryService;
     private final BookReviewRepository bookReviewRepository;
+    private final BookAccessStatistics bookAccessStatistics;
 
     @Operation(summary = "Get book by ISBN")
     @GetMapping("/{isbn}")
     public ResponseEntity<BookView> findByIsbn(@PathVariable String isbn) {
         BookView book = bookQueryService.findByIsbn(isbn);
+        bookAccessStatistics.record(isbn);
         return ResponseEntity.ok(book);
     }
 
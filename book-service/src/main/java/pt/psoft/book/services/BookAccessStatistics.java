@@ -0,0 +1,68 @@
+package pt.psoft.book.services;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Records how often each book is requested, shared across replicas in a Redis sorted set.
+ * Hits are counted in memory and flushed periodically, so the read path never waits on Redis.
+ * Used by the startup cache warm-up to preload the most requested books.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class BookAccessStatistics {
+
+    private static final String KEY = "books:access";
+
+    private final StringRedisTemplate redisTemplate;
+    private final Map<String, LongAdder> pending = new ConcurrentHashMap<>();
+
+    /**
+     * Count one request for a book
+     */
+    public void record(String isbn) {
+        pending.computeIfAbsent(isbn, k -> new LongAdder()).increment();
+    }
+
+    /**
+     * Most requested ISBNs, highest first
+     */
+    public List<String> topIsbns(int n) {
+        try {
+            Set<String> top = redisTemplate.opsForZSet().reverseRange(KEY, 0, n - 1L);
+            return top != null ? new ArrayList<>(top) : List.of();
+        } catch (Exception e) {
+            log.warn("Access statistics unavailable: {}", e.getMessage());
+            return List.of();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.warmup.stats-flush-ms:30000}")
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        try {
+            ZSetOperations<String, String> zset = redisTemplate.opsForZSet();
+            for (String isbn : pending.keySet()) {
+                long hits = pending.remove(isbn).sum();
+                zset.incrementScore(KEY, isbn, hits);
+            }
+        } catch (Exception e) {
+            // statistics are best effort; drop this batch
+            log.warn("Failed to flush access statistics: {}", e.getMessage());
+        }
+    }
+}
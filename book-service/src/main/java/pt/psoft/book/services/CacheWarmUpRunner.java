@@ -0,0 +1,98 @@
+package pt.psoft.book.services;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import pt.psoft.book.api.BookViewMapper;
+import pt.psoft.book.model.query.BookReadModel;
+import pt.psoft.book.repositories.BookQueryRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Preloads the most requested books into the "books" cache at startup.
+ *
+ * Runs as an ApplicationRunner, so the readiness state only switches to
+ * ACCEPTING_TRAFFIC (and /actuator/health only reports UP to Traefik)
+ * once warm-up has finished or timed out.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class CacheWarmUpRunner implements ApplicationRunner {
+
+    private final BookAccessStatistics bookAccessStatistics;
+    private final BookQueryRepository bookQueryRepository;
+    private final BookViewMapper bookViewMapper;
+    private final CacheManager cacheManager;
+
+    @Value("${app.warmup.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.warmup.top-n:1000}")
+    private int topN;
+
+    @Value("${app.warmup.batch-size:200}")
+    private int batchSize;
+
+    @Value("${app.warmup.parallelism:4}")
+    private int parallelism;
+
+    @Value("${app.warmup.timeout-seconds:60}")
+    private long timeoutSeconds;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!enabled) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+
+        List<String> isbns = bookAccessStatistics.topIsbns(topN);
+        if (isbns.isEmpty()) {
+            log.info("Cache warm-up skipped: no access statistics yet");
+            return;
+        }
+
+        Cache books = cacheManager.getCache("books");
+        AtomicInteger loaded = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(parallelism);
+        try {
+            for (int i = 0; i < isbns.size(); i += batchSize) {
+                List<String> batch = new ArrayList<>(isbns.subList(i, Math.min(i + batchSize, isbns.size())));
+                pool.submit(() -> {
+                    try {
+                        for (BookReadModel book : bookQueryRepository.findAllById(batch)) {
+                            // same key as BookQueryServiceImpl.findByIsbn
+                            books.put(book.getIsbn(), bookViewMapper.toBookView(book));
+                            loaded.incrementAndGet();
+                        }
+                    } catch (Exception e) {
+                        log.warn("Cache warm-up batch failed: {}", e.getMessage());
+                    }
+                });
+            }
+            pool.shutdown();
+            if (!pool.awaitTermination(timeoutSeconds, TimeUnit.SECONDS)) {
+                log.warn("Cache warm-up timed out after {}s, continuing startup", timeoutSeconds);
+                pool.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            pool.shutdownNow();
+        }
+
+        log.info("✅ Cache warm-up: {} of {} top books preloaded in {} ms",
+                loaded.get(), isbns.size(), System.currentTimeMillis() - start);
+    }
+}
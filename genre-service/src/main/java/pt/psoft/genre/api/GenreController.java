@@ -4,12 +4,15 @@ import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import pt.psoft.genre.services.GenreService;
 import pt.psoft.shared.dto.genre.GenreDTO;
 import pt.psoft.shared.dto.genre.CreateGenreRequest;
+import pt.psoft.shared.utils.CollectionVersionCounter;
+import pt.psoft.shared.utils.ETags;
 
 import java.util.List;
 
@@ -20,27 +23,47 @@ import java.util.List;
 public class GenreController {
 
     private final GenreService genreService;
+    private final CollectionVersionCounter collectionVersionCounter;
 
     @GetMapping
     @Operation(summary = "Get all genres")
-    public ResponseEntity<List<GenreDTO>> getAllGenres() {
+    public ResponseEntity<List<GenreDTO>> getAllGenres(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String etag = collectionVersionCounter.currentETag();
+        if (ETags.matches(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
         List<GenreDTO> genres = genreService.findAll();
-        return ResponseEntity.ok(genres);
+        return etag != null
+                ? ResponseEntity.ok().eTag(etag).body(genres)
+                : ResponseEntity.ok(genres);
     }
 
     @GetMapping("/{id}")
     @Operation(summary = "Get genre by ID")
-    public ResponseEntity<GenreDTO> getGenreById(@PathVariable Long id) {
+    public ResponseEntity<GenreDTO> getGenreById(
+            @PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String etag = genreService.findETagById(id);
+        if (ETags.matches(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
         return genreService.findById(id)
-                .map(ResponseEntity::ok)
+                .map(genre -> withETag(etag).body(genre))
                 .orElse(ResponseEntity.notFound().build());
     }
 
     @GetMapping("/search")
     @Operation(summary = "Find genre by name")
-    public ResponseEntity<GenreDTO> findByName(@RequestParam String name) {
+    public ResponseEntity<GenreDTO> findByName(
+            @RequestParam String name,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String etag = genreService.findETagByName(name);
+        if (ETags.matches(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
         return genreService.findByName(name)
-                .map(ResponseEntity::ok)
+                .map(genre -> withETag(etag).body(genre))
                 .orElse(ResponseEntity.notFound().build());
     }
 
@@ -66,4 +89,8 @@ public class GenreController {
         genreService.delete(id);
         return ResponseEntity.noContent().build();
     }
+
+    private static ResponseEntity.BodyBuilder withETag(String etag) {
+        return etag != null ? ResponseEntity.ok().eTag(etag) : ResponseEntity.ok();
+    }
 }
\ No newline at end of file
@@ -0,0 +1,21 @@
+package pt.psoft.genre.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import pt.psoft.shared.utils.CollectionVersionCounter;
+
+/**
+ * Cache support beans (the Redis cache itself is auto-configured)
+ */
+@Configuration
+public class CacheConfig {
+
+    /**
+     * Collection ETag of the genres list/search endpoints
+     */
+    @Bean
+    public CollectionVersionCounter collectionVersionCounter(StringRedisTemplate redisTemplate) {
+        return new CollectionVersionCounter(redisTemplate, "genres");
+    }
+}
@@ -6,10 +6,16 @@ import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import pt.psoft.shared.messaging.SagaCommand;
 
 @Configuration
 public class RabbitMQConfig {
 
+    public static final String EXCHANGE_NAME = "lms.events";
+
+    // Queue of the saga commands, shared by all replicas
+    public static final String COMMAND_QUEUE_NAME = "genre-service.commands";
+
     // Exchange para Domain Events
     @Bean
     public TopicExchange eventsExchange() {
@@ -31,6 +37,20 @@ public class RabbitMQConfig {
                 .with("catalog.genre.#");
     }
 
+    // Commands of the saga orchestrator (messaging mode)
+    @Bean
+    public Queue genreCommandsQueue() {
+        return new Queue(COMMAND_QUEUE_NAME, true);
+    }
+
+    @Bean
+    public Binding genreCommandsBinding(Queue genreCommandsQueue, TopicExchange eventsExchange) {
+        return BindingBuilder
+                .bind(genreCommandsQueue)
+                .to(eventsExchange)
+                .with(SagaCommand.ROUTING_KEY_RESOLVE_GENRE);
+    }
+
     // Configurar RabbitTemplate com JSON converter
     @Bean
     public RabbitTemplate rabbitTemplate(ConnectionFactory connectionFactory) {
@@ -0,0 +1,61 @@
+package pt.psoft.genre.messaging;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.stereotype.Component;
+import pt.psoft.genre.config.RabbitMQConfig;
+import pt.psoft.genre.services.GenreService;
+import pt.psoft.shared.dto.genre.CreateGenreRequest;
+import pt.psoft.shared.dto.genre.GenreDTO;
+import pt.psoft.shared.messaging.SagaCommand;
+import pt.psoft.shared.messaging.SagaCommandProcessor;
+import pt.psoft.shared.messaging.SagaReply;
+
+import java.util.Optional;
+
+/**
+ * Handles ResolveGenre commands of the saga orchestrator (messaging mode):
+ * finds the genre by name or creates it, and replies on lms.events
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class SagaCommandConsumer {
+
+    private final SagaCommandProcessor sagaCommandProcessor;
+    private final GenreService genreService;
+    private final RabbitTemplate rabbitTemplate;
+
+    @RabbitListener(queues = RabbitMQConfig.COMMAND_QUEUE_NAME)
+    public void handleCommand(String message) {
+        SagaCommand command = sagaCommandProcessor.read(message);
+        if (command == null) {
+            return;
+        }
+        if (!SagaCommand.RESOLVE_GENRE.equals(command.getType())) {
+            log.warn("Ignoring saga command type: {}", command.getType());
+            return;
+        }
+
+        SagaReply reply = sagaCommandProcessor.process(command, this::resolveGenre);
+        if (reply != null) {
+            rabbitTemplate.convertAndSend(RabbitMQConfig.EXCHANGE_NAME, command.getReplyTo(),
+                    sagaCommandProcessor.write(reply));
+        }
+    }
+
+    private SagaReply resolveGenre(SagaCommand command) {
+        CreateGenreRequest request = sagaCommandProcessor.payload(command, CreateGenreRequest.class);
+
+        Optional<GenreDTO> existing = genreService.findByName(request.getName());
+        if (existing.isPresent()) {
+            return SagaReply.success(command, true, sagaCommandProcessor.write(existing.get()));
+        }
+
+        GenreDTO created = genreService.create(request.getName());
+        log.info("Genre {} created for Saga {}", created.getId(), command.getSagaId());
+        return SagaReply.success(command, false, sagaCommandProcessor.write(created));
+    }
+}
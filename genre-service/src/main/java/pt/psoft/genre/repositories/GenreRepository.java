@@ -12,4 +12,15 @@ public interface GenreRepository extends JpaRepository<Genre, Long> {
     Optional<Genre> findByName(String name);
 
     boolean existsByName(String name);
+
+    /** Id and version only, used to build ETags without loading the genre */
+    Optional<VersionInfo> findVersionInfoById(Long id);
+
+    Optional<VersionInfo> findVersionInfoByName(String name);
+
+    interface VersionInfo {
+        Long getId();
+
+        Long getVersion();
+    }
 }
\ No newline at end of file
@@ -0,0 +1,57 @@
+package pt.psoft.genre.services;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import pt.psoft.shared.dto.genre.GenreDTO;
+
+import java.util.List;
+
+/**
+ * Preloads the full genre directory into Redis at startup.
+ *
+ * Runs as an ApplicationRunner, so readiness (and the /actuator/health
+ * check used by Traefik) only goes UP once the caches are warm.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class CacheWarmUpRunner implements ApplicationRunner {
+
+    private final GenreService genreService;
+    private final CacheManager cacheManager;
+
+    @Value("${genre.warmup.enabled:true}")
+    private boolean enabled;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!enabled) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+
+        try {
+            // one bulk read through the proxy also fills the 'all' entry
+            List<GenreDTO> genres = genreService.findAll();
+            Cache cache = cacheManager.getCache("genres");
+
+            // same keys as GenreServiceImpl.findById / findByName
+            genres.parallelStream().forEach(genre -> {
+                cache.put(Long.valueOf(genre.getId()), genre);
+                cache.put(genre.getGenre(), genre);
+            });
+
+            log.info("✅ Cache warm-up: {} genres preloaded in {} ms",
+                    genres.size(), System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            // a cold cache is still a working service
+            log.warn("Cache warm-up failed: {}", e.getMessage());
+        }
+    }
+}
@@ -15,6 +15,10 @@ public interface GenreService {
 
     Optional<GenreDTO> findByName(String name);
 
+    String findETagById(Long id);
+
+    String findETagByName(String name);
+
     GenreDTO create(String genreName);
 
     GenreDTO update(Long id, String genreName);
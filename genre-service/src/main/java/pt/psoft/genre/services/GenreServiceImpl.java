@@ -16,6 +16,7 @@ import pt.psoft.shared.events.genre.GenreDeletedEvent;
 import pt.psoft.shared.events.genre.GenreUpdatedEvent;
 import pt.psoft.shared.exceptions.ConflictException;
 import pt.psoft.shared.exceptions.NotFoundException;
+import pt.psoft.shared.utils.CollectionVersionCounter;
 
 import java.util.List;
 import java.util.Optional;
@@ -29,6 +30,7 @@ public class GenreServiceImpl implements GenreService {
     private final GenreRepository genreRepository;
     private final GenreEventPublisher eventPublisher;
     private final GenreViewMapper mapper;
+    private final CollectionVersionCounter collectionVersionCounter;
 
     @Override
     @Cacheable(value = "genres", key = "'all'")
@@ -55,6 +57,22 @@ public class GenreServiceImpl implements GenreService {
                 .map(this::toDTO);
     }
 
+    @Override
+    @Cacheable(value = "genres", key = "'etag:id:' + #id", unless = "#result == null")
+    public String findETagById(Long id) {
+        return genreRepository.findVersionInfoById(id)
+                .map(this::toETag)
+                .orElse(null);
+    }
+
+    @Override
+    @Cacheable(value = "genres", key = "'etag:name:' + #name", unless = "#result == null")
+    public String findETagByName(String name) {
+        return genreRepository.findVersionInfoByName(name)
+                .map(this::toETag)
+                .orElse(null);
+    }
+
     @Override
     @Transactional
     @CacheEvict(value = "genres", allEntries = true)
@@ -76,6 +94,7 @@ public class GenreServiceImpl implements GenreService {
                 genre.getName()
         );
         eventPublisher.publish(event);
+        collectionVersionCounter.incrementAfterCommit();
 
         log.info("Genre created with id: {}", genre.getId());
         return toDTO(genre);
@@ -107,6 +126,7 @@ public class GenreServiceImpl implements GenreService {
                 genre.getName()
         );
         eventPublisher.publish(event);
+        collectionVersionCounter.incrementAfterCommit();
 
         log.info("Genre updated: {}", id);
         return toDTO(genre);
@@ -130,10 +150,15 @@ public class GenreServiceImpl implements GenreService {
                 genreName
         );
         eventPublisher.publish(event);
+        collectionVersionCounter.incrementAfterCommit();
 
         log.info("Genre deleted: {}", id);
     }
 
+    private String toETag(GenreRepository.VersionInfo info) {
+        return info.getId() + "-" + info.getVersion();
+    }
+
     private GenreDTO toDTO(Genre genre) {
         return new GenreDTO(
                 genre.getId().toString(),
@@ -0,0 +1,62 @@
+-- =============================================================================
+-- V1: convert lendings into a table partitioned by lending_year
+--
+-- One-off, run ONCE per lending_db, in a maintenance window, with every
+-- lending-service replica stopped:
+--
+--   psql -v ON_ERROR_STOP=1 -1 -d lending_db -f V1__partition_lendings.sql
+--
+-- The copy holds an ACCESS EXCLUSIVE lock on lendings for its whole duration.
+-- Idempotent: does nothing when lendings is already partitioned or missing
+-- (a fresh database gets the plain table from Hibernate; run this afterwards).
+-- Runtime partition upkeep and archiving stay in LendingPartitionManager.
+-- =============================================================================
+
+DO $$
+DECLARE
+    kind  "char";
+    y     int;
+    moved bigint;
+BEGIN
+    SELECT c.relkind INTO kind
+    FROM pg_class c JOIN pg_namespace n ON n.oid = c.relnamespace
+    WHERE c.relname = 'lendings' AND n.nspname = current_schema();
+
+    IF kind IS NULL OR kind = 'p' THEN
+        RAISE NOTICE 'lendings is missing or already partitioned, nothing to do';
+        RETURN;
+    END IF;
+
+    LOCK TABLE lendings IN ACCESS EXCLUSIVE MODE;
+
+    ALTER TABLE lendings RENAME TO lendings_unpartitioned;
+    -- constraint names must be free for the new table
+    ALTER TABLE lendings_unpartitioned DROP CONSTRAINT IF EXISTS lendings_pkey;
+    ALTER TABLE lendings_unpartitioned DROP CONSTRAINT IF EXISTS uk_lending_number;
+
+    CREATE TABLE lendings (LIKE lendings_unpartitioned INCLUDING DEFAULTS INCLUDING CONSTRAINTS)
+        PARTITION BY LIST (lending_year);
+    ALTER TABLE lendings ALTER COLUMN pk DROP IDENTITY IF EXISTS;
+    CREATE SEQUENCE IF NOT EXISTS lendings_pk_seq INCREMENT BY 50;
+    ALTER TABLE lendings ALTER COLUMN pk SET DEFAULT nextval('lendings_pk_seq');
+    -- the partition key must be part of every unique constraint
+    ALTER TABLE lendings ADD CONSTRAINT lendings_pkey PRIMARY KEY (pk, lending_year);
+    ALTER TABLE lendings ADD CONSTRAINT uk_lending_number UNIQUE (lending_year, lending_sequence);
+
+    FOR y IN
+        SELECT DISTINCT lending_year FROM lendings_unpartitioned
+        UNION SELECT CAST(EXTRACT(YEAR FROM current_date) AS int)
+        UNION SELECT CAST(EXTRACT(YEAR FROM current_date) AS int) + 1
+    LOOP
+        EXECUTE format('CREATE TABLE lendings_y%s PARTITION OF lendings FOR VALUES IN (%s)', y, y);
+    END LOOP;
+    CREATE TABLE lendings_default PARTITION OF lendings DEFAULT;
+
+    INSERT INTO lendings SELECT * FROM lendings_unpartitioned;
+    GET DIAGNOSTICS moved = ROW_COUNT;
+    PERFORM setval('lendings_pk_seq', (SELECT COALESCE(MAX(pk), 0) + 1 FROM lendings), false);
+    DROP TABLE lendings_unpartitioned;
+
+    RAISE NOTICE 'lendings partitioned by year: % rows moved', moved;
+END
+$$;
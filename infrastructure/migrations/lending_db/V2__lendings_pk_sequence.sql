@@ -0,0 +1,35 @@
+-- =============================================================================
+-- V2: lendings pks from lendings_pk_seq in blocks of 50 (pooled-lo)
+--
+-- Lending pks used to be an IDENTITY column (steps of 1). lending-service now
+-- takes them from lendings_pk_seq with Hibernate's pooled-lo optimizer: each
+-- nextval hands a replica the block [value, value + 50). The sequence therefore
+-- has to step by 50 and start above every existing pk.
+--
+-- One-off, run ONCE per lending_db with every lending-service replica stopped,
+-- before starting a version that uses pooled-lo:
+--
+--   psql -v ON_ERROR_STOP=1 -1 -d lending_db -f V2__lendings_pk_sequence.sql
+--
+-- Idempotent. Never move this sequence while replicas are running: a rewind
+-- would hand out pks of a block already in use.
+-- =============================================================================
+
+DO $$
+BEGIN
+    IF to_regclass('lendings') IS NULL THEN
+        RAISE NOTICE 'lendings is missing, nothing to do';
+        RETURN;
+    END IF;
+
+    LOCK TABLE lendings IN SHARE MODE;
+
+    CREATE SEQUENCE IF NOT EXISTS lendings_pk_seq INCREMENT BY 50;
+    ALTER SEQUENCE lendings_pk_seq INCREMENT BY 50;
+    -- only ever moves forward
+    PERFORM setval('lendings_pk_seq',
+                   GREATEST((SELECT COALESCE(MAX(pk), 0) + 1 FROM lendings),
+                            (SELECT last_value FROM lendings_pk_seq)),
+                   false);
+END
+$$;
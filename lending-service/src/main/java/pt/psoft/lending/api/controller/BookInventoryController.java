@@ -0,0 +1,50 @@
+package pt.psoft.lending.api.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import pt.psoft.lending.api.dto.BookInventoryView;
+import pt.psoft.lending.api.dto.UpdateInventoryRequest;
+import pt.psoft.lending.model.command.BookInventory;
+import pt.psoft.lending.services.BookInventoryService;
+import pt.psoft.lending.services.WaitlistService;
+
+/**
+ * REST Controller for book copy inventory
+ */
+@Tag(name = "Lendings - Inventory", description = "Endpoints for book copy availability")
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/api/v1/lendings/inventory")
+public class BookInventoryController {
+
+    private final BookInventoryService bookInventoryService;
+    private final WaitlistService waitlistService;
+
+    @Operation(summary = "Get copy availability of a book")
+    @GetMapping("/{isbn}")
+    public ResponseEntity<BookInventoryView> getInventory(@PathVariable String isbn) {
+        return ResponseEntity.ok(mapToView(bookInventoryService.getInventory(isbn)));
+    }
+
+    @Operation(summary = "Set the number of copies owned of a book",
+               description = "Available copies are recomputed from the lendings currently outstanding; "
+                       + "copies added are held for readers on the waitlist first")
+    @PutMapping("/{isbn}")
+    public ResponseEntity<BookInventoryView> setTotalCopies(
+            @PathVariable String isbn,
+            @Valid @RequestBody UpdateInventoryRequest request) {
+        return ResponseEntity.ok(mapToView(waitlistService.setTotalCopies(isbn, request.getTotalCopies())));
+    }
+
+    private BookInventoryView mapToView(BookInventory inventory) {
+        return BookInventoryView.builder()
+                .isbn(inventory.getIsbn())
+                .totalCopies(inventory.getTotalCopies())
+                .availableCopies(inventory.getAvailableCopies())
+                .build();
+    }
+}
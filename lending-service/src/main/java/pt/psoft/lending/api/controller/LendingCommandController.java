@@ -11,6 +11,7 @@ import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 import pt.psoft.lending.api.dto.*;
 import pt.psoft.lending.model.command.LendingEntity;
+import pt.psoft.lending.services.LendingBatchService;
 import pt.psoft.lending.services.LendingCommandService;
 
 /**
@@ -24,6 +25,7 @@ import pt.psoft.lending.services.LendingCommandService;
 public class LendingCommandController {
 
     private final LendingCommandService lendingCommandService;
+    private final LendingBatchService lendingBatchService;
 
     @Operation(summary = "Create a new lending")
     @PostMapping
@@ -77,6 +79,29 @@ public class LendingCommandController {
                 .body(response);
     }
 
+    /**
+     * Lend several books in one request (e.g. a reader at the desk with a stack of books).
+     * Every item is validated first; the admissible ones are created in one transaction
+     * and the response reports the outcome of each item.
+     */
+    @Operation(summary = "Create several lendings at once",
+               description = "Items that break a lending rule are rejected individually, the others are created")
+    @PostMapping("/bulk")
+    public ResponseEntity<BulkLendingResponse> createLendings(@Valid @RequestBody BulkCreateLendingRequest request) {
+        return ResponseEntity.ok(lendingBatchService.createLendings(request.getLendings()));
+    }
+
+    /**
+     * Return several lendings in one request (e.g. emptying a book-drop box).
+     * Each item carries the version it expects, like If-Match on a single return.
+     */
+    @Operation(summary = "Return several lendings at once",
+               description = "Missing, already returned or modified lendings are reported individually, the others are returned")
+    @PostMapping("/bulk/return")
+    public ResponseEntity<BulkLendingResponse> returnLendings(@Valid @RequestBody BulkReturnLendingRequest request) {
+        return ResponseEntity.ok(lendingBatchService.returnLendings(request.getReturns()));
+    }
+
     private LendingView mapToLendingView(LendingEntity lending) {
         return LendingView.builder()
                 .lendingNumber(lending.getLendingNumberValue())
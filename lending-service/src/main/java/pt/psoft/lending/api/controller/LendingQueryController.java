@@ -10,12 +10,18 @@ import org.springframework.data.web.PageableDefault;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import pt.psoft.lending.api.dto.LendingHistoryPage;
+import pt.psoft.lending.api.dto.LendingStatsView;
 import pt.psoft.lending.api.dto.LendingView;
 import pt.psoft.lending.model.command.LendingEntity;
+import pt.psoft.lending.model.command.LendingStatsBucket;
+import pt.psoft.lending.model.query.LendingCursor;
+import pt.psoft.lending.model.query.LendingHistoryItem;
 import pt.psoft.lending.services.LendingQueryService;
 import pt.psoft.shared.exceptions.NotFoundException;
 
 import java.time.LocalDate;
+import java.time.YearMonth;
 import java.util.List;
 
 /**
@@ -27,6 +33,8 @@ import java.util.List;
 @RequestMapping("/api/v1/lendings")
 public class LendingQueryController {
 
+    private static final int MAX_HISTORY_PAGE_SIZE = 100;
+
     private final LendingQueryService lendingQueryService;
 
     @Operation(summary = "Get lending by lending number")
@@ -44,7 +52,8 @@ public class LendingQueryController {
                 .body(mapToLendingView(lending));
     }
 
-    @Operation(summary = "Get lendings by reader number")
+    @Operation(summary = "Get lendings by reader number",
+               description = "Unbounded; prefer /reader/{readerNumber}/history for long histories")
     @GetMapping("/reader/{readerNumber}")
     public ResponseEntity<List<LendingView>> getLendingsByReader(
             @PathVariable @Parameter(description = "Reader number") String readerNumber) {
@@ -55,7 +64,8 @@ public class LendingQueryController {
         return ResponseEntity.ok(views);
     }
 
-    @Operation(summary = "Get lendings by book ISBN")
+    @Operation(summary = "Get lendings by book ISBN",
+               description = "Unbounded; prefer /book/{bookId}/history for long histories")
     @GetMapping("/book/{bookId}")
     public ResponseEntity<List<LendingView>> getLendingsByBook(
             @PathVariable @Parameter(description = "Book ISBN") String bookId) {
@@ -66,6 +76,30 @@ public class LendingQueryController {
         return ResponseEntity.ok(views);
     }
 
+    @Operation(summary = "Get a page of a reader's lending history",
+               description = "Newest first; pass nextCursor of the previous page to continue")
+    @GetMapping("/reader/{readerNumber}/history")
+    public ResponseEntity<LendingHistoryPage> getReaderHistory(
+            @PathVariable @Parameter(description = "Reader number") String readerNumber,
+            @RequestParam(required = false) @Parameter(description = "Cursor from the previous page") String cursor,
+            @RequestParam(defaultValue = "20") @Parameter(description = "Page size (1-100)") int limit) {
+        int size = pageSize(limit);
+        return ResponseEntity.ok(toHistoryPage(
+                lendingQueryService.findReaderHistory(readerNumber, LendingCursor.decode(cursor), size + 1), size));
+    }
+
+    @Operation(summary = "Get a page of a book's lending history",
+               description = "Newest first; pass nextCursor of the previous page to continue")
+    @GetMapping("/book/{bookId}/history")
+    public ResponseEntity<LendingHistoryPage> getBookHistory(
+            @PathVariable @Parameter(description = "Book ISBN") String bookId,
+            @RequestParam(required = false) @Parameter(description = "Cursor from the previous page") String cursor,
+            @RequestParam(defaultValue = "20") @Parameter(description = "Page size (1-100)") int limit) {
+        int size = pageSize(limit);
+        return ResponseEntity.ok(toHistoryPage(
+                lendingQueryService.findBookHistory(bookId, LendingCursor.decode(cursor), size + 1), size));
+    }
+
     @Operation(summary = "Get outstanding lendings by reader number")
     @GetMapping("/reader/{readerNumber}/outstanding")
     public ResponseEntity<List<LendingView>> getOutstandingLendings(
@@ -95,6 +129,49 @@ public class LendingQueryController {
         return ResponseEntity.ok(avg);
     }
 
+    @Operation(summary = "Get lending statistics of a book")
+    @GetMapping("/stats/books/{isbn}")
+    public ResponseEntity<LendingStatsView> getBookStats(@PathVariable @Parameter(description = "Book ISBN") String isbn) {
+        return ResponseEntity.ok(findStats(LendingStatsBucket.BOOK, isbn));
+    }
+
+    @Operation(summary = "Get lending statistics of a reader")
+    @GetMapping("/stats/readers")
+    public ResponseEntity<LendingStatsView> getReaderStats(
+            @RequestParam @Parameter(description = "Reader number (e.g., 2024/1)") String readerNumber) {
+        return ResponseEntity.ok(findStats(LendingStatsBucket.READER, readerNumber));
+    }
+
+    @Operation(summary = "Get lending statistics of a genre")
+    @GetMapping("/stats/genres/{genre}")
+    public ResponseEntity<LendingStatsView> getGenreStats(@PathVariable @Parameter(description = "Genre name") String genre) {
+        return ResponseEntity.ok(findStats(LendingStatsBucket.GENRE, genre));
+    }
+
+    @Operation(summary = "Get lending statistics per month")
+    @GetMapping("/stats/monthly")
+    public ResponseEntity<List<LendingStatsView>> getMonthlyStats(
+            @RequestParam @DateTimeFormat(pattern = "yyyy-MM") @Parameter(description = "First month (YYYY-MM)") YearMonth from,
+            @RequestParam @DateTimeFormat(pattern = "yyyy-MM") @Parameter(description = "Last month (YYYY-MM)") YearMonth to) {
+        List<LendingStatsView> views = lendingQueryService
+                .getStatsRange(LendingStatsBucket.MONTH, from.toString(), to.toString()).stream()
+                .map(this::mapToStatsView)
+                .toList();
+        return ResponseEntity.ok(views);
+    }
+
+    @Operation(summary = "Get lending statistics per day")
+    @GetMapping("/stats/daily")
+    public ResponseEntity<List<LendingStatsView>> getDailyStats(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) @Parameter(description = "First day (YYYY-MM-DD)") LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) @Parameter(description = "Last day (YYYY-MM-DD)") LocalDate to) {
+        List<LendingStatsView> views = lendingQueryService
+                .getStatsRange(LendingStatsBucket.DAY, from.toString(), to.toString()).stream()
+                .map(this::mapToStatsView)
+                .toList();
+        return ResponseEntity.ok(views);
+    }
+
     @Operation(summary = "Search lendings with filters")
     @GetMapping("/search")
     public ResponseEntity<Page<LendingView>> searchLendings(
@@ -113,6 +190,58 @@ public class LendingQueryController {
         return ResponseEntity.ok(views);
     }
 
+    private static int pageSize(int limit) {
+        return Math.max(1, Math.min(limit, MAX_HISTORY_PAGE_SIZE));
+    }
+
+    /**
+     * One extra row was fetched to know whether another page exists
+     */
+    private LendingHistoryPage toHistoryPage(List<LendingHistoryItem> rows, int size) {
+        boolean hasMore = rows.size() > size;
+        List<LendingHistoryItem> page = hasMore ? rows.subList(0, size) : rows;
+        return LendingHistoryPage.builder()
+                .items(page.stream().map(this::mapToLendingView).toList())
+                .nextCursor(hasMore ? LendingCursor.after(page.get(size - 1)).encode() : null)
+                .build();
+    }
+
+    private LendingView mapToLendingView(LendingHistoryItem item) {
+        return LendingView.builder()
+                .lendingNumber(item.lendingNumber())
+                .bookId(item.bookId())
+                .readerNumber(item.readerNumber())
+                .startDate(item.startDate())
+                .limitDate(item.limitDate())
+                .returnedDate(item.returnedDate())
+                .daysUntilReturn(item.daysUntilReturn())
+                .daysOverdue(item.daysOverdue())
+                .fineAmountInCents(item.fineAmountInCents())
+                .comment(item.comment())
+                .rating(item.rating())
+                .version(item.version())
+                .build();
+    }
+
+    private LendingStatsView findStats(String dimension, String bucket) {
+        return lendingQueryService.getStats(dimension, bucket)
+                .map(this::mapToStatsView)
+                .orElseThrow(() -> new NotFoundException("No returned lendings for " + dimension + " " + bucket));
+    }
+
+    private LendingStatsView mapToStatsView(LendingStatsBucket stats) {
+        return LendingStatsView.builder()
+                .dimension(stats.getDimension())
+                .bucket(stats.getBucket())
+                .returnedCount(stats.getReturnedCount())
+                .averageDurationDays(stats.getAverageDurationDays())
+                .lateCount(stats.getLateCount())
+                .averageDaysOverdue(stats.getAverageDaysOverdue())
+                .totalFineCents(stats.getTotalFineCents())
+                .averageRating(stats.getAverageRating())
+                .build();
+    }
+
     private LendingView mapToLendingView(LendingEntity lending) {
         return LendingView.builder()
                 .lendingNumber(lending.getLendingNumberValue())
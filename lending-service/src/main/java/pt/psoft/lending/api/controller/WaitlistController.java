@@ -0,0 +1,73 @@
+package pt.psoft.lending.api.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+import pt.psoft.lending.api.dto.JoinWaitlistRequest;
+import pt.psoft.lending.api.dto.WaitlistEntryView;
+import pt.psoft.lending.model.command.WaitlistEntry;
+import pt.psoft.lending.services.ReaderAccessPolicy;
+import pt.psoft.lending.services.WaitlistService;
+
+/**
+ * REST Controller for book waitlists.
+ * Readers only see, join and leave their own entries; librarians any reader's.
+ */
+@Tag(name = "Lendings - Waitlist", description = "Endpoints for queueing for books without available copies")
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/api/v1/lendings/waitlist")
+public class WaitlistController {
+
+    private final WaitlistService waitlistService;
+    private final ReaderAccessPolicy readerAccessPolicy;
+
+    @Operation(summary = "Join the waitlist of a book",
+               description = "Idempotent per reader and book; the reader is notified when a copy is held for them")
+    @PostMapping
+    public ResponseEntity<WaitlistEntryView> join(@Valid @RequestBody JoinWaitlistRequest request,
+                                                  Authentication authentication) {
+        String readerNumber = readerAccessPolicy.actingFor(authentication, request.getReaderNumber());
+        WaitlistEntry entry = waitlistService.join(request.getIsbn(), readerNumber);
+
+        var entryUri = ServletUriComponentsBuilder.fromCurrentRequestUri()
+                .path("/{id}")
+                .buildAndExpand(entry.getId())
+                .toUri();
+
+        return ResponseEntity.created(entryUri).body(mapToView(entry));
+    }
+
+    @Operation(summary = "Get a waitlist entry and its position")
+    @GetMapping("/{id}")
+    public ResponseEntity<WaitlistEntryView> findById(@PathVariable Long id, Authentication authentication) {
+        WaitlistEntry entry = waitlistService.findById(id);
+        readerAccessPolicy.requireReaderOrStaff(authentication, entry.getReaderNumber());
+        return ResponseEntity.ok(mapToView(entry));
+    }
+
+    @Operation(summary = "Leave the waitlist")
+    @DeleteMapping("/{id}")
+    public ResponseEntity<WaitlistEntryView> cancel(@PathVariable Long id, Authentication authentication) {
+        readerAccessPolicy.requireReaderOrStaff(authentication, waitlistService.findById(id).getReaderNumber());
+        return ResponseEntity.ok(mapToView(waitlistService.cancel(id)));
+    }
+
+    private WaitlistEntryView mapToView(WaitlistEntry entry) {
+        return WaitlistEntryView.builder()
+                .id(entry.getId())
+                .isbn(entry.getIsbn())
+                .readerNumber(entry.getReaderNumber())
+                .status(entry.getStatus().name())
+                .position(waitlistService.positionOf(entry))
+                .requestedAt(entry.getRequestedAt())
+                .expiresAt(entry.getExpiresAt())
+                .offerExpiresAt(entry.getOfferExpiresAt())
+                .build();
+    }
+}
@@ -0,0 +1,27 @@
+package pt.psoft.lending.api.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * View DTO for book copy inventory
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Copy inventory of a book")
+public class BookInventoryView {
+
+    @Schema(description = "Book ISBN", example = "9782826012092")
+    private String isbn;
+
+    @Schema(description = "Copies owned by the library", example = "5")
+    private int totalCopies;
+
+    @Schema(description = "Copies currently available for lending", example = "2")
+    private int availableCopies;
+}
@@ -0,0 +1,27 @@
+package pt.psoft.lending.api.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Request DTO for creating several lendings in one call
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Request for lending several books at once")
+public class BulkCreateLendingRequest {
+
+    @NotEmpty(message = "At least one lending is required")
+    @Size(max = 100, message = "At most 100 lendings per request")
+    @Valid
+    @Schema(description = "Lendings to create, processed in order")
+    private List<CreateLendingRequest> lendings;
+}
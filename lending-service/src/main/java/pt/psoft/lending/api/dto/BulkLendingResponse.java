@@ -0,0 +1,65 @@
+package pt.psoft.lending.api.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Per-item outcome of a bulk create or return
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Outcome of a bulk lending operation, one result per requested item")
+public class BulkLendingResponse {
+
+    @Schema(description = "Items applied")
+    private int succeeded;
+
+    @Schema(description = "Items rejected")
+    private int failed;
+
+    @Schema(description = "Results in request order")
+    private List<ItemResult> items;
+
+    public enum ItemStatus {
+        CREATED, RETURNED, REJECTED, NOT_FOUND, CONFLICT
+    }
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Schema(description = "Outcome of one item")
+    public static class ItemResult {
+
+        @Schema(description = "Position of the item in the request")
+        private int index;
+
+        @Schema(description = "Outcome")
+        private ItemStatus status;
+
+        @Schema(description = "Lending number (created or returned lending)", example = "2024/1")
+        private String lendingNumber;
+
+        @Schema(description = "New version of the lending, when applied")
+        private Long version;
+
+        @Schema(description = "Reason the item was rejected")
+        private String message;
+
+        public boolean isApplied() {
+            return status == ItemStatus.CREATED || status == ItemStatus.RETURNED;
+        }
+    }
+
+    public static BulkLendingResponse of(List<ItemResult> items) {
+        int succeeded = (int) items.stream().filter(ItemResult::isApplied).count();
+        return new BulkLendingResponse(succeeded, items.size() - succeeded, items);
+    }
+}
@@ -0,0 +1,52 @@
+package pt.psoft.lending.api.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Request DTO for returning several lendings in one call
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Request for returning several books at once")
+public class BulkReturnLendingRequest {
+
+    @NotEmpty(message = "At least one return is required")
+    @Size(max = 100, message = "At most 100 returns per request")
+    @Valid
+    @Schema(description = "Returns to process, in order")
+    private List<Item> returns;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Schema(description = "Return of one lending")
+    public static class Item {
+
+        @NotBlank(message = "Lending number is required")
+        @Schema(description = "Lending number", example = "2024/1")
+        private String lendingNumber;
+
+        @NotNull(message = "Version is required")
+        @Schema(description = "Expected version for optimistic locking (the ETag of the lending)", example = "0")
+        private Long version;
+
+        @NotNull(message = "Comment cannot be null (but can be empty)")
+        @Size(max = 1024, message = "Comment cannot exceed 1024 characters")
+        @Schema(description = "Comment about the book")
+        private String comment;
+
+        @NotNull(message = "Rating is required")
+        @Min(value = 0, message = "Rating must be at least 0")
+        @Max(value = 10, message = "Rating must be at most 10")
+        @Schema(description = "Rating from 0 to 10", example = "8", minimum = "0", maximum = "10")
+        private Integer rating;
+    }
+}
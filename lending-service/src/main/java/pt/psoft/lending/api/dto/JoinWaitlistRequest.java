@@ -0,0 +1,24 @@
+package pt.psoft.lending.api.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotBlank;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Request DTO for joining the waitlist of a book
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Request for queueing for a book without available copies")
+public class JoinWaitlistRequest {
+
+    @NotBlank(message = "Book ISBN is required")
+    @Schema(description = "ISBN of the book", example = "9782826012092")
+    private String isbn;
+
+    @Schema(description = "Reader number; required for librarians, a reader's own by default", example = "2024/1")
+    private String readerNumber;
+}
@@ -0,0 +1,26 @@
+package pt.psoft.lending.api.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * One cursor-paginated page of a lending history
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Page of lendings, newest first")
+public class LendingHistoryPage {
+
+    @Schema(description = "Lendings of this page")
+    private List<LendingView> items;
+
+    @Schema(description = "Cursor for the next page, absent on the last page")
+    private String nextCursor;
+}
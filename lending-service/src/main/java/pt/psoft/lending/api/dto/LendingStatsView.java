@@ -0,0 +1,42 @@
+package pt.psoft.lending.api.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * View DTO for lending statistics of one bucket
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Statistics of returned lendings for a day, month, book, reader or genre")
+public class LendingStatsView {
+
+    @Schema(description = "all, day, month, book, reader or genre", example = "month")
+    private String dimension;
+
+    @Schema(description = "Bucket within the dimension", example = "2025-01")
+    private String bucket;
+
+    @Schema(description = "Returned lendings")
+    private long returnedCount;
+
+    @Schema(description = "Average lending duration in days")
+    private Double averageDurationDays;
+
+    @Schema(description = "Lendings returned late")
+    private long lateCount;
+
+    @Schema(description = "Average days overdue of late returns")
+    private Double averageDaysOverdue;
+
+    @Schema(description = "Total fines in cents")
+    private long totalFineCents;
+
+    @Schema(description = "Average rating (0-10)")
+    private Double averageRating;
+}
@@ -0,0 +1,23 @@
+package pt.psoft.lending.api.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Request DTO for setting the copies owned of a book
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Request for setting the number of copies of a book")
+public class UpdateInventoryRequest {
+
+    @NotNull(message = "Total copies is required")
+    @Min(value = 0, message = "Total copies cannot be negative")
+    @Schema(description = "Copies owned by the library", example = "5")
+    private Integer totalCopies;
+}
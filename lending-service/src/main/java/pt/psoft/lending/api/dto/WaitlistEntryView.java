@@ -0,0 +1,44 @@
+package pt.psoft.lending.api.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * View DTO for a waitlist entry
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Place of a reader in the waitlist of a book")
+public class WaitlistEntryView {
+
+    @Schema(description = "Waitlist entry id")
+    private Long id;
+
+    @Schema(description = "Book ISBN", example = "9782826012092")
+    private String isbn;
+
+    @Schema(description = "Reader number", example = "2024/1")
+    private String readerNumber;
+
+    @Schema(description = "WAITING, OFFERED, FULFILLED, EXPIRED or CANCELLED")
+    private String status;
+
+    @Schema(description = "Readers ahead in the queue")
+    private long position;
+
+    @Schema(description = "When the reader joined")
+    private LocalDateTime requestedAt;
+
+    @Schema(description = "When the entry expires if no copy is offered")
+    private LocalDateTime expiresAt;
+
+    @Schema(description = "Until when the offered copy is held (if offered)")
+    private LocalDateTime offerExpiresAt;
+}
@@ -0,0 +1,82 @@
+package pt.psoft.lending.client;
+
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestClient;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.Optional;
+
+/**
+ * Synchronous reader lookup in Reader Service, used only for readers missing from
+ * the local reader replica while enforcement is off. Forwards the caller's token.
+ */
+@Component
+@Slf4j
+public class ReaderServiceClient {
+
+    private final RestClient restClient;
+    private final CircuitBreaker circuitBreaker;
+
+    public ReaderServiceClient(RestClient.Builder restClientBuilder,
+                               CircuitBreakerRegistry circuitBreakerRegistry,
+                               @Value("${lending.reader-service.url:http://localhost:8087}") String baseUrl) {
+        this.restClient = restClientBuilder.baseUrl(baseUrl).build();
+        this.circuitBreaker = circuitBreakerRegistry.circuitBreaker("readerService");
+    }
+
+    /**
+     * Id of the reader, empty when Reader Service does not know it.
+     * Throws IllegalStateException when Reader Service cannot answer.
+     */
+    public Optional<Long> findReaderId(String readerNumber) {
+        try {
+            return circuitBreaker.executeSupplier(() -> fetch(readerNumber));
+        } catch (RuntimeException e) {
+            log.warn("Reader Service lookup of {} failed: {}", readerNumber, e.getMessage());
+            throw new IllegalStateException("Reader " + readerNumber + " could not be verified, try again later", e);
+        }
+    }
+
+    private Optional<Long> fetch(String readerNumber) {
+        try {
+            ReaderResponse reader = restClient.get()
+                    .uri("/api/readers/" + readerNumber)
+                    .headers(ReaderServiceClient::forwardAuthorization)
+                    .retrieve()
+                    .body(ReaderResponse.class);
+            return Optional.ofNullable(reader).map(ReaderResponse::getId);
+        } catch (HttpClientErrorException e) {
+            if (e.getStatusCode() == HttpStatus.NOT_FOUND) {
+                return Optional.empty();
+            }
+            throw e;
+        }
+    }
+
+    private static void forwardAuthorization(HttpHeaders headers) {
+        if (RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes) {
+            String authorization = attributes.getRequest().getHeader(HttpHeaders.AUTHORIZATION);
+            if (authorization != null) {
+                headers.set(HttpHeaders.AUTHORIZATION, authorization);
+            }
+        }
+    }
+
+    /**
+     * The part of Reader Service's ReaderView used here
+     */
+    @Data
+    static class ReaderResponse {
+        private Long id;
+        private String readerNumber;
+    }
+}
@@ -0,0 +1,194 @@
+package pt.psoft.lending.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Keeps the lendings table partitioned by lending_year (PostgreSQL LIST partitioning).
+ *
+ * The one-off conversion of an existing plain table is a versioned migration
+ * (infrastructure/migrations/lending_db/V1__partition_lendings.sql), run once in a
+ * maintenance window: it copies every row under an exclusive lock, which must never
+ * happen on a live service or once per starting replica.
+ * At runtime, partitions for the current and next year are created ahead of time, and
+ * closed years (no outstanding lending, older than archive-after-years) are detached
+ * and moved to the lending_archive schema, optionally on a cheaper tablespace.
+ * Archived lendings stay queryable there but no longer weigh on the live table.
+ * Both jobs run on one replica at a time (advisory lock).
+ */
+@Component
+@Order(-1)
+@Slf4j
+public class LendingPartitionManager implements ApplicationRunner {
+
+    // arbitrary, only have to differ from the other advisory locks taken in lending_db
+    static final long PARTITIONS_LOCK_KEY = 0x4C454E44L; // "LEND"
+    static final long ARCHIVE_LOCK_KEY = 0x4C454E41L;    // "LENA"
+    public static final String ARCHIVE_SCHEMA = "lending_archive";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final boolean archiveEnabled;
+    private final int archiveAfterYears;
+    private final String archiveTablespace;
+
+    public LendingPartitionManager(JdbcTemplate jdbcTemplate,
+                                   PlatformTransactionManager transactionManager,
+                                   @Value("${lending.partitioning.enabled:true}") boolean enabled,
+                                   @Value("${lending.partitioning.archive.enabled:true}") boolean archiveEnabled,
+                                   @Value("${lending.partitioning.archive.after-years:3}") int archiveAfterYears,
+                                   @Value("${lending.partitioning.archive.tablespace:}") String archiveTablespace) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.archiveEnabled = archiveEnabled;
+        this.archiveAfterYears = Math.max(archiveAfterYears, 1);
+        this.archiveTablespace = archiveTablespace;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!enabled) {
+            return;
+        }
+        try {
+            if (!isPartitioned()) {
+                // a plain table still works, only without pruning
+                log.warn("The lendings table is not partitioned; run the V1__partition_lendings migration " +
+                        "in a maintenance window to enable partition pruning and archiving");
+                return;
+            }
+            ensurePartitions();
+        } catch (DataAccessException e) {
+            log.error("Could not verify the lending partitions", e);
+        }
+    }
+
+    /**
+     * Create the partitions of the current and the next year ahead of time
+     */
+    @Scheduled(cron = "${lending.partitioning.maintenance-cron:0 0 3 * * *}")
+    public void ensurePartitions() {
+        if (!enabled || !isPartitioned()) {
+            return;
+        }
+        int year = LocalDate.now().getYear();
+        runExclusively(PARTITIONS_LOCK_KEY, () -> {
+            for (int y = year; y <= year + 1; y++) {
+                try {
+                    jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + partition(y) +
+                            " PARTITION OF lendings FOR VALUES IN (" + y + ")");
+                } catch (DataAccessException e) {
+                    // fails if the default partition already holds rows of that year
+                    log.warn("Could not create lending partition for {}: {}", y, e.getMessage());
+                }
+            }
+        });
+    }
+
+    /**
+     * Move closed years to the archive schema
+     */
+    @Scheduled(cron = "${lending.partitioning.archive.cron:0 30 3 1 * *}")
+    public void archiveClosedYears() {
+        if (!enabled || !archiveEnabled || !isPartitioned()) {
+            return;
+        }
+        int lastArchivable = LocalDate.now().getYear() - archiveAfterYears;
+        boolean ran = runExclusively(ARCHIVE_LOCK_KEY, () -> {
+            List<Integer> years = jdbcTemplate.queryForList(
+                    "SELECT CAST(substring(c.relname FROM 'lendings_y([0-9]{4})') AS int) FROM pg_inherits i " +
+                    "JOIN pg_class c ON c.oid = i.inhrelid JOIN pg_class p ON p.oid = i.inhparent " +
+                    "WHERE p.relname = 'lendings' AND c.relname ~ '^lendings_y[0-9]{4}$'", Integer.class);
+
+            for (Integer year : years) {
+                if (year == null || year > lastArchivable) {
+                    continue;
+                }
+                try {
+                    transactionTemplate.executeWithoutResult(status -> archive(year));
+                } catch (DataAccessException e) {
+                    log.warn("Could not archive lendings of {}: {}", year, e.getMessage());
+                }
+            }
+        });
+        if (!ran) {
+            log.debug("Lending archive already running on another replica");
+        }
+    }
+
+    private void archive(int year) {
+        String table = partition(year);
+        Boolean active = jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM " + table + " WHERE returned_date IS NULL)", Boolean.class);
+        if (Boolean.TRUE.equals(active)) {
+            log.info("Lendings of {} still have outstanding books, not archived", year);
+            return;
+        }
+
+        jdbcTemplate.execute("CREATE SCHEMA IF NOT EXISTS " + ARCHIVE_SCHEMA);
+        jdbcTemplate.execute("ALTER TABLE lendings DETACH PARTITION " + table);
+        jdbcTemplate.execute("ALTER TABLE " + table + " SET SCHEMA " + ARCHIVE_SCHEMA);
+        if (!archiveTablespace.isBlank()) {
+            jdbcTemplate.execute("ALTER TABLE " + ARCHIVE_SCHEMA + "." + table + " SET TABLESPACE " + archiveTablespace);
+        }
+        log.info("Lendings of {} archived to {}.{}", year, ARCHIVE_SCHEMA, table);
+    }
+
+    /**
+     * Run the work while this replica holds a session advisory lock;
+     * returns false without running it when another replica holds the lock
+     */
+    private boolean runExclusively(long lockKey, Runnable work) {
+        Boolean ran = jdbcTemplate.execute((ConnectionCallback<Boolean>) connection -> {
+            if (!advisoryLock(connection, "SELECT pg_try_advisory_lock(?)", lockKey)) {
+                return false;
+            }
+            try {
+                work.run();
+                return true;
+            } finally {
+                advisoryLock(connection, "SELECT pg_advisory_unlock(?)", lockKey);
+            }
+        });
+        return Boolean.TRUE.equals(ran);
+    }
+
+    private static boolean advisoryLock(Connection connection, String sql, long lockKey) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setLong(1, lockKey);
+            try (ResultSet result = statement.executeQuery()) {
+                return result.next() && result.getBoolean(1);
+            }
+        }
+    }
+
+    private boolean isPartitioned() {
+        List<String> kinds = jdbcTemplate.queryForList(
+                "SELECT CAST(c.relkind AS varchar) FROM pg_class c JOIN pg_namespace n ON n.oid = c.relnamespace " +
+                "WHERE c.relname = 'lendings' AND n.nspname = current_schema()", String.class);
+        return !kinds.isEmpty() && "p".equals(kinds.get(0));
+    }
+
+    static String partition(int year) {
+        return "lendings_y" + year;
+    }
+}
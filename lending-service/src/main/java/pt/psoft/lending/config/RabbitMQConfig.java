@@ -22,6 +22,8 @@ public class RabbitMQConfig {
     // Routing keys - Publishing
     public static final String ROUTING_KEY_LENDING_CREATED = "lending.lending.created";
     public static final String ROUTING_KEY_LENDING_RETURNED = "lending.lending.returned";
+    public static final String ROUTING_KEY_LENDING_OVERDUE = "lending.lending.overdue";
+    public static final String ROUTING_KEY_WAITLIST_OFFERED = "lending.waitlist.offered";
 
     // Routing keys - Consuming (from other services)
     public static final String ROUTING_KEY_BOOK_ALL = "catalog.book.*";
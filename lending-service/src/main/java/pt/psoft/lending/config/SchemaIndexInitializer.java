@@ -0,0 +1,54 @@
+package pt.psoft.lending.config;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Creates the PostgreSQL indexes JPA cannot express (partial and descending indexes).
+ * Runs after Hibernate's schema update; every statement is idempotent.
+ * The lendings pk sequence is set up once by the V2__lendings_pk_sequence migration,
+ * never here: a replica moving it at startup could rewind it into a block of pks
+ * another replica was already handed.
+ */
+@Component
+@Order(0)
+@RequiredArgsConstructor
+@Slf4j
+public class SchemaIndexInitializer implements ApplicationRunner {
+
+    private static final List<String> STATEMENTS = List.of(
+            // only outstanding lendings, ordered by due date: overdue scans never touch history
+            "CREATE INDEX IF NOT EXISTS idx_lendings_active_limit_date " +
+                    "ON lendings (limit_date) WHERE returned_date IS NULL",
+            // keyset pagination of histories on (start_date, pk)
+            "CREATE INDEX IF NOT EXISTS idx_lendings_reader_history " +
+                    "ON lendings (reader_number, start_date DESC, pk DESC)",
+            "CREATE INDEX IF NOT EXISTS idx_lendings_book_history " +
+                    "ON lendings (book_id, start_date DESC, pk DESC)",
+            "CREATE INDEX IF NOT EXISTS idx_overdue_lendings_unpublished " +
+                    "ON overdue_lendings (lending_pk) WHERE event_published = false"
+    );
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        for (String statement : STATEMENTS) {
+            try {
+                jdbcTemplate.execute(statement);
+            } catch (DataAccessException e) {
+                // missing indexes only cost performance, never correctness
+                log.warn("Could not apply schema statement [{}]: {}", statement, e.getMessage());
+            }
+        }
+        log.info("Schema indexes verified ({} statements)", STATEMENTS.size());
+    }
+}
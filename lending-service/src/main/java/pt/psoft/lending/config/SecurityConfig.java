@@ -71,15 +71,21 @@ public class SecurityConfig {
                 // Actuator health
                 .requestMatchers("/actuator/**").permitAll()
 
+                // Inventory, waitlist and stats endpoints (before the {year}/{sequence} pattern they would also match)
+                .requestMatchers(HttpMethod.GET, "/api/v1/lendings/inventory/**").hasAnyRole(ROLE_READER, ROLE_LIBRARIAN)
+                .requestMatchers(HttpMethod.PUT, "/api/v1/lendings/inventory/**").hasRole(ROLE_LIBRARIAN)
+                .requestMatchers("/api/v1/lendings/waitlist", "/api/v1/lendings/waitlist/**").hasAnyRole(ROLE_READER, ROLE_LIBRARIAN)
+                .requestMatchers(HttpMethod.GET, "/api/v1/lendings/stats/**").hasRole(ROLE_LIBRARIAN)
+
                 // Lending Query endpoints
                 .requestMatchers(HttpMethod.GET, "/api/v1/lendings/{year}/{sequence}").hasAnyRole(ROLE_READER, ROLE_LIBRARIAN)
                 .requestMatchers(HttpMethod.GET, "/api/v1/lendings/reader/**").hasAnyRole(ROLE_READER, ROLE_LIBRARIAN)
                 .requestMatchers(HttpMethod.GET, "/api/v1/lendings/book/**").hasAnyRole(ROLE_READER, ROLE_LIBRARIAN)
                 .requestMatchers(HttpMethod.GET, "/api/v1/lendings/overdue").hasRole(ROLE_LIBRARIAN)
-                .requestMatchers(HttpMethod.GET, "/api/v1/lendings/stats/**").hasRole(ROLE_LIBRARIAN)
                 .requestMatchers(HttpMethod.GET, "/api/v1/lendings/search").hasAnyRole(ROLE_READER, ROLE_LIBRARIAN)
 
                 // Lending Command endpoints
+                .requestMatchers(HttpMethod.POST, "/api/v1/lendings/bulk", "/api/v1/lendings/bulk/return").hasRole(ROLE_LIBRARIAN)
                 .requestMatchers(HttpMethod.POST, "/api/v1/lendings").hasRole(ROLE_LIBRARIAN)
                 .requestMatchers(HttpMethod.POST, "/api/v1/lendings/{year}/{sequence}/return").hasRole(ROLE_READER)
 
@@ -0,0 +1,51 @@
+package pt.psoft.lending.messaging;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.stereotype.Component;
+import pt.psoft.lending.config.RabbitMQConfig;
+import pt.psoft.lending.services.CatalogReplicaService;
+import pt.psoft.shared.events.book.BookCreatedEvent;
+import pt.psoft.shared.events.book.BookDeletedEvent;
+import pt.psoft.shared.events.book.BookUpdatedEvent;
+import pt.psoft.shared.events.reader.ReaderCreatedEvent;
+
+/**
+ * Consumes book and reader events into the local replicas used to validate lendings
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class CatalogEventConsumer {
+
+    private final CatalogReplicaService catalogReplicaService;
+    private final ObjectMapper objectMapper;
+
+    @RabbitListener(queues = RabbitMQConfig.QUEUE_NAME)
+    public void handleEvent(String message) {
+        log.debug("Received message from RabbitMQ: {}", message);
+
+        try {
+            var jsonNode = objectMapper.readTree(message);
+            String eventType = jsonNode.get("@type").asText();
+
+            switch (eventType) {
+                case "BookCreated" -> catalogReplicaService.onBookCreated(
+                        objectMapper.readValue(message, BookCreatedEvent.class));
+                case "BookUpdated" -> catalogReplicaService.onBookUpdated(
+                        objectMapper.readValue(message, BookUpdatedEvent.class));
+                case "BookDeleted" -> catalogReplicaService.onBookDeleted(
+                        objectMapper.readValue(message, BookDeletedEvent.class));
+                case "ReaderCreated" -> catalogReplicaService.onReaderCreated(
+                        objectMapper.readValue(message, ReaderCreatedEvent.class));
+                default -> log.debug("Ignoring event type: {}", eventType);
+            }
+
+        } catch (Exception e) {
+            log.error("Failed to process message: {}", message, e);
+            throw new RuntimeException("Failed to process event", e);
+        }
+    }
+}
@@ -5,10 +5,14 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 import pt.psoft.lending.repositories.jpa.OutboxRepository;
 import pt.psoft.shared.events.lending.LendingCreatedEvent;
+import pt.psoft.shared.events.lending.LendingOverdueEvent;
 import pt.psoft.shared.events.lending.LendingReturnedEvent;
+import pt.psoft.shared.events.lending.WaitlistOfferedEvent;
 import pt.psoft.shared.messaging.OutboxEvent;
 import pt.psoft.shared.utils.JsonUtils;
 
+import java.util.List;
+
 /**
  * Publishes Lending domain events to Outbox table
  * Uses Outbox Pattern for reliable event publishing
@@ -48,4 +52,51 @@ public class LendingEventPublisher {
         outboxRepository.save(outboxEvent);
         log.debug("LendingReturned event saved to outbox: {}", event.getLendingNumber());
     }
+
+    /**
+     * Outbox rows of a bulk operation, written with one batched insert
+     */
+    public void publishLendingsCreated(List<LendingCreatedEvent> events) {
+        log.info("Publishing {} LendingCreated events", events.size());
+        outboxRepository.saveAll(events.stream()
+                .map(event -> new OutboxEvent("LENDING", event.getLendingNumber(), "CREATED", JsonUtils.toJson(event)))
+                .toList());
+    }
+
+    public void publishLendingsReturned(List<LendingReturnedEvent> events) {
+        log.info("Publishing {} LendingReturned events", events.size());
+        outboxRepository.saveAll(events.stream()
+                .map(event -> new OutboxEvent("LENDING", event.getLendingNumber(), "RETURNED", JsonUtils.toJson(event)))
+                .toList());
+    }
+
+    public void publishLendingOverdue(LendingOverdueEvent event) {
+        log.info("Publishing LendingOverdue event for lending: {} ({} days)",
+                event.getLendingNumber(), event.getDaysOverdue());
+
+        OutboxEvent outboxEvent = new OutboxEvent(
+                "LENDING",
+                event.getLendingNumber(),
+                "OVERDUE",
+                JsonUtils.toJson(event)
+        );
+
+        outboxRepository.save(outboxEvent);
+        log.debug("LendingOverdue event saved to outbox: {}", event.getLendingNumber());
+    }
+
+    public void publishWaitlistOffered(WaitlistOfferedEvent event) {
+        log.info("Publishing WaitlistOffered event for book: {} to reader: {}",
+                event.getBookId(), event.getReaderNumber());
+
+        OutboxEvent outboxEvent = new OutboxEvent(
+                "WAITLIST",
+                String.valueOf(event.getWaitlistEntryId()),
+                "OFFERED",
+                JsonUtils.toJson(event)
+        );
+
+        outboxRepository.save(outboxEvent);
+        log.debug("WaitlistOffered event saved to outbox: {}", event.getWaitlistEntryId());
+    }
 }
@@ -0,0 +1,38 @@
+package pt.psoft.lending.model.command;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Getter;
+
+/**
+ * Copy inventory of a book (Command Model - Write Side)
+ * Available copies are only changed through the conditional updates of
+ * BookInventoryRepository, never read-modify-write.
+ */
+@Entity
+@Table(name = "book_inventory")
+@Getter
+public class BookInventory {
+
+    @Id
+    @Column(name = "isbn", nullable = false)
+    private String isbn;
+
+    @Column(name = "total_copies", nullable = false)
+    private int totalCopies;
+
+    @Column(name = "available_copies", nullable = false)
+    private int availableCopies;
+
+    protected BookInventory() {
+        // For JPA
+    }
+
+    public BookInventory(String isbn, int totalCopies, int availableCopies) {
+        this.isbn = isbn;
+        this.totalCopies = totalCopies;
+        this.availableCopies = availableCopies;
+    }
+}
@@ -0,0 +1,38 @@
+package pt.psoft.lending.model.command;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Getter;
+
+/**
+ * Local projection of a catalog book (Command Model - Write Side)
+ * Fed by BookCreated/BookUpdated/BookDeleted; deleted books are kept as
+ * tombstones so returns of their lendings still know the genre.
+ */
+@Entity
+@Table(name = "book_replicas")
+@Getter
+public class BookReplica {
+
+    @Id
+    @Column(name = "isbn", nullable = false)
+    private String isbn;
+
+    @Column(name = "genre")
+    private String genre;
+
+    @Column(name = "deleted", nullable = false)
+    private boolean deleted;
+
+    protected BookReplica() {
+        // For JPA
+    }
+
+    public BookReplica(String isbn, String genre, boolean deleted) {
+        this.isbn = isbn;
+        this.genre = genre;
+        this.deleted = deleted;
+    }
+}
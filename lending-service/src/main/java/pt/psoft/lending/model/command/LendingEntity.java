@@ -16,12 +16,14 @@ import java.util.Objects;
  * Represents the source of truth for Lending aggregate
  */
 @Entity
-@Table(name = "lendings")
+@Table(name = "lendings",
+        uniqueConstraints = @UniqueConstraint(name = "uk_lending_number", columnNames = {"lending_year", "lending_sequence"}))
 @Getter
 public class LendingEntity {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "lendings_pk_seq")
+    @SequenceGenerator(name = "lendings_pk_seq", sequenceName = "lendings_pk_seq", allocationSize = 50)
     private Long pk;
 
     @Embedded
@@ -72,11 +74,16 @@ public class LendingEntity {
 
     public LendingEntity(String bookId, Long readerId, String readerNumber,
                          int sequenceNumber, int lendingDurationInDays, int fineValuePerDayInCents) {
+        this(bookId, readerId, readerNumber, new LendingNumber(sequenceNumber), lendingDurationInDays, fineValuePerDayInCents);
+    }
+
+    public LendingEntity(String bookId, Long readerId, String readerNumber,
+                         LendingNumber lendingNumber, int lendingDurationInDays, int fineValuePerDayInCents) {
         this.bookId = Objects.requireNonNull(bookId, "Book ID cannot be null");
         this.readerId = Objects.requireNonNull(readerId, "Reader ID cannot be null");
         this.readerNumber = Objects.requireNonNull(readerNumber, "Reader Number cannot be null");
 
-        this.lendingNumber = new LendingNumber(sequenceNumber);
+        this.lendingNumber = Objects.requireNonNull(lendingNumber, "Lending Number cannot be null");
         this.startDate = LocalDate.now();
         this.limitDate = LocalDate.now().plusDays(lendingDurationInDays);
         this.returnedDate = null;
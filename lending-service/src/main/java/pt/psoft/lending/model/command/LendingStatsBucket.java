@@ -0,0 +1,83 @@
+package pt.psoft.lending.model.command;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * Running lending statistics of one bucket (Command Model - Write Side)
+ *
+ * Dimensions: "all" (bucket "all"), "day" (YYYY-MM-DD of return), "month" (YYYY-MM),
+ * "book" (ISBN), "reader" (reader number) and "genre" (genre name).
+ * Sums and counts are exact; returns are folded in from lending_stats_deltas every few seconds.
+ */
+@Entity
+@Table(name = "lending_stats")
+@IdClass(LendingStatsBucket.Key.class)
+@Getter
+public class LendingStatsBucket {
+
+    public static final String ALL = "all";
+    public static final String DAY = "day";
+    public static final String MONTH = "month";
+    public static final String BOOK = "book";
+    public static final String READER = "reader";
+    public static final String GENRE = "genre";
+
+    @Id
+    @Column(name = "dimension", nullable = false, length = 16)
+    private String dimension;
+
+    @Id
+    @Column(name = "bucket", nullable = false)
+    private String bucket;
+
+    @Column(name = "returned_count", nullable = false)
+    private long returnedCount;
+
+    @Column(name = "total_duration_days", nullable = false)
+    private long totalDurationDays;
+
+    @Column(name = "late_count", nullable = false)
+    private long lateCount;
+
+    @Column(name = "total_days_overdue", nullable = false)
+    private long totalDaysOverdue;
+
+    @Column(name = "total_fine_cents", nullable = false)
+    private long totalFineCents;
+
+    @Column(name = "rating_count", nullable = false)
+    private long ratingCount;
+
+    @Column(name = "rating_sum", nullable = false)
+    private long ratingSum;
+
+    protected LendingStatsBucket() {
+        // For JPA
+    }
+
+    public Double getAverageDurationDays() {
+        return returnedCount > 0 ? (double) totalDurationDays / returnedCount : null;
+    }
+
+    public Double getAverageDaysOverdue() {
+        return lateCount > 0 ? (double) totalDaysOverdue / lateCount : null;
+    }
+
+    public Double getAverageRating() {
+        return ratingCount > 0 ? (double) ratingSum / ratingCount : null;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private String dimension;
+        private String bucket;
+    }
+}
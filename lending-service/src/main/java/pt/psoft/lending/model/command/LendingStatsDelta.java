@@ -0,0 +1,55 @@
+package pt.psoft.lending.model.command;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+
+import java.time.LocalDate;
+
+/**
+ * One returned lending not yet folded into lending_stats (Command Model - Write Side)
+ * Inserted by the return transaction; LendingStatisticsService folds and deletes the rows in batches.
+ */
+@Entity
+@Table(name = "lending_stats_deltas")
+@Getter
+public class LendingStatsDelta {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id", nullable = false)
+    private Long id;
+
+    @Column(name = "returned_date", nullable = false)
+    private LocalDate returnedDate;
+
+    @Column(name = "book_id", nullable = false)
+    private String bookId;
+
+    @Column(name = "reader_number", nullable = false)
+    private String readerNumber;
+
+    @Column(name = "genre")
+    private String genre;
+
+    @Column(name = "duration_days", nullable = false)
+    private long durationDays;
+
+    @Column(name = "late", nullable = false)
+    private int late;
+
+    @Column(name = "days_overdue", nullable = false)
+    private long daysOverdue;
+
+    @Column(name = "fine_cents", nullable = false)
+    private long fineCents;
+
+    @Column(name = "rating_count", nullable = false)
+    private int ratingCount;
+
+    @Column(name = "rating_sum", nullable = false)
+    private long ratingSum;
+
+    protected LendingStatsDelta() {
+        // For JPA
+    }
+}
@@ -0,0 +1,51 @@
+package pt.psoft.lending.model.command;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Getter;
+
+import java.time.LocalDate;
+
+/**
+ * Materialized overdue state of an outstanding lending (Command Model - Write Side)
+ * Maintained in bulk by OverdueLendingTracker; a row disappears when the book is returned.
+ */
+@Entity
+@Table(name = "overdue_lendings")
+@Getter
+public class OverdueLending {
+
+    @Id
+    @Column(name = "lending_pk", nullable = false)
+    private Long lendingPk;
+
+    @Column(name = "lending_number", nullable = false)
+    private String lendingNumber;
+
+    @Column(name = "book_id", nullable = false)
+    private String bookId;
+
+    @Column(name = "reader_number", nullable = false)
+    private String readerNumber;
+
+    @Column(name = "limit_date", nullable = false)
+    private LocalDate limitDate;
+
+    @Column(name = "days_overdue", nullable = false)
+    private int daysOverdue;
+
+    @Column(name = "fine_amount_cents", nullable = false)
+    private int fineAmountInCents;
+
+    @Column(name = "became_overdue_on", nullable = false)
+    private LocalDate becameOverdueOn;
+
+    @Column(name = "event_published", nullable = false)
+    private boolean eventPublished;
+
+    protected OverdueLending() {
+        // For JPA
+    }
+}
@@ -0,0 +1,49 @@
+package pt.psoft.lending.model.command;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Getter;
+
+import java.time.LocalDate;
+import java.util.Objects;
+
+/**
+ * Per-reader lending state (Command Model - Write Side)
+ * Outstanding lending count and earliest due date of a reader, maintained on
+ * create/return so admission is decided on a single row instead of loading
+ * every outstanding lending.
+ */
+@Entity
+@Table(name = "reader_lending_state")
+@Getter
+public class ReaderLendingState {
+
+    @Id
+    @Column(name = "reader_number", nullable = false)
+    private String readerNumber;
+
+    @Column(name = "outstanding_count", nullable = false)
+    private int outstandingCount;
+
+    @Column(name = "earliest_limit_date")
+    private LocalDate earliestLimitDate;
+
+    protected ReaderLendingState() {
+        // For JPA
+    }
+
+    public ReaderLendingState(String readerNumber, int outstandingCount, LocalDate earliestLimitDate) {
+        this.readerNumber = Objects.requireNonNull(readerNumber, "Reader Number cannot be null");
+        this.outstandingCount = outstandingCount;
+        this.earliestLimitDate = earliestLimitDate;
+    }
+
+    /**
+     * Check if the reader holds a book past its due date
+     */
+    public boolean hasOverdue(LocalDate today) {
+        return earliestLimitDate != null && earliestLimitDate.isBefore(today);
+    }
+}
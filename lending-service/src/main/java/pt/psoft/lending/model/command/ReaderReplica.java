@@ -0,0 +1,38 @@
+package pt.psoft.lending.model.command;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.Getter;
+
+/**
+ * Local projection of a registered reader (Command Model - Write Side)
+ * Fed by reader events, so admission never calls Reader Service.
+ */
+@Entity
+@Table(name = "reader_replicas", indexes = @Index(name = "idx_reader_replicas_reader_id", columnList = "reader_id"))
+@Getter
+public class ReaderReplica {
+
+    @Id
+    @Column(name = "reader_number", nullable = false)
+    private String readerNumber;
+
+    @Column(name = "reader_id", nullable = false)
+    private Long readerId;
+
+    @Column(name = "active", nullable = false)
+    private boolean active;
+
+    protected ReaderReplica() {
+        // For JPA
+    }
+
+    public ReaderReplica(String readerNumber, Long readerId, boolean active) {
+        this.readerNumber = readerNumber;
+        this.readerId = readerId;
+        this.active = active;
+    }
+}
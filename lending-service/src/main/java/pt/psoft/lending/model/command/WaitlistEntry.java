@@ -0,0 +1,103 @@
+package pt.psoft.lending.model.command;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+/**
+ * Place of a reader in the FIFO waitlist of a book (Command Model - Write Side)
+ *
+ * active_key is "isbn|readerNumber" while the entry is WAITING or OFFERED and
+ * null afterwards; its unique constraint allows one live entry per reader and book.
+ */
+@Entity
+@Table(name = "waitlist_entries",
+        uniqueConstraints = @UniqueConstraint(name = "uk_waitlist_active", columnNames = "active_key"),
+        indexes = @Index(name = "idx_waitlist_queue", columnList = "isbn, status, requested_at"))
+@Getter
+public class WaitlistEntry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "isbn", nullable = false)
+    private String isbn;
+
+    @Column(name = "reader_number", nullable = false)
+    private String readerNumber;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, length = 16)
+    private WaitlistStatus status;
+
+    @Column(name = "active_key")
+    private String activeKey;
+
+    @Column(name = "requested_at", nullable = false)
+    private LocalDateTime requestedAt;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+
+    @Column(name = "offered_at")
+    private LocalDateTime offeredAt;
+
+    @Column(name = "offer_expires_at")
+    private LocalDateTime offerExpiresAt;
+
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
+
+    protected WaitlistEntry() {
+        // For JPA
+    }
+
+    public WaitlistEntry(String isbn, String readerNumber, LocalDateTime expiresAt) {
+        this.isbn = Objects.requireNonNull(isbn, "ISBN cannot be null");
+        this.readerNumber = Objects.requireNonNull(readerNumber, "Reader Number cannot be null");
+        this.status = WaitlistStatus.WAITING;
+        this.activeKey = activeKey(isbn, readerNumber);
+        this.requestedAt = LocalDateTime.now();
+        this.expiresAt = Objects.requireNonNull(expiresAt, "Expiry cannot be null");
+    }
+
+    public static String activeKey(String isbn, String readerNumber) {
+        return isbn + "|" + readerNumber;
+    }
+
+    /**
+     * Hold a copy for this reader until the given instant
+     */
+    public void offer(LocalDateTime offerExpiresAt) {
+        if (status != WaitlistStatus.WAITING) {
+            throw new IllegalStateException("Only waiting entries can be offered a copy");
+        }
+        this.status = WaitlistStatus.OFFERED;
+        this.offeredAt = LocalDateTime.now();
+        this.offerExpiresAt = offerExpiresAt;
+    }
+
+    public void expire() {
+        close(WaitlistStatus.EXPIRED);
+    }
+
+    public void cancel() {
+        close(WaitlistStatus.CANCELLED);
+    }
+
+    public boolean isActive() {
+        return status == WaitlistStatus.WAITING || status == WaitlistStatus.OFFERED;
+    }
+
+    private void close(WaitlistStatus finalStatus) {
+        if (!isActive()) {
+            throw new IllegalStateException("Waitlist entry is already " + status);
+        }
+        this.status = finalStatus;
+        this.activeKey = null;
+    }
+}
@@ -0,0 +1,17 @@
+package pt.psoft.lending.model.command;
+
+/**
+ * Lifecycle of a waitlist entry
+ */
+public enum WaitlistStatus {
+    /** Queued for the next free copy */
+    WAITING,
+    /** A copy is held for the reader until the offer expires */
+    OFFERED,
+    /** The reader took the held copy */
+    FULFILLED,
+    /** Waited or held too long */
+    EXPIRED,
+    /** Withdrawn by the reader */
+    CANCELLED
+}
@@ -0,0 +1,39 @@
+package pt.psoft.lending.model.query;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Base64;
+
+/**
+ * Keyset position in a lending history ordered by (startDate DESC, pk DESC).
+ * Serialized as an opaque URL-safe token.
+ */
+public record LendingCursor(LocalDate startDate, long pk) {
+
+    /** Position before the newest lending */
+    public static final LendingCursor START = new LendingCursor(LocalDate.of(9999, 12, 31), Long.MAX_VALUE);
+
+    public static LendingCursor after(LendingHistoryItem item) {
+        return new LendingCursor(item.startDate(), item.pk());
+    }
+
+    public String encode() {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((startDate + "|" + pk).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Parse a token; null or blank means the first page
+     */
+    public static LendingCursor decode(String token) {
+        if (token == null || token.isBlank()) {
+            return START;
+        }
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8).split("\\|");
+            return new LendingCursor(LocalDate.parse(parts[0]), Long.parseLong(parts[1]));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + token);
+        }
+    }
+}
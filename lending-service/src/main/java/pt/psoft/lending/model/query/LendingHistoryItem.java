@@ -0,0 +1,46 @@
+package pt.psoft.lending.model.query;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Projection of the lending columns shown in history pages (Read Side)
+ * Selected directly by JPQL, so history pages never load or track full entities.
+ */
+public record LendingHistoryItem(
+        Long pk,
+        int year,
+        int sequence,
+        String bookId,
+        String readerNumber,
+        LocalDate startDate,
+        LocalDate limitDate,
+        LocalDate returnedDate,
+        Integer fineValuePerDayInCents,
+        String comment,
+        Integer rating,
+        Long version) {
+
+    public String lendingNumber() {
+        return year + "/" + sequence;
+    }
+
+    public Integer daysUntilReturn() {
+        if (returnedDate != null) {
+            return null;
+        }
+        int days = (int) ChronoUnit.DAYS.between(LocalDate.now(), limitDate);
+        return days >= 0 ? days : null;
+    }
+
+    public Integer daysOverdue() {
+        LocalDate reference = returnedDate != null ? returnedDate : LocalDate.now();
+        int days = (int) ChronoUnit.DAYS.between(limitDate, reference);
+        return days > 0 ? days : null;
+    }
+
+    public Integer fineAmountInCents() {
+        Integer days = daysOverdue();
+        return days != null && fineValuePerDayInCents != null ? days * fineValuePerDayInCents : null;
+    }
+}
@@ -0,0 +1,74 @@
+package pt.psoft.lending.repositories.jpa;
+
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import pt.psoft.lending.model.command.BookInventory;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Repository for book copy inventory.
+ * Reservations are single conditional UPDATEs, so stock can never go negative
+ * and no row is locked for longer than the statement plus the remaining transaction.
+ */
+@Repository
+public interface BookInventoryRepository extends JpaRepository<BookInventory, String> {
+
+    /**
+     * Take one copy if any is available. Returns 0 when sold out or untracked.
+     */
+    @Modifying
+    @Query(value = "UPDATE book_inventory SET available_copies = available_copies - 1 " +
+            "WHERE isbn = :isbn AND available_copies > 0", nativeQuery = true)
+    int tryReserve(@Param("isbn") String isbn);
+
+    /**
+     * Take several copies at once (bulk lendings). Returns 0 when fewer are available or untracked.
+     */
+    @Modifying
+    @Query(value = "UPDATE book_inventory SET available_copies = available_copies - :copies " +
+            "WHERE isbn = :isbn AND available_copies >= :copies", nativeQuery = true)
+    int tryReserveCopies(@Param("isbn") String isbn, @Param("copies") int copies);
+
+    /**
+     * Inventory rows of the given books, locked in key order so concurrent batches cannot deadlock
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT i FROM BookInventory i WHERE i.isbn IN :isbns ORDER BY i.isbn")
+    List<BookInventory> lockAll(@Param("isbns") Collection<String> isbns);
+
+    /**
+     * Give one copy back (never above the total)
+     */
+    @Modifying
+    @Query(value = "UPDATE book_inventory SET available_copies = available_copies + 1 " +
+            "WHERE isbn = :isbn AND available_copies < total_copies", nativeQuery = true)
+    int release(@Param("isbn") String isbn);
+
+    /**
+     * Give several copies back at once (bulk returns, never above the total)
+     */
+    @Modifying
+    @Query(value = "UPDATE book_inventory SET available_copies = LEAST(available_copies + :copies, total_copies) " +
+            "WHERE isbn = :isbn AND available_copies < total_copies", nativeQuery = true)
+    int releaseCopies(@Param("isbn") String isbn, @Param("copies") int copies);
+
+    /**
+     * Set the number of copies owned; available copies are derived from the
+     * lendings currently outstanding for the book and the copies held for waitlist offers
+     */
+    @Modifying
+    @Query(value = "INSERT INTO book_inventory (isbn, total_copies, available_copies) " +
+            "SELECT :isbn, :total, GREATEST(:total - COUNT(*) - (SELECT COUNT(*) FROM waitlist_entries w " +
+            "WHERE w.isbn = :isbn AND w.status = 'OFFERED'), 0) FROM lendings l " +
+            "WHERE l.book_id = :isbn AND l.returned_date IS NULL " +
+            "ON CONFLICT (isbn) DO UPDATE SET total_copies = EXCLUDED.total_copies, " +
+            "available_copies = EXCLUDED.available_copies", nativeQuery = true)
+    int upsertTotalCopies(@Param("isbn") String isbn, @Param("total") int total);
+}
@@ -0,0 +1,48 @@
+package pt.psoft.lending.repositories.jpa;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import pt.psoft.lending.model.command.BookReplica;
+
+/**
+ * Repository for the local book projection.
+ * Every change is an idempotent upsert, so redelivered events are harmless.
+ */
+@Repository
+public interface BookReplicaRepository extends JpaRepository<BookReplica, String> {
+
+    /**
+     * Book created (again): lendable with the given genre
+     */
+    @Modifying
+    @Query(value = "INSERT INTO book_replicas (isbn, genre, deleted) VALUES (:isbn, :genre, false) " +
+            "ON CONFLICT (isbn) DO UPDATE SET genre = EXCLUDED.genre, deleted = false", nativeQuery = true)
+    int upsertCreated(@Param("isbn") String isbn, @Param("genre") String genre);
+
+    /**
+     * Backfilled book: only fills the gap, events already consumed win
+     */
+    @Modifying
+    @Query(value = "INSERT INTO book_replicas (isbn, genre, deleted) VALUES (:isbn, :genre, false) " +
+            "ON CONFLICT (isbn) DO NOTHING", nativeQuery = true)
+    int insertIfAbsent(@Param("isbn") String isbn, @Param("genre") String genre);
+
+    /**
+     * Book updated: new genre, a deleted book stays deleted
+     */
+    @Modifying
+    @Query(value = "INSERT INTO book_replicas (isbn, genre, deleted) VALUES (:isbn, :genre, false) " +
+            "ON CONFLICT (isbn) DO UPDATE SET genre = EXCLUDED.genre", nativeQuery = true)
+    int upsertUpdated(@Param("isbn") String isbn, @Param("genre") String genre);
+
+    /**
+     * Book deleted: tombstone, also when its creation was never seen
+     */
+    @Modifying
+    @Query(value = "INSERT INTO book_replicas (isbn, genre, deleted) VALUES (:isbn, NULL, true) " +
+            "ON CONFLICT (isbn) DO UPDATE SET deleted = true", nativeQuery = true)
+    int markDeleted(@Param("isbn") String isbn);
+}
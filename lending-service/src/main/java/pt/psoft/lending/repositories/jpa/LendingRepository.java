@@ -1,14 +1,19 @@
 package pt.psoft.lending.repositories.jpa;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import pt.psoft.lending.model.command.LendingEntity;
+import pt.psoft.lending.model.query.LendingHistoryItem;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -24,6 +29,16 @@ public interface LendingRepository extends JpaRepository<LendingEntity, Long> {
     @Query("SELECT l FROM LendingEntity l WHERE l.lendingNumber.year = :year AND l.lendingNumber.sequence = :sequence")
     Optional<LendingEntity> findByLendingNumber(@Param("year") int year, @Param("sequence") int sequence);
 
+    /**
+     * Lendings of one year with the given sequences, locked in pk order (bulk returns).
+     * Callers lock year by year in ascending order, so concurrent batches cannot deadlock.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT l FROM LendingEntity l WHERE l.lendingNumber.year = :year " +
+           "AND l.lendingNumber.sequence IN :sequences ORDER BY l.pk")
+    List<LendingEntity> lockByYearAndSequences(@Param("year") int year,
+                                               @Param("sequences") Collection<Integer> sequences);
+
     /**
      * Find all lendings by reader number
      */
@@ -36,6 +51,36 @@ public interface LendingRepository extends JpaRepository<LendingEntity, Long> {
     @Query("SELECT l FROM LendingEntity l WHERE l.bookId = :bookId ORDER BY l.startDate DESC")
     List<LendingEntity> findByBookId(@Param("bookId") String bookId);
 
+    /**
+     * One page of a reader's history after the given keyset position (newest first),
+     * served by idx_lendings_reader_history
+     */
+    @Query("SELECT new pt.psoft.lending.model.query.LendingHistoryItem(l.pk, l.lendingNumber.year, " +
+           "l.lendingNumber.sequence, l.bookId, l.readerNumber, l.startDate, l.limitDate, l.returnedDate, " +
+           "l.fineValuePerDayInCents, l.comment, l.rating, l.version) " +
+           "FROM LendingEntity l WHERE l.readerNumber = :readerNumber " +
+           "AND (l.startDate < :startDate OR (l.startDate = :startDate AND l.pk < :pk)) " +
+           "ORDER BY l.startDate DESC, l.pk DESC")
+    List<LendingHistoryItem> findReaderHistory(@Param("readerNumber") String readerNumber,
+                                               @Param("startDate") LocalDate startDate,
+                                               @Param("pk") Long pk,
+                                               Limit limit);
+
+    /**
+     * One page of a book's history after the given keyset position (newest first),
+     * served by idx_lendings_book_history
+     */
+    @Query("SELECT new pt.psoft.lending.model.query.LendingHistoryItem(l.pk, l.lendingNumber.year, " +
+           "l.lendingNumber.sequence, l.bookId, l.readerNumber, l.startDate, l.limitDate, l.returnedDate, " +
+           "l.fineValuePerDayInCents, l.comment, l.rating, l.version) " +
+           "FROM LendingEntity l WHERE l.bookId = :bookId " +
+           "AND (l.startDate < :startDate OR (l.startDate = :startDate AND l.pk < :pk)) " +
+           "ORDER BY l.startDate DESC, l.pk DESC")
+    List<LendingHistoryItem> findBookHistory(@Param("bookId") String bookId,
+                                             @Param("startDate") LocalDate startDate,
+                                             @Param("pk") Long pk,
+                                             Limit limit);
+
     /**
      * Find outstanding (not returned) lendings by reader number
      */
@@ -43,11 +88,20 @@ public interface LendingRepository extends JpaRepository<LendingEntity, Long> {
     List<LendingEntity> findOutstandingByReaderNumber(@Param("readerNumber") String readerNumber);
 
     /**
-     * Find all overdue lendings
+     * Find all overdue lendings (live, via the partial index on active lendings)
      */
     @Query("SELECT l FROM LendingEntity l WHERE l.returnedDate IS NULL AND l.limitDate < :today")
     Page<LendingEntity> findOverdue(@Param("today") LocalDate today, Pageable pageable);
 
+    /**
+     * Overdue lendings as materialized by the daily overdue job
+     */
+    @Query(value = "SELECT l FROM OverdueLending o JOIN LendingEntity l ON l.pk = o.lendingPk " +
+                   "WHERE l.returnedDate IS NULL ORDER BY o.limitDate, o.lendingPk",
+           countQuery = "SELECT COUNT(o) FROM OverdueLending o JOIN LendingEntity l ON l.pk = o.lendingPk " +
+                        "WHERE l.returnedDate IS NULL")
+    Page<LendingEntity> findMaterializedOverdue(Pageable pageable);
+
     /**
      * Count lendings from current year
      */
@@ -55,10 +109,10 @@ public interface LendingRepository extends JpaRepository<LendingEntity, Long> {
     int countByYear(@Param("year") int year);
 
     /**
-     * Calculate average lending duration for returned lendings
+     * Highest lending sequence persisted for a year (0 if none), used to seed the allocator
      */
-    @Query(value = "SELECT AVG(l.returned_date - l.start_date) FROM lendings l WHERE l.returned_date IS NOT NULL", nativeQuery = true)
-    Double getAverageDuration();
+    @Query("SELECT COALESCE(MAX(l.lendingNumber.sequence), 0) FROM LendingEntity l WHERE l.lendingNumber.year = :year")
+    int findMaxSequenceByYear(@Param("year") int year);
 
     /**
      * Find lendings by reader and book
@@ -78,11 +132,14 @@ public interface LendingRepository extends JpaRepository<LendingEntity, Long> {
 
     /**
      * Search lendings with filters
+     * The lending year follows from the start date, which lets PostgreSQL prune year partitions.
      */
     @Query("SELECT l FROM LendingEntity l WHERE " +
            "(:readerNumber IS NULL OR l.readerNumber = :readerNumber) AND " +
            "(:bookId IS NULL OR l.bookId = :bookId) AND " +
            "(:startDate IS NULL OR l.startDate >= :startDate) AND " +
+           "(:startDate IS NULL OR l.lendingNumber.year >= YEAR(:startDate)) AND " +
+           "(:endDate IS NULL OR l.lendingNumber.year <= YEAR(:endDate)) AND " +
            "(:endDate IS NULL OR l.startDate <= :endDate) " +
            "ORDER BY l.startDate DESC")
     Page<LendingEntity> searchLendings(
@@ -0,0 +1,25 @@
+package pt.psoft.lending.repositories.jpa;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import pt.psoft.lending.model.command.LendingStatsBucket;
+
+import java.util.List;
+
+/**
+ * Repository for lending statistics (folded by LendingStatisticsService)
+ */
+@Repository
+public interface LendingStatsRepository extends JpaRepository<LendingStatsBucket, LendingStatsBucket.Key> {
+
+    /**
+     * Buckets of a dimension in [from, to]; day and month buckets sort chronologically
+     */
+    @Query("SELECT s FROM LendingStatsBucket s WHERE s.dimension = :dimension " +
+           "AND s.bucket >= :from AND s.bucket <= :to ORDER BY s.bucket")
+    List<LendingStatsBucket> findRange(@Param("dimension") String dimension,
+                                       @Param("from") String from,
+                                       @Param("to") String to);
+}
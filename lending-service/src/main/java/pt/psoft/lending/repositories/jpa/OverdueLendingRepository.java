@@ -0,0 +1,74 @@
+package pt.psoft.lending.repositories.jpa;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import pt.psoft.lending.model.command.OverdueLending;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Repository for materialized overdue lendings.
+ * The bulk statements only touch active lendings through idx_lendings_active_limit_date.
+ */
+@Repository
+public interface OverdueLendingRepository extends JpaRepository<OverdueLending, Long> {
+
+    /**
+     * Record lendings that passed their limit date since the last run
+     */
+    @Modifying
+    @Query(value = "INSERT INTO overdue_lendings (lending_pk, lending_number, book_id, reader_number, limit_date, " +
+            "days_overdue, fine_amount_cents, became_overdue_on, event_published) " +
+            "SELECT l.pk, l.lending_year || '/' || l.lending_sequence, l.book_id, l.reader_number, l.limit_date, " +
+            "0, 0, :today, false FROM lendings l " +
+            "WHERE l.returned_date IS NULL AND l.limit_date < :today " +
+            "ON CONFLICT (lending_pk) DO NOTHING", nativeQuery = true)
+    int insertNewlyOverdue(@Param("today") LocalDate today);
+
+    /**
+     * Drop lendings returned since the last run
+     */
+    @Modifying
+    @Query(value = "DELETE FROM overdue_lendings o USING lendings l " +
+            "WHERE l.pk = o.lending_pk AND l.returned_date IS NOT NULL", nativeQuery = true)
+    int deleteReturned();
+
+    /**
+     * Bring days overdue and fines up to date
+     */
+    @Modifying
+    @Query(value = "UPDATE overdue_lendings o SET days_overdue = (:today - o.limit_date), " +
+            "fine_amount_cents = (:today - o.limit_date) * COALESCE(l.fine_value_per_day_cents, 0) " +
+            "FROM lendings l WHERE l.pk = o.lending_pk", nativeQuery = true)
+    int refreshFines(@Param("today") LocalDate today);
+
+    /**
+     * Rows whose "became overdue" event is still to be published, locked per replica
+     */
+    @Query(value = "SELECT * FROM overdue_lendings WHERE event_published = false " +
+            "ORDER BY lending_pk LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<OverdueLending> lockUnpublished(@Param("limit") int limit);
+
+    @Modifying
+    @Query("UPDATE OverdueLending o SET o.eventPublished = true WHERE o.lendingPk IN :pks")
+    int markPublished(@Param("pks") List<Long> pks);
+
+    /**
+     * Remove a lending as soon as it is returned
+     */
+    @Modifying
+    @Query("DELETE FROM OverdueLending o WHERE o.lendingPk = :lendingPk")
+    int deleteByLendingPk(@Param("lendingPk") Long lendingPk);
+
+    /**
+     * Remove several returned lendings at once (bulk returns)
+     */
+    @Modifying
+    @Query("DELETE FROM OverdueLending o WHERE o.lendingPk IN :lendingPks")
+    int deleteByLendingPks(@Param("lendingPks") Collection<Long> lendingPks);
+}
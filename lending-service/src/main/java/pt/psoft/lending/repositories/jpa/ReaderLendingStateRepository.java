@@ -0,0 +1,96 @@
+package pt.psoft.lending.repositories.jpa;
+
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import pt.psoft.lending.model.command.ReaderLendingState;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Repository for per-reader lending state.
+ * The admission and release updates are single conditional statements; the row
+ * lock they take serializes concurrent requests of the same reader.
+ */
+@Repository
+public interface ReaderLendingStateRepository extends JpaRepository<ReaderLendingState, String> {
+
+    /**
+     * Take one lending slot if the reader is below the limit and has nothing overdue.
+     * Returns 0 when the reader is not admitted (or has no state row yet).
+     */
+    @Modifying
+    @Query(value = "UPDATE reader_lending_state SET " +
+            "outstanding_count = outstanding_count + 1, " +
+            "earliest_limit_date = LEAST(COALESCE(earliest_limit_date, :limitDate), :limitDate) " +
+            "WHERE reader_number = :readerNumber " +
+            "AND outstanding_count < :maxOutstanding " +
+            "AND (earliest_limit_date IS NULL OR earliest_limit_date >= :today)", nativeQuery = true)
+    int tryAdmit(@Param("readerNumber") String readerNumber,
+                 @Param("limitDate") LocalDate limitDate,
+                 @Param("today") LocalDate today,
+                 @Param("maxOutstanding") int maxOutstanding);
+
+    /**
+     * Take several lending slots at once (bulk lendings); same conditions as tryAdmit for the whole count
+     */
+    @Modifying
+    @Query(value = "UPDATE reader_lending_state SET " +
+            "outstanding_count = outstanding_count + :count, " +
+            "earliest_limit_date = LEAST(COALESCE(earliest_limit_date, :limitDate), :limitDate) " +
+            "WHERE reader_number = :readerNumber " +
+            "AND outstanding_count + :count <= :maxOutstanding " +
+            "AND (earliest_limit_date IS NULL OR earliest_limit_date >= :today)", nativeQuery = true)
+    int tryAdmitMany(@Param("readerNumber") String readerNumber,
+                     @Param("count") int count,
+                     @Param("limitDate") LocalDate limitDate,
+                     @Param("today") LocalDate today,
+                     @Param("maxOutstanding") int maxOutstanding);
+
+    /**
+     * State rows of the given readers, locked in key order so concurrent batches cannot deadlock
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM ReaderLendingState s WHERE s.readerNumber IN :readerNumbers ORDER BY s.readerNumber")
+    List<ReaderLendingState> lockAll(@Param("readerNumbers") Collection<String> readerNumbers);
+
+    /**
+     * Release a lending slot; the earliest due date is recomputed from the
+     * remaining outstanding lendings of that reader (flushes the returned lending first)
+     */
+    @Modifying(flushAutomatically = true)
+    @Query(value = "UPDATE reader_lending_state s SET " +
+            "outstanding_count = GREATEST(s.outstanding_count - 1, 0), " +
+            "earliest_limit_date = (SELECT MIN(l.limit_date) FROM lendings l " +
+            "WHERE l.reader_number = s.reader_number AND l.returned_date IS NULL) " +
+            "WHERE s.reader_number = :readerNumber", nativeQuery = true)
+    int release(@Param("readerNumber") String readerNumber);
+
+    /**
+     * Release several lending slots of one reader at once (bulk returns); see release
+     */
+    @Modifying(flushAutomatically = true)
+    @Query(value = "UPDATE reader_lending_state s SET " +
+            "outstanding_count = GREATEST(s.outstanding_count - :count, 0), " +
+            "earliest_limit_date = (SELECT MIN(l.limit_date) FROM lendings l " +
+            "WHERE l.reader_number = s.reader_number AND l.returned_date IS NULL) " +
+            "WHERE s.reader_number = :readerNumber", nativeQuery = true)
+    int releaseMany(@Param("readerNumber") String readerNumber, @Param("count") int count);
+
+    /**
+     * Create the state row of a reader from their current outstanding lendings
+     * (no-op if another request created it first)
+     */
+    @Modifying
+    @Query(value = "INSERT INTO reader_lending_state (reader_number, outstanding_count, earliest_limit_date) " +
+            "SELECT :readerNumber, COUNT(*), MIN(l.limit_date) FROM lendings l " +
+            "WHERE l.reader_number = :readerNumber AND l.returned_date IS NULL " +
+            "ON CONFLICT (reader_number) DO NOTHING", nativeQuery = true)
+    int initialize(@Param("readerNumber") String readerNumber);
+}
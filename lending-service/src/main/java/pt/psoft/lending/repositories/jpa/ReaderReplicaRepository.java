@@ -0,0 +1,28 @@
+package pt.psoft.lending.repositories.jpa;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import pt.psoft.lending.model.command.ReaderReplica;
+
+import java.util.Optional;
+
+/**
+ * Repository for the local reader projection
+ */
+@Repository
+public interface ReaderReplicaRepository extends JpaRepository<ReaderReplica, String> {
+
+    Optional<ReaderReplica> findFirstByReaderId(Long readerId);
+
+    @Modifying
+    @Query(value = "INSERT INTO reader_replicas (reader_number, reader_id, active) " +
+            "VALUES (:readerNumber, :readerId, :active) " +
+            "ON CONFLICT (reader_number) DO UPDATE SET reader_id = EXCLUDED.reader_id, active = EXCLUDED.active",
+            nativeQuery = true)
+    int upsert(@Param("readerNumber") String readerNumber,
+               @Param("readerId") Long readerId,
+               @Param("active") boolean active);
+}
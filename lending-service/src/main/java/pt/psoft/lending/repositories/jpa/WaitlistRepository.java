@@ -0,0 +1,82 @@
+package pt.psoft.lending.repositories.jpa;
+
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import pt.psoft.lending.model.command.WaitlistEntry;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Repository for book waitlists
+ */
+@Repository
+public interface WaitlistRepository extends JpaRepository<WaitlistEntry, Long> {
+
+    /**
+     * Live entry of a reader for a book
+     */
+    Optional<WaitlistEntry> findByActiveKey(String activeKey);
+
+    /**
+     * Copies currently held for the given "isbn|reader" keys, locked until they are claimed
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT w FROM WaitlistEntry w WHERE w.activeKey IN :activeKeys " +
+           "AND w.status = pt.psoft.lending.model.command.WaitlistStatus.OFFERED AND w.offerExpiresAt > :now " +
+           "ORDER BY w.id")
+    List<WaitlistEntry> lockHeldOffers(@Param("activeKeys") Collection<String> activeKeys,
+                                       @Param("now") LocalDateTime now);
+
+    /**
+     * Head of the queue of a book, locked; concurrent returns skip it and take the next reader
+     */
+    @Query(value = "SELECT * FROM waitlist_entries WHERE isbn = :isbn AND status = 'WAITING' " +
+            "AND expires_at > :now ORDER BY requested_at, id LIMIT 1 FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    Optional<WaitlistEntry> lockNextWaiting(@Param("isbn") String isbn, @Param("now") LocalDateTime now);
+
+    /**
+     * Turn the held copy of a reader into a lending. Returns 0 if there is no valid offer.
+     */
+    @Modifying
+    @Query(value = "UPDATE waitlist_entries SET status = 'FULFILLED', active_key = NULL, version = version + 1 " +
+            "WHERE active_key = :activeKey AND status = 'OFFERED' AND offer_expires_at > :now", nativeQuery = true)
+    int claimOffer(@Param("activeKey") String activeKey, @Param("now") LocalDateTime now);
+
+    /**
+     * Close the waiting entries of readers who got a copy without an offer
+     */
+    @Modifying
+    @Query(value = "UPDATE waitlist_entries SET status = 'FULFILLED', active_key = NULL, version = version + 1 " +
+            "WHERE active_key IN (:activeKeys) AND status = 'WAITING'", nativeQuery = true)
+    int fulfillWaiting(@Param("activeKeys") Collection<String> activeKeys);
+
+    /**
+     * Readers ahead of the given entry in its book's queue
+     */
+    @Query("SELECT COUNT(w) FROM WaitlistEntry w WHERE w.isbn = :isbn AND w.status = pt.psoft.lending.model.command.WaitlistStatus.WAITING " +
+           "AND (w.requestedAt < :requestedAt OR (w.requestedAt = :requestedAt AND w.id < :id))")
+    long countAhead(@Param("isbn") String isbn, @Param("requestedAt") LocalDateTime requestedAt, @Param("id") Long id);
+
+    /**
+     * Close waiting entries nobody offered a copy to in time (they hold no copy)
+     */
+    @Modifying
+    @Query(value = "UPDATE waitlist_entries SET status = 'EXPIRED', active_key = NULL, version = version + 1 " +
+            "WHERE status = 'WAITING' AND expires_at <= :now", nativeQuery = true)
+    int expireWaiting(@Param("now") LocalDateTime now);
+
+    /**
+     * Offers not claimed in time, locked so only one replica passes each copy on
+     */
+    @Query(value = "SELECT * FROM waitlist_entries WHERE status = 'OFFERED' AND offer_expires_at <= :now " +
+            "ORDER BY offer_expires_at LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<WaitlistEntry> lockExpiredOffers(@Param("now") LocalDateTime now, @Param("limit") int limit);
+}
@@ -0,0 +1,230 @@
+package pt.psoft.lending.services;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import pt.psoft.lending.model.command.BookInventory;
+import pt.psoft.lending.repositories.jpa.BookInventoryRepository;
+import pt.psoft.shared.exceptions.ConflictException;
+import pt.psoft.shared.exceptions.NotFoundException;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Book copy inventory with atomic reservation.
+ *
+ * The database row is the source of truth: a copy is taken with a conditional
+ * UPDATE (available_copies > 0), so stock can never be oversold.
+ * Recently requested books additionally get a Redis gate
+ * ("inventory:available:{isbn}", expires after gate-ttl) decremented by a Lua
+ * script. When a bestseller runs out, the flood of requests is rejected in Redis
+ * and only as many requests as there are copies ever reach, and lock, the row.
+ * The gate is a hint: it is compensated on rollback, dropped whenever it
+ * disagrees with the database and rebuilt from the row after expiry.
+ *
+ * Every release or drop bumps a generation key ("inventory:gate-gen:{isbn}").
+ * A seed only stores the count it read from the row if the generation is still
+ * the one seen before that read, so a release committed in between can never
+ * be lost to a stale count (which would refuse lendings until the gate expires).
+ *
+ * ISBNs without an inventory row are not stock-managed and always lendable.
+ */
+@Service
+@Slf4j
+public class BookInventoryService {
+
+    private static final String GATE_PREFIX = "inventory:available:";
+    private static final String GENERATION_PREFIX = "inventory:gate-gen:";
+
+    static final RedisScript<Long> RESERVE_SCRIPT = new DefaultRedisScript<>(
+            "local v = redis.call('GET', KEYS[1]) " +
+            "if not v then return -1 end " +
+            "if tonumber(v) <= 0 then return 0 end " +
+            "redis.call('DECR', KEYS[1]) " +
+            "return 1", Long.class);
+
+    static final RedisScript<Long> RELEASE_SCRIPT = new DefaultRedisScript<>(
+            "redis.call('INCR', KEYS[2]) " +
+            "redis.call('PEXPIRE', KEYS[2], ARGV[1]) " +
+            "if redis.call('EXISTS', KEYS[1]) == 1 then return redis.call('INCR', KEYS[1]) end " +
+            "return -1", Long.class);
+
+    static final RedisScript<Long> DROP_SCRIPT = new DefaultRedisScript<>(
+            "redis.call('INCR', KEYS[2]) " +
+            "redis.call('PEXPIRE', KEYS[2], ARGV[1]) " +
+            "return redis.call('DEL', KEYS[1])", Long.class);
+
+    static final RedisScript<Long> SEED_SCRIPT = new DefaultRedisScript<>(
+            "if (redis.call('GET', KEYS[2]) or '') ~= ARGV[1] then return 0 end " +
+            "if redis.call('SET', KEYS[1], ARGV[2], 'PX', ARGV[3], 'NX') then return 1 end " +
+            "return 0", Long.class);
+
+    private static final long GATE_MISSING = -1;
+    private static final long GATE_SOLD_OUT = 0;
+    private static final long GATE_TAKEN = 1;
+
+    private final BookInventoryRepository bookInventoryRepository;
+    private final StringRedisTemplate redisTemplate;
+    private final Duration gateTtl;
+
+    public BookInventoryService(BookInventoryRepository bookInventoryRepository,
+                                StringRedisTemplate redisTemplate,
+                                @Value("${lending.inventory.gate-ttl-seconds:300}") long gateTtlSeconds) {
+        this.bookInventoryRepository = bookInventoryRepository;
+        this.redisTemplate = redisTemplate;
+        this.gateTtl = Duration.ofSeconds(gateTtlSeconds);
+    }
+
+    /**
+     * Take one copy of the book within the current transaction.
+     * Throws ConflictException when no copy is available.
+     */
+    @Transactional
+    public void reserve(String isbn) {
+        long gate = runGate(RESERVE_SCRIPT, isbn);
+        if (gate == GATE_SOLD_OUT) {
+            throw new ConflictException("No copies of book " + isbn + " are available");
+        }
+
+        if (bookInventoryRepository.tryReserve(isbn) == 1) {
+            if (gate == GATE_TAKEN) {
+                onRollback(() -> runGate(RELEASE_SCRIPT, isbn));
+            } else {
+                afterCommit(() -> seedGate(isbn));
+            }
+            return;
+        }
+
+        if (gate == GATE_TAKEN) {
+            // Redis believed there was a copy; let it be rebuilt from the row
+            dropGate(isbn);
+        }
+        if (bookInventoryRepository.existsById(isbn)) {
+            throw new ConflictException("No copies of book " + isbn + " are available");
+        }
+        log.debug("Book {} has no inventory record, not stock-managed", isbn);
+    }
+
+    /**
+     * Take several copies of the book at once (bulk lendings), bypassing the gate,
+     * which is rebuilt from the row after commit.
+     * Throws ConflictException when fewer copies are available.
+     */
+    @Transactional
+    public void reserveCopies(String isbn, int copies) {
+        if (bookInventoryRepository.tryReserveCopies(isbn, copies) == 1) {
+            afterCommit(() -> dropGate(isbn));
+            return;
+        }
+        if (bookInventoryRepository.existsById(isbn)) {
+            throw new ConflictException("Fewer than " + copies + " copies of book " + isbn + " are available");
+        }
+    }
+
+    /**
+     * Give one copy back within the current transaction
+     */
+    @Transactional
+    public void release(String isbn) {
+        if (bookInventoryRepository.release(isbn) == 1) {
+            afterCommit(() -> runGate(RELEASE_SCRIPT, isbn));
+        }
+    }
+
+    /**
+     * Give several copies back at once (bulk returns); the gate is rebuilt from the row after commit
+     */
+    @Transactional
+    public void releaseCopies(String isbn, int copies) {
+        if (bookInventoryRepository.releaseCopies(isbn, copies) == 1) {
+            afterCommit(() -> dropGate(isbn));
+        }
+    }
+
+    /**
+     * Set the number of copies owned for a book. Copies added go to free stock;
+     * WaitlistService.setTotalCopies hands them to waiting readers first.
+     */
+    @Transactional
+    public void setTotalCopies(String isbn, int totalCopies) {
+        bookInventoryRepository.upsertTotalCopies(isbn, totalCopies);
+        afterCommit(() -> dropGate(isbn));
+        log.info("Inventory of book {} set to {} copies", isbn, totalCopies);
+    }
+
+    @Transactional(readOnly = true)
+    public BookInventory getInventory(String isbn) {
+        return bookInventoryRepository.findById(isbn)
+                .orElseThrow(() -> new NotFoundException("No inventory for book " + isbn));
+    }
+
+    private long runGate(RedisScript<Long> script, String isbn) {
+        try {
+            Long result = redisTemplate.execute(script, List.of(GATE_PREFIX + isbn, GENERATION_PREFIX + isbn),
+                    Long.toString(generationTtl().toMillis()));
+            return result != null ? result : GATE_MISSING;
+        } catch (DataAccessException e) {
+            // Redis unavailable: the database alone still guarantees correctness
+            log.warn("Inventory gate unavailable for {}: {}", isbn, e.getMessage());
+            return GATE_MISSING;
+        }
+    }
+
+    private void seedGate(String isbn) {
+        try {
+            // read before the row: a release or drop committed after the read changes it
+            String generation = redisTemplate.opsForValue().get(GENERATION_PREFIX + isbn);
+            bookInventoryRepository.findById(isbn).ifPresent(inventory ->
+                    redisTemplate.execute(SEED_SCRIPT, List.of(GATE_PREFIX + isbn, GENERATION_PREFIX + isbn),
+                            generation != null ? generation : "",
+                            Integer.toString(inventory.getAvailableCopies()),
+                            Long.toString(gateTtl.toMillis())));
+        } catch (DataAccessException e) {
+            log.warn("Could not seed inventory gate for {}: {}", isbn, e.getMessage());
+        }
+    }
+
+    private void dropGate(String isbn) {
+        runGate(DROP_SCRIPT, isbn);
+    }
+
+    private Duration generationTtl() {
+        // outlives any gate seeded from a read made before the bump
+        return gateTtl.multipliedBy(2);
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private static void onRollback(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_ROLLED_BACK) {
+                    action.run();
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,115 @@
+package pt.psoft.lending.services;
+
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.client.RestClient;
+import org.springframework.web.client.RestClientException;
+import pt.psoft.lending.repositories.jpa.BookReplicaRepository;
+
+import java.util.List;
+
+/**
+ * One-off fill of the book replica with the books that existed before it did:
+ * BookCreated is only emitted for new books, so they would never arrive as events.
+ *
+ * Reads the whole catalog from Book Query Service on the first start and records
+ * the run in replica_backfills; one replica does it (advisory lock), a failed run
+ * is retried on the next start. Readers are replayed by Reader Service itself.
+ * Only insert missing books, so events consumed meanwhile are never overwritten.
+ */
+@Component
+@Order(1)
+@Slf4j
+public class CatalogReplicaBackfill implements ApplicationRunner {
+
+    static final String SOURCE_BOOKS = "books";
+    // arbitrary, only has to differ from the other advisory locks taken in lending_db
+    private static final long ADVISORY_LOCK_KEY = 40_001L;
+
+    private final BookReplicaRepository bookReplicaRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final RestClient restClient;
+    private final boolean enabled;
+
+    public CatalogReplicaBackfill(BookReplicaRepository bookReplicaRepository,
+                                  JdbcTemplate jdbcTemplate,
+                                  TransactionTemplate transactionTemplate,
+                                  RestClient.Builder restClientBuilder,
+                                  @Value("${lending.replica.backfill.enabled:true}") boolean enabled,
+                                  @Value("${lending.replica.backfill.book-query-url:http://localhost:8085}") String bookQueryUrl) {
+        this.bookReplicaRepository = bookReplicaRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.restClient = restClientBuilder.baseUrl(bookQueryUrl).build();
+        this.enabled = enabled;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!enabled) {
+            return;
+        }
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS replica_backfills (" +
+                "source VARCHAR(32) PRIMARY KEY, completed_at TIMESTAMP NOT NULL, row_count BIGINT NOT NULL)");
+        if (isCompleted(SOURCE_BOOKS)) {
+            return;
+        }
+
+        List<CatalogBook> books;
+        try {
+            books = restClient.get()
+                    .uri("/api/books")
+                    .retrieve()
+                    .body(new ParameterizedTypeReference<>() {});
+        } catch (RestClientException e) {
+            log.warn("Book replica backfill skipped, Book Query Service unavailable: {}", e.getMessage());
+            return;
+        }
+        List<CatalogBook> catalog = books != null ? books : List.of();
+
+        Integer inserted = transactionTemplate.execute(status -> {
+            Boolean locked = jdbcTemplate.queryForObject("SELECT pg_try_advisory_xact_lock(?)",
+                    Boolean.class, ADVISORY_LOCK_KEY);
+            if (!Boolean.TRUE.equals(locked) || isCompleted(SOURCE_BOOKS)) {
+                return null;
+            }
+            int count = 0;
+            for (CatalogBook book : catalog) {
+                count += bookReplicaRepository.insertIfAbsent(book.getIsbn(), book.getGenre());
+            }
+            jdbcTemplate.update("INSERT INTO replica_backfills (source, completed_at, row_count) " +
+                    "VALUES (?, now(), ?)", SOURCE_BOOKS, catalog.size());
+            return count;
+        });
+        if (inserted != null) {
+            log.info("Book replica backfilled: {} of {} catalog books were missing", inserted, catalog.size());
+        }
+    }
+
+    /**
+     * Whether the backfill of the given source has run
+     */
+    public boolean isCompleted(String source) {
+        Integer runs = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM replica_backfills WHERE source = ?", Integer.class, source);
+        return runs != null && runs > 0;
+    }
+
+    /**
+     * The part of Book Query Service's BookView used here
+     */
+    @Data
+    static class CatalogBook {
+        private String isbn;
+        private String genre;
+    }
+}
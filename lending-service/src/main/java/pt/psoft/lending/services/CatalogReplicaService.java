@@ -0,0 +1,135 @@
+package pt.psoft.lending.services;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import pt.psoft.lending.client.ReaderServiceClient;
+import pt.psoft.lending.model.command.BookReplica;
+import pt.psoft.lending.model.command.ReaderReplica;
+import pt.psoft.lending.repositories.jpa.BookReplicaRepository;
+import pt.psoft.lending.repositories.jpa.ReaderReplicaRepository;
+import pt.psoft.shared.events.book.BookCreatedEvent;
+import pt.psoft.shared.events.book.BookDeletedEvent;
+import pt.psoft.shared.events.book.BookUpdatedEvent;
+import pt.psoft.shared.events.reader.ReaderCreatedEvent;
+import pt.psoft.shared.exceptions.BusinessException;
+import pt.psoft.shared.exceptions.NotFoundException;
+
+import java.util.Optional;
+
+/**
+ * Local projections of the books and readers lendings refer to.
+ *
+ * Book and reader events keep book_replicas and reader_replicas up to date, so
+ * validating a lending is a primary-key lookup instead of two synchronous calls
+ * to Book Service and Reader Service. The projections are eventually consistent:
+ * a book or reader is lendable once its creation event has been consumed.
+ *
+ * Books and readers that existed before the projections are filled once by
+ * CatalogReplicaBackfill and Reader Service's replay. Until those have run,
+ * lending.replica.enforce stays false: unknown books are let through and logged,
+ * and unknown readers are looked up in Reader Service so the real reader id is recorded.
+ *
+ * The lookups are deliberately not transactional: a rejection must not mark
+ * the caller's transaction rollback-only (bulk lendings reject per item).
+ */
+@Service
+@Slf4j
+public class CatalogReplicaService {
+
+    private final BookReplicaRepository bookReplicaRepository;
+    private final ReaderReplicaRepository readerReplicaRepository;
+    private final ReaderServiceClient readerServiceClient;
+    private final boolean enforce;
+
+    public CatalogReplicaService(BookReplicaRepository bookReplicaRepository,
+                                 ReaderReplicaRepository readerReplicaRepository,
+                                 ReaderServiceClient readerServiceClient,
+                                 @Value("${lending.replica.enforce:false}") boolean enforce) {
+        this.bookReplicaRepository = bookReplicaRepository;
+        this.readerReplicaRepository = readerReplicaRepository;
+        this.readerServiceClient = readerServiceClient;
+        this.enforce = enforce;
+    }
+
+    /**
+     * Throws NotFoundException unless the book exists and is not deleted
+     */
+    public void requireLendableBook(String isbn) {
+        BookReplica book = bookReplicaRepository.findById(isbn).orElse(null);
+        if (book != null && !book.isDeleted()) {
+            return;
+        }
+        if (enforce) {
+            throw new NotFoundException("Book with ISBN " + isbn + " not found");
+        }
+        log.warn("Book {} is not in the local catalog replica, lending anyway", isbn);
+    }
+
+    /**
+     * Id of an active reader; throws NotFoundException for unknown readers,
+     * BusinessException for inactive ones and IllegalStateException when
+     * an unreplicated reader cannot be verified
+     */
+    public long requireActiveReader(String readerNumber) {
+        ReaderReplica reader = readerReplicaRepository.findById(readerNumber).orElse(null);
+        if (reader == null) {
+            if (enforce) {
+                throw new NotFoundException("Reader " + readerNumber + " not found");
+            }
+            log.warn("Reader {} is not in the local reader replica, asking Reader Service", readerNumber);
+            return readerServiceClient.findReaderId(readerNumber)
+                    .orElseThrow(() -> new NotFoundException("Reader " + readerNumber + " not found"));
+        }
+        if (!reader.isActive()) {
+            throw new BusinessException("Reader " + readerNumber + " is not active. Cannot create new lending.");
+        }
+        return reader.getReaderId();
+    }
+
+    /**
+     * Id of a reader, from the replica or else Reader Service; empty when unknown
+     */
+    public Optional<Long> readerIdOf(String readerNumber) {
+        Optional<Long> replicated = readerReplicaRepository.findById(readerNumber).map(ReaderReplica::getReaderId);
+        return replicated.isPresent() ? replicated : readerServiceClient.findReaderId(readerNumber);
+    }
+
+    /**
+     * Number of the reader with this id (the user id of their token), empty when not replicated
+     */
+    public Optional<String> readerNumberOf(long readerId) {
+        return readerReplicaRepository.findFirstByReaderId(readerId).map(ReaderReplica::getReaderNumber);
+    }
+
+    /**
+     * Genre of the book, null when unknown
+     */
+    public String genreOf(String isbn) {
+        return bookReplicaRepository.findById(isbn).map(BookReplica::getGenre).orElse(null);
+    }
+
+    @Transactional
+    public void onBookCreated(BookCreatedEvent event) {
+        bookReplicaRepository.upsertCreated(event.getIsbn(), event.getGenre());
+        log.debug("Book {} added to the catalog replica", event.getIsbn());
+    }
+
+    @Transactional
+    public void onBookUpdated(BookUpdatedEvent event) {
+        bookReplicaRepository.upsertUpdated(event.getIsbn(), event.getGenre());
+    }
+
+    @Transactional
+    public void onBookDeleted(BookDeletedEvent event) {
+        bookReplicaRepository.markDeleted(event.getIsbn());
+        log.debug("Book {} marked deleted in the catalog replica", event.getIsbn());
+    }
+
+    @Transactional
+    public void onReaderCreated(ReaderCreatedEvent event) {
+        readerReplicaRepository.upsert(event.getReaderNumber(), event.getReaderId(), event.isActive());
+        log.debug("Reader {} added to the reader replica", event.getReaderNumber());
+    }
+}
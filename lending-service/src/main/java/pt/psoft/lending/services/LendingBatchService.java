@@ -0,0 +1,378 @@
+package pt.psoft.lending.services;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import pt.psoft.lending.api.dto.BulkLendingResponse;
+import pt.psoft.lending.api.dto.BulkLendingResponse.ItemResult;
+import pt.psoft.lending.api.dto.BulkLendingResponse.ItemStatus;
+import pt.psoft.lending.api.dto.BulkReturnLendingRequest;
+import pt.psoft.lending.api.dto.CreateLendingRequest;
+import pt.psoft.lending.messaging.LendingEventPublisher;
+import pt.psoft.lending.model.command.BookInventory;
+import pt.psoft.lending.model.command.LendingEntity;
+import pt.psoft.lending.model.command.ReaderLendingState;
+import pt.psoft.lending.model.command.WaitlistEntry;
+import pt.psoft.lending.model.command.valueobjects.LendingNumber;
+import pt.psoft.lending.repositories.jpa.BookInventoryRepository;
+import pt.psoft.lending.repositories.jpa.LendingRepository;
+import pt.psoft.lending.repositories.jpa.OverdueLendingRepository;
+import pt.psoft.lending.repositories.jpa.ReaderLendingStateRepository;
+import pt.psoft.lending.repositories.jpa.WaitlistRepository;
+import pt.psoft.shared.events.lending.LendingCreatedEvent;
+import pt.psoft.shared.events.lending.LendingReturnedEvent;
+import pt.psoft.shared.exceptions.BusinessException;
+import pt.psoft.shared.exceptions.ConflictException;
+import pt.psoft.shared.exceptions.NotFoundException;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Bulk lending creation and return for desks and book-drop boxes.
+ *
+ * All items are validated up front against the reader states, inventory rows,
+ * held waitlist copies or lendings they touch, locked in key order, so an item
+ * is either rejected with a reason or certain to apply. Accepted items are then
+ * written in the same transaction: one admission or release update per reader,
+ * one stock update per book, lendings, statistics deltas and outbox events as
+ * JDBC batches.
+ */
+@Service
+@Slf4j
+public class LendingBatchService {
+
+    // keeps reader rejections apart from book ones in the same map
+    private static final String READER_KEY = "reader:";
+
+    private final LendingRepository lendingRepository;
+    private final LendingEventPublisher lendingEventPublisher;
+    private final LendingNumberAllocator lendingNumberAllocator;
+    private final ReaderLendingStateRepository readerLendingStateRepository;
+    private final BookInventoryRepository bookInventoryRepository;
+    private final BookInventoryService bookInventoryService;
+    private final WaitlistRepository waitlistRepository;
+    private final WaitlistService waitlistService;
+    private final OverdueLendingRepository overdueLendingRepository;
+    private final LendingStatisticsService lendingStatisticsService;
+    private final CatalogReplicaService catalogReplicaService;
+    private final int lendingDurationInDays;
+    private final int fineValuePerDayInCents;
+    private final int maxOutstandingBooks;
+
+    public LendingBatchService(LendingRepository lendingRepository,
+                               LendingEventPublisher lendingEventPublisher,
+                               LendingNumberAllocator lendingNumberAllocator,
+                               ReaderLendingStateRepository readerLendingStateRepository,
+                               BookInventoryRepository bookInventoryRepository,
+                               BookInventoryService bookInventoryService,
+                               WaitlistRepository waitlistRepository,
+                               WaitlistService waitlistService,
+                               OverdueLendingRepository overdueLendingRepository,
+                               LendingStatisticsService lendingStatisticsService,
+                               CatalogReplicaService catalogReplicaService,
+                               @Value("${lending.duration-in-days:14}") int lendingDurationInDays,
+                               @Value("${lending.fine-value-per-day-in-cents:50}") int fineValuePerDayInCents,
+                               @Value("${lending.max-outstanding-books:3}") int maxOutstandingBooks) {
+        this.lendingRepository = lendingRepository;
+        this.lendingEventPublisher = lendingEventPublisher;
+        this.lendingNumberAllocator = lendingNumberAllocator;
+        this.readerLendingStateRepository = readerLendingStateRepository;
+        this.bookInventoryRepository = bookInventoryRepository;
+        this.bookInventoryService = bookInventoryService;
+        this.waitlistRepository = waitlistRepository;
+        this.waitlistService = waitlistService;
+        this.overdueLendingRepository = overdueLendingRepository;
+        this.lendingStatisticsService = lendingStatisticsService;
+        this.catalogReplicaService = catalogReplicaService;
+        this.lendingDurationInDays = lendingDurationInDays;
+        this.fineValuePerDayInCents = fineValuePerDayInCents;
+        this.maxOutstandingBooks = maxOutstandingBooks;
+    }
+
+    /**
+     * Create the lendings that pass the business rules; the others are reported per item
+     */
+    @Transactional
+    public BulkLendingResponse createLendings(List<CreateLendingRequest> requests) {
+        log.info("Creating {} lendings in bulk", requests.size());
+        LocalDate today = LocalDate.now();
+        LocalDate limitDate = today.plusDays(lendingDurationInDays);
+
+        Set<String> readers = new TreeSet<>();
+        Set<String> isbns = new TreeSet<>();
+        requests.forEach(r -> {
+            readers.add(r.getReaderNumber());
+            isbns.add(r.getIsbn());
+        });
+
+        // Check the replicas once per reader and book before locking anything:
+        // an unreplicated reader is looked up in Reader Service, which must not
+        // happen while the batch holds the reader, stock and waitlist rows
+        Map<String, Long> readerIds = new HashMap<>();
+        Map<String, String> catalogRejections = new HashMap<>();
+        isbns.forEach(isbn -> catalogCheck(() -> catalogReplicaService.requireLendableBook(isbn))
+                .ifPresent(reason -> catalogRejections.put(isbn, reason)));
+        readers.forEach(reader -> catalogCheck(() -> readerIds.put(reader, catalogReplicaService.requireActiveReader(reader)))
+                .ifPresent(reason -> catalogRejections.put(READER_KEY + reader, reason)));
+
+        // Lock everything the batch may touch, in key order
+        readers.stream()
+                .filter(reader -> !readerLendingStateRepository.existsById(reader))
+                .forEach(readerLendingStateRepository::initialize);
+        Map<String, ReaderLendingState> states = readerLendingStateRepository.lockAll(readers).stream()
+                .collect(Collectors.toMap(ReaderLendingState::getReaderNumber, Function.identity()));
+        Map<String, BookInventory> inventories = bookInventoryRepository.lockAll(isbns).stream()
+                .collect(Collectors.toMap(BookInventory::getIsbn, Function.identity()));
+        Set<String> heldOffers = waitlistRepository.lockHeldOffers(
+                        requests.stream().map(r -> WaitlistEntry.activeKey(r.getIsbn(), r.getReaderNumber())).toList(),
+                        LocalDateTime.now()).stream()
+                .map(WaitlistEntry::getActiveKey)
+                .collect(Collectors.toSet());
+
+        // Validate every item against the locked rows plus the items accepted before it
+        Map<String, Integer> admitted = new HashMap<>();
+        Map<String, Integer> reserved = new HashMap<>();
+        Set<String> claimed = new HashSet<>();
+        Set<String> fromStock = new HashSet<>();
+        Set<String> seen = new HashSet<>();
+        ItemResult[] results = new ItemResult[requests.size()];
+        List<Integer> accepted = new ArrayList<>();
+
+        for (int i = 0; i < requests.size(); i++) {
+            CreateLendingRequest request = requests.get(i);
+            String reader = request.getReaderNumber();
+            String isbn = request.getIsbn();
+            String key = WaitlistEntry.activeKey(isbn, reader);
+
+            ReaderLendingState state = states.get(reader);
+            int outstanding = (state != null ? state.getOutstandingCount() : 0) + admitted.getOrDefault(reader, 0);
+            BookInventory inventory = inventories.get(isbn);
+            boolean heldCopy = heldOffers.contains(key) && !claimed.contains(key);
+
+            String rejection = seen.add(key)
+                    ? catalogRejections.getOrDefault(isbn, catalogRejections.get(READER_KEY + reader))
+                    : "Book " + isbn + " is lent to reader " + reader + " earlier in this batch";
+            if (rejection == null) {
+                rejection = ruleRejection(isbn, state, outstanding, today,
+                        heldCopy, inventory, reserved.getOrDefault(isbn, 0));
+            }
+
+            if (rejection != null) {
+                results[i] = ItemResult.builder().index(i).status(ItemStatus.REJECTED).message(rejection).build();
+                continue;
+            }
+            admitted.merge(reader, 1, Integer::sum);
+            if (heldCopy) {
+                claimed.add(key);
+            } else if (inventory != null) {
+                reserved.merge(isbn, 1, Integer::sum);
+                fromStock.add(key);
+            }
+            accepted.add(i);
+        }
+
+        // Apply: one statement per reader and per book, the rows are locked so none can fail
+        admitted.forEach((reader, count) -> {
+            if (readerLendingStateRepository.tryAdmitMany(reader, count, limitDate, today, maxOutstandingBooks) != 1) {
+                throw new ConflictException("Lending state of reader " + reader + " changed during the batch");
+            }
+        });
+        reserved.forEach(bookInventoryService::reserveCopies);
+        claimed.forEach(key -> {
+            String[] parts = key.split("\\|", 2);
+            waitlistService.claimOffer(parts[0], parts[1]);
+        });
+        // readers lent a free copy no longer need their place in the book's queue
+        waitlistService.fulfillWaiting(fromStock);
+
+        List<LendingEntity> lendings = accepted.stream()
+                .map(requests::get)
+                .map(request -> new LendingEntity(
+                        request.getIsbn(),
+                        readerIds.get(request.getReaderNumber()),
+                        request.getReaderNumber(),
+                        lendingNumberAllocator.next(),
+                        lendingDurationInDays,
+                        fineValuePerDayInCents))
+                .toList();
+        List<LendingEntity> saved = lendingRepository.saveAllAndFlush(lendings);
+
+        lendingEventPublisher.publishLendingsCreated(saved.stream()
+                .map(lending -> new LendingCreatedEvent(
+                        lending.getLendingNumberValue(),
+                        lending.getBookId(),
+                        lending.getReaderId(),
+                        lending.getReaderNumber(),
+                        lending.getStartDate(),
+                        lending.getLimitDate()))
+                .toList());
+
+        for (int j = 0; j < saved.size(); j++) {
+            LendingEntity lending = saved.get(j);
+            int index = accepted.get(j);
+            results[index] = ItemResult.builder()
+                    .index(index)
+                    .status(ItemStatus.CREATED)
+                    .lendingNumber(lending.getLendingNumberValue())
+                    .version(lending.getVersion())
+                    .build();
+        }
+
+        log.info("Bulk lending: {} created, {} rejected", saved.size(), requests.size() - saved.size());
+        return BulkLendingResponse.of(Arrays.asList(results));
+    }
+
+    /**
+     * Return the lendings that are still active and unchanged; the others are reported per item
+     */
+    @Transactional
+    public BulkLendingResponse returnLendings(List<BulkReturnLendingRequest.Item> items) {
+        log.info("Returning {} lendings in bulk", items.size());
+        ItemResult[] results = new ItemResult[items.size()];
+
+        // Parse and de-duplicate before locking the lendings
+        Map<Integer, LendingNumber> numbers = new LinkedHashMap<>();
+        Set<LendingNumber> seen = new HashSet<>();
+        for (int i = 0; i < items.size(); i++) {
+            String value = items.get(i).getLendingNumber();
+            try {
+                LendingNumber number = LendingNumber.parse(value);
+                if (seen.add(number)) {
+                    numbers.put(i, number);
+                } else {
+                    results[i] = rejected(i, value, ItemStatus.REJECTED, "Lending " + value + " appears earlier in this batch");
+                }
+            } catch (IllegalArgumentException e) {
+                results[i] = rejected(i, value, ItemStatus.REJECTED, e.getMessage());
+            }
+        }
+
+        // Lock exactly the wanted lendings, year by year and in pk order within a year
+        Map<LendingNumber, LendingEntity> lendings = new HashMap<>();
+        numbers.values().stream()
+                .collect(Collectors.groupingBy(LendingNumber::getYear, TreeMap::new,
+                        Collectors.mapping(LendingNumber::getSequence, Collectors.toSet())))
+                .forEach((year, sequences) -> lendingRepository.lockByYearAndSequences(year, sequences)
+                        .forEach(lending -> lendings.put(lending.getLendingNumber(), lending)));
+
+        // Validate every item before changing anything
+        Map<Integer, LendingEntity> accepted = new LinkedHashMap<>();
+        numbers.forEach((i, number) -> {
+            BulkReturnLendingRequest.Item item = items.get(i);
+            LendingEntity lending = lendings.get(number);
+            if (lending == null) {
+                results[i] = rejected(i, number.toString(), ItemStatus.NOT_FOUND, "Lending with number " + number + " not found");
+            } else if (!lending.isActive()) {
+                results[i] = rejected(i, number.toString(), ItemStatus.CONFLICT, "Lending " + number + " has already been returned");
+            } else if (!lending.getVersion().equals(item.getVersion())) {
+                results[i] = rejected(i, number.toString(), ItemStatus.CONFLICT,
+                        "Lending " + number + " has been modified (version " + lending.getVersion() + ")");
+            } else {
+                accepted.put(i, lending);
+            }
+        });
+
+        accepted.forEach((i, lending) -> {
+            BulkReturnLendingRequest.Item item = items.get(i);
+            lending.setReturned(item.getVersion(), item.getComment(), item.getRating());
+        });
+        lendingRepository.saveAllAndFlush(accepted.values());
+
+        if (!accepted.isEmpty()) {
+            releaseReturned(accepted.values());
+        }
+
+        List<LendingReturnedEvent> events = new ArrayList<>();
+        accepted.forEach((i, lending) -> {
+            events.add(new LendingReturnedEvent(
+                    lending.getLendingNumberValue(),
+                    lending.getBookId(),
+                    lending.getReaderId(),
+                    lending.getReaderNumber(),
+                    lending.getReturnedDate(),
+                    lending.getComment(),
+                    lending.getRating(),
+                    lending.getDaysOverdue(),
+                    lending.getFineAmountInCents()));
+            results[i] = ItemResult.builder()
+                    .index(i)
+                    .status(ItemStatus.RETURNED)
+                    .lendingNumber(lending.getLendingNumberValue())
+                    .version(lending.getVersion())
+                    .build();
+        });
+        lendingEventPublisher.publishLendingsReturned(events);
+
+        log.info("Bulk return: {} returned, {} rejected", accepted.size(), items.size() - accepted.size());
+        return BulkLendingResponse.of(Arrays.asList(results));
+    }
+
+    /**
+     * One release per reader and per book, in key order like bulk creation (readers,
+     * then stock, then waitlist), so concurrent batches cannot deadlock on those rows
+     */
+    private void releaseReturned(Collection<LendingEntity> returned) {
+        Map<String, Integer> releasedByReader = new TreeMap<>();
+        Map<String, Integer> returnedByBook = new TreeMap<>();
+        returned.forEach(lending -> {
+            releasedByReader.merge(lending.getReaderNumber(), 1, Integer::sum);
+            returnedByBook.merge(lending.getBookId(), 1, Integer::sum);
+        });
+
+        releasedByReader.forEach(readerLendingStateRepository::releaseMany);
+        bookInventoryRepository.lockAll(returnedByBook.keySet());
+        returnedByBook.forEach((isbn, copies) -> {
+            // waiting readers get the returned copies first, the rest go back to stock
+            int offered = 0;
+            while (offered < copies && waitlistService.offerReturnedCopy(isbn)) {
+                offered++;
+            }
+            if (offered < copies) {
+                bookInventoryService.releaseCopies(isbn, copies - offered);
+            }
+        });
+
+        overdueLendingRepository.deleteByLendingPks(returned.stream().map(LendingEntity::getPk).toList());
+        Map<String, String> genres = new HashMap<>();
+        returnedByBook.keySet().forEach(isbn -> genres.put(isbn, catalogReplicaService.genreOf(isbn)));
+        lendingStatisticsService.recordReturns(returned, genres::get);
+    }
+
+    /**
+     * Reason the lending rules or the stock rule the item out, or null
+     */
+    private String ruleRejection(String isbn, ReaderLendingState state, int outstanding, LocalDate today,
+                                 boolean heldCopy, BookInventory inventory, int reservedInBatch) {
+        if (state != null && state.hasOverdue(today)) {
+            return "Reader has book(s) past their due date. Cannot create new lending.";
+        }
+        if (outstanding >= maxOutstandingBooks) {
+            return "Reader already has " + maxOutstandingBooks + " outstanding books. Cannot create new lending.";
+        }
+        if (!heldCopy && inventory != null && inventory.getAvailableCopies() - reservedInBatch <= 0) {
+            return "No copies of book " + isbn + " are available";
+        }
+        return null;
+    }
+
+    /**
+     * Reason a replica check rules its book or reader out, if it does
+     */
+    private static Optional<String> catalogCheck(Runnable check) {
+        try {
+            check.run();
+            return Optional.empty();
+        } catch (NotFoundException | BusinessException | IllegalStateException e) {
+            return Optional.of(e.getMessage());
+        }
+    }
+
+    private static ItemResult rejected(int index, String lendingNumber, ItemStatus status, String message) {
+        return ItemResult.builder().index(index).status(status).lendingNumber(lendingNumber).message(message).build();
+    }
+}
@@ -9,8 +9,12 @@ import pt.psoft.lending.api.dto.CreateLendingRequest;
 import pt.psoft.lending.api.dto.ReturnLendingRequest;
 import pt.psoft.lending.messaging.LendingEventPublisher;
 import pt.psoft.lending.model.command.LendingEntity;
+import pt.psoft.lending.model.command.ReaderLendingState;
+import pt.psoft.lending.model.command.WaitlistEntry;
 import pt.psoft.lending.model.command.valueobjects.LendingNumber;
 import pt.psoft.lending.repositories.jpa.LendingRepository;
+import pt.psoft.lending.repositories.jpa.OverdueLendingRepository;
+import pt.psoft.lending.repositories.jpa.ReaderLendingStateRepository;
 import pt.psoft.shared.events.lending.LendingCreatedEvent;
 import pt.psoft.shared.events.lending.LendingReturnedEvent;
 import pt.psoft.shared.exceptions.BusinessException;
@@ -30,6 +34,13 @@ public class LendingCommandServiceImpl implements LendingCommandService {
 
     private final LendingRepository lendingRepository;
     private final LendingEventPublisher lendingEventPublisher;
+    private final LendingNumberAllocator lendingNumberAllocator;
+    private final ReaderLendingStateRepository readerLendingStateRepository;
+    private final BookInventoryService bookInventoryService;
+    private final WaitlistService waitlistService;
+    private final OverdueLendingRepository overdueLendingRepository;
+    private final LendingStatisticsService lendingStatisticsService;
+    private final CatalogReplicaService catalogReplicaService;
 
     @Value("${lending.duration-in-days:14}")
     private int lendingDurationInDays;
@@ -45,34 +56,31 @@ public class LendingCommandServiceImpl implements LendingCommandService {
     public LendingEntity createLending(CreateLendingRequest request) {
         log.info("Creating lending for book {} and reader {}", request.getIsbn(), request.getReaderNumber());
 
-        // Validate outstanding lendings
-        List<LendingEntity> outstandingLendings = lendingRepository.findOutstandingByReaderNumber(request.getReaderNumber());
+        // Book and reader are validated against the local replicas, no cross-service call
+        catalogReplicaService.requireLendableBook(request.getIsbn());
+        long readerId = catalogReplicaService.requireActiveReader(request.getReaderNumber());
 
-        // Business rule: cannot create lending if reader has overdue books
-        for (LendingEntity lending : outstandingLendings) {
-            if (lending.isOverdue()) {
-                throw new BusinessException("Reader has book(s) past their due date. Cannot create new lending.");
-            }
-        }
-
-        // Business rule: cannot create lending if reader has max outstanding books
-        if (outstandingLendings.size() >= maxOutstandingBooks) {
-            throw new BusinessException("Reader already has " + maxOutstandingBooks + " outstanding books. Cannot create new lending.");
-        }
+        // Business rules: no book past its due date and at most maxOutstandingBooks,
+        // enforced with one conditional update of the reader's lending state
+        LocalDate today = LocalDate.now();
+        admitReader(request.getReaderNumber(), today, today.plusDays(lendingDurationInDays));
 
-        // Get next sequence number
-        int currentYear = LocalDate.now().getYear();
-        int nextSequence = lendingRepository.countByYear(currentYear) + 1;
+        // Next lending number from the in-process hi/lo block
+        LendingNumber lendingNumber = lendingNumberAllocator.next();
 
-        // TODO: In a real scenario, we would validate the book and reader exist
-        // by calling Book Service and Reader Service (with Circuit Breaker)
-        // For now, we assume the caller has validated these
+        // A copy held for this reader by the waitlist is theirs; otherwise take a free one,
+        // last, so the inventory row stays locked as briefly as possible
+        if (!waitlistService.claimOffer(request.getIsbn(), request.getReaderNumber())) {
+            bookInventoryService.reserve(request.getIsbn());
+            // the reader no longer needs a place in the book's queue
+            waitlistService.fulfillWaiting(List.of(WaitlistEntry.activeKey(request.getIsbn(), request.getReaderNumber())));
+        }
 
         LendingEntity lending = new LendingEntity(
                 request.getIsbn(),
-                1L, // TODO: Get reader ID from Reader Service
+                readerId,
                 request.getReaderNumber(),
-                nextSequence,
+                lendingNumber,
                 lendingDurationInDays,
                 fineValuePerDayInCents
         );
@@ -117,6 +125,13 @@ public class LendingCommandServiceImpl implements LendingCommandService {
         lending.setReturned(expectedVersion, request.getComment(), request.getRating());
 
         LendingEntity savedLending = lendingRepository.save(lending);
+        readerLendingStateRepository.release(savedLending.getReaderNumber());
+        overdueLendingRepository.deleteByLendingPk(savedLending.getPk());
+        lendingStatisticsService.recordReturn(savedLending, catalogReplicaService.genreOf(savedLending.getBookId()));
+        // The freed copy goes to the next reader on the waitlist, if any
+        if (!waitlistService.offerReturnedCopy(savedLending.getBookId())) {
+            bookInventoryService.release(savedLending.getBookId());
+        }
         log.info("Lending {} returned successfully", lendingNumber);
 
         // Publish domain event - this triggers Review Service and Book Service
@@ -135,4 +150,27 @@ public class LendingCommandServiceImpl implements LendingCommandService {
 
         return savedLending;
     }
+
+    /**
+     * Take a lending slot for the reader or explain why not.
+     * Readers without a state row yet get one built from their outstanding lendings.
+     */
+    private void admitReader(String readerNumber, LocalDate today, LocalDate limitDate) {
+        if (readerLendingStateRepository.tryAdmit(readerNumber, limitDate, today, maxOutstandingBooks) == 1) {
+            return;
+        }
+        if (!readerLendingStateRepository.existsById(readerNumber)) {
+            readerLendingStateRepository.initialize(readerNumber);
+            if (readerLendingStateRepository.tryAdmit(readerNumber, limitDate, today, maxOutstandingBooks) == 1) {
+                return;
+            }
+        }
+
+        ReaderLendingState state = readerLendingStateRepository.findById(readerNumber)
+                .orElseThrow(() -> new IllegalStateException("No lending state for reader " + readerNumber));
+        if (state.hasOverdue(today)) {
+            throw new BusinessException("Reader has book(s) past their due date. Cannot create new lending.");
+        }
+        throw new BusinessException("Reader already has " + maxOutstandingBooks + " outstanding books. Cannot create new lending.");
+    }
 }
@@ -0,0 +1,103 @@
+package pt.psoft.lending.services;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+import pt.psoft.lending.model.command.valueobjects.LendingNumber;
+import pt.psoft.lending.repositories.jpa.LendingRepository;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Hi/lo allocator for lending sequence numbers.
+ *
+ * Each replica reserves a block of sequences per year with a single Redis INCRBY
+ * on "lending:sequence:{year}" and hands them out from memory, so creating a
+ * lending never counts rows and concurrent lendings never share a number.
+ * Unused numbers of a block are lost on restart, which only leaves gaps.
+ *
+ * When the counter is missing (first lending of the year, Redis flushed) it is
+ * seeded once with SETNX from the highest persisted sequence plus a safety gap
+ * covering blocks other replicas may still be handing out.
+ * The unique constraint on (lending_year, lending_sequence) remains the last line of defence.
+ */
+@Component
+@Slf4j
+public class LendingNumberAllocator {
+
+    private static final String KEY_PREFIX = "lending:sequence:";
+
+    private final StringRedisTemplate redisTemplate;
+    private final LendingRepository lendingRepository;
+    private final int blockSize;
+    private final int reseedGap;
+
+    private final Map<Integer, Block> blocks = new HashMap<>();
+
+    public LendingNumberAllocator(StringRedisTemplate redisTemplate,
+                                  LendingRepository lendingRepository,
+                                  @Value("${lending.sequence.block-size:50}") int blockSize,
+                                  @Value("${lending.sequence.reseed-gap:1000}") int reseedGap) {
+        this.redisTemplate = redisTemplate;
+        this.lendingRepository = lendingRepository;
+        this.blockSize = Math.max(blockSize, 1);
+        this.reseedGap = Math.max(reseedGap, 0);
+    }
+
+    /**
+     * Next lending number for the current year
+     */
+    public LendingNumber next() {
+        return next(LocalDate.now().getYear());
+    }
+
+    /**
+     * Next lending number for the given year
+     */
+    public synchronized LendingNumber next(int year) {
+        Block block = blocks.get(year);
+        if (block == null || block.exhausted()) {
+            block = reserveBlock(year);
+            // older years can never be asked for again
+            blocks.keySet().removeIf(y -> y < year);
+            blocks.put(year, block);
+        }
+        return new LendingNumber(year, block.next++);
+    }
+
+    private Block reserveBlock(int year) {
+        String key = KEY_PREFIX + year;
+
+        if (!Boolean.TRUE.equals(redisTemplate.hasKey(key))) {
+            int persisted = lendingRepository.findMaxSequenceByYear(year);
+            long seed = persisted == 0 ? 0 : (long) persisted + reseedGap;
+            if (Boolean.TRUE.equals(redisTemplate.opsForValue().setIfAbsent(key, Long.toString(seed)))) {
+                log.info("Lending sequence for {} seeded at {}", year, seed);
+            }
+        }
+
+        Long hi = redisTemplate.opsForValue().increment(key, blockSize);
+        if (hi == null || hi > Integer.MAX_VALUE) {
+            throw new IllegalStateException("Cannot allocate lending sequence block for " + year);
+        }
+        log.debug("Reserved lending sequences {}..{} for {}", hi - blockSize + 1, hi, year);
+        return new Block((int) (hi - blockSize + 1), hi.intValue());
+    }
+
+    private static final class Block {
+        private int next;
+        private final int last;
+
+        private Block(int first, int last) {
+            this.next = first;
+            this.last = last;
+        }
+
+        private boolean exhausted() {
+            return next > last;
+        }
+    }
+}
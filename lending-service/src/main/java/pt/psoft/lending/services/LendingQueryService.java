@@ -3,6 +3,9 @@ package pt.psoft.lending.services;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import pt.psoft.lending.model.command.LendingEntity;
+import pt.psoft.lending.model.command.LendingStatsBucket;
+import pt.psoft.lending.model.query.LendingCursor;
+import pt.psoft.lending.model.query.LendingHistoryItem;
 
 import java.time.LocalDate;
 import java.util.List;
@@ -28,6 +31,16 @@ public interface LendingQueryService {
      */
     List<LendingEntity> findByBookId(String bookId);
 
+    /**
+     * Page of a reader's lending history after the cursor, newest first
+     */
+    List<LendingHistoryItem> findReaderHistory(String readerNumber, LendingCursor cursor, int limit);
+
+    /**
+     * Page of a book's lending history after the cursor, newest first
+     */
+    List<LendingHistoryItem> findBookHistory(String bookId, LendingCursor cursor, int limit);
+
     /**
      * Find outstanding lendings by reader number
      */
@@ -43,6 +56,16 @@ public interface LendingQueryService {
      */
     Double getAverageDuration();
 
+    /**
+     * Get the statistics of one bucket (e.g. "book", isbn)
+     */
+    Optional<LendingStatsBucket> getStats(String dimension, String bucket);
+
+    /**
+     * Get the statistics of all buckets of a dimension in [from, to]
+     */
+    List<LendingStatsBucket> getStatsRange(String dimension, String from, String to);
+
     /**
      * Search lendings with filters
      */
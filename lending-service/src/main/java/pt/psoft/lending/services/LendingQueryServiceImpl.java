@@ -3,13 +3,18 @@ package pt.psoft.lending.services;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import pt.psoft.lending.model.command.LendingEntity;
+import pt.psoft.lending.model.command.LendingStatsBucket;
+import pt.psoft.lending.model.query.LendingCursor;
+import pt.psoft.lending.model.query.LendingHistoryItem;
 import pt.psoft.lending.model.command.valueobjects.LendingNumber;
 import pt.psoft.lending.repositories.jpa.LendingRepository;
+import pt.psoft.lending.repositories.jpa.LendingStatsRepository;
 
 import java.time.LocalDate;
 import java.util.List;
@@ -27,6 +32,7 @@ import java.util.Optional;
 public class LendingQueryServiceImpl implements LendingQueryService {
 
     private final LendingRepository lendingRepository;
+    private final LendingStatsRepository lendingStatsRepository;
 
     @Override
     @Cacheable(value = "lendings", key = "#lendingNumber")
@@ -48,6 +54,18 @@ public class LendingQueryServiceImpl implements LendingQueryService {
         return lendingRepository.findByBookId(bookId);
     }
 
+    @Override
+    public List<LendingHistoryItem> findReaderHistory(String readerNumber, LendingCursor cursor, int limit) {
+        log.debug("Finding lending history of reader {} after {}", readerNumber, cursor);
+        return lendingRepository.findReaderHistory(readerNumber, cursor.startDate(), cursor.pk(), Limit.of(limit));
+    }
+
+    @Override
+    public List<LendingHistoryItem> findBookHistory(String bookId, LendingCursor cursor, int limit) {
+        log.debug("Finding lending history of book {} after {}", bookId, cursor);
+        return lendingRepository.findBookHistory(bookId, cursor.startDate(), cursor.pk(), Limit.of(limit));
+    }
+
     @Override
     public List<LendingEntity> findOutstandingByReaderNumber(String readerNumber) {
         log.debug("Finding outstanding lendings by reader number: {}", readerNumber);
@@ -57,20 +75,32 @@ public class LendingQueryServiceImpl implements LendingQueryService {
     @Override
     public Page<LendingEntity> findOverdue(Pageable pageable) {
         log.debug("Finding overdue lendings");
-        return lendingRepository.findOverdue(LocalDate.now(), pageable);
+        // precomputed daily by OverdueLendingTracker instead of scanning lendings
+        return lendingRepository.findMaterializedOverdue(pageable);
     }
 
     @Override
-    @Cacheable(value = "lending-stats", key = "'averageDuration'")
     public Double getAverageDuration() {
-        log.debug("Calculating average lending duration");
-        Double avg = lendingRepository.getAverageDuration();
+        log.debug("Reading average lending duration");
+        Double avg = getStats(LendingStatsBucket.ALL, LendingStatsBucket.ALL)
+                .map(LendingStatsBucket::getAverageDurationDays)
+                .orElse(null);
         if (avg == null) {
             return 0.0;
         }
         return Double.valueOf(String.format(Locale.US, "%.1f", avg));
     }
 
+    @Override
+    public Optional<LendingStatsBucket> getStats(String dimension, String bucket) {
+        return lendingStatsRepository.findById(new LendingStatsBucket.Key(dimension, bucket));
+    }
+
+    @Override
+    public List<LendingStatsBucket> getStatsRange(String dimension, String from, String to) {
+        return lendingStatsRepository.findRange(dimension, from, to);
+    }
+
     @Override
     public Page<LendingEntity> searchLendings(String readerNumber, String bookId,
                                                LocalDate startDate, LocalDate endDate,
@@ -0,0 +1,237 @@
+package pt.psoft.lending.services;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import pt.psoft.lending.config.LendingPartitionManager;
+import pt.psoft.lending.model.command.LendingEntity;
+import pt.psoft.lending.model.command.LendingStatsBucket;
+import pt.psoft.lending.repositories.jpa.LendingStatsRepository;
+
+import java.time.temporal.ChronoUnit;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Maintains the lending_stats aggregate.
+ *
+ * A return only inserts its duration, lateness, fine and rating as a row of
+ * lending_stats_deltas, so return transactions never wait on each other for the
+ * shared "all", day and month buckets. Every replica periodically folds batches
+ * of deltas into the day, month, book, reader (and genre, when known) buckets and
+ * deletes them in the same statement; SKIP LOCKED keeps replicas on disjoint
+ * batches. The buckets therefore lag returns by about one fold interval.
+ * On startup one replica (advisory lock) checks the aggregate, pending deltas
+ * included, against the lendings, archived years included, and rebuilds it when
+ * returns are missing from its total (e.g. first deployment) or from the genre
+ * buckets (returns of books whose genre the replica learnt later). Only a rebuild
+ * locks the tables, which makes concurrent returns and folds wait instead of
+ * being counted twice or lost.
+ */
+@Service
+@Slf4j
+public class LendingStatisticsService implements ApplicationRunner {
+
+    private static final String DURATION = "(l.returned_date - l.start_date)";
+    private static final String OVERDUE = "GREATEST(l.returned_date - l.limit_date, 0)";
+    private static final String AGGREGATES = "COUNT(*), COALESCE(SUM" + DURATION + ", 0), " +
+            "COUNT(*) FILTER (WHERE l.returned_date > l.limit_date), COALESCE(SUM(" + OVERDUE + "), 0), " +
+            "COALESCE(SUM(" + OVERDUE + " * COALESCE(l.fine_value_per_day_cents, 0)), 0), " +
+            "COUNT(l.rating), COALESCE(SUM(l.rating), 0)";
+
+    private static final String INSERT_DELTA = "INSERT INTO lending_stats_deltas (returned_date, book_id, " +
+            "reader_number, genre, duration_days, late, days_overdue, fine_cents, rating_count, rating_sum) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    // data-modifying CTEs always run; the statement reports how many deltas it took.
+    // Buckets are upserted in key order so concurrent folds lock them in the same order.
+    private static final String FOLD_DELTAS = "WITH d AS (DELETE FROM lending_stats_deltas WHERE id IN (" +
+            "SELECT id FROM lending_stats_deltas ORDER BY id LIMIT ? FOR UPDATE SKIP LOCKED) RETURNING *), " +
+            "b AS (SELECT 'all' AS dimension, 'all' AS bucket, d.* FROM d " +
+            "UNION ALL SELECT 'day', to_char(d.returned_date, 'YYYY-MM-DD'), d.* FROM d " +
+            "UNION ALL SELECT 'month', to_char(d.returned_date, 'YYYY-MM'), d.* FROM d " +
+            "UNION ALL SELECT 'book', d.book_id, d.* FROM d " +
+            "UNION ALL SELECT 'reader', d.reader_number, d.* FROM d " +
+            "UNION ALL SELECT 'genre', d.genre, d.* FROM d WHERE d.genre IS NOT NULL), " +
+            "folded AS (INSERT INTO lending_stats (dimension, bucket, returned_count, total_duration_days, " +
+            "late_count, total_days_overdue, total_fine_cents, rating_count, rating_sum) " +
+            "SELECT dimension, bucket, COUNT(*), SUM(duration_days), SUM(late), SUM(days_overdue), " +
+            "SUM(fine_cents), SUM(rating_count), SUM(rating_sum) FROM b " +
+            "GROUP BY dimension, bucket ORDER BY dimension, bucket " +
+            "ON CONFLICT (dimension, bucket) DO UPDATE SET " +
+            "returned_count = lending_stats.returned_count + EXCLUDED.returned_count, " +
+            "total_duration_days = lending_stats.total_duration_days + EXCLUDED.total_duration_days, " +
+            "late_count = lending_stats.late_count + EXCLUDED.late_count, " +
+            "total_days_overdue = lending_stats.total_days_overdue + EXCLUDED.total_days_overdue, " +
+            "total_fine_cents = lending_stats.total_fine_cents + EXCLUDED.total_fine_cents, " +
+            "rating_count = lending_stats.rating_count + EXCLUDED.rating_count, " +
+            "rating_sum = lending_stats.rating_sum + EXCLUDED.rating_sum) " +
+            "SELECT COUNT(*) FROM d";
+
+    // arbitrary, only has to differ from the other advisory locks taken in lending_db
+    private static final long ADVISORY_LOCK_KEY = 36_001L;
+
+    private final LendingStatsRepository lendingStatsRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int foldBatchSize;
+
+    public LendingStatisticsService(LendingStatsRepository lendingStatsRepository,
+                                    JdbcTemplate jdbcTemplate,
+                                    PlatformTransactionManager transactionManager,
+                                    @Value("${lending.stats.fold-batch-size:5000}") int foldBatchSize) {
+        this.lendingStatsRepository = lendingStatsRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.foldBatchSize = foldBatchSize;
+    }
+
+    /**
+     * Queue a returned lending for its buckets (call within the return transaction)
+     */
+    @Transactional
+    public void recordReturn(LendingEntity lending, String genre) {
+        jdbcTemplate.update(INSERT_DELTA, deltaOf(lending, genre));
+    }
+
+    /**
+     * Queue several returned lendings as one JDBC batch (bulk returns)
+     */
+    @Transactional
+    public void recordReturns(Collection<LendingEntity> lendings, Function<String, String> genreOf) {
+        if (!lendings.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_DELTA, lendings.stream()
+                    .map(lending -> deltaOf(lending, genreOf.apply(lending.getBookId())))
+                    .toList());
+        }
+    }
+
+    /**
+     * Fold pending deltas into the buckets, one transaction per batch
+     */
+    @Scheduled(fixedDelayString = "${lending.stats.fold-interval-ms:5000}")
+    public void foldDeltas() {
+        int folded = 0;
+        Integer batch;
+        do {
+            batch = transactionTemplate.execute(status ->
+                    jdbcTemplate.queryForObject(FOLD_DELTAS, Integer.class, foldBatchSize));
+            folded += batch != null ? batch : 0;
+        } while (batch != null && batch == foldBatchSize);
+
+        if (folded > 0) {
+            log.debug("Folded {} returned lendings into lending statistics", folded);
+        }
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> rebuildIfStale());
+        } catch (Exception e) {
+            log.warn("Could not verify lending statistics, they may be incomplete until the next start", e);
+        }
+    }
+
+    /**
+     * Rebuild all buckets from the lendings if returns are missing from the "all" total
+     * or from the genre buckets, counting pending deltas as recorded. Genres come from
+     * the local book replica.
+     */
+    private void rebuildIfStale() {
+        // one replica checks; the others start without waiting for it
+        Boolean locked = jdbcTemplate.queryForObject("SELECT pg_try_advisory_xact_lock(?)",
+                Boolean.class, ADVISORY_LOCK_KEY);
+        if (!Boolean.TRUE.equals(locked)) {
+            log.debug("Lending statistics are checked by another replica");
+            return;
+        }
+
+        String lendings = allLendings();
+        Long returned = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM " + lendings + " l WHERE l.returned_date IS NOT NULL", Long.class);
+        long recorded = lendingStatsRepository.findById(new LendingStatsBucket.Key(LendingStatsBucket.ALL, LendingStatsBucket.ALL))
+                .map(LendingStatsBucket::getReturnedCount)
+                .orElse(0L)
+                + jdbcTemplate.queryForObject("SELECT COUNT(*) FROM lending_stats_deltas", Long.class);
+        Long withGenre = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM " + lendings + " l JOIN book_replicas b ON b.isbn = l.book_id " +
+                "WHERE l.returned_date IS NOT NULL AND b.genre IS NOT NULL", Long.class);
+        Long inGenres = jdbcTemplate.queryForObject(
+                "SELECT COALESCE(SUM(returned_count), 0) FROM lending_stats WHERE dimension = ?",
+                Long.class, LendingStatsBucket.GENRE)
+                + jdbcTemplate.queryForObject("SELECT COUNT(*) FROM lending_stats_deltas WHERE genre IS NOT NULL", Long.class);
+        boolean totalStale = returned != null && returned > recorded;
+        boolean genresStale = withGenre != null && inGenres != null && withGenre > inGenres;
+        if (!totalStale && !genresStale) {
+            return;
+        }
+
+        long start = System.currentTimeMillis();
+        jdbcTemplate.execute("LOCK TABLE lending_stats, lending_stats_deltas IN EXCLUSIVE MODE");
+        jdbcTemplate.update("DELETE FROM lending_stats_deltas");
+        jdbcTemplate.update("DELETE FROM lending_stats");
+        int buckets = jdbcTemplate.update(
+                "INSERT INTO lending_stats (dimension, bucket, returned_count, total_duration_days, late_count, " +
+                "total_days_overdue, total_fine_cents, rating_count, rating_sum) " +
+                "SELECT 'all', 'all', " + AGGREGATES + " FROM " + lendings + " l WHERE l.returned_date IS NOT NULL UNION ALL " +
+                rebuildSelect(lendings, LendingStatsBucket.DAY, "to_char(l.returned_date, 'YYYY-MM-DD')") + " UNION ALL " +
+                rebuildSelect(lendings, LendingStatsBucket.MONTH, "to_char(l.returned_date, 'YYYY-MM')") + " UNION ALL " +
+                rebuildSelect(lendings, LendingStatsBucket.BOOK, "l.book_id") + " UNION ALL " +
+                rebuildSelect(lendings, LendingStatsBucket.READER, "l.reader_number") + " UNION ALL " +
+                "SELECT '" + LendingStatsBucket.GENRE + "', b.genre, " + AGGREGATES + " FROM " + lendings + " l " +
+                "JOIN book_replicas b ON b.isbn = l.book_id " +
+                "WHERE l.returned_date IS NOT NULL AND b.genre IS NOT NULL GROUP BY b.genre");
+
+        log.info("Lending statistics rebuilt: {} returned lendings (was {}), {} with a genre (was {}), {} buckets in {} ms",
+                returned, recorded, withGenre, inGenres, buckets, System.currentTimeMillis() - start);
+    }
+
+    /**
+     * The lendings table plus the years LendingPartitionManager moved to the archive schema
+     */
+    private String allLendings() {
+        List<String> archived = jdbcTemplate.queryForList(
+                "SELECT table_name FROM information_schema.tables WHERE table_schema = ? " +
+                "AND table_name ~ '^lendings_y[0-9]{4}$' ORDER BY table_name",
+                String.class, LendingPartitionManager.ARCHIVE_SCHEMA);
+        if (archived.isEmpty()) {
+            return "lendings";
+        }
+        StringBuilder union = new StringBuilder("(SELECT * FROM lendings");
+        archived.forEach(table -> union.append(" UNION ALL SELECT * FROM ")
+                .append(LendingPartitionManager.ARCHIVE_SCHEMA).append('.').append(table));
+        return union.append(')').toString();
+    }
+
+    private static Object[] deltaOf(LendingEntity lending, String genre) {
+        int daysOverdue = lending.getDaysDelayed();
+        Integer fine = lending.getFineAmountInCents();
+        Integer rating = lending.getRating();
+        return new Object[]{
+                lending.getReturnedDate(),
+                lending.getBookId(),
+                lending.getReaderNumber(),
+                genre,
+                ChronoUnit.DAYS.between(lending.getStartDate(), lending.getReturnedDate()),
+                daysOverdue > 0 ? 1 : 0,
+                daysOverdue,
+                fine != null ? fine : 0,
+                rating != null ? 1 : 0,
+                rating != null ? rating : 0
+        };
+    }
+
+    private static String rebuildSelect(String lendings, String dimension, String bucketExpression) {
+        return "SELECT '" + dimension + "', " + bucketExpression + ", " + AGGREGATES +
+                " FROM " + lendings + " l WHERE l.returned_date IS NOT NULL GROUP BY " + bucketExpression;
+    }
+}
@@ -0,0 +1,97 @@
+package pt.psoft.lending.services;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import pt.psoft.lending.messaging.LendingEventPublisher;
+import pt.psoft.lending.model.command.OverdueLending;
+import pt.psoft.lending.repositories.jpa.OverdueLendingRepository;
+import pt.psoft.shared.events.lending.LendingOverdueEvent;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Materializes the overdue state of outstanding lendings once a day.
+ *
+ * In bulk: drops returned lendings, records the ones that passed their limit
+ * date, recomputes days overdue and fines, then publishes a LendingOverdue
+ * event per newly overdue lending in batches. Every step is idempotent and the
+ * event batches are row-locked, so replicas may run it concurrently.
+ */
+@Service
+@Slf4j
+public class OverdueLendingTracker {
+
+    private final OverdueLendingRepository overdueLendingRepository;
+    private final LendingEventPublisher lendingEventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final int eventBatchSize;
+
+    public OverdueLendingTracker(OverdueLendingRepository overdueLendingRepository,
+                                 LendingEventPublisher lendingEventPublisher,
+                                 PlatformTransactionManager transactionManager,
+                                 @Value("${lending.overdue.event-batch-size:200}") int eventBatchSize) {
+        this.overdueLendingRepository = overdueLendingRepository;
+        this.lendingEventPublisher = lendingEventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.eventBatchSize = eventBatchSize;
+    }
+
+    /**
+     * Catch up right after startup, e.g. after downtime over midnight
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void materializeOnStartup() {
+        try {
+            materialize();
+        } catch (Exception e) {
+            log.warn("Overdue materialization on startup failed, next scheduled run will retry", e);
+        }
+    }
+
+    @Scheduled(cron = "${lending.overdue.cron:0 5 0 * * *}")
+    public void materialize() {
+        LocalDate today = LocalDate.now();
+        long start = System.currentTimeMillis();
+
+        int[] counts = transactionTemplate.execute(status -> new int[]{
+                overdueLendingRepository.deleteReturned(),
+                overdueLendingRepository.insertNewlyOverdue(today),
+                overdueLendingRepository.refreshFines(today)
+        });
+
+        int published = 0;
+        int batch;
+        do {
+            batch = transactionTemplate.execute(status -> publishBatch());
+            published += batch;
+        } while (batch == eventBatchSize);
+
+        log.info("Overdue lendings materialized for {}: {} returned removed, {} newly overdue, {} tracked, {} events in {} ms",
+                today, counts[0], counts[1], counts[2], published, System.currentTimeMillis() - start);
+    }
+
+    private int publishBatch() {
+        List<OverdueLending> unpublished = overdueLendingRepository.lockUnpublished(eventBatchSize);
+        for (OverdueLending overdue : unpublished) {
+            lendingEventPublisher.publishLendingOverdue(new LendingOverdueEvent(
+                    overdue.getLendingNumber(),
+                    overdue.getBookId(),
+                    overdue.getReaderNumber(),
+                    overdue.getLimitDate(),
+                    overdue.getDaysOverdue(),
+                    overdue.getFineAmountInCents()
+            ));
+        }
+        if (!unpublished.isEmpty()) {
+            overdueLendingRepository.markPublished(unpublished.stream().map(OverdueLending::getLendingPk).toList());
+        }
+        return unpublished.size();
+    }
+}
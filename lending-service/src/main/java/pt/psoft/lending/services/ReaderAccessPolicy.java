@@ -0,0 +1,80 @@
+package pt.psoft.lending.services;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+import pt.psoft.shared.exceptions.BusinessException;
+
+/**
+ * Which reader the caller may act for.
+ *
+ * Librarians and admins act for any reader. A reader only acts for themselves:
+ * the token subject is "{user id},{username}" and a reader's user id is their
+ * reader id, which the reader replica maps to their reader number.
+ */
+@Service
+@RequiredArgsConstructor
+public class ReaderAccessPolicy {
+
+    private static final String ROLE_LIBRARIAN = "ROLE_LIBRARIAN";
+    private static final String ROLE_ADMIN = "ROLE_ADMIN";
+
+    private final CatalogReplicaService catalogReplicaService;
+
+    /**
+     * Reader number to act for: the requested one for staff, the caller's own for readers.
+     * Throws AccessDeniedException when a reader requests another reader's number.
+     */
+    public String actingFor(Authentication authentication, String requestedReaderNumber) {
+        if (isStaff(authentication)) {
+            if (!StringUtils.hasText(requestedReaderNumber)) {
+                throw new BusinessException("Reader number is required");
+            }
+            return requestedReaderNumber;
+        }
+
+        long userId = userId(authentication);
+        if (!StringUtils.hasText(requestedReaderNumber)) {
+            return catalogReplicaService.readerNumberOf(userId)
+                    .orElseThrow(() -> new AccessDeniedException("No reader found for the authenticated user"));
+        }
+        requireOwner(userId, requestedReaderNumber);
+        return requestedReaderNumber;
+    }
+
+    /**
+     * Throws AccessDeniedException unless the caller is staff or the reader themselves
+     */
+    public void requireReaderOrStaff(Authentication authentication, String readerNumber) {
+        if (!isStaff(authentication)) {
+            requireOwner(userId(authentication), readerNumber);
+        }
+    }
+
+    private void requireOwner(long userId, String readerNumber) {
+        boolean own = catalogReplicaService.readerIdOf(readerNumber)
+                .map(readerId -> readerId == userId)
+                .orElse(false);
+        if (!own) {
+            throw new AccessDeniedException("Readers can only act for themselves");
+        }
+    }
+
+    private static boolean isStaff(Authentication authentication) {
+        return authentication.getAuthorities().stream()
+                .map(GrantedAuthority::getAuthority)
+                .anyMatch(authority -> authority.equals(ROLE_LIBRARIAN) || authority.equals(ROLE_ADMIN));
+    }
+
+    private static long userId(Authentication authentication) {
+        String subject = authentication.getName();
+        try {
+            return Long.parseLong(subject.split(",", 2)[0]);
+        } catch (NumberFormatException e) {
+            throw new AccessDeniedException("Token subject does not identify a user");
+        }
+    }
+}
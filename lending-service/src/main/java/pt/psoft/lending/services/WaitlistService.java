@@ -0,0 +1,208 @@
+package pt.psoft.lending.services;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import pt.psoft.lending.messaging.LendingEventPublisher;
+import pt.psoft.lending.model.command.BookInventory;
+import pt.psoft.lending.model.command.WaitlistEntry;
+import pt.psoft.lending.model.command.WaitlistStatus;
+import pt.psoft.lending.repositories.jpa.BookInventoryRepository;
+import pt.psoft.lending.repositories.jpa.WaitlistRepository;
+import pt.psoft.shared.events.lending.WaitlistOfferedEvent;
+import pt.psoft.shared.exceptions.BusinessException;
+import pt.psoft.shared.exceptions.ConflictException;
+import pt.psoft.shared.exceptions.NotFoundException;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * FIFO waitlist for books without available copies.
+ *
+ * A reader queues once per book instead of retrying POST /lendings. When a copy
+ * is returned, or added to the inventory, it is held for the head of the queue
+ * instead of going to free stock (WaitlistOffered event); that reader's next
+ * lending claims it. Offers not claimed in time pass the copy to the next reader,
+ * or back to the inventory.
+ */
+@Service
+@Slf4j
+public class WaitlistService {
+
+    private final WaitlistRepository waitlistRepository;
+    private final BookInventoryRepository bookInventoryRepository;
+    private final BookInventoryService bookInventoryService;
+    private final LendingEventPublisher lendingEventPublisher;
+    private final Duration maxWait;
+    private final Duration offerHold;
+    private final int expiryBatchSize;
+
+    public WaitlistService(WaitlistRepository waitlistRepository,
+                           BookInventoryRepository bookInventoryRepository,
+                           BookInventoryService bookInventoryService,
+                           LendingEventPublisher lendingEventPublisher,
+                           @Value("${lending.waitlist.max-wait-days:30}") long maxWaitDays,
+                           @Value("${lending.waitlist.offer-hold-hours:48}") long offerHoldHours,
+                           @Value("${lending.waitlist.expiry-batch-size:100}") int expiryBatchSize) {
+        this.waitlistRepository = waitlistRepository;
+        this.bookInventoryRepository = bookInventoryRepository;
+        this.bookInventoryService = bookInventoryService;
+        this.lendingEventPublisher = lendingEventPublisher;
+        this.maxWait = Duration.ofDays(maxWaitDays);
+        this.offerHold = Duration.ofHours(offerHoldHours);
+        this.expiryBatchSize = expiryBatchSize;
+    }
+
+    /**
+     * Queue a reader for a book; joining again returns the existing entry
+     */
+    @Transactional
+    public WaitlistEntry join(String isbn, String readerNumber) {
+        var existing = waitlistRepository.findByActiveKey(WaitlistEntry.activeKey(isbn, readerNumber));
+        if (existing.isPresent()) {
+            return existing.get();
+        }
+
+        BookInventory inventory = bookInventoryRepository.findById(isbn)
+                .orElseThrow(() -> new BusinessException("Book " + isbn + " is not stock-managed and can be lent directly"));
+        if (inventory.getAvailableCopies() > 0) {
+            throw new BusinessException("Book " + isbn + " has available copies and can be lent directly");
+        }
+
+        try {
+            WaitlistEntry entry = waitlistRepository.saveAndFlush(
+                    new WaitlistEntry(isbn, readerNumber, LocalDateTime.now().plus(maxWait)));
+            log.info("Reader {} joined the waitlist of book {}", readerNumber, isbn);
+            return entry;
+        } catch (DataIntegrityViolationException e) {
+            // a concurrent request of the same reader won the unique active_key
+            throw new ConflictException("Reader " + readerNumber + " is already on the waitlist of book " + isbn);
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public WaitlistEntry findById(Long id) {
+        return waitlistRepository.findById(id)
+                .orElseThrow(() -> new NotFoundException("Waitlist entry " + id + " not found"));
+    }
+
+    /**
+     * Readers ahead in the queue (0 once a copy is offered)
+     */
+    @Transactional(readOnly = true)
+    public long positionOf(WaitlistEntry entry) {
+        if (entry.getStatus() != WaitlistStatus.WAITING) {
+            return 0;
+        }
+        return waitlistRepository.countAhead(entry.getIsbn(), entry.getRequestedAt(), entry.getId());
+    }
+
+    /**
+     * Leave the waitlist; a held copy goes to the next reader
+     */
+    @Transactional
+    public WaitlistEntry cancel(Long id) {
+        WaitlistEntry entry = findById(id);
+        boolean heldCopy = entry.getStatus() == WaitlistStatus.OFFERED;
+        entry.cancel();
+        waitlistRepository.save(entry);
+        if (heldCopy) {
+            passOn(entry.getIsbn());
+        }
+        return entry;
+    }
+
+    /**
+     * Hold a returned copy for the next reader in line.
+     * Returns false when nobody is waiting, so the copy goes back to the inventory.
+     */
+    @Transactional
+    public boolean offerReturnedCopy(String isbn) {
+        LocalDateTime now = LocalDateTime.now();
+        return waitlistRepository.lockNextWaiting(isbn, now)
+                .map(entry -> {
+                    entry.offer(now.plus(offerHold));
+                    waitlistRepository.save(entry);
+                    lendingEventPublisher.publishWaitlistOffered(new WaitlistOfferedEvent(
+                            entry.getId(), isbn, entry.getReaderNumber(), entry.getOfferExpiresAt()));
+                    log.info("Copy of book {} held for reader {} until {}",
+                            isbn, entry.getReaderNumber(), entry.getOfferExpiresAt());
+                    return true;
+                })
+                .orElse(false);
+    }
+
+    /**
+     * Set the number of copies owned for a book; copies that become available
+     * are held for waiting readers before anyone else can lend them
+     */
+    @Transactional
+    public BookInventory setTotalCopies(String isbn, int totalCopies) {
+        bookInventoryService.setTotalCopies(isbn, totalCopies);
+
+        int offered = 0;
+        while (bookInventoryRepository.tryReserve(isbn) == 1) {
+            if (!offerReturnedCopy(isbn)) {
+                bookInventoryRepository.release(isbn);
+                break;
+            }
+            offered++;
+        }
+        if (offered > 0) {
+            log.info("{} added copies of book {} held for waiting readers", offered, isbn);
+        }
+        return bookInventoryService.getInventory(isbn);
+    }
+
+    /**
+     * Close the waiting entries of readers who got a copy without an offer ("isbn|reader" keys)
+     */
+    @Transactional
+    public void fulfillWaiting(Collection<String> activeKeys) {
+        if (!activeKeys.isEmpty()) {
+            waitlistRepository.fulfillWaiting(activeKeys);
+        }
+    }
+
+    /**
+     * Take the copy held for this reader, if any
+     */
+    @Transactional
+    public boolean claimOffer(String isbn, String readerNumber) {
+        return waitlistRepository.claimOffer(WaitlistEntry.activeKey(isbn, readerNumber), LocalDateTime.now()) == 1;
+    }
+
+    /**
+     * Expire stale entries and pass on copies whose offer ran out
+     */
+    @Scheduled(fixedDelayString = "${lending.waitlist.expiry-check-ms:60000}")
+    @Transactional
+    public void expireEntries() {
+        LocalDateTime now = LocalDateTime.now();
+        int expiredWaiting = waitlistRepository.expireWaiting(now);
+
+        List<WaitlistEntry> expiredOffers = waitlistRepository.lockExpiredOffers(now, expiryBatchSize);
+        for (WaitlistEntry entry : expiredOffers) {
+            entry.expire();
+            waitlistRepository.save(entry);
+            passOn(entry.getIsbn());
+        }
+
+        if (expiredWaiting > 0 || !expiredOffers.isEmpty()) {
+            log.info("Waitlist expiry: {} waiting entries expired, {} offers passed on",
+                    expiredWaiting, expiredOffers.size());
+        }
+    }
+
+    private void passOn(String isbn) {
+        if (!offerReturnedCopy(isbn)) {
+            bookInventoryService.release(isbn);
+        }
+    }
+}
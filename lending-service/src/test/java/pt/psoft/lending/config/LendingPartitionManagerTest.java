@@ -0,0 +1,120 @@
+package pt.psoft.lending.config;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for LendingPartitionManager
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("LendingPartitionManager Tests")
+class LendingPartitionManagerTest {
+
+    private static final int YEAR = LocalDate.now().getYear();
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private Connection connection;
+
+    @Mock
+    private PreparedStatement statement;
+
+    @Mock
+    private ResultSet resultSet;
+
+    @Test
+    @DisplayName("Should archive only closed years older than after-years")
+    void shouldArchiveClosedYears() throws Exception {
+        partitioned(true);
+        lockAvailable(true);
+        when(jdbcTemplate.queryForList(contains("pg_inherits"), eq(Integer.class)))
+                .thenReturn(List.of(YEAR - 5, YEAR - 4, YEAR - 1));
+        when(jdbcTemplate.queryForObject(contains(LendingPartitionManager.partition(YEAR - 5)), eq(Boolean.class)))
+                .thenReturn(false);
+        when(jdbcTemplate.queryForObject(contains(LendingPartitionManager.partition(YEAR - 4)), eq(Boolean.class)))
+                .thenReturn(true);
+
+        manager().archiveClosedYears();
+
+        verify(jdbcTemplate).execute("ALTER TABLE lendings DETACH PARTITION " + LendingPartitionManager.partition(YEAR - 5));
+        verify(jdbcTemplate, never()).execute("ALTER TABLE lendings DETACH PARTITION " + LendingPartitionManager.partition(YEAR - 4));
+        verify(jdbcTemplate, never()).queryForObject(contains(LendingPartitionManager.partition(YEAR - 1)), eq(Boolean.class));
+        verify(statement, times(2)).setLong(1, LendingPartitionManager.ARCHIVE_LOCK_KEY); // lock and unlock
+    }
+
+    @Test
+    @DisplayName("Should not archive while another replica holds the archive lock")
+    void shouldSkipArchiveWhenLockIsHeld() throws Exception {
+        partitioned(true);
+        lockAvailable(false);
+
+        manager().archiveClosedYears();
+
+        verify(jdbcTemplate, never()).queryForList(contains("pg_inherits"), eq(Integer.class));
+        verify(jdbcTemplate, never()).execute(anyString());
+    }
+
+    @Test
+    @DisplayName("Should create the current and next year partitions")
+    void shouldEnsurePartitions() throws Exception {
+        partitioned(true);
+        lockAvailable(true);
+
+        manager().ensurePartitions();
+
+        verify(jdbcTemplate).execute("CREATE TABLE IF NOT EXISTS lendings_y" + YEAR +
+                " PARTITION OF lendings FOR VALUES IN (" + YEAR + ")");
+        verify(jdbcTemplate).execute("CREATE TABLE IF NOT EXISTS lendings_y" + (YEAR + 1) +
+                " PARTITION OF lendings FOR VALUES IN (" + (YEAR + 1) + ")");
+    }
+
+    @Test
+    @DisplayName("Should never convert a plain lendings table at startup")
+    void shouldNotConvertAtStartup() {
+        partitioned(false);
+
+        manager().run(null);
+
+        verify(jdbcTemplate, never()).execute(anyString());
+        verify(jdbcTemplate, never()).execute(any(ConnectionCallback.class));
+    }
+
+    private LendingPartitionManager manager() {
+        return new LendingPartitionManager(jdbcTemplate, transactionManager, true, true, 3, "");
+    }
+
+    private void partitioned(boolean partitioned) {
+        when(jdbcTemplate.queryForList(contains("relkind"), eq(String.class)))
+                .thenReturn(List.of(partitioned ? "p" : "r"));
+    }
+
+    @SuppressWarnings("unchecked")
+    private void lockAvailable(boolean available) throws Exception {
+        when(jdbcTemplate.execute(any(ConnectionCallback.class)))
+                .thenAnswer(invocation -> invocation.getArgument(0, ConnectionCallback.class).doInConnection(connection));
+        when(connection.prepareStatement(anyString())).thenReturn(statement);
+        when(statement.executeQuery()).thenReturn(resultSet);
+        when(resultSet.next()).thenReturn(true);
+        when(resultSet.getBoolean(1)).thenReturn(available);
+    }
+}
@@ -0,0 +1,37 @@
+package pt.psoft.lending.model;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import pt.psoft.lending.model.query.LendingCursor;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for LendingCursor
+ */
+@DisplayName("LendingCursor Tests")
+class LendingCursorTest {
+
+    @Test
+    @DisplayName("Should round-trip through its token")
+    void shouldRoundTripThroughToken() {
+        LendingCursor cursor = new LendingCursor(LocalDate.of(2024, 3, 15), 4711L);
+
+        assertEquals(cursor, LendingCursor.decode(cursor.encode()));
+    }
+
+    @Test
+    @DisplayName("Should start from the newest lending without a token")
+    void shouldStartWithoutToken() {
+        assertEquals(LendingCursor.START, LendingCursor.decode(null));
+        assertEquals(LendingCursor.START, LendingCursor.decode(""));
+    }
+
+    @Test
+    @DisplayName("Should reject a malformed token")
+    void shouldRejectMalformedToken() {
+        assertThrows(IllegalArgumentException.class, () -> LendingCursor.decode("not-a-cursor"));
+    }
+}
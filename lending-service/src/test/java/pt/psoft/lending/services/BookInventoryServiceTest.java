@@ -0,0 +1,168 @@
+package pt.psoft.lending.services;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+import pt.psoft.lending.model.command.BookInventory;
+import pt.psoft.lending.repositories.jpa.BookInventoryRepository;
+import pt.psoft.shared.exceptions.ConflictException;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for BookInventoryService.
+ * The Redis gate runs against an in-memory stand-in that applies each Lua script's logic.
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("BookInventoryService Tests")
+class BookInventoryServiceTest {
+
+    private static final String ISBN = "9782826012092";
+    private static final String GATE = "inventory:available:" + ISBN;
+    private static final String GENERATION = "inventory:gate-gen:" + ISBN;
+
+    @Mock
+    private BookInventoryRepository bookInventoryRepository;
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    @Mock
+    private ValueOperations<String, String> valueOperations;
+
+    private final Map<String, String> redis = new HashMap<>();
+
+    private BookInventoryService bookInventoryService;
+
+    @BeforeEach
+    void setUp() {
+        bookInventoryService = new BookInventoryService(bookInventoryRepository, redisTemplate, 300);
+        lenient().when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        lenient().when(valueOperations.get(anyString())).thenAnswer(invocation -> redis.get(invocation.<String>getArgument(0)));
+        lenient().when(redisTemplate.execute(any(RedisScript.class), anyList(), any(Object[].class)))
+                .thenAnswer(invocation -> {
+                    Object[] arguments = invocation.getArguments();
+                    List<String> keys = invocation.getArgument(1);
+                    return runScript((RedisScript<?>) arguments[0], keys.get(0), keys.get(1), arguments);
+                });
+    }
+
+    @Test
+    @DisplayName("Should refuse in Redis when the gate is sold out")
+    void shouldRejectWhenGateSoldOut() {
+        redis.put(GATE, "0");
+
+        assertThrows(ConflictException.class, () -> bookInventoryService.reserve(ISBN));
+        verify(bookInventoryRepository, never()).tryReserve(any());
+    }
+
+    @Test
+    @DisplayName("Should take a copy from the gate and the row")
+    void shouldDecrementGate() {
+        redis.put(GATE, "2");
+        when(bookInventoryRepository.tryReserve(ISBN)).thenReturn(1);
+
+        bookInventoryService.reserve(ISBN);
+
+        assertEquals("1", redis.get(GATE));
+    }
+
+    @Test
+    @DisplayName("Should seed a missing gate from the row after a reservation")
+    void shouldSeedMissingGate() {
+        when(bookInventoryRepository.tryReserve(ISBN)).thenReturn(1);
+        when(bookInventoryRepository.findById(ISBN)).thenReturn(Optional.of(new BookInventory(ISBN, 3, 2)));
+
+        bookInventoryService.reserve(ISBN);
+
+        assertEquals("2", redis.get(GATE));
+    }
+
+    @Test
+    @DisplayName("Should not seed a count read before a release that committed meanwhile")
+    void shouldNotSeedStaleCountAfterConcurrentRelease() {
+        when(bookInventoryRepository.tryReserve(ISBN)).thenReturn(1);
+        when(bookInventoryRepository.release(ISBN)).thenReturn(1);
+        // the seed reads the last copy as taken, then a return frees it before the seed is stored
+        when(bookInventoryRepository.findById(ISBN)).thenAnswer(invocation -> {
+            bookInventoryService.release(ISBN);
+            return Optional.of(new BookInventory(ISBN, 1, 0));
+        });
+
+        bookInventoryService.reserve(ISBN);
+
+        assertNull(redis.get(GATE));
+        // the next lending goes to the row instead of being refused by a stale 0
+        bookInventoryService.reserve(ISBN);
+        verify(bookInventoryRepository, times(2)).tryReserve(ISBN);
+    }
+
+    @Test
+    @DisplayName("Should give a released copy back to an existing gate")
+    void shouldIncrementGateOnRelease() {
+        redis.put(GATE, "0");
+        when(bookInventoryRepository.release(ISBN)).thenReturn(1);
+
+        bookInventoryService.release(ISBN);
+
+        assertEquals("1", redis.get(GATE));
+    }
+
+    @Test
+    @DisplayName("Should drop the gate when the number of copies changes")
+    void shouldDropGateOnTotalCopies() {
+        redis.put(GATE, "0");
+
+        bookInventoryService.setTotalCopies(ISBN, 5);
+
+        assertNull(redis.get(GATE));
+        assertEquals("1", redis.get(GENERATION));
+        verify(bookInventoryRepository).upsertTotalCopies(ISBN, 5);
+    }
+
+    private long runScript(RedisScript<?> script, String gate, String generation, Object[] arguments) {
+        if (script == BookInventoryService.RESERVE_SCRIPT) {
+            String value = redis.get(gate);
+            if (value == null) {
+                return -1;
+            }
+            if (Long.parseLong(value) <= 0) {
+                return 0;
+            }
+            redis.put(gate, Long.toString(Long.parseLong(value) - 1));
+            return 1;
+        }
+        if (script == BookInventoryService.RELEASE_SCRIPT) {
+            redis.merge(generation, "1", (current, one) -> Long.toString(Long.parseLong(current) + 1));
+            if (!redis.containsKey(gate)) {
+                return -1;
+            }
+            redis.put(gate, Long.toString(Long.parseLong(redis.get(gate)) + 1));
+            return Long.parseLong(redis.get(gate));
+        }
+        if (script == BookInventoryService.DROP_SCRIPT) {
+            redis.merge(generation, "1", (current, one) -> Long.toString(Long.parseLong(current) + 1));
+            return redis.remove(gate) != null ? 1 : 0;
+        }
+        if (script == BookInventoryService.SEED_SCRIPT) {
+            if (!redis.getOrDefault(generation, "").equals(arguments[2])) {
+                return 0;
+            }
+            return redis.putIfAbsent(gate, (String) arguments[3]) == null ? 1 : 0;
+        }
+        throw new IllegalArgumentException("Unknown script");
+    }
+}
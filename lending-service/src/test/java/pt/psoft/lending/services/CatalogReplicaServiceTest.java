@@ -0,0 +1,83 @@
+package pt.psoft.lending.services;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import pt.psoft.lending.client.ReaderServiceClient;
+import pt.psoft.lending.model.command.ReaderReplica;
+import pt.psoft.lending.repositories.jpa.BookReplicaRepository;
+import pt.psoft.lending.repositories.jpa.ReaderReplicaRepository;
+import pt.psoft.shared.exceptions.BusinessException;
+import pt.psoft.shared.exceptions.NotFoundException;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for CatalogReplicaService
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("CatalogReplicaService Tests")
+class CatalogReplicaServiceTest {
+
+    @Mock
+    private BookReplicaRepository bookReplicaRepository;
+
+    @Mock
+    private ReaderReplicaRepository readerReplicaRepository;
+
+    @Mock
+    private ReaderServiceClient readerServiceClient;
+
+    @Test
+    @DisplayName("Should take the reader id from the replica without asking Reader Service")
+    void shouldUseReplicatedReader() {
+        when(readerReplicaRepository.findById("2024/1")).thenReturn(Optional.of(new ReaderReplica("2024/1", 42L, true)));
+
+        assertEquals(42L, service(false).requireActiveReader("2024/1"));
+        verifyNoInteractions(readerServiceClient);
+    }
+
+    @Test
+    @DisplayName("Should reject an inactive reader")
+    void shouldRejectInactiveReader() {
+        when(readerReplicaRepository.findById("2024/1")).thenReturn(Optional.of(new ReaderReplica("2024/1", 42L, false)));
+
+        assertThrows(BusinessException.class, () -> service(false).requireActiveReader("2024/1"));
+    }
+
+    @Test
+    @DisplayName("Should look up an unreplicated reader in Reader Service while enforcement is off")
+    void shouldFallBackToReaderService() {
+        when(readerReplicaRepository.findById("2024/1")).thenReturn(Optional.empty());
+        when(readerServiceClient.findReaderId("2024/1")).thenReturn(Optional.of(42L));
+
+        assertEquals(42L, service(false).requireActiveReader("2024/1"));
+    }
+
+    @Test
+    @DisplayName("Should reject a reader neither the replica nor Reader Service knows")
+    void shouldRejectReaderUnknownToReaderService() {
+        when(readerReplicaRepository.findById("2024/1")).thenReturn(Optional.empty());
+        when(readerServiceClient.findReaderId("2024/1")).thenReturn(Optional.empty());
+
+        assertThrows(NotFoundException.class, () -> service(false).requireActiveReader("2024/1"));
+    }
+
+    @Test
+    @DisplayName("Should reject an unreplicated reader without a remote call when enforcing")
+    void shouldRejectUnreplicatedReaderWhenEnforcing() {
+        when(readerReplicaRepository.findById("2024/1")).thenReturn(Optional.empty());
+
+        assertThrows(NotFoundException.class, () -> service(true).requireActiveReader("2024/1"));
+        verifyNoInteractions(readerServiceClient);
+    }
+
+    private CatalogReplicaService service(boolean enforce) {
+        return new CatalogReplicaService(bookReplicaRepository, readerReplicaRepository, readerServiceClient, enforce);
+    }
+}
@@ -0,0 +1,212 @@
+package pt.psoft.lending.services;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import pt.psoft.lending.api.dto.BulkLendingResponse;
+import pt.psoft.lending.api.dto.BulkLendingResponse.ItemStatus;
+import pt.psoft.lending.api.dto.BulkReturnLendingRequest;
+import pt.psoft.lending.api.dto.CreateLendingRequest;
+import pt.psoft.lending.messaging.LendingEventPublisher;
+import pt.psoft.lending.model.command.BookInventory;
+import pt.psoft.lending.model.command.LendingEntity;
+import pt.psoft.lending.model.command.ReaderLendingState;
+import pt.psoft.lending.model.command.valueobjects.LendingNumber;
+import pt.psoft.lending.repositories.jpa.*;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for LendingBatchService
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("LendingBatchService Tests")
+class LendingBatchServiceTest {
+
+    @Mock
+    private LendingRepository lendingRepository;
+
+    @Mock
+    private LendingEventPublisher lendingEventPublisher;
+
+    @Mock
+    private LendingNumberAllocator lendingNumberAllocator;
+
+    @Mock
+    private ReaderLendingStateRepository readerLendingStateRepository;
+
+    @Mock
+    private BookInventoryRepository bookInventoryRepository;
+
+    @Mock
+    private BookInventoryService bookInventoryService;
+
+    @Mock
+    private WaitlistRepository waitlistRepository;
+
+    @Mock
+    private WaitlistService waitlistService;
+
+    @Mock
+    private OverdueLendingRepository overdueLendingRepository;
+
+    @Mock
+    private LendingStatisticsService lendingStatisticsService;
+
+    @Mock
+    private CatalogReplicaService catalogReplicaService;
+
+    private LendingBatchService lendingBatchService;
+
+    @BeforeEach
+    void setUp() {
+        lendingBatchService = new LendingBatchService(lendingRepository, lendingEventPublisher, lendingNumberAllocator,
+                readerLendingStateRepository, bookInventoryRepository, bookInventoryService, waitlistRepository,
+                waitlistService, overdueLendingRepository, lendingStatisticsService, catalogReplicaService, 14, 50, 3);
+    }
+
+    @Test
+    @DisplayName("Should create the admissible lendings and reject the rest per item")
+    void shouldCreateAdmissibleLendingsAndRejectTheRest() {
+        List<CreateLendingRequest> requests = List.of(
+                new CreateLendingRequest("9782826012092", "2024/1"),
+                new CreateLendingRequest("9782826012092", "2024/2"),
+                new CreateLendingRequest("9780000000001", "2024/3"));
+
+        when(readerLendingStateRepository.existsById(anyString())).thenReturn(true);
+        when(readerLendingStateRepository.lockAll(any())).thenReturn(List.of(
+                new ReaderLendingState("2024/1", 1, null),
+                new ReaderLendingState("2024/2", 0, null),
+                new ReaderLendingState("2024/3", 3, null)));
+        when(bookInventoryRepository.lockAll(any())).thenReturn(List.of(new BookInventory("9782826012092", 2, 1)));
+        when(waitlistRepository.lockHeldOffers(any(), any())).thenReturn(List.of());
+        when(readerLendingStateRepository.tryAdmitMany(eq("2024/1"), eq(1), any(), any(), eq(3))).thenReturn(1);
+        when(lendingNumberAllocator.next()).thenReturn(new LendingNumber(2024, 7));
+        when(lendingRepository.saveAllAndFlush(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        BulkLendingResponse response = lendingBatchService.createLendings(requests);
+
+        assertEquals(1, response.getSucceeded());
+        assertEquals(2, response.getFailed());
+        assertEquals(ItemStatus.CREATED, response.getItems().get(0).getStatus());
+        assertEquals("2024/7", response.getItems().get(0).getLendingNumber());
+        assertEquals(ItemStatus.REJECTED, response.getItems().get(1).getStatus());
+        assertTrue(response.getItems().get(1).getMessage().contains("No copies"));
+        assertEquals(ItemStatus.REJECTED, response.getItems().get(2).getStatus());
+        assertTrue(response.getItems().get(2).getMessage().contains("outstanding books"));
+
+        verify(bookInventoryService).reserveCopies("9782826012092", 1);
+        verify(readerLendingStateRepository, never()).tryAdmitMany(eq("2024/3"), anyInt(), any(), any(), anyInt());
+        verify(lendingEventPublisher).publishLendingsCreated(argThat(events -> events.size() == 1));
+    }
+
+    @Test
+    @DisplayName("Should check each distinct reader once, before any row is locked")
+    void shouldCheckReadersBeforeLocking() {
+        List<CreateLendingRequest> requests = List.of(
+                new CreateLendingRequest("9782826012092", "2024/1"),
+                new CreateLendingRequest("9780000000001", "2024/1"),
+                new CreateLendingRequest("9780000000001", "2024/9"));
+
+        when(catalogReplicaService.requireActiveReader("2024/1")).thenReturn(1L);
+        when(catalogReplicaService.requireActiveReader("2024/9"))
+                .thenThrow(new IllegalStateException("Reader Service unavailable"));
+        when(readerLendingStateRepository.existsById(anyString())).thenReturn(true);
+        when(readerLendingStateRepository.lockAll(any())).thenReturn(List.of());
+        when(bookInventoryRepository.lockAll(any())).thenReturn(List.of());
+        when(waitlistRepository.lockHeldOffers(any(), any())).thenReturn(List.of());
+        when(readerLendingStateRepository.tryAdmitMany(eq("2024/1"), eq(2), any(), any(), eq(3))).thenReturn(1);
+        when(lendingNumberAllocator.next()).thenReturn(new LendingNumber(2024, 7), new LendingNumber(2024, 8));
+        when(lendingRepository.saveAllAndFlush(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        BulkLendingResponse response = lendingBatchService.createLendings(requests);
+
+        assertEquals(2, response.getSucceeded());
+        assertEquals(ItemStatus.REJECTED, response.getItems().get(2).getStatus());
+        assertEquals("Reader Service unavailable", response.getItems().get(2).getMessage());
+        var inOrder = inOrder(catalogReplicaService, readerLendingStateRepository);
+        inOrder.verify(catalogReplicaService, times(1)).requireActiveReader("2024/1");
+        inOrder.verify(readerLendingStateRepository).lockAll(any());
+    }
+
+    @Test
+    @DisplayName("Should return valid lendings and report missing, returned and stale ones")
+    void shouldReturnValidLendingsAndReportConflicts() {
+        LendingEntity active = lending(2024, 1, 0L);
+        LendingEntity stale = lending(2024, 2, 3L);
+        LendingEntity returned = lending(2024, 3, 0L);
+        returned.setReturned(0L, "", 5);
+
+        List<BulkReturnLendingRequest.Item> items = List.of(
+                new BulkReturnLendingRequest.Item("2024/1", 0L, "Great", 8),
+                new BulkReturnLendingRequest.Item("2024/2", 0L, "", 6),
+                new BulkReturnLendingRequest.Item("2024/3", 0L, "", 7),
+                new BulkReturnLendingRequest.Item("2024/4", 0L, "", 7),
+                new BulkReturnLendingRequest.Item("2024/1", 0L, "", 7));
+
+        when(lendingRepository.lockByYearAndSequences(2024, Set.of(1, 2, 3, 4))).thenReturn(List.of(active, stale, returned));
+        when(waitlistService.offerReturnedCopy("9782826012092")).thenReturn(false);
+
+        BulkLendingResponse response = lendingBatchService.returnLendings(items);
+
+        assertEquals(1, response.getSucceeded());
+        assertEquals(ItemStatus.RETURNED, response.getItems().get(0).getStatus());
+        assertEquals(ItemStatus.CONFLICT, response.getItems().get(1).getStatus());
+        assertEquals(ItemStatus.CONFLICT, response.getItems().get(2).getStatus());
+        assertEquals(ItemStatus.NOT_FOUND, response.getItems().get(3).getStatus());
+        assertEquals(ItemStatus.REJECTED, response.getItems().get(4).getStatus());
+
+        assertFalse(active.isActive());
+        assertEquals(8, active.getRating());
+        assertTrue(stale.isActive());
+        verify(readerLendingStateRepository).releaseMany("2024/1", 1);
+        verify(bookInventoryService).releaseCopies("9782826012092", 1);
+        verify(lendingEventPublisher).publishLendingsReturned(argThat(events -> events.size() == 1));
+    }
+
+    @Test
+    @DisplayName("Should lock exact lendings year by year and release once per reader and book")
+    void shouldAggregateReleasesPerReaderAndBook() {
+        LendingEntity older = lending(2023, 7, 0L);
+        LendingEntity newer = lending(2024, 7, 0L);
+        List<BulkReturnLendingRequest.Item> items = List.of(
+                new BulkReturnLendingRequest.Item("2024/7", 0L, "", 6),
+                new BulkReturnLendingRequest.Item("2023/7", 0L, "", null));
+
+        when(lendingRepository.lockByYearAndSequences(2023, Set.of(7))).thenReturn(List.of(older));
+        when(lendingRepository.lockByYearAndSequences(2024, Set.of(7))).thenReturn(List.of(newer));
+        when(waitlistService.offerReturnedCopy("9782826012092")).thenReturn(true, false);
+
+        BulkLendingResponse response = lendingBatchService.returnLendings(items);
+
+        assertEquals(2, response.getSucceeded());
+        InOrder inOrder = inOrder(lendingRepository, readerLendingStateRepository, bookInventoryRepository,
+                waitlistService, bookInventoryService);
+        inOrder.verify(lendingRepository).lockByYearAndSequences(2023, Set.of(7));
+        inOrder.verify(lendingRepository).lockByYearAndSequences(2024, Set.of(7));
+        inOrder.verify(readerLendingStateRepository).releaseMany("2024/1", 2);
+        inOrder.verify(bookInventoryRepository).lockAll(Set.of("9782826012092"));
+        inOrder.verify(waitlistService, times(2)).offerReturnedCopy("9782826012092");
+        // one copy went to the waiting reader, the other back to stock
+        inOrder.verify(bookInventoryService).releaseCopies("9782826012092", 1);
+        verify(readerLendingStateRepository, never()).release(any());
+        verify(lendingStatisticsService).recordReturns(argThat(returned -> returned.size() == 2), any());
+    }
+
+    private static LendingEntity lending(int year, int sequence, Long version) {
+        LendingEntity lending = new LendingEntity("9782826012092", 1L, "2024/1",
+                new LendingNumber(year, sequence), 14, 50);
+        ReflectionTestUtils.setField(lending, "version", version);
+        return lending;
+    }
+}
@@ -12,18 +12,24 @@ import pt.psoft.lending.api.dto.CreateLendingRequest;
 import pt.psoft.lending.api.dto.ReturnLendingRequest;
 import pt.psoft.lending.messaging.LendingEventPublisher;
 import pt.psoft.lending.model.command.LendingEntity;
+import pt.psoft.lending.model.command.ReaderLendingState;
+import pt.psoft.lending.model.command.valueobjects.LendingNumber;
 import pt.psoft.lending.repositories.jpa.LendingRepository;
+import pt.psoft.lending.repositories.jpa.OverdueLendingRepository;
+import pt.psoft.lending.repositories.jpa.ReaderLendingStateRepository;
 import pt.psoft.shared.events.lending.LendingCreatedEvent;
 import pt.psoft.shared.events.lending.LendingReturnedEvent;
 import pt.psoft.shared.exceptions.BusinessException;
+import pt.psoft.shared.exceptions.ConflictException;
 import pt.psoft.shared.exceptions.NotFoundException;
 
-import java.util.Collections;
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 /**
@@ -39,6 +45,27 @@ class LendingCommandServiceTest {
     @Mock
     private LendingEventPublisher lendingEventPublisher;
 
+    @Mock
+    private LendingNumberAllocator lendingNumberAllocator;
+
+    @Mock
+    private ReaderLendingStateRepository readerLendingStateRepository;
+
+    @Mock
+    private BookInventoryService bookInventoryService;
+
+    @Mock
+    private WaitlistService waitlistService;
+
+    @Mock
+    private OverdueLendingRepository overdueLendingRepository;
+
+    @Mock
+    private LendingStatisticsService lendingStatisticsService;
+
+    @Mock
+    private CatalogReplicaService catalogReplicaService;
+
     @InjectMocks
     private LendingCommandServiceImpl lendingCommandService;
 
@@ -54,8 +81,8 @@ class LendingCommandServiceTest {
     void shouldCreateLendingSuccessfully() {
         CreateLendingRequest request = new CreateLendingRequest("9782826012092", "2024/1");
 
-        when(lendingRepository.findOutstandingByReaderNumber("2024/1")).thenReturn(Collections.emptyList());
-        when(lendingRepository.countByYear(any())).thenReturn(0);
+        when(readerLendingStateRepository.tryAdmit(eq("2024/1"), any(), any(), eq(3))).thenReturn(1);
+        when(lendingNumberAllocator.next()).thenReturn(new LendingNumber(2024, 7));
         when(lendingRepository.save(any(LendingEntity.class))).thenAnswer(i -> i.getArgument(0));
 
         LendingEntity result = lendingCommandService.createLending(request);
@@ -63,6 +90,8 @@ class LendingCommandServiceTest {
         assertNotNull(result);
         assertEquals("9782826012092", result.getBookId());
         assertEquals("2024/1", result.getReaderNumber());
+        assertEquals("2024/7", result.getLendingNumberValue());
+        verify(bookInventoryService).reserve("9782826012092");
         verify(lendingEventPublisher).publishLendingCreated(any(LendingCreatedEvent.class));
     }
 
@@ -71,16 +100,88 @@ class LendingCommandServiceTest {
     void shouldThrowExceptionWhenReaderHasMaxOutstandingBooks() {
         CreateLendingRequest request = new CreateLendingRequest("9782826012092", "2024/1");
 
-        List<LendingEntity> outstandingLendings = List.of(
-                new LendingEntity("book1", 1L, "2024/1", 1, 14, 50),
-                new LendingEntity("book2", 1L, "2024/1", 2, 14, 50),
-                new LendingEntity("book3", 1L, "2024/1", 3, 14, 50)
-        );
-
-        when(lendingRepository.findOutstandingByReaderNumber("2024/1")).thenReturn(outstandingLendings);
+        when(readerLendingStateRepository.tryAdmit(eq("2024/1"), any(), any(), eq(3))).thenReturn(0);
+        when(readerLendingStateRepository.existsById("2024/1")).thenReturn(true);
+        when(readerLendingStateRepository.findById("2024/1"))
+                .thenReturn(Optional.of(new ReaderLendingState("2024/1", 3, LocalDate.now().plusDays(5))));
 
         assertThrows(BusinessException.class, () -> lendingCommandService.createLending(request));
         verify(lendingEventPublisher, never()).publishLendingCreated(any());
+        verify(lendingRepository, never()).save(any());
+        verify(bookInventoryService, never()).reserve(any());
+    }
+
+    @Test
+    @DisplayName("Should reject a book unknown to the local catalog replica")
+    void shouldRejectUnknownBook() {
+        CreateLendingRequest request = new CreateLendingRequest("9780000000000", "2024/1");
+
+        doThrow(new NotFoundException("Book with ISBN 9780000000000 not found"))
+                .when(catalogReplicaService).requireLendableBook("9780000000000");
+
+        assertThrows(NotFoundException.class, () -> lendingCommandService.createLending(request));
+        verifyNoInteractions(readerLendingStateRepository, bookInventoryService, lendingRepository);
+    }
+
+    @Test
+    @DisplayName("Should record the reader id from the local reader replica")
+    void shouldUseReaderIdFromReplica() {
+        CreateLendingRequest request = new CreateLendingRequest("9782826012092", "2024/1");
+
+        when(catalogReplicaService.requireActiveReader("2024/1")).thenReturn(42L);
+        when(readerLendingStateRepository.tryAdmit(eq("2024/1"), any(), any(), eq(3))).thenReturn(1);
+        when(lendingNumberAllocator.next()).thenReturn(new LendingNumber(2024, 11));
+        when(lendingRepository.save(any(LendingEntity.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        LendingEntity result = lendingCommandService.createLending(request);
+
+        assertEquals(42L, result.getReaderId());
+    }
+
+    @Test
+    @DisplayName("Should not create lending when no copy is available")
+    void shouldNotCreateLendingWhenNoCopyAvailable() {
+        CreateLendingRequest request = new CreateLendingRequest("9782826012092", "2024/1");
+
+        when(readerLendingStateRepository.tryAdmit(eq("2024/1"), any(), any(), eq(3))).thenReturn(1);
+        when(lendingNumberAllocator.next()).thenReturn(new LendingNumber(2024, 9));
+        doThrow(new ConflictException("No copies of book 9782826012092 are available"))
+                .when(bookInventoryService).reserve("9782826012092");
+
+        assertThrows(ConflictException.class, () -> lendingCommandService.createLending(request));
+        verify(lendingRepository, never()).save(any());
+        verify(lendingEventPublisher, never()).publishLendingCreated(any());
+    }
+
+    @Test
+    @DisplayName("Should throw exception when reader has overdue books")
+    void shouldThrowExceptionWhenReaderHasOverdueBooks() {
+        CreateLendingRequest request = new CreateLendingRequest("9782826012092", "2024/1");
+
+        when(readerLendingStateRepository.tryAdmit(eq("2024/1"), any(), any(), eq(3))).thenReturn(0);
+        when(readerLendingStateRepository.existsById("2024/1")).thenReturn(true);
+        when(readerLendingStateRepository.findById("2024/1"))
+                .thenReturn(Optional.of(new ReaderLendingState("2024/1", 1, LocalDate.now().minusDays(1))));
+
+        BusinessException exception = assertThrows(BusinessException.class,
+                () -> lendingCommandService.createLending(request));
+        assertTrue(exception.getMessage().contains("past their due date"));
+    }
+
+    @Test
+    @DisplayName("Should initialize lending state of a reader seen for the first time")
+    void shouldInitializeLendingStateForNewReader() {
+        CreateLendingRequest request = new CreateLendingRequest("9782826012092", "2024/2");
+
+        when(readerLendingStateRepository.tryAdmit(eq("2024/2"), any(), any(), eq(3))).thenReturn(0, 1);
+        when(readerLendingStateRepository.existsById("2024/2")).thenReturn(false);
+        when(lendingNumberAllocator.next()).thenReturn(new LendingNumber(2024, 8));
+        when(lendingRepository.save(any(LendingEntity.class))).thenAnswer(i -> i.getArgument(0));
+
+        lendingCommandService.createLending(request);
+
+        verify(readerLendingStateRepository).initialize("2024/2");
+        verify(lendingEventPublisher).publishLendingCreated(any(LendingCreatedEvent.class));
     }
 
     @Test
@@ -97,6 +198,9 @@ class LendingCommandServiceTest {
         assertNotNull(result.getReturnedDate());
         assertEquals("Great book!", result.getComment());
         assertEquals(8, result.getRating());
+        verify(readerLendingStateRepository).release("2024/1");
+        verify(bookInventoryService).release("9782826012092");
+        verify(lendingStatisticsService).recordReturn(result, null);
         verify(lendingEventPublisher).publishLendingReturned(any(LendingReturnedEvent.class));
     }
 
@@ -124,4 +228,50 @@ class LendingCommandServiceTest {
         assertThrows(BusinessException.class, () ->
                 lendingCommandService.returnLending("2024/1", request, 1L));
     }
+
+    @Test
+    @DisplayName("Should hold returned copy for the next reader on the waitlist")
+    void shouldOfferReturnedCopyToWaitlist() {
+        ReturnLendingRequest request = new ReturnLendingRequest("Great book!", 8);
+        LendingEntity lending = new LendingEntity("9782826012092", 1L, "2024/1", 1, 14, 50);
+
+        when(lendingRepository.findByLendingNumber(anyInt(), anyInt())).thenReturn(Optional.of(lending));
+        when(lendingRepository.save(any(LendingEntity.class))).thenAnswer(i -> i.getArgument(0));
+        when(waitlistService.offerReturnedCopy("9782826012092")).thenReturn(true);
+
+        lendingCommandService.returnLending("2024/1", request, 0L);
+
+        verify(bookInventoryService, never()).release(any());
+    }
+
+    @Test
+    @DisplayName("Should lend the copy held for the reader without reserving another")
+    void shouldClaimHeldCopy() {
+        CreateLendingRequest request = new CreateLendingRequest("9782826012092", "2024/1");
+
+        when(readerLendingStateRepository.tryAdmit(eq("2024/1"), any(), any(), eq(3))).thenReturn(1);
+        when(lendingNumberAllocator.next()).thenReturn(new LendingNumber(2024, 10));
+        when(waitlistService.claimOffer("9782826012092", "2024/1")).thenReturn(true);
+        when(lendingRepository.save(any(LendingEntity.class))).thenAnswer(i -> i.getArgument(0));
+
+        lendingCommandService.createLending(request);
+
+        verify(bookInventoryService, never()).reserve(any());
+    }
+
+    @Test
+    @DisplayName("Should close the reader's waiting entry when lending a free copy")
+    void shouldFulfillWaitingEntryOnDirectLending() {
+        CreateLendingRequest request = new CreateLendingRequest("9782826012092", "2024/1");
+
+        when(readerLendingStateRepository.tryAdmit(eq("2024/1"), any(), any(), eq(3))).thenReturn(1);
+        when(lendingNumberAllocator.next()).thenReturn(new LendingNumber(2024, 10));
+        when(waitlistService.claimOffer("9782826012092", "2024/1")).thenReturn(false);
+        when(lendingRepository.save(any(LendingEntity.class))).thenAnswer(i -> i.getArgument(0));
+
+        lendingCommandService.createLending(request);
+
+        verify(bookInventoryService).reserve("9782826012092");
+        verify(waitlistService).fulfillWaiting(List.of("9782826012092|2024/1"));
+    }
 }
@@ -0,0 +1,77 @@
+package pt.psoft.lending.services;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import pt.psoft.lending.model.command.valueobjects.LendingNumber;
+import pt.psoft.lending.repositories.jpa.LendingRepository;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for LendingNumberAllocator
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("LendingNumberAllocator Tests")
+class LendingNumberAllocatorTest {
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    @Mock
+    private ValueOperations<String, String> valueOperations;
+
+    @Mock
+    private LendingRepository lendingRepository;
+
+    private LendingNumberAllocator allocator;
+
+    @BeforeEach
+    void setUp() {
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        allocator = new LendingNumberAllocator(redisTemplate, lendingRepository, 3, 1000);
+    }
+
+    @Test
+    @DisplayName("Should hand out a whole block from a single INCRBY")
+    void shouldHandOutBlockFromSingleIncrement() {
+        when(redisTemplate.hasKey("lending:sequence:2024")).thenReturn(true);
+        when(valueOperations.increment("lending:sequence:2024", 3)).thenReturn(3L, 6L);
+
+        assertEquals(new LendingNumber(2024, 1), allocator.next(2024));
+        assertEquals(new LendingNumber(2024, 2), allocator.next(2024));
+        assertEquals(new LendingNumber(2024, 3), allocator.next(2024));
+        assertEquals(new LendingNumber(2024, 4), allocator.next(2024));
+
+        verify(valueOperations, times(2)).increment("lending:sequence:2024", 3);
+        verifyNoInteractions(lendingRepository);
+    }
+
+    @Test
+    @DisplayName("Should seed a missing counter above the persisted sequences")
+    void shouldSeedMissingCounterFromDatabase() {
+        when(redisTemplate.hasKey("lending:sequence:2024")).thenReturn(false);
+        when(lendingRepository.findMaxSequenceByYear(2024)).thenReturn(42);
+        when(valueOperations.setIfAbsent("lending:sequence:2024", "1042")).thenReturn(true);
+        when(valueOperations.increment("lending:sequence:2024", 3)).thenReturn(1045L);
+
+        assertEquals(new LendingNumber(2024, 1043), allocator.next(2024));
+    }
+
+    @Test
+    @DisplayName("Should start a fresh year at sequence 1")
+    void shouldStartFreshYearAtOne() {
+        when(redisTemplate.hasKey("lending:sequence:2025")).thenReturn(false);
+        when(lendingRepository.findMaxSequenceByYear(2025)).thenReturn(0);
+        when(valueOperations.setIfAbsent("lending:sequence:2025", "0")).thenReturn(true);
+        when(valueOperations.increment("lending:sequence:2025", 3)).thenReturn(3L);
+
+        assertEquals(new LendingNumber(2025, 1), allocator.next(2025));
+    }
+}
@@ -0,0 +1,65 @@
+package pt.psoft.lending.services;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import pt.psoft.lending.model.command.LendingEntity;
+import pt.psoft.lending.repositories.jpa.LendingStatsRepository;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for LendingStatisticsService
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("LendingStatisticsService Tests")
+class LendingStatisticsServiceTest {
+
+    @Mock
+    private LendingStatsRepository lendingStatsRepository;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private LendingStatisticsService lendingStatisticsService;
+
+    @BeforeEach
+    void setUp() {
+        lendingStatisticsService = new LendingStatisticsService(lendingStatsRepository, jdbcTemplate,
+                transactionManager, 2);
+    }
+
+    @Test
+    @DisplayName("Should record a return as a delta row without touching the shared buckets")
+    void shouldRecordReturnAsDelta() {
+        LendingEntity lending = new LendingEntity("9782826012092", 1L, "2024/1", 1, 14, 50);
+        lending.setReturned(0L, null, 4);
+
+        lendingStatisticsService.recordReturn(lending, "Drama");
+
+        verify(jdbcTemplate).update(startsWith("INSERT INTO lending_stats_deltas"), any(Object[].class));
+        verify(jdbcTemplate, never()).update(contains("INSERT INTO lending_stats ("), any(Object[].class));
+        verifyNoInteractions(lendingStatsRepository);
+    }
+
+    @Test
+    @DisplayName("Should keep folding while batches come back full")
+    void shouldFoldUntilBatchIsNotFull() {
+        when(jdbcTemplate.queryForObject(startsWith("WITH d AS (DELETE FROM lending_stats_deltas"), eq(Integer.class), eq(2)))
+                .thenReturn(2, 1);
+
+        lendingStatisticsService.foldDeltas();
+
+        verify(jdbcTemplate, times(2)).queryForObject(anyString(), eq(Integer.class), eq(2));
+        verify(transactionManager, times(2)).commit(any());
+    }
+}
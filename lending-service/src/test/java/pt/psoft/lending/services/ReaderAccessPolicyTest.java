@@ -0,0 +1,76 @@
+package pt.psoft.lending.services;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import pt.psoft.shared.exceptions.BusinessException;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for ReaderAccessPolicy
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("ReaderAccessPolicy Tests")
+class ReaderAccessPolicyTest {
+
+    @Mock
+    private CatalogReplicaService catalogReplicaService;
+
+    private ReaderAccessPolicy readerAccessPolicy;
+
+    @BeforeEach
+    void setUp() {
+        readerAccessPolicy = new ReaderAccessPolicy(catalogReplicaService);
+    }
+
+    @Test
+    @DisplayName("Should take a reader's own number from the token")
+    void shouldUseOwnReaderNumber() {
+        when(catalogReplicaService.readerNumberOf(7L)).thenReturn(Optional.of("2024/1"));
+
+        assertEquals("2024/1", readerAccessPolicy.actingFor(reader(7L), null));
+    }
+
+    @Test
+    @DisplayName("Should refuse a reader acting for another reader")
+    void shouldRejectOtherReaderNumber() {
+        when(catalogReplicaService.readerIdOf("2024/2")).thenReturn(Optional.of(8L));
+
+        assertThrows(AccessDeniedException.class, () -> readerAccessPolicy.actingFor(reader(7L), "2024/2"));
+        assertThrows(AccessDeniedException.class, () -> readerAccessPolicy.requireReaderOrStaff(reader(7L), "2024/2"));
+    }
+
+    @Test
+    @DisplayName("Should accept a reader naming their own number")
+    void shouldAcceptOwnReaderNumber() {
+        when(catalogReplicaService.readerIdOf("2024/1")).thenReturn(Optional.of(7L));
+
+        assertEquals("2024/1", readerAccessPolicy.actingFor(reader(7L), "2024/1"));
+        assertDoesNotThrow(() -> readerAccessPolicy.requireReaderOrStaff(reader(7L), "2024/1"));
+    }
+
+    @Test
+    @DisplayName("Should let librarians act for any reader, naming them")
+    void shouldLetLibrariansActForAnyReader() {
+        Authentication librarian = new TestingAuthenticationToken("3,librarian@mail.com", null, "ROLE_LIBRARIAN");
+
+        assertEquals("2024/2", readerAccessPolicy.actingFor(librarian, "2024/2"));
+        assertThrows(BusinessException.class, () -> readerAccessPolicy.actingFor(librarian, null));
+        readerAccessPolicy.requireReaderOrStaff(librarian, "2024/2");
+        verifyNoInteractions(catalogReplicaService);
+    }
+
+    private static Authentication reader(long userId) {
+        return new TestingAuthenticationToken(userId + ",reader@mail.com", null, "ROLE_READER");
+    }
+}
@@ -0,0 +1,122 @@
+package pt.psoft.lending.services;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import pt.psoft.lending.messaging.LendingEventPublisher;
+import pt.psoft.lending.model.command.BookInventory;
+import pt.psoft.lending.model.command.WaitlistEntry;
+import pt.psoft.lending.model.command.WaitlistStatus;
+import pt.psoft.lending.repositories.jpa.BookInventoryRepository;
+import pt.psoft.lending.repositories.jpa.WaitlistRepository;
+import pt.psoft.shared.events.lending.WaitlistOfferedEvent;
+import pt.psoft.shared.exceptions.BusinessException;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for WaitlistService
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("WaitlistService Tests")
+class WaitlistServiceTest {
+
+    private static final String ISBN = "9782826012092";
+
+    @Mock
+    private WaitlistRepository waitlistRepository;
+
+    @Mock
+    private BookInventoryRepository bookInventoryRepository;
+
+    @Mock
+    private BookInventoryService bookInventoryService;
+
+    @Mock
+    private LendingEventPublisher lendingEventPublisher;
+
+    private WaitlistService waitlistService;
+
+    @BeforeEach
+    void setUp() {
+        waitlistService = new WaitlistService(waitlistRepository, bookInventoryRepository, bookInventoryService,
+                lendingEventPublisher, 30, 48, 100);
+    }
+
+    @Test
+    @DisplayName("Should hold added copies for waiting readers and put the rest in stock")
+    void shouldOfferAddedCopiesToWaitingReaders() {
+        WaitlistEntry first = new WaitlistEntry(ISBN, "2024/1", LocalDateTime.now().plusDays(30));
+        WaitlistEntry second = new WaitlistEntry(ISBN, "2024/2", LocalDateTime.now().plusDays(30));
+        when(bookInventoryRepository.tryReserve(ISBN)).thenReturn(1);
+        when(waitlistRepository.lockNextWaiting(eq(ISBN), any()))
+                .thenReturn(Optional.of(first), Optional.of(second), Optional.empty());
+        when(bookInventoryService.getInventory(ISBN)).thenReturn(new BookInventory(ISBN, 3, 1));
+
+        BookInventory inventory = waitlistService.setTotalCopies(ISBN, 3);
+
+        assertEquals(1, inventory.getAvailableCopies());
+        verify(bookInventoryService).setTotalCopies(ISBN, 3);
+        assertEquals(WaitlistStatus.OFFERED, first.getStatus());
+        assertEquals(WaitlistStatus.OFFERED, second.getStatus());
+        verify(lendingEventPublisher, times(2)).publishWaitlistOffered(any(WaitlistOfferedEvent.class));
+        // the third copy found nobody waiting
+        verify(bookInventoryRepository, times(3)).tryReserve(ISBN);
+        verify(bookInventoryRepository).release(ISBN);
+    }
+
+    @Test
+    @DisplayName("Should not touch the queue when no copy became available")
+    void shouldNotOfferWithoutFreeCopies() {
+        when(bookInventoryRepository.tryReserve(ISBN)).thenReturn(0);
+        when(bookInventoryService.getInventory(ISBN)).thenReturn(new BookInventory(ISBN, 1, 0));
+
+        waitlistService.setTotalCopies(ISBN, 1);
+
+        verify(waitlistRepository, never()).lockNextWaiting(any(), any());
+        verify(bookInventoryRepository, never()).release(any());
+    }
+
+    @Test
+    @DisplayName("Should close waiting entries only when there are keys")
+    void shouldFulfillWaitingEntries() {
+        waitlistService.fulfillWaiting(List.of());
+        waitlistService.fulfillWaiting(List.of(WaitlistEntry.activeKey(ISBN, "2024/1")));
+
+        verify(waitlistRepository, times(1)).fulfillWaiting(List.of(ISBN + "|2024/1"));
+    }
+
+    @Test
+    @DisplayName("Should pass a cancelled offer's copy back to the inventory when nobody waits")
+    void shouldReleaseCopyOfCancelledOffer() {
+        WaitlistEntry entry = new WaitlistEntry(ISBN, "2024/1", LocalDateTime.now().plusDays(30));
+        entry.offer(LocalDateTime.now().plusHours(48));
+        when(waitlistRepository.findById(1L)).thenReturn(Optional.of(entry));
+        when(waitlistRepository.lockNextWaiting(eq(ISBN), any())).thenReturn(Optional.empty());
+
+        waitlistService.cancel(1L);
+
+        assertEquals(WaitlistStatus.CANCELLED, entry.getStatus());
+        verify(bookInventoryService).release(ISBN);
+    }
+
+    @Test
+    @DisplayName("Should refuse to queue for a book with available copies")
+    void shouldRejectJoinWhenCopiesAvailable() {
+        when(waitlistRepository.findByActiveKey(ISBN + "|2024/1")).thenReturn(Optional.empty());
+        when(bookInventoryRepository.findById(ISBN)).thenReturn(Optional.of(new BookInventory(ISBN, 2, 1)));
+
+        assertThrows(BusinessException.class, () -> waitlistService.join(ISBN, "2024/1"));
+        verify(waitlistRepository, never()).saveAndFlush(any());
+    }
+}
@@ -112,6 +112,8 @@ public class SecurityConfig {
                 .requestMatchers(HttpMethod.POST, "/api/readers/register").permitAll()
 
                 // Reader endpoints
+                // reader numbers are year/sequence, so the lookup spans two path segments
+                .requestMatchers(HttpMethod.GET, "/api/readers/{year}/{sequence}").hasAnyRole(Role.READER, Role.LIBRARIAN)
                 .requestMatchers(HttpMethod.GET, "/api/readers/{readerNumber}").hasAnyRole(Role.READER, Role.LIBRARIAN)
                 .requestMatchers(HttpMethod.PATCH, "/api/readers/{readerNumber}").hasRole(Role.READER)
                 .requestMatchers(HttpMethod.GET, "/api/readers").permitAll()
@@ -0,0 +1,60 @@
+package pt.psoft.reader.messaging;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import pt.psoft.reader.config.RabbitMQConfig;
+import pt.psoft.reader.repositories.OutboxRepository;
+import pt.psoft.shared.messaging.OutboxEvent;
+import pt.psoft.shared.messaging.OutboxStatus;
+
+import java.util.List;
+
+/**
+ * Polls Outbox table and publishes events to RabbitMQ
+ * Routing key: user.{aggregate}.{event}, e.g. user.reader.created
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class OutboxEventPublisher {
+
+    private static final int MAX_RETRY_ATTEMPTS = 3;
+
+    private final OutboxRepository outboxRepository;
+    private final RabbitTemplate rabbitTemplate;
+
+    @Scheduled(fixedDelayString = "${app.outbox.scheduler.fixed-delay:1000}",
+            initialDelayString = "${app.outbox.scheduler.initial-delay:5000}")
+    @Transactional
+    public void publishPendingEvents() {
+        List<OutboxEvent> pendingEvents = outboxRepository.findByStatusOrderByCreatedAtAsc(OutboxStatus.PENDING);
+
+        for (OutboxEvent event : pendingEvents) {
+            try {
+                String routingKey = String.format("user.%s.%s",
+                        event.getAggregateType().toLowerCase(),
+                        event.getEventType().toLowerCase());
+                rabbitTemplate.convertAndSend(RabbitMQConfig.EXCHANGE_NAME, routingKey, event.getPayload());
+                event.markAsPublished();
+                log.info("Successfully published event: {} for aggregate: {}",
+                        event.getEventType(), event.getAggregateId());
+            } catch (Exception e) {
+                event.incrementRetryCount();
+                if (event.getRetryCount() >= MAX_RETRY_ATTEMPTS) {
+                    event.markAsFailed();
+                    log.error("Failed to publish event after {} attempts: {} for aggregate: {}",
+                            MAX_RETRY_ATTEMPTS, event.getEventType(), event.getAggregateId(), e);
+                } else {
+                    log.warn("Failed to publish event (attempt {}/{}): {} for aggregate: {}",
+                            event.getRetryCount(), MAX_RETRY_ATTEMPTS,
+                            event.getEventType(), event.getAggregateId(), e);
+                }
+            }
+            outboxRepository.save(event);
+        }
+    }
+}
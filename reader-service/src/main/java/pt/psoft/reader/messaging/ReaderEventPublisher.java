@@ -0,0 +1,35 @@
+package pt.psoft.reader.messaging;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import pt.psoft.reader.repositories.OutboxRepository;
+import pt.psoft.shared.events.reader.ReaderCreatedEvent;
+import pt.psoft.shared.messaging.OutboxEvent;
+import pt.psoft.shared.utils.JsonUtils;
+
+/**
+ * Publishes Reader domain events to Outbox table
+ * Consumed by lending-service to keep its local reader projection
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ReaderEventPublisher {
+
+    private final OutboxRepository outboxRepository;
+
+    public void publishReaderCreated(ReaderCreatedEvent event) {
+        log.info("Publishing ReaderCreated event for reader: {}", event.getReaderNumber());
+
+        OutboxEvent outboxEvent = new OutboxEvent(
+                "READER",
+                event.getReaderNumber(),
+                "CREATED",
+                JsonUtils.toJson(event)
+        );
+
+        outboxRepository.save(outboxEvent);
+        log.debug("ReaderCreated event saved to outbox: {}", event.getReaderNumber());
+    }
+}
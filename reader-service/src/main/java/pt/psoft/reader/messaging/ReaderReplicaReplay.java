@@ -0,0 +1,91 @@
+package pt.psoft.reader.messaging;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import pt.psoft.reader.model.Reader;
+import pt.psoft.reader.repositories.ReaderRepository;
+import pt.psoft.shared.events.reader.ReaderCreatedEvent;
+
+/**
+ * One-off replay of ReaderCreated for the readers registered before lending-service
+ * kept a reader replica; the event is only emitted on registration, so those
+ * readers would otherwise never reach it.
+ *
+ * Writes the events through the outbox on the first start and records the run in
+ * outbox_replays; one replica does it (advisory lock). lending-service upserts
+ * ReaderCreated, so a replayed reader it already knows is harmless.
+ */
+@Component
+@Slf4j
+public class ReaderReplicaReplay implements ApplicationRunner {
+
+    private static final String REPLAY_NAME = "reader-created";
+    // arbitrary, only has to differ from other advisory locks taken in reader_db
+    private static final long ADVISORY_LOCK_KEY = 40_002L;
+    private static final int PAGE_SIZE = 500;
+
+    private final ReaderRepository readerRepository;
+    private final ReaderEventPublisher readerEventPublisher;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+
+    public ReaderReplicaReplay(ReaderRepository readerRepository,
+                               ReaderEventPublisher readerEventPublisher,
+                               JdbcTemplate jdbcTemplate,
+                               TransactionTemplate transactionTemplate,
+                               @Value("${app.replica-replay.enabled:true}") boolean enabled) {
+        this.readerRepository = readerRepository;
+        this.readerEventPublisher = readerEventPublisher;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.enabled = enabled;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!enabled) {
+            return;
+        }
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS outbox_replays (" +
+                "name VARCHAR(64) PRIMARY KEY, completed_at TIMESTAMP NOT NULL, event_count BIGINT NOT NULL)");
+
+        Long replayed = transactionTemplate.execute(status -> {
+            Boolean locked = jdbcTemplate.queryForObject("SELECT pg_try_advisory_xact_lock(?)",
+                    Boolean.class, ADVISORY_LOCK_KEY);
+            Integer runs = jdbcTemplate.queryForObject(
+                    "SELECT COUNT(*) FROM outbox_replays WHERE name = ?", Integer.class, REPLAY_NAME);
+            if (!Boolean.TRUE.equals(locked) || (runs != null && runs > 0)) {
+                return null;
+            }
+
+            long count = 0;
+            Page<Reader> page = readerRepository.findAll(PageRequest.of(0, PAGE_SIZE, Sort.by("id")));
+            while (true) {
+                for (Reader reader : page.getContent()) {
+                    readerEventPublisher.publishReaderCreated(
+                            new ReaderCreatedEvent(reader.getId(), reader.getReaderNumber(), reader.isEnabled()));
+                    count++;
+                }
+                if (!page.hasNext()) {
+                    break;
+                }
+                page = readerRepository.findAll(page.nextPageable());
+            }
+            jdbcTemplate.update("INSERT INTO outbox_replays (name, completed_at, event_count) VALUES (?, now(), ?)",
+                    REPLAY_NAME, count);
+            return count;
+        });
+        if (replayed != null) {
+            log.info("Replayed ReaderCreated for {} existing readers", replayed);
+        }
+    }
+}
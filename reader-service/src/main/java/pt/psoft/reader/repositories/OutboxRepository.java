@@ -0,0 +1,20 @@
+package pt.psoft.reader.repositories;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+import pt.psoft.shared.messaging.OutboxEvent;
+import pt.psoft.shared.messaging.OutboxStatus;
+
+import java.util.List;
+
+/**
+ * Repository for Outbox Pattern
+ */
+@Repository
+public interface OutboxRepository extends JpaRepository<OutboxEvent, String> {
+
+    /**
+     * Find pending events ordered by creation time
+     */
+    List<OutboxEvent> findByStatusOrderByCreatedAtAsc(OutboxStatus status);
+}
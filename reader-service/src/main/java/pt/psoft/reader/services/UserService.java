@@ -9,12 +9,14 @@ import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import pt.psoft.reader.messaging.ReaderEventPublisher;
 import pt.psoft.reader.model.Librarian;
 import pt.psoft.reader.model.Reader;
 import pt.psoft.reader.model.Role;
 import pt.psoft.reader.model.User;
 import pt.psoft.reader.repositories.ReaderRepository;
 import pt.psoft.reader.repositories.UserRepository;
+import pt.psoft.shared.events.reader.ReaderCreatedEvent;
 import pt.psoft.shared.exceptions.ConflictException;
 
 import java.time.LocalDate;
@@ -30,6 +32,7 @@ public class UserService implements UserDetailsService {
 
     private final UserRepository userRepository;
     private final ReaderRepository readerRepository;
+    private final ReaderEventPublisher readerEventPublisher;
 
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
@@ -53,7 +56,11 @@ public class UserService implements UserDetailsService {
             default -> user = User.newUser(username, password, fullName, role);
         }
 
-        return userRepository.save(user);
+        User savedUser = userRepository.save(user);
+        if (savedUser instanceof Reader reader) {
+            publishReaderCreated(reader);
+        }
+        return savedUser;
     }
 
     @Transactional
@@ -72,7 +79,9 @@ public class UserService implements UserDetailsService {
         Reader reader = Reader.newReader(username, password, fullName, readerNumber,
                 birthDate, phoneNumber, gdprConsent, marketingConsent, thirdPartyConsent);
 
-        return readerRepository.save(reader);
+        Reader savedReader = readerRepository.save(reader);
+        publishReaderCreated(savedReader);
+        return savedReader;
     }
 
     public Optional<User> findByUsername(String username) {
@@ -95,6 +104,11 @@ public class UserService implements UserDetailsService {
                 .orElseThrow(() -> new AccessDeniedException("User not found"));
     }
 
+    private void publishReaderCreated(Reader reader) {
+        readerEventPublisher.publishReaderCreated(
+                new ReaderCreatedEvent(reader.getId(), reader.getReaderNumber(), reader.isEnabled()));
+    }
+
     private String generateReaderNumber() {
         int year = Year.now().getValue();
         String yearPrefix = year + "/";
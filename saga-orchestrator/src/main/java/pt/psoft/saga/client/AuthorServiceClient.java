@@ -6,12 +6,12 @@ import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.*;
 import pt.psoft.shared.dto.author.AuthorDTO;
 import pt.psoft.shared.dto.author.CreateAuthorRequest;
-
-import java.util.List;
+import pt.psoft.shared.web.IdempotencyFilter;
 
 /**
  * Feign Client for Author Service
  * Uses shared-kernel DTOs
+ * Creations carry an Idempotency-Key derived from the saga, so retries do not duplicate
  */
 @FeignClient(
         name = "author-service",
@@ -22,7 +22,8 @@ public interface AuthorServiceClient {
     @PostMapping("/api/authors")
     @CircuitBreaker(name = "authorService", fallbackMethod = "createAuthorFallback")
     @Retry(name = "authorService")
-    AuthorDTO createAuthor(@RequestBody CreateAuthorRequest request);
+    AuthorDTO createAuthor(@RequestHeader(IdempotencyFilter.HEADER) String idempotencyKey,
+                           @RequestBody CreateAuthorRequest request);
 
     @DeleteMapping("/api/authors/{authorNumber}")
     @CircuitBreaker(name = "authorService")
@@ -33,12 +34,12 @@ public interface AuthorServiceClient {
     @CircuitBreaker(name = "authorService")
     AuthorDTO getAuthor(@PathVariable("authorNumber") Long authorNumber);
 
-    @GetMapping("/api/authors")
+    @GetMapping("/api/authors/by-name")
     @CircuitBreaker(name = "authorService")
-    List<AuthorDTO> findByName(@RequestParam(value = "name", required = false) String name);
+    AuthorDTO findByExactName(@RequestParam("name") String name);
 
     // Fallback method
-    default AuthorDTO createAuthorFallback(CreateAuthorRequest request, Exception e) {
+    default AuthorDTO createAuthorFallback(String idempotencyKey, CreateAuthorRequest request, Exception e) {
         throw new RuntimeException("Author Service unavailable: " + e.getMessage(), e);
     }
 }
\ No newline at end of file
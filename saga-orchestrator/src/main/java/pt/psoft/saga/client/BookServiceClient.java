@@ -6,10 +6,12 @@ import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.*;
 import pt.psoft.shared.dto.book.BookDTO;
 import pt.psoft.shared.dto.book.CreateBookRequest;
+import pt.psoft.shared.web.IdempotencyFilter;
 
 /**
  * Feign Client for Book Service
  * Uses shared-kernel DTOs
+ * Creations carry an Idempotency-Key derived from the saga, so retries do not duplicate
  */
 @FeignClient(
         name = "book-command-service",
@@ -20,7 +22,8 @@ public interface BookServiceClient {
     @PostMapping("/api/books")
     @CircuitBreaker(name = "bookService", fallbackMethod = "createBookFallback")
     @Retry(name = "bookService")
-    BookDTO createBook(@RequestBody CreateBookRequest request);
+    BookDTO createBook(@RequestHeader(IdempotencyFilter.HEADER) String idempotencyKey,
+                       @RequestBody CreateBookRequest request);
 
     @DeleteMapping("/api/books/{isbn}")
     @CircuitBreaker(name = "bookService")
@@ -32,7 +35,7 @@ public interface BookServiceClient {
     BookDTO getBook(@PathVariable("isbn") String isbn);
 
     // Fallback method
-    default BookDTO createBookFallback(CreateBookRequest request, Exception e) {
+    default BookDTO createBookFallback(String idempotencyKey, CreateBookRequest request, Exception e) {
         throw new RuntimeException("Book Service unavailable: " + e.getMessage(), e);
     }
 }
\ No newline at end of file
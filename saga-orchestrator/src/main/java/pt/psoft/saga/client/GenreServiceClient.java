@@ -6,10 +6,12 @@ import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.*;
 import pt.psoft.shared.dto.genre.CreateGenreRequest;
 import pt.psoft.shared.dto.genre.GenreDTO;
+import pt.psoft.shared.web.IdempotencyFilter;
 
 /**
  * Feign Client for Genre Service
  * Uses shared-kernel DTOs
+ * Creations carry an Idempotency-Key derived from the saga, so retries do not duplicate
  */
 @FeignClient(
         name = "genre-service",
@@ -20,7 +22,8 @@ public interface GenreServiceClient {
     @PostMapping("/api/genres")
     @CircuitBreaker(name = "genreService", fallbackMethod = "createGenreFallback")
     @Retry(name = "genreService")
-    GenreDTO createGenre(@RequestBody CreateGenreRequest request);
+    GenreDTO createGenre(@RequestHeader(IdempotencyFilter.HEADER) String idempotencyKey,
+                         @RequestBody CreateGenreRequest request);
 
     @DeleteMapping("/api/genres/{id}")
     @CircuitBreaker(name = "genreService")
@@ -36,7 +39,7 @@ public interface GenreServiceClient {
     GenreDTO findByName(@RequestParam("name") String name);
 
     // Fallback method
-    default GenreDTO createGenreFallback(CreateGenreRequest request, Exception e) {
+    default GenreDTO createGenreFallback(String idempotencyKey, CreateGenreRequest request, Exception e) {
         throw new RuntimeException("Genre Service unavailable: " + e.getMessage(), e);
     }
 }
\ No newline at end of file
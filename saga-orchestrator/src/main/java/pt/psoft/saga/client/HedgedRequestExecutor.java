@@ -0,0 +1,187 @@
+package pt.psoft.saga.client;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Hedged execution of idempotent reads, such as the genre and author lookups by name.
+ *
+ * The request is sent once; if it has not answered within the recent latency
+ * percentile of that operation (saga.hedging.percentile), a second identical
+ * request is sent and the first successful answer wins. The pooled client
+ * opens the second on another connection, so a slow replica or a stalled
+ * connection no longer sets the saga's latency. The loser is not cancelled,
+ * it finishes within the read timeout and is discarded.
+ *
+ * Never use this for creations or deletes.
+ */
+@Component
+@Slf4j
+public class HedgedRequestExecutor {
+
+    private final ExecutorService executor;
+    private final MeterRegistry meterRegistry;
+    private final boolean enabled;
+    private final double percentile;
+    private final long minSamples;
+    private final long minDelayNanos;
+    private final long maxDelayNanos;
+    private final Map<String, Hedge> hedges = new ConcurrentHashMap<>();
+
+    public HedgedRequestExecutor(@Qualifier("sagaStepExecutor") ExecutorService executor,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${saga.hedging.enabled:true}") boolean enabled,
+                                 @Value("${saga.hedging.percentile:0.95}") double percentile,
+                                 @Value("${saga.hedging.min-samples:50}") long minSamples,
+                                 @Value("${saga.hedging.min-delay-ms:20}") long minDelayMs,
+                                 @Value("${saga.hedging.max-delay-ms:1000}") long maxDelayMs) {
+        this.executor = executor;
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.percentile = percentile;
+        this.minSamples = minSamples;
+        this.minDelayNanos = TimeUnit.MILLISECONDS.toNanos(minDelayMs);
+        this.maxDelayNanos = TimeUnit.MILLISECONDS.toNanos(maxDelayMs);
+    }
+
+    /**
+     * Run an idempotent read, hedged once it is slower than usual.
+     * Exceptions of the request are rethrown as they are.
+     */
+    public <T> T get(String client, String operation, Supplier<T> request) {
+        Hedge hedge = hedges.computeIfAbsent(client + ":" + operation, key -> new Hedge(client, operation));
+        if (!enabled) {
+            return hedge.timed(request);
+        }
+
+        long delay = hedge.delayNanos();
+        CompletableFuture<T> primary = CompletableFuture.supplyAsync(() -> hedge.timed(request), executor);
+        try {
+            return primary.get(delay, TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            // Slower than the percentile: hedge below
+        } catch (ExecutionException e) {
+            throw unwrap(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted waiting for " + client, e);
+        }
+
+        hedge.sent.increment();
+        log.debug("⏱️ {} {} slower than {} ms, hedging", client, operation, TimeUnit.NANOSECONDS.toMillis(delay));
+        CompletableFuture<T> backup = CompletableFuture.supplyAsync(() -> hedge.timed(request), executor);
+
+        // First success wins; fail only when both failed
+        CompletableFuture<T> winner = new CompletableFuture<>();
+        AtomicInteger failures = new AtomicInteger();
+        primary.whenComplete((value, error) -> complete(winner, value, error, failures));
+        backup.whenComplete((value, error) -> {
+            if (complete(winner, value, error, failures)) {
+                hedge.won.increment();
+            }
+        });
+
+        try {
+            return winner.join();
+        } catch (CompletionException e) {
+            throw unwrap(e.getCause());
+        }
+    }
+
+    private static <T> boolean complete(CompletableFuture<T> winner, T value, Throwable error, AtomicInteger failures) {
+        if (error == null) {
+            return winner.complete(value);
+        }
+        if (failures.incrementAndGet() == 2) {
+            winner.completeExceptionally(error instanceof CompletionException ? error.getCause() : error);
+        }
+        return false;
+    }
+
+    private static RuntimeException unwrap(Throwable error) {
+        if (error instanceof Error fatal) {
+            throw fatal;
+        }
+        return error instanceof RuntimeException runtime ? runtime : new IllegalStateException(error);
+    }
+
+    /**
+     * Latency and hedging meters of one operation of one client
+     */
+    private final class Hedge {
+
+        private final Timer latency;
+        private final Counter sent;
+        private final Counter won;
+        private volatile long delayNanos = maxDelayNanos;
+        private volatile long refreshedAt = System.nanoTime() - TimeUnit.SECONDS.toNanos(1);
+
+        private Hedge(String client, String operation) {
+            this.latency = Timer.builder("saga.client.latency")
+                    .description("Latency of hedged reads, per attempt")
+                    .tags("client", client, "operation", operation)
+                    .publishPercentiles(percentile)
+                    .publishPercentileHistogram()
+                    .distributionStatisticExpiry(Duration.ofMinutes(1))
+                    .register(meterRegistry);
+            this.sent = Counter.builder("saga.client.hedges")
+                    .description("Hedged requests sent")
+                    .tags("client", client, "operation", operation)
+                    .register(meterRegistry);
+            this.won = Counter.builder("saga.client.hedges.won")
+                    .description("Hedged requests that answered first")
+                    .tags("client", client, "operation", operation)
+                    .register(meterRegistry);
+        }
+
+        private <T> T timed(Supplier<T> request) {
+            long started = System.nanoTime();
+            try {
+                return request.get();
+            } finally {
+                latency.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+            }
+        }
+
+        /**
+         * The configured percentile of the last minute, re-read at most once a second;
+         * max-delay until there are enough samples, or after an idle minute
+         */
+        private long delayNanos() {
+            long now = System.nanoTime();
+            if (now - refreshedAt < TimeUnit.SECONDS.toNanos(1)) {
+                return delayNanos;
+            }
+            refreshedAt = now;
+
+            long delay = maxDelayNanos;
+            if (latency.count() >= minSamples) {
+                for (ValueAtPercentile value : latency.takeSnapshot().percentileValues()) {
+                    if (value.value() > 0) {
+                        delay = (long) value.value(TimeUnit.NANOSECONDS);
+                    }
+                }
+            }
+            delayNanos = Math.max(minDelayNanos, Math.min(maxDelayNanos, delay));
+            return delayNanos;
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package pt.psoft.saga.client;
+
+import feign.Response;
+import feign.RetryableException;
+import feign.Retryer;
+import feign.codec.ErrorDecoder;
+import lombok.extern.slf4j.Slf4j;
+import pt.psoft.shared.web.IdempotencyFilter;
+
+/**
+ * Waits out a 409 "still being processed" from an Idempotency-Key replay.
+ *
+ * When a create call times out and resilience4j retries it, the retry reaches
+ * the callee while the first attempt is still running. That 409 is not a
+ * failure: the retry is repeated with backoff until the first attempt's
+ * stored response is replayed, for up to max-wait. Any other error is
+ * propagated to resilience4j as before.
+ */
+@Slf4j
+public class InProgressRetryer implements Retryer {
+
+    private static final int CONFLICT = 409;
+
+    private final long maxWaitMs;
+    private final long initialBackoffMs;
+    private final long maxBackoffMs;
+    private long waitedMs;
+    private long backoffMs;
+
+    public InProgressRetryer(long maxWaitMs, long initialBackoffMs, long maxBackoffMs) {
+        this.maxWaitMs = maxWaitMs;
+        this.initialBackoffMs = initialBackoffMs;
+        this.maxBackoffMs = maxBackoffMs;
+        this.backoffMs = initialBackoffMs;
+    }
+
+    @Override
+    public void continueOrPropagate(RetryableException e) {
+        if (e.status() != CONFLICT || waitedMs >= maxWaitMs) {
+            throw e;
+        }
+        long sleep = Math.min(backoffMs, maxWaitMs - waitedMs);
+        log.debug("Idempotent request still in progress, retrying in {} ms: {}", sleep, e.getMessage());
+        try {
+            Thread.sleep(sleep);
+        } catch (InterruptedException interrupted) {
+            Thread.currentThread().interrupt();
+            throw e;
+        }
+        waitedMs += sleep;
+        backoffMs = Math.min(backoffMs * 2, maxBackoffMs);
+    }
+
+    @Override
+    public Retryer clone() {
+        return new InProgressRetryer(maxWaitMs, initialBackoffMs, maxBackoffMs);
+    }
+
+    /**
+     * Makes the in-progress 409 retryable; every other error is decoded as usual
+     */
+    public static class Decoder implements ErrorDecoder {
+
+        private final ErrorDecoder delegate = new ErrorDecoder.Default();
+
+        @Override
+        public Exception decode(String methodKey, Response response) {
+            if (response.status() == CONFLICT && response.headers().containsKey(IdempotencyFilter.IN_PROGRESS_HEADER)) {
+                return new RetryableException(CONFLICT, methodKey + ": request with this Idempotency-Key still in progress",
+                        response.request().httpMethod(), (Long) null, response.request());
+            }
+            return delegate.decode(methodKey, response);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package pt.psoft.saga.config;
+
+import feign.Retryer;
+import feign.codec.ErrorDecoder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import pt.psoft.saga.client.InProgressRetryer;
+
+/**
+ * Defaults shared by the Feign clients: a create retried while its first
+ * attempt still runs waits for it instead of failing the saga
+ */
+@Configuration
+public class FeignConfig {
+
+    @Bean
+    public ErrorDecoder feignErrorDecoder() {
+        return new InProgressRetryer.Decoder();
+    }
+
+    @Bean
+    public Retryer feignRetryer(@Value("${saga.idempotency.in-progress-max-wait-ms:30000}") long maxWaitMs,
+                                @Value("${saga.idempotency.in-progress-backoff-ms:200}") long backoffMs) {
+        return new InProgressRetryer(maxWaitMs, backoffMs, 2000);
+    }
+}
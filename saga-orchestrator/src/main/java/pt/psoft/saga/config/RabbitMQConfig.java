@@ -0,0 +1,121 @@
+package pt.psoft.saga.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.*;
+import org.springframework.amqp.rabbit.config.RetryInterceptorBuilder;
+import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.amqp.SimpleRabbitListenerContainerFactoryConfigurer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import pt.psoft.shared.messaging.SagaReply;
+
+/**
+ * RabbitMQ Configuration for the Saga Orchestrator
+ */
+@Configuration
+@Slf4j
+public class RabbitMQConfig {
+
+    // Exchange
+    public static final String EXCHANGE_NAME = "lms.events";
+
+    // Replies to saga commands (messaging mode); any replica may handle any saga's reply
+    public static final String REPLY_QUEUE_NAME = "saga-orchestrator.replies";
+    // Replies that could not be applied yet wait here, then dead-letter back to the reply queue
+    public static final String REPLY_DELAY_QUEUE_NAME = "saga-orchestrator.replies.delayed";
+
+    // Routing keys - Consuming (from other services)
+    public static final String ROUTING_KEY_GENRE_ALL = "catalog.genre.*";
+    public static final String ROUTING_KEY_AUTHOR_ALL = "catalog.author.*";
+
+    @Bean
+    public TopicExchange exchange() {
+        return new TopicExchange(EXCHANGE_NAME);
+    }
+
+    /**
+     * Catalog events used to invalidate the lookup cache.
+     * Every replica has its own cache, so each gets its own exclusive,
+     * auto-delete queue instead of sharing a durable one.
+     */
+    @Bean
+    public Queue catalogEventsQueue() {
+        return new AnonymousQueue(new Base64UrlNamingStrategy("saga-orchestrator.catalog-events."));
+    }
+
+    @Bean
+    public Binding bindingGenreEvents(Queue catalogEventsQueue, TopicExchange exchange) {
+        return BindingBuilder.bind(catalogEventsQueue)
+                .to(exchange)
+                .with(ROUTING_KEY_GENRE_ALL);
+    }
+
+    @Bean
+    public Binding bindingAuthorEvents(Queue catalogEventsQueue, TopicExchange exchange) {
+        return BindingBuilder.bind(catalogEventsQueue)
+                .to(exchange)
+                .with(ROUTING_KEY_AUTHOR_ALL);
+    }
+
+    @Bean
+    public Queue sagaRepliesQueue() {
+        return QueueBuilder.durable(REPLY_QUEUE_NAME)
+                .build();
+    }
+
+    @Bean
+    public Binding bindingSagaReplies(Queue sagaRepliesQueue, TopicExchange exchange) {
+        return BindingBuilder.bind(sagaRepliesQueue)
+                .to(exchange)
+                .with(SagaReply.ROUTING_KEY);
+    }
+
+    @Bean
+    public Queue sagaRepliesDelayQueue(@Value("${saga.messaging.reply-retry-delay-ms:1000}") long delayMs) {
+        return QueueBuilder.durable(REPLY_DELAY_QUEUE_NAME)
+                .ttl((int) delayMs)
+                .deadLetterExchange(EXCHANGE_NAME)
+                .deadLetterRoutingKey(SagaReply.ROUTING_KEY)
+                .build();
+    }
+
+    /**
+     * Listener factory of the reply queue. A reply that fails (typically because its
+     * saga is busy with the sibling reply) is retried a few times in place with backoff,
+     * then parked on the delay queue instead of being requeued in a hot loop.
+     */
+    @Bean
+    public SimpleRabbitListenerContainerFactory sagaReplyContainerFactory(
+            SimpleRabbitListenerContainerFactoryConfigurer configurer,
+            ConnectionFactory connectionFactory,
+            RabbitTemplate rabbitTemplate,
+            @Value("${saga.messaging.reply-retry-attempts:3}") int attempts) {
+        SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
+        configurer.configure(factory, connectionFactory);
+        factory.setAdviceChain(RetryInterceptorBuilder.stateless()
+                .maxAttempts(attempts)
+                .backOffOptions(100, 2.0, 1000)
+                .recoverer((message, cause) -> {
+                    log.debug("Delaying saga reply: {}", cause.getMessage());
+                    rabbitTemplate.send("", REPLY_DELAY_QUEUE_NAME, message);
+                })
+                .build());
+        return factory;
+    }
+
+    @Bean
+    public Jackson2JsonMessageConverter messageConverter() {
+        return new Jackson2JsonMessageConverter();
+    }
+
+    @Bean
+    public RabbitTemplate rabbitTemplate(ConnectionFactory connectionFactory) {
+        RabbitTemplate rabbitTemplate = new RabbitTemplate(connectionFactory);
+        rabbitTemplate.setMessageConverter(messageConverter());
+        return rabbitTemplate;
+    }
+}
@@ -0,0 +1,54 @@
+package pt.psoft.saga.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+/**
+ * Executors used by the Saga Orchestrator
+ */
+@Configuration
+public class SagaExecutorConfig {
+
+    /**
+     * Runs the independent steps of a saga concurrently.
+     * Steps only wait on HTTP calls, so each gets its own virtual thread.
+     */
+    @Bean(destroyMethod = "close")
+    public ExecutorService sagaStepExecutor() {
+        return Executors.newVirtualThreadPerTaskExecutor();
+    }
+
+    /**
+     * Renews the lease and deadline of running sagas.
+     * Kept apart from the @Scheduled jobs, so a long recovery run cannot delay a heartbeat.
+     */
+    @Bean(destroyMethod = "shutdownNow")
+    public ScheduledExecutorService sagaHeartbeatScheduler() {
+        return Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("saga-heartbeat").daemon().factory());
+    }
+
+    /**
+     * Runs asynchronously submitted sagas.
+     * Bounded in threads and queue so a burst of submissions is rejected
+     * instead of exhausting the downstream services.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor sagaWorkerExecutor(@Value("${saga.async.pool-size:16}") int poolSize,
+                                                     @Value("${saga.async.queue-capacity:500}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("saga-worker-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        return executor;
+    }
+}
@@ -4,15 +4,23 @@ import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
 import pt.psoft.saga.dto.CreateBookSagaRequest;
 import pt.psoft.saga.dto.CreateBookSagaResponse;
+import pt.psoft.saga.service.AsyncSagaService;
+import pt.psoft.saga.service.SagaCompletionNotifier;
 import pt.psoft.saga.service.SagaOrchestrator;
 
+import java.net.URI;
+import java.util.concurrent.CompletableFuture;
+
 /**
  * Catalog Controller - Orchestrates Book creation with Author and Genre
  *
@@ -21,11 +29,23 @@ import pt.psoft.saga.service.SagaOrchestrator;
 @Tag(name = "Catalog", description = "Endpoints for managing the catalog (Books, Authors, Genres)")
 @RestController
 @RequestMapping("/api/catalog")
-@RequiredArgsConstructor
 @Slf4j
 public class CatalogController {
 
     private final SagaOrchestrator sagaOrchestrator;
+    private final AsyncSagaService asyncSagaService;
+    private final SagaCompletionNotifier sagaCompletionNotifier;
+    private final int maxWaitSeconds;
+
+    public CatalogController(SagaOrchestrator sagaOrchestrator,
+                             AsyncSagaService asyncSagaService,
+                             SagaCompletionNotifier sagaCompletionNotifier,
+                             @Value("${saga.async.max-wait-seconds:30}") int maxWaitSeconds) {
+        this.sagaOrchestrator = sagaOrchestrator;
+        this.asyncSagaService = asyncSagaService;
+        this.sagaCompletionNotifier = sagaCompletionNotifier;
+        this.maxWaitSeconds = maxWaitSeconds;
+    }
 
     /**
      * Create a Book with Author and Genre (Saga Orchestration)
@@ -69,19 +89,84 @@ public class CatalogController {
         }
     }
 
+    /**
+     * Create a Book with Author and Genre asynchronously
+     *
+     * The saga is persisted and queued, and its id returned at once (202).
+     * Progress and outcome are read from GET /api/catalog/sagas/{sagaId}.
+     */
+    @Operation(
+            summary = "Create Book with Author and Genre asynchronously",
+            description = "Starts the book creation saga in the background and returns its id. " +
+                    "Poll the saga status endpoint (optionally with waitSeconds) for the outcome."
+    )
+    @PostMapping("/books/async")
+    public ResponseEntity<CreateBookSagaResponse> createBookAsync(
+            @Valid @RequestBody CreateBookSagaRequest request) {
+
+        log.info("📚 Received async request to create book: {}", request.getBook().getTitle());
+
+        try {
+            CreateBookSagaResponse response = asyncSagaService.submit(request);
+
+            return ResponseEntity
+                    .accepted()
+                    .location(URI.create("/api/catalog/sagas/" + response.getSagaId()))
+                    .body(response);
+
+        } catch (TaskRejectedException e) {
+            return ResponseEntity
+                    .status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .body(CreateBookSagaResponse.builder()
+                            .errorMessage("Saga orchestrator is at capacity, retry later")
+                            .build());
+        }
+    }
+
     /**
      * Get Saga status
+     *
+     * With waitSeconds > 0 the request long-polls: it is answered as soon as the
+     * saga finishes, or with the current state when the wait runs out. The
+     * request thread is released while waiting.
      */
     @Operation(
             summary = "Get Saga status",
-            description = "Retrieve the current status and details of a saga execution"
+            description = "Retrieve the current status and details of a saga execution. " +
+                    "With waitSeconds, waits (up to saga.async.max-wait-seconds) for the saga to finish."
     )
     @GetMapping("/sagas/{sagaId}")
-    public ResponseEntity<CreateBookSagaResponse> getSagaStatus(
-            @PathVariable @Parameter(description = "Saga ID") String sagaId) {
+    public DeferredResult<ResponseEntity<CreateBookSagaResponse>> getSagaStatus(
+            @PathVariable @Parameter(description = "Saga ID") String sagaId,
+            @RequestParam(defaultValue = "0") @Parameter(description = "Seconds to wait for the saga to finish")
+            int waitSeconds) {
 
         log.info("🔍 Getting status for Saga: {}", sagaId);
 
+        int wait = Math.min(waitSeconds, maxWaitSeconds);
+        if (wait <= 0) {
+            DeferredResult<ResponseEntity<CreateBookSagaResponse>> result = new DeferredResult<>();
+            result.setResult(sagaStatus(sagaId));
+            return result;
+        }
+
+        DeferredResult<ResponseEntity<CreateBookSagaResponse>> result = new DeferredResult<>(wait * 1000L);
+        CompletableFuture<Void> finished = sagaCompletionNotifier.register(sagaId);
+        result.onTimeout(() -> result.setResult(sagaStatus(sagaId)));
+        result.onCompletion(() -> sagaCompletionNotifier.unregister(sagaId, finished));
+
+        ResponseEntity<CreateBookSagaResponse> current = sagaStatus(sagaId);
+        CreateBookSagaResponse body = current.getBody();
+        if (!current.getStatusCode().is2xxSuccessful() || body == null || body.getState().isTerminal()) {
+            result.setResult(current);
+        } else {
+            finished.thenRun(() -> result.setResult(sagaStatus(sagaId)));
+        }
+        return result;
+    }
+
+    private ResponseEntity<CreateBookSagaResponse> sagaStatus(String sagaId) {
         try {
             CreateBookSagaResponse response = sagaOrchestrator.getSagaStatus(sagaId);
             return ResponseEntity.ok(response);
@@ -96,4 +181,4 @@ public class CatalogController {
                             .build());
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,106 @@
+package pt.psoft.saga.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import pt.psoft.saga.dto.CatalogImportResponse;
+import pt.psoft.saga.model.ImportSagaInstance;
+import pt.psoft.saga.service.CatalogImportParser;
+import pt.psoft.saga.service.CatalogImportService;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+
+/**
+ * Catalog Import Controller - Bulk creation of Books with their Authors and Genres
+ */
+@Tag(name = "Catalog", description = "Endpoints for managing the catalog (Books, Authors, Genres)")
+@RestController
+@RequestMapping("/api/catalog/imports")
+@RequiredArgsConstructor
+@Slf4j
+public class CatalogImportController {
+
+    private final CatalogImportService catalogImportService;
+
+    /**
+     * Import books from a CSV or NDJSON upload
+     *
+     * The upload is parsed and the import queued; progress and per-row outcome
+     * are read from GET /api/catalog/imports/{importId}.
+     */
+    @Operation(
+            summary = "Bulk import Books with Authors and Genres",
+            description = "Accepts text/csv (header: title,description,genre,author,authorBio,authorPhotoURI,photoURI) " +
+                    "or application/x-ndjson (one book saga request per line). Each distinct genre and author is " +
+                    "resolved once; rows succeed or fail individually."
+    )
+    @PostMapping(consumes = {CatalogImportParser.CSV, CatalogImportParser.NDJSON})
+    public ResponseEntity<CatalogImportResponse> importBooks(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+            InputStream body) {
+
+        MediaType mediaType = MediaType.parseMediaType(contentType);
+        String format = mediaType.getType() + "/" + mediaType.getSubtype();
+        log.info("📚 Received catalog import ({})", format);
+
+        try {
+            ImportSagaInstance saga = catalogImportService.startImport(body, format);
+
+            return ResponseEntity
+                    .accepted()
+                    .location(URI.create("/api/catalog/imports/" + saga.getImportId()))
+                    .body(CatalogImportResponse.from(saga, false));
+
+        } catch (IllegalArgumentException | IOException e) {
+            log.warn("⚠️ Rejected catalog import: {}", e.getMessage());
+
+            return ResponseEntity
+                    .badRequest()
+                    .body(CatalogImportResponse.builder()
+                            .errorMessage(e.getMessage())
+                            .build());
+
+        } catch (TaskRejectedException e) {
+            return ResponseEntity
+                    .status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "5")
+                    .body(CatalogImportResponse.builder()
+                            .errorMessage("Saga orchestrator is at capacity, retry later")
+                            .build());
+        }
+    }
+
+    /**
+     * Get Import status
+     */
+    @Operation(
+            summary = "Get Import status",
+            description = "Counters, state and row errors of a bulk import; includeRows adds the status of every row"
+    )
+    @GetMapping("/{importId}")
+    public ResponseEntity<CatalogImportResponse> getImport(
+            @PathVariable @Parameter(description = "Import ID") String importId,
+            @RequestParam(defaultValue = "false") boolean includeRows) {
+
+        try {
+            return ResponseEntity.ok(CatalogImportResponse.from(catalogImportService.getImport(importId), includeRows));
+
+        } catch (Exception e) {
+            return ResponseEntity
+                    .status(HttpStatus.NOT_FOUND)
+                    .body(CatalogImportResponse.builder()
+                            .errorMessage("Import not found: " + importId)
+                            .build());
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package pt.psoft.saga.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import pt.psoft.saga.model.ImportSagaInstance;
+import pt.psoft.saga.model.SagaState;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * Response DTO for a bulk catalog import
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@Schema(description = "Progress and outcome of a bulk catalog import")
+public class CatalogImportResponse {
+
+    @Schema(description = "Import ID")
+    private String importId;
+
+    @Schema(description = "Import state")
+    private SagaState state;
+
+    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime startedAt;
+
+    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime completedAt;
+
+    private int totalRows;
+    private int created;
+    private int failed;
+    private int invalid;
+
+    @Schema(description = "Distinct genres/authors created by the import")
+    private int genresCreated;
+    private int authorsCreated;
+
+    @Schema(description = "Created genres/authors deleted again because no book used them")
+    private int genresCompensated;
+    private int authorsCompensated;
+
+    @Schema(description = "One character per row: '.' pending, 'C' created, 'F' failed, 'I' invalid")
+    private String rowStatus;
+
+    @Schema(description = "Error message per failed or invalid row number")
+    private Map<Integer, String> rowErrors;
+
+    private String errorMessage;
+
+    public static CatalogImportResponse from(ImportSagaInstance saga, boolean includeRows) {
+        return CatalogImportResponse.builder()
+                .importId(saga.getImportId())
+                .state(saga.getState())
+                .startedAt(saga.getStartedAt())
+                .completedAt(saga.getCompletedAt())
+                .totalRows(saga.getTotalRows())
+                .created(saga.getCreated())
+                .failed(saga.getFailed())
+                .invalid(saga.getInvalid())
+                .genresCreated(saga.getGenresCreated())
+                .authorsCreated(saga.getAuthorsCreated())
+                .genresCompensated(saga.getGenresCompensated())
+                .authorsCompensated(saga.getAuthorsCompensated())
+                .rowStatus(includeRows ? saga.getRowStatus() : null)
+                .rowErrors(saga.getRowErrors())
+                .errorMessage(saga.getErrorMessage())
+                .build();
+    }
+}
@@ -0,0 +1,52 @@
+package pt.psoft.saga.messaging;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.stereotype.Component;
+import pt.psoft.saga.service.CatalogLookupCache;
+import pt.psoft.shared.events.author.AuthorDeletedEvent;
+import pt.psoft.shared.events.author.AuthorUpdatedEvent;
+import pt.psoft.shared.events.genre.GenreDeletedEvent;
+import pt.psoft.shared.events.genre.GenreUpdatedEvent;
+
+/**
+ * Consumes genre and author events to keep the lookup cache from serving
+ * deleted or renamed entities
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class CatalogEventConsumer {
+
+    private final CatalogLookupCache lookupCache;
+    private final ObjectMapper objectMapper;
+
+    @RabbitListener(queues = "#{catalogEventsQueue.name}")
+    public void handleEvent(String message) {
+        log.debug("Received message from RabbitMQ: {}", message);
+
+        try {
+            var jsonNode = objectMapper.readTree(message);
+            String eventType = jsonNode.get("@type").asText();
+
+            switch (eventType) {
+                case "GenreDeleted" -> lookupCache.evictGenre(
+                        objectMapper.readValue(message, GenreDeletedEvent.class).getGenreId());
+                case "GenreUpdated" -> lookupCache.evictGenre(
+                        objectMapper.readValue(message, GenreUpdatedEvent.class).getGenreId());
+                case "AuthorDeleted" -> lookupCache.evictAuthor(
+                        objectMapper.readValue(message, AuthorDeletedEvent.class).getAuthorNumber());
+                case "AuthorUpdated" -> lookupCache.evictAuthor(
+                        objectMapper.readValue(message, AuthorUpdatedEvent.class).getAuthorNumber());
+                default -> log.debug("Ignoring event type: {}", eventType);
+            }
+
+        } catch (Exception e) {
+            // Not worth a redelivery loop: forgetting everything is always safe
+            log.error("Failed to process message, clearing the lookup cache: {}", message, e);
+            lookupCache.clear();
+        }
+    }
+}
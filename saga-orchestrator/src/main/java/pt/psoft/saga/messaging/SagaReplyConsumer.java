@@ -0,0 +1,70 @@
+package pt.psoft.saga.messaging;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.handler.annotation.Header;
+import org.springframework.stereotype.Component;
+import pt.psoft.saga.config.RabbitMQConfig;
+import pt.psoft.saga.service.MessagingSagaOrchestrator;
+import pt.psoft.shared.messaging.SagaReply;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Feeds replies to saga commands (messaging mode) to the orchestrator.
+ * Failed replies go round the delay queue (see RabbitMQConfig) up to
+ * max-delayed-retries times; after that they are dropped, and the step's
+ * resend gets the stored reply back from the owning service.
+ */
+@Component
+@Slf4j
+public class SagaReplyConsumer {
+
+    private final MessagingSagaOrchestrator messagingSagaOrchestrator;
+    private final ObjectMapper objectMapper;
+    private final long maxDelayedRetries;
+
+    public SagaReplyConsumer(MessagingSagaOrchestrator messagingSagaOrchestrator,
+                             ObjectMapper objectMapper,
+                             @Value("${saga.messaging.reply-max-delayed-retries:120}") long maxDelayedRetries) {
+        this.messagingSagaOrchestrator = messagingSagaOrchestrator;
+        this.objectMapper = objectMapper;
+        this.maxDelayedRetries = maxDelayedRetries;
+    }
+
+    @RabbitListener(queues = RabbitMQConfig.REPLY_QUEUE_NAME, containerFactory = "sagaReplyContainerFactory")
+    public void handleReply(String message,
+                            @Header(name = "x-death", required = false) List<Map<String, ?>> deaths) {
+        long delayed = delayedRetries(deaths);
+        if (delayed > maxDelayedRetries) {
+            log.error("Dropping saga reply after {} delayed retries: {}", delayed, message);
+            return;
+        }
+
+        SagaReply reply;
+        try {
+            reply = objectMapper.readValue(message, SagaReply.class);
+        } catch (JsonProcessingException e) {
+            log.error("Dropping unreadable saga reply: {}", message, e);
+            return;
+        }
+
+        messagingSagaOrchestrator.onReply(reply);
+    }
+
+    private static long delayedRetries(List<Map<String, ?>> deaths) {
+        if (deaths == null) {
+            return 0;
+        }
+        return deaths.stream()
+                .filter(death -> RabbitMQConfig.REPLY_DELAY_QUEUE_NAME.equals(death.get("queue")))
+                .map(death -> death.get("count"))
+                .filter(Number.class::isInstance)
+                .mapToLong(count -> ((Number) count).longValue())
+                .sum();
+    }
+}
@@ -0,0 +1,31 @@
+package pt.psoft.saga.metrics;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import pt.psoft.saga.repository.SagaStore;
+
+/**
+ * Refreshes the saga.in-flight gauge from the in-flight index.
+ * The index is shared, so every replica reports the same cluster-wide counts.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class SagaInFlightMonitor {
+
+    private final SagaStore sagaStore;
+    private final SagaMetrics sagaMetrics;
+
+    @Scheduled(fixedDelayString = "${saga.metrics.in-flight-interval-ms:15000}")
+    public void refresh() {
+        try {
+            sagaMetrics.updateInFlight(sagaStore.countInFlightByState());
+        } catch (DataAccessException e) {
+            // Keep the last counts until Redis is back
+            log.warn("Could not count in-flight sagas: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package pt.psoft.saga.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+import pt.psoft.saga.model.SagaState;
+import pt.psoft.saga.model.SagaStep;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Micrometer meters of the sagas, published on /actuator/prometheus:
+ * - saga.step.duration: timer (with histogram) per step, tagged step, service and outcome
+ * - saga.compensations / saga.compensation.failures: counters, tagged by saga type (book, import)
+ * - saga.in-flight: gauge of unfinished book sagas per state, refreshed by SagaInFlightMonitor
+ */
+@Component
+public class SagaMetrics {
+
+    public static final String BOOK = "book";
+    public static final String IMPORT = "import";
+
+    private final MeterRegistry meterRegistry;
+    private final Map<SagaState, AtomicLong> inFlight = new EnumMap<>(SagaState.class);
+
+    public SagaMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        for (SagaState state : SagaState.values()) {
+            if (!state.isTerminal()) {
+                AtomicLong count = new AtomicLong();
+                inFlight.put(state, count);
+                Gauge.builder("saga.in-flight", count, AtomicLong::get)
+                        .description("Unfinished sagas per state")
+                        .tag("state", state.name())
+                        .register(meterRegistry);
+            }
+        }
+    }
+
+    /**
+     * Record the duration of a finished step; steps without one (not run) are skipped
+     */
+    public void recordStep(SagaStep step) {
+        if (step.getDurationMs() == null) {
+            return;
+        }
+        Timer.builder("saga.step.duration")
+                .description("Duration of saga steps")
+                .tags("step", step.getStepName(),
+                        "service", step.getService(),
+                        "outcome", step.isSuccess() ? "success" : "failure")
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(step.getDurationMs(), TimeUnit.MILLISECONDS);
+    }
+
+    public void compensationStarted(String sagaType) {
+        Counter.builder("saga.compensations")
+                .description("Compensations started")
+                .tag("type", sagaType)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    public void compensationFailed(String sagaType) {
+        Counter.builder("saga.compensation.failures")
+                .description("Compensations that could not undo every step")
+                .tag("type", sagaType)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    /**
+     * Replace the in-flight counts; states missing from the map count zero
+     */
+    public void updateInFlight(Map<SagaState, Long> counts) {
+        inFlight.forEach((state, count) -> count.set(counts.getOrDefault(state, 0L)));
+    }
+}
@@ -0,0 +1,90 @@
+package pt.psoft.saga.model;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.redis.core.RedisHash;
+import org.springframework.data.redis.core.TimeToLive;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Import Saga Instance - One bulk catalog import
+ *
+ * Kept compact for imports of 100k rows: one status character per row
+ * instead of a step history, plus the messages of (a bounded number of)
+ * failed rows. Stored in Redis with TTL of 1 day.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@RedisHash("import-saga")
+public class ImportSagaInstance implements Serializable {
+
+    public static final char ROW_PENDING = '.';
+    public static final char ROW_CREATED = 'C';
+    public static final char ROW_FAILED = 'F';
+    public static final char ROW_INVALID = 'I';
+
+    @Id
+    private String importId;
+
+    private SagaState state;
+
+    private String format;
+
+    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime startedAt;
+
+    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime completedAt;
+
+    // Row counters
+    private int totalRows;
+    private int created;
+    private int failed;
+    private int invalid;
+
+    // Distinct genres/authors the import created, and how many were deleted again
+    private int genresCreated;
+    private int authorsCreated;
+    private int genresCompensated;
+    private int authorsCompensated;
+
+    // Status of row i (1-based) at index i - 1, one of the ROW_* codes
+    private String rowStatus;
+
+    // Error message per failed or invalid row number
+    @Builder.Default
+    private Map<Integer, String> rowErrors = new HashMap<>();
+
+    private String errorMessage;
+
+    // TTL: 1 day (in seconds)
+    @TimeToLive
+    @Builder.Default
+    private Long ttl = 86400L;
+
+    /**
+     * Create new Import Saga instance
+     */
+    public static ImportSagaInstance create(String format, int totalRows) {
+        return ImportSagaInstance.builder()
+                .importId(UUID.randomUUID().toString())
+                .state(SagaState.STARTED)
+                .format(format)
+                .startedAt(LocalDateTime.now())
+                .totalRows(totalRows)
+                .rowStatus(String.valueOf(ROW_PENDING).repeat(totalRows))
+                .rowErrors(new HashMap<>())
+                .build();
+    }
+}
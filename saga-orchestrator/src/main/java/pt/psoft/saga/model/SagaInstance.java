@@ -1,32 +1,33 @@
 package pt.psoft.saga.model;
 
 import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
-import org.springframework.data.annotation.Id;
-import org.springframework.data.redis.core.RedisHash;
-import org.springframework.data.redis.core.TimeToLive;
+import lombok.ToString;
 
 import java.io.Serializable;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 
 /**
  * Saga Instance - Represents a distributed transaction
- * Stored in Redis with TTL of 1 hour
+ * Stored in Redis by SagaStore with TTL of 1 hour
  */
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
-@RedisHash("saga")
 public class SagaInstance implements Serializable {
 
-    @Id
     private String sagaId;
 
     private SagaState state;
@@ -45,11 +46,20 @@ public class SagaInstance implements Serializable {
     private Long authorNumber;
     private Long bookId;
 
+    // Whether the saga created the genre/author itself; found ones are never compensated
+    private boolean genreCreated;
+    private boolean authorCreated;
+
     // Response data
     private String genreResponse;
     private String authorResponse;
     private String bookResponse;
 
+    // Messaging mode: steps run as commands over RabbitMQ; correlation ids of the awaited replies
+    private boolean messaging;
+    @Builder.Default
+    private Set<String> pendingCommands = new HashSet<>();
+
     // Error tracking
     private String errorMessage;
     private Integer retryCount;
@@ -58,9 +68,16 @@ public class SagaInstance implements Serializable {
     @Builder.Default
     private List<SagaStep> steps = new ArrayList<>();
 
-    // TTL: 1 hour (in seconds)
-    @TimeToLive
-    private Long ttl = 3600L;
+    // What SagaStore last wrote, so a save only sends what changed (not stored)
+    @JsonIgnore
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private transient Map<String, String> persistedFields;
+
+    @JsonIgnore
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private transient int persistedSteps;
 
     /**
      * Create new Saga instance
@@ -73,6 +90,7 @@ public class SagaInstance implements Serializable {
                 .requestPayload(requestPayload)
                 .retryCount(0)
                 .steps(new ArrayList<>())
+                .pendingCommands(new HashSet<>())
                 .build();
     }
 
@@ -7,6 +7,10 @@ public enum SagaState {
     // Initial state
     STARTED,
 
+    // Genre and author resolution (run concurrently)
+    RESOLVING_GENRE_AND_AUTHOR,
+    GENRE_AND_AUTHOR_RESOLVED,
+
     // Genre creation
     CREATING_GENRE,
     GENRE_CREATED,
@@ -29,5 +33,13 @@ public enum SagaState {
     // Compensation states
     COMPENSATING,
     COMPENSATED,
-    COMPENSATION_FAILED
+    COMPENSATION_FAILED;
+
+    /**
+     * Whether the saga has finished: it will not change state any more
+     */
+    public boolean isTerminal() {
+        return this == COMPLETED || this == COMPENSATED || this == COMPENSATION_FAILED
+                || this == FAILED;
+    }
 }
\ No newline at end of file
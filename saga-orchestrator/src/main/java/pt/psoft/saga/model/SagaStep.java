@@ -29,6 +29,9 @@ public class SagaStep implements Serializable {
     private String response;
     private String errorMessage;
 
+    // Wall-clock time the step took, in milliseconds
+    private Long durationMs;
+
     /**
      * Create successful step
      */
@@ -56,4 +59,12 @@ public class SagaStep implements Serializable {
                 .errorMessage(errorMessage)
                 .build();
     }
-}
\ No newline at end of file
+
+    /**
+     * Record how long the step took, measured from a System.nanoTime() value
+     */
+    public SagaStep took(long startedNanos) {
+        this.durationMs = (System.nanoTime() - startedNanos) / 1_000_000;
+        return this;
+    }
+}
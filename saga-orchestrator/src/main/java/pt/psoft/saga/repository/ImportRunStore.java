@@ -0,0 +1,130 @@
+package pt.psoft.saga.repository;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Repository;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Redis bookkeeping of running bulk imports, next to their ImportSagaInstance.
+ *
+ * Like SagaStore for book sagas:
+ * - "import-saga:in-flight" is a sorted set of unfinished imports scored by
+ *   their deadline; a run pushes it forward with heartbeat(), so abandoned
+ *   imports are a range query
+ * - "import-saga:{id}:lease" is held by the replica running the import
+ * - "import-saga:{id}:created" records every genre and author the import
+ *   created as soon as it is created, so a resumed run can still compensate
+ *   them after the first run died
+ */
+@Repository
+@Slf4j
+public class ImportRunStore {
+
+    public static final String KEY_PREFIX = "import-saga:";
+    public static final String IN_FLIGHT_KEY = KEY_PREFIX + "in-flight";
+    private static final String LEASE_SUFFIX = ":lease";
+    private static final String CREATED_SUFFIX = ":created";
+
+    private static final RedisScript<Long> HEARTBEAT_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('GET', KEYS[1]) ~= ARGV[1] then return 0 end " +
+            "redis.call('PEXPIRE', KEYS[1], ARGV[2]) " +
+            "redis.call('ZADD', KEYS[2], 'XX', ARGV[3], ARGV[4]) " +
+            "return 1", Long.class);
+
+    private static final RedisScript<Long> RELEASE_LEASE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('GET', KEYS[1]) == ARGV[1] then return redis.call('DEL', KEYS[1]) end " +
+            "return 0", Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final long timeoutMs;
+    private final Duration ttl;
+
+    public ImportRunStore(StringRedisTemplate redisTemplate,
+                          @Value("${saga.timeout:60000}") long timeoutMs,
+                          @Value("${saga.import.ttl-seconds:86400}") long ttlSeconds) {
+        this.redisTemplate = redisTemplate;
+        this.timeoutMs = timeoutMs;
+        this.ttl = Duration.ofSeconds(ttlSeconds);
+    }
+
+    /**
+     * Put an import in the in-flight index with a deadline of now + saga.timeout
+     */
+    public void track(String importId) {
+        redisTemplate.opsForZSet().add(IN_FLIGHT_KEY, importId, System.currentTimeMillis() + timeoutMs);
+    }
+
+    /**
+     * Remove a finished import from the in-flight index
+     */
+    public void finished(String importId) {
+        redisTemplate.opsForZSet().remove(IN_FLIGHT_KEY, importId);
+    }
+
+    /**
+     * Ids of in-flight imports whose deadline has passed, oldest first
+     */
+    public List<String> findAbandoned(long now, int limit) {
+        Set<String> ids = redisTemplate.opsForZSet().rangeByScore(IN_FLIGHT_KEY, 0, now, 0, limit);
+        return ids != null ? new ArrayList<>(ids) : List.of();
+    }
+
+    /**
+     * Take the run lease of an import; false when another owner holds it
+     */
+    public boolean acquireLease(String importId, String owner, Duration leaseDuration) {
+        return Boolean.TRUE.equals(redisTemplate.opsForValue()
+                .setIfAbsent(KEY_PREFIX + importId + LEASE_SUFFIX, owner, leaseDuration));
+    }
+
+    /**
+     * Renew a held lease and push the import's deadline to now + saga.timeout;
+     * false when the lease is no longer held by the owner
+     */
+    public boolean heartbeat(String importId, String owner, Duration leaseDuration) {
+        Long renewed = redisTemplate.execute(HEARTBEAT_SCRIPT,
+                List.of(KEY_PREFIX + importId + LEASE_SUFFIX, IN_FLIGHT_KEY),
+                owner, String.valueOf(leaseDuration.toMillis()),
+                String.valueOf(System.currentTimeMillis() + timeoutMs), importId);
+        return renewed != null && renewed == 1L;
+    }
+
+    public void releaseLease(String importId, String owner) {
+        redisTemplate.execute(RELEASE_LEASE_SCRIPT, List.of(KEY_PREFIX + importId + LEASE_SUFFIX), owner);
+    }
+
+    /**
+     * Record an entity the import created ("genre:{nameKey}" -> id)
+     */
+    public void markCreated(String importId, String entity, long id) {
+        String key = KEY_PREFIX + importId + CREATED_SUFFIX;
+        try {
+            redisTemplate.opsForHash().put(key, entity, String.valueOf(id));
+            redisTemplate.expire(key, ttl);
+        } catch (DataAccessException e) {
+            // The run still compensates it from memory; only a crash before then leaks it
+            log.warn("Could not record created {} of Import {}: {}", entity, importId, e.getMessage());
+        }
+    }
+
+    /**
+     * Entities recorded with markCreated, by entity key
+     */
+    public Map<String, Long> findCreated(String importId) {
+        Map<Object, Object> entries = redisTemplate.opsForHash().entries(KEY_PREFIX + importId + CREATED_SUFFIX);
+        Map<String, Long> created = new HashMap<>();
+        entries.forEach((entity, id) -> created.put(entity.toString(), Long.parseLong(id.toString())));
+        return created;
+    }
+}
@@ -0,0 +1,12 @@
+package pt.psoft.saga.repository;
+
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.stereotype.Repository;
+import pt.psoft.saga.model.ImportSagaInstance;
+
+/**
+ * Repository for bulk import sagas in Redis
+ */
+@Repository
+public interface ImportSagaRepository extends CrudRepository<ImportSagaInstance, String> {
+}
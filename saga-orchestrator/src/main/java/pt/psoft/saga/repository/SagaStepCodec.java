@@ -0,0 +1,108 @@
+package pt.psoft.saga.repository;
+
+import pt.psoft.saga.model.SagaStep;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Compact binary encoding of a SagaStep, one entry of the saga's step list.
+ *
+ * Layout: version, flags (success and which optional fields follow),
+ * stepName, service, action, then the optional executedAt (epoch millis),
+ * durationMs, response and errorMessage.
+ */
+public final class SagaStepCodec {
+
+    private static final byte VERSION = 1;
+
+    private static final int SUCCESS = 1;
+    private static final int HAS_EXECUTED_AT = 1 << 1;
+    private static final int HAS_DURATION = 1 << 2;
+    private static final int HAS_RESPONSE = 1 << 3;
+    private static final int HAS_ERROR = 1 << 4;
+
+    private SagaStepCodec() {
+    }
+
+    public static byte[] encode(SagaStep step) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            int flags = (step.isSuccess() ? SUCCESS : 0)
+                    | (step.getExecutedAt() != null ? HAS_EXECUTED_AT : 0)
+                    | (step.getDurationMs() != null ? HAS_DURATION : 0)
+                    | (step.getResponse() != null ? HAS_RESPONSE : 0)
+                    | (step.getErrorMessage() != null ? HAS_ERROR : 0);
+            out.writeByte(VERSION);
+            out.writeByte(flags);
+            writeString(out, step.getStepName());
+            writeString(out, step.getService());
+            writeString(out, step.getAction());
+            if (step.getExecutedAt() != null) {
+                out.writeLong(step.getExecutedAt().toInstant(ZoneOffset.UTC).toEpochMilli());
+            }
+            if (step.getDurationMs() != null) {
+                out.writeLong(step.getDurationMs());
+            }
+            if (step.getResponse() != null) {
+                writeString(out, step.getResponse());
+            }
+            if (step.getErrorMessage() != null) {
+                writeString(out, step.getErrorMessage());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    public static SagaStep decode(byte[] encoded) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(encoded))) {
+            byte version = in.readByte();
+            if (version != VERSION) {
+                throw new IllegalArgumentException("Unknown saga step encoding version: " + version);
+            }
+            int flags = in.readByte();
+            SagaStep.SagaStepBuilder step = SagaStep.builder()
+                    .success((flags & SUCCESS) != 0)
+                    .stepName(readString(in))
+                    .service(readString(in))
+                    .action(readString(in));
+            if ((flags & HAS_EXECUTED_AT) != 0) {
+                step.executedAt(LocalDateTime.ofInstant(Instant.ofEpochMilli(in.readLong()), ZoneOffset.UTC));
+            }
+            if ((flags & HAS_DURATION) != 0) {
+                step.durationMs(in.readLong());
+            }
+            if ((flags & HAS_RESPONSE) != 0) {
+                step.response(readString(in));
+            }
+            if ((flags & HAS_ERROR) != 0) {
+                step.errorMessage(readString(in));
+            }
+            return step.build();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = (value != null ? value : "").getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,398 @@
+package pt.psoft.saga.repository;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.stereotype.Repository;
+import pt.psoft.saga.metrics.SagaMetrics;
+import pt.psoft.saga.model.SagaInstance;
+import pt.psoft.saga.model.SagaState;
+import pt.psoft.saga.model.SagaStep;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Function;
+
+/**
+ * Redis persistence of saga instances.
+ *
+ * A saga is kept as a hash ("saga-state:{id}") of its scalar fields plus a
+ * list ("saga-state:{id}:steps") of SagaStepCodec-encoded steps. A save only
+ * writes what changed since the instance was last saved or loaded: an HSET of
+ * the changed fields, an HDEL of cleared ones and an RPUSH of new steps, sent
+ * in one pipeline. Unlike a @RedisHash repository there is no full rewrite of
+ * the growing step history and no secondary index to maintain.
+ * Both keys expire saga.store.ttl-seconds after the saga was created.
+ *
+ * In-flight sagas are also kept in a sorted set ("saga-state:in-flight") scored
+ * by their deadline: every save pushes it to now + saga.timeout, finishing
+ * removes the saga. A STARTED saga is only created, not running, so it enters
+ * the set with the first save of its run. Abandoned sagas are therefore a
+ * range query on the set. A lease key ("saga-state:{id}:lease") is held by
+ * whoever runs or recovers a saga; a run renews it and the deadline with
+ * heartbeat().
+ * Sagas in messaging mode are saved with the step timeout as their deadline
+ * while a command reply is awaited.
+ *
+ * Sagas accepted for a background run are kept in "saga-state:accepted",
+ * scored by when they should have started, until a save moves them on from
+ * STARTED. One still there was lost with the queue of its orchestrator.
+ *
+ * Steps are timed in SagaMetrics when they are first saved, whichever mode ran them.
+ */
+@Repository
+@Slf4j
+public class SagaStore {
+
+    public static final String KEY_PREFIX = "saga-state:";
+    public static final String IN_FLIGHT_KEY = KEY_PREFIX + "in-flight";
+    public static final String ACCEPTED_KEY = KEY_PREFIX + "accepted";
+    private static final String STEPS_SUFFIX = ":steps";
+    private static final String LEASE_SUFFIX = ":lease";
+
+    private static final RedisScript<Long> HEARTBEAT_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('GET', KEYS[1]) ~= ARGV[1] then return 0 end " +
+            "redis.call('PEXPIRE', KEYS[1], ARGV[2]) " +
+            "redis.call('ZADD', KEYS[2], 'XX', ARGV[3], ARGV[4]) " +
+            "return 1", Long.class);
+
+    private static final RedisScript<Long> RELEASE_LEASE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('GET', KEYS[1]) == ARGV[1] then return redis.call('DEL', KEYS[1]) end " +
+            "return 0", Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final SagaMetrics sagaMetrics;
+    private final long ttlSeconds;
+    private final long timeoutMs;
+
+    public SagaStore(StringRedisTemplate redisTemplate,
+                     SagaMetrics sagaMetrics,
+                     @Value("${saga.store.ttl-seconds:3600}") long ttlSeconds,
+                     @Value("${saga.timeout:60000}") long timeoutMs) {
+        this.redisTemplate = redisTemplate;
+        this.sagaMetrics = sagaMetrics;
+        this.ttlSeconds = ttlSeconds;
+        this.timeoutMs = timeoutMs;
+    }
+
+    /**
+     * Write the changes of the saga; returns the same instance
+     */
+    public SagaInstance save(SagaInstance saga) {
+        return save(saga, timeoutMs);
+    }
+
+    /**
+     * Write the changes of the saga, giving it timeoutMs from now to make progress
+     */
+    public SagaInstance save(SagaInstance saga, long timeoutMs) {
+        return save(saga, timeoutMs, 0);
+    }
+
+    /**
+     * Save a new saga and add it to the accepted index, expecting its run to start by runBy (epoch ms)
+     */
+    public SagaInstance saveAccepted(SagaInstance saga, long runBy) {
+        return save(saga, timeoutMs, runBy);
+    }
+
+    private SagaInstance save(SagaInstance saga, long timeoutMs, long acceptedUntil) {
+        Map<String, String> fields = toHash(saga);
+        boolean created = saga.getPersistedFields() == null;
+        Map<String, String> persisted = created ? Map.of() : saga.getPersistedFields();
+
+        Map<byte[], byte[]> changed = new LinkedHashMap<>();
+        fields.forEach((field, value) -> {
+            if (!value.equals(persisted.get(field))) {
+                changed.put(bytes(field), bytes(value));
+            }
+        });
+        List<byte[]> cleared = new ArrayList<>();
+        persisted.keySet().forEach(field -> {
+            if (!fields.containsKey(field)) {
+                cleared.add(bytes(field));
+            }
+        });
+
+        List<SagaStep> steps = saga.getSteps() != null ? saga.getSteps() : List.of();
+        int persistedSteps = saga.getPersistedSteps();
+        List<SagaStep> addedSteps = List.copyOf(steps.subList(persistedSteps, steps.size()));
+        List<byte[]> newSteps = addedSteps.stream()
+                .map(SagaStepCodec::encode)
+                .toList();
+
+        if (changed.isEmpty() && cleared.isEmpty() && newSteps.isEmpty()) {
+            return saga;
+        }
+
+        byte[] key = bytes(KEY_PREFIX + saga.getSagaId());
+        byte[] stepsKey = bytes(KEY_PREFIX + saga.getSagaId() + STEPS_SUFFIX);
+        byte[] inFlightKey = bytes(IN_FLIGHT_KEY);
+        byte[] acceptedKey = bytes(ACCEPTED_KEY);
+        byte[] member = bytes(saga.getSagaId());
+        boolean finished = saga.getState() != null && saga.getState().isTerminal();
+        boolean leftStarted = SagaState.STARTED.name().equals(persisted.get("state"))
+                && saga.getState() != SagaState.STARTED;
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            if (!changed.isEmpty()) {
+                connection.hashCommands().hMSet(key, changed);
+            }
+            if (!cleared.isEmpty()) {
+                connection.hashCommands().hDel(key, cleared.toArray(byte[][]::new));
+            }
+            if (created) {
+                connection.keyCommands().expire(key, ttlSeconds);
+            }
+            if (!newSteps.isEmpty()) {
+                connection.listCommands().rPush(stepsKey, newSteps.toArray(byte[][]::new));
+                if (persistedSteps == 0) {
+                    connection.keyCommands().expire(stepsKey, ttlSeconds);
+                }
+            }
+            if (finished) {
+                connection.zSetCommands().zRem(inFlightKey, member);
+            } else if (saga.getState() != SagaState.STARTED) {
+                connection.zSetCommands().zAdd(inFlightKey, deadline, member);
+            }
+            if (acceptedUntil > 0) {
+                connection.zSetCommands().zAdd(acceptedKey, acceptedUntil, member);
+            } else if (leftStarted) {
+                connection.zSetCommands().zRem(acceptedKey, member);
+            }
+            return null;
+        });
+
+        saga.setPersistedFields(fields);
+        saga.setPersistedSteps(steps.size());
+        addedSteps.forEach(sagaMetrics::recordStep);
+        return saga;
+    }
+
+    /**
+     * Load a saga with its step history, read in one round trip
+     */
+    @SuppressWarnings("unchecked")
+    public Optional<SagaInstance> findById(String sagaId) {
+        byte[] key = bytes(KEY_PREFIX + sagaId);
+        byte[] stepsKey = bytes(KEY_PREFIX + sagaId + STEPS_SUFFIX);
+        List<Object> results = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            connection.hashCommands().hGetAll(key);
+            connection.listCommands().lRange(stepsKey, 0, -1);
+            return null;
+        }, RedisSerializer.byteArray());
+
+        Map<byte[], byte[]> hash = (Map<byte[], byte[]>) results.get(0);
+        if (hash == null || hash.isEmpty()) {
+            return Optional.empty();
+        }
+        Map<String, String> fields = new HashMap<>();
+        hash.forEach((field, value) -> fields.put(string(field), string(value)));
+
+        List<SagaStep> steps = new ArrayList<>();
+        List<byte[]> encodedSteps = (List<byte[]>) results.get(1);
+        if (encodedSteps != null) {
+            encodedSteps.forEach(encoded -> steps.add(SagaStepCodec.decode(encoded)));
+        }
+
+        SagaInstance saga = fromHash(sagaId, fields);
+        saga.setSteps(steps);
+        saga.setPersistedFields(fields);
+        saga.setPersistedSteps(steps.size());
+        return Optional.of(saga);
+    }
+
+    public void delete(String sagaId) {
+        redisTemplate.delete(List.of(KEY_PREFIX + sagaId, KEY_PREFIX + sagaId + STEPS_SUFFIX));
+        removeFromRecoveryIndex(sagaId);
+        removeFromAcceptedIndex(sagaId);
+    }
+
+    /**
+     * Record a genre the saga created before the saga itself is saved again,
+     * so it is compensated even if the orchestrator dies in between
+     */
+    public void markGenreCreated(String sagaId, Long genreId) {
+        writeFields(sagaId, Map.of("genreId", genreId.toString(), "genreCreated", "1"));
+    }
+
+    public void markAuthorCreated(String sagaId, Long authorNumber) {
+        writeFields(sagaId, Map.of("authorNumber", authorNumber.toString(), "authorCreated", "1"));
+    }
+
+    /**
+     * Ids of in-flight sagas whose deadline has passed, oldest first
+     */
+    public List<String> findAbandoned(long now, int limit) {
+        Set<String> ids = redisTemplate.opsForZSet().rangeByScore(IN_FLIGHT_KEY, 0, now, 0, limit);
+        return ids != null ? new ArrayList<>(ids) : List.of();
+    }
+
+    /**
+     * Number of in-flight sagas per state, read in one pipeline
+     */
+    public Map<SagaState, Long> countInFlightByState() {
+        Set<String> ids = redisTemplate.opsForZSet().range(IN_FLIGHT_KEY, 0, -1);
+        if (ids == null || ids.isEmpty()) {
+            return Map.of();
+        }
+
+        List<Object> states = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            ids.forEach(id -> connection.hashCommands().hGet(bytes(KEY_PREFIX + id), bytes("state")));
+            return null;
+        });
+        Map<SagaState, Long> counts = new EnumMap<>(SagaState.class);
+        for (Object state : states) {
+            // Null when the saga expired since the range was read
+            if (state != null) {
+                counts.merge(SagaState.valueOf(state.toString()), 1L, Long::sum);
+            }
+        }
+        return counts;
+    }
+
+    public void removeFromRecoveryIndex(String sagaId) {
+        redisTemplate.opsForZSet().remove(IN_FLIGHT_KEY, sagaId);
+    }
+
+    /**
+     * Ids of accepted sagas that should have started running by now, oldest first
+     */
+    public List<String> findOverdueAccepted(long now, int limit) {
+        Set<String> ids = redisTemplate.opsForZSet().rangeByScore(ACCEPTED_KEY, 0, now, 0, limit);
+        return ids != null ? new ArrayList<>(ids) : List.of();
+    }
+
+    /**
+     * Expect the run of an accepted saga by runBy (epoch ms) instead
+     */
+    public void rescheduleAccepted(String sagaId, long runBy) {
+        redisTemplate.opsForZSet().add(ACCEPTED_KEY, sagaId, runBy);
+    }
+
+    public void removeFromAcceptedIndex(String sagaId) {
+        redisTemplate.opsForZSet().remove(ACCEPTED_KEY, sagaId);
+    }
+
+    /**
+     * Take the recovery lease of a saga; false when another owner holds it
+     */
+    public boolean acquireLease(String sagaId, String owner, Duration leaseDuration) {
+        return Boolean.TRUE.equals(redisTemplate.opsForValue()
+                .setIfAbsent(KEY_PREFIX + sagaId + LEASE_SUFFIX, owner, leaseDuration));
+    }
+
+    /**
+     * Renew a held lease and push the saga's deadline to now + saga.timeout;
+     * false when the lease is no longer held by the owner
+     */
+    public boolean heartbeat(String sagaId, String owner, Duration leaseDuration) {
+        Long renewed = redisTemplate.execute(HEARTBEAT_SCRIPT,
+                List.of(KEY_PREFIX + sagaId + LEASE_SUFFIX, IN_FLIGHT_KEY),
+                owner, String.valueOf(leaseDuration.toMillis()),
+                String.valueOf(System.currentTimeMillis() + timeoutMs), sagaId);
+        return renewed != null && renewed == 1L;
+    }
+
+    /**
+     * Current state of a saga, read without its steps
+     */
+    public Optional<SagaState> findState(String sagaId) {
+        Object state = redisTemplate.opsForHash().get(KEY_PREFIX + sagaId, "state");
+        return Optional.ofNullable(state).map(value -> SagaState.valueOf(value.toString()));
+    }
+
+    public void releaseLease(String sagaId, String owner) {
+        redisTemplate.execute(RELEASE_LEASE_SCRIPT, List.of(KEY_PREFIX + sagaId + LEASE_SUFFIX), owner);
+    }
+
+    private void writeFields(String sagaId, Map<String, String> fields) {
+        try {
+            redisTemplate.opsForHash().putAll(KEY_PREFIX + sagaId, fields);
+        } catch (DataAccessException e) {
+            // The saga save after the join writes the same fields
+            log.warn("Could not record created entity of Saga {}: {}", sagaId, e.getMessage());
+        }
+    }
+
+    private static Map<String, String> toHash(SagaInstance saga) {
+        Map<String, String> fields = new HashMap<>();
+        put(fields, "state", saga.getState());
+        put(fields, "startedAt", saga.getStartedAt());
+        put(fields, "completedAt", saga.getCompletedAt());
+        put(fields, "requestPayload", saga.getRequestPayload());
+        put(fields, "genreId", saga.getGenreId());
+        put(fields, "authorNumber", saga.getAuthorNumber());
+        put(fields, "bookId", saga.getBookId());
+        put(fields, "genreCreated", saga.isGenreCreated() ? "1" : null);
+        put(fields, "authorCreated", saga.isAuthorCreated() ? "1" : null);
+        put(fields, "genreResponse", saga.getGenreResponse());
+        put(fields, "authorResponse", saga.getAuthorResponse());
+        put(fields, "bookResponse", saga.getBookResponse());
+        put(fields, "messaging", saga.isMessaging() ? "1" : null);
+        put(fields, "pendingCommands", saga.getPendingCommands() == null || saga.getPendingCommands().isEmpty()
+                ? null : String.join(",", new TreeSet<>(saga.getPendingCommands())));
+        put(fields, "errorMessage", saga.getErrorMessage());
+        put(fields, "retryCount", saga.getRetryCount());
+        return fields;
+    }
+
+    private static SagaInstance fromHash(String sagaId, Map<String, String> fields) {
+        return SagaInstance.builder()
+                .sagaId(sagaId)
+                .state(parse(fields.get("state"), SagaState::valueOf))
+                .startedAt(parse(fields.get("startedAt"), LocalDateTime::parse))
+                .completedAt(parse(fields.get("completedAt"), LocalDateTime::parse))
+                .requestPayload(fields.get("requestPayload"))
+                .genreId(parse(fields.get("genreId"), Long::valueOf))
+                .authorNumber(parse(fields.get("authorNumber"), Long::valueOf))
+                .bookId(parse(fields.get("bookId"), Long::valueOf))
+                .genreCreated(fields.containsKey("genreCreated"))
+                .authorCreated(fields.containsKey("authorCreated"))
+                .genreResponse(fields.get("genreResponse"))
+                .authorResponse(fields.get("authorResponse"))
+                .bookResponse(fields.get("bookResponse"))
+                .messaging(fields.containsKey("messaging"))
+                .pendingCommands(fields.containsKey("pendingCommands")
+                        ? new HashSet<>(Arrays.asList(fields.get("pendingCommands").split(",")))
+                        : new HashSet<>())
+                .errorMessage(fields.get("errorMessage"))
+                .retryCount(parse(fields.get("retryCount"), Integer::valueOf))
+                .build();
+    }
+
+    private static void put(Map<String, String> fields, String field, Object value) {
+        if (value != null) {
+            fields.put(field, value.toString());
+        }
+    }
+
+    private static <T> T parse(String value, Function<String, T> parser) {
+        return value != null ? parser.apply(value) : null;
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String string(byte[] value) {
+        return new String(value, StandardCharsets.UTF_8);
+    }
+}
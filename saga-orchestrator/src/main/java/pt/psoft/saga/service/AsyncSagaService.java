@@ -0,0 +1,144 @@
+package pt.psoft.saga.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.AmqpException;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import pt.psoft.saga.dto.CreateBookSagaRequest;
+import pt.psoft.saga.dto.CreateBookSagaResponse;
+import pt.psoft.saga.model.SagaInstance;
+import pt.psoft.saga.repository.SagaStore;
+
+/**
+ * Runs book sagas in the background.
+ *
+ * The saga is persisted before it is queued, so its id can be handed out at
+ * once and its progress read through the saga status endpoint. The steps run
+ * on the bounded saga worker pool, never on a request thread.
+ *
+ * A queued saga is also in the accepted index of SagaStore until its run
+ * starts, so a saga lost with the queue (crash, or shutdown) is resumed by
+ * SagaRecoveryWorker through resume() once saga.async.resume-after-ms passed.
+ * On shutdown the running sagas finish and the queued ones are left to that.
+ *
+ * With saga.execution-mode=messaging the steps are instead sent as commands
+ * over RabbitMQ (see MessagingSagaOrchestrator) and no thread waits on them.
+ */
+@Service
+@Slf4j
+public class AsyncSagaService {
+
+    private final SagaOrchestrator sagaOrchestrator;
+    private final MessagingSagaOrchestrator messagingSagaOrchestrator;
+    private final SagaStore sagaStore;
+    private final ThreadPoolTaskExecutor sagaWorkerExecutor;
+    private final boolean messagingMode;
+    private final long resumeAfterMs;
+    private volatile boolean stopping;
+
+    public AsyncSagaService(SagaOrchestrator sagaOrchestrator,
+                            MessagingSagaOrchestrator messagingSagaOrchestrator,
+                            SagaStore sagaStore,
+                            @Qualifier("sagaWorkerExecutor") ThreadPoolTaskExecutor sagaWorkerExecutor,
+                            @Value("${saga.execution-mode:orchestration}") String executionMode,
+                            @Value("${saga.async.resume-after-ms:120000}") long resumeAfterMs) {
+        this.sagaOrchestrator = sagaOrchestrator;
+        this.messagingSagaOrchestrator = messagingSagaOrchestrator;
+        this.sagaStore = sagaStore;
+        this.sagaWorkerExecutor = sagaWorkerExecutor;
+        this.messagingMode = "messaging".equalsIgnoreCase(executionMode);
+        this.resumeAfterMs = resumeAfterMs;
+    }
+
+    /**
+     * Persist and queue the saga; throws TaskRejectedException when the
+     * worker pool is saturated or the broker unreachable (the saga is then marked FAILED)
+     */
+    public CreateBookSagaResponse submit(CreateBookSagaRequest request) {
+        if (messagingMode) {
+            return submitAsCommands(request);
+        }
+        if (stopping) {
+            throw new TaskRejectedException("Saga rejected: orchestrator is shutting down");
+        }
+
+        SagaInstance saga = sagaOrchestrator.acceptSaga(request, System.currentTimeMillis() + resumeAfterMs);
+
+        try {
+            sagaWorkerExecutor.execute(() -> run(saga, request));
+        } catch (TaskRejectedException e) {
+            log.warn("⚠️ Saga worker pool saturated, rejecting Saga: {}", saga.getSagaId());
+            sagaOrchestrator.rejectSaga(saga, "Saga rejected: orchestrator is at capacity");
+            throw e;
+        }
+
+        log.info("📥 Saga queued for Book creation: {} ({})", saga.getSagaId(), request.getBook().getTitle());
+        return sagaOrchestrator.buildSuccessResponse(saga);
+    }
+
+    /**
+     * Queue an accepted saga again whose run never started (see SagaRecoveryWorker).
+     * Returns false when it could not be queued; it stays in the accepted index.
+     */
+    public boolean resume(SagaInstance saga) {
+        if (stopping) {
+            return false;
+        }
+
+        CreateBookSagaRequest request;
+        try {
+            request = sagaOrchestrator.requestOf(saga);
+        } catch (Exception e) {
+            log.error("❌ Accepted Saga {} has an unreadable request, failing it", saga.getSagaId(), e);
+            sagaOrchestrator.rejectSaga(saga, "Saga rejected: unreadable request");
+            return false;
+        }
+
+        // Not picked up again by the next recovery pass while it waits in the queue
+        sagaStore.rescheduleAccepted(saga.getSagaId(), System.currentTimeMillis() + resumeAfterMs);
+        try {
+            sagaWorkerExecutor.execute(() -> run(saga, request));
+        } catch (TaskRejectedException e) {
+            log.warn("⚠️ Saga worker pool saturated, Saga {} stays accepted", saga.getSagaId());
+            return false;
+        }
+        log.info("🩹 Accepted Saga {} queued again", saga.getSagaId());
+        return true;
+    }
+
+    /**
+     * Stop taking sagas; queued ones no longer start and stay in the accepted index
+     */
+    @EventListener(ContextClosedEvent.class)
+    public void stopAccepting() {
+        stopping = true;
+    }
+
+    private CreateBookSagaResponse submitAsCommands(CreateBookSagaRequest request) {
+        SagaInstance saga;
+        try {
+            saga = messagingSagaOrchestrator.start(request);
+        } catch (AmqpException e) {
+            throw new TaskRejectedException("Saga rejected: message broker unavailable", e);
+        }
+        return sagaOrchestrator.buildSuccessResponse(saga);
+    }
+
+    private void run(SagaInstance saga, CreateBookSagaRequest request) {
+        if (stopping) {
+            log.info("Saga {} not started before shutdown, left for recovery", saga.getSagaId());
+            return;
+        }
+        try {
+            sagaOrchestrator.runSaga(saga, request);
+        } catch (Exception e) {
+            // Outcome and compensation are already recorded on the saga
+            log.debug("Async Saga {} ended with failure: {}", saga.getSagaId(), e.getMessage());
+        }
+    }
+}
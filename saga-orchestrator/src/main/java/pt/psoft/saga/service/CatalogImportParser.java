@@ -0,0 +1,218 @@
+package pt.psoft.saga.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import pt.psoft.saga.dto.CreateBookSagaRequest;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Line-by-line parser of bulk catalog imports.
+ *
+ * Supported formats:
+ * - CSV with a header row naming the columns title, description, genre,
+ *   author, authorBio, authorPhotoURI and photoURI (title, genre and author
+ *   are required). Fields may be quoted with "" escapes but must not span lines.
+ * - NDJSON, one CreateBookSagaRequest object per line.
+ *
+ * The upload is read as a stream, one row at a time (see RowReader); a
+ * malformed line only invalidates its row.
+ */
+@Component
+@RequiredArgsConstructor
+public class CatalogImportParser {
+
+    public static final String CSV = "text/csv";
+    public static final String NDJSON = "application/x-ndjson";
+
+    private static final List<String> REQUIRED_COLUMNS = List.of("title", "genre", "author");
+
+    private final ObjectMapper objectMapper;
+
+    /**
+     * A parsed row: the request, or why the row is invalid
+     */
+    public record ImportRow(int row, CreateBookSagaRequest request, String error) {
+
+        public boolean valid() {
+            return error == null;
+        }
+    }
+
+    /**
+     * Parse the whole upload into a list; throws IllegalArgumentException for an
+     * unusable upload (unknown format, missing header, more than maxRows rows)
+     */
+    public List<ImportRow> parse(InputStream input, String format, int maxRows) throws IOException {
+        List<ImportRow> rows = new ArrayList<>();
+        try (RowReader reader = reader(input, format, maxRows)) {
+            ImportRow row;
+            while ((row = reader.next()) != null) {
+                rows.add(row);
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Open the upload for reading one row at a time; the header (CSV) is
+     * checked here, the row limit as rows are read
+     */
+    public RowReader reader(InputStream input, String format, int maxRows) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        try {
+            return switch (format) {
+                case CSV -> new RowReader(reader, csvColumns(reader), maxRows);
+                case NDJSON -> new RowReader(reader, null, maxRows);
+                default -> throw new IllegalArgumentException("Unsupported import format: " + format);
+            };
+        } catch (IOException | RuntimeException e) {
+            reader.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Rows of an upload in order; next() returns null after the last one
+     */
+    public final class RowReader implements Closeable {
+
+        private final BufferedReader reader;
+        private final Map<String, Integer> columns;
+        private final int maxRows;
+        private int rows;
+
+        private RowReader(BufferedReader reader, Map<String, Integer> columns, int maxRows) {
+            this.reader = reader;
+            this.columns = columns;
+            this.maxRows = maxRows;
+        }
+
+        public ImportRow next() throws IOException {
+            String line;
+            do {
+                line = reader.readLine();
+                if (line == null) {
+                    return null;
+                }
+            } while (line.isBlank());
+
+            if (rows >= maxRows) {
+                throw new IllegalArgumentException("Import exceeds the maximum of " + maxRows + " rows");
+            }
+            int row = ++rows;
+            return columns != null ? csvRow(row, line, columns) : ndjsonRow(row, line);
+        }
+
+        @Override
+        public void close() throws IOException {
+            reader.close();
+        }
+    }
+
+    private ImportRow ndjsonRow(int row, String line) {
+        try {
+            return validate(row, objectMapper.readValue(line, CreateBookSagaRequest.class));
+        } catch (JsonProcessingException e) {
+            return new ImportRow(row, null, "Malformed JSON: " + e.getOriginalMessage());
+        }
+    }
+
+    private static Map<String, Integer> csvColumns(BufferedReader reader) throws IOException {
+        String headerLine = reader.readLine();
+        if (headerLine == null) {
+            throw new IllegalArgumentException("CSV import is empty");
+        }
+        Map<String, Integer> columns = new HashMap<>();
+        List<String> header = splitCsv(headerLine);
+        for (int i = 0; i < header.size(); i++) {
+            columns.put(header.get(i).trim().toLowerCase(Locale.ROOT), i);
+        }
+        for (String column : REQUIRED_COLUMNS) {
+            if (!columns.containsKey(column)) {
+                throw new IllegalArgumentException("CSV header is missing column: " + column);
+            }
+        }
+        return columns;
+    }
+
+    private static ImportRow csvRow(int row, String line, Map<String, Integer> columns) {
+        List<String> fields = splitCsv(line);
+        String genre = field(fields, columns, "genre");
+        return validate(row, new CreateBookSagaRequest(
+                new CreateBookSagaRequest.GenreData(genre),
+                new CreateBookSagaRequest.AuthorData(field(fields, columns, "author"),
+                        field(fields, columns, "authorbio"), field(fields, columns, "authorphotouri")),
+                new CreateBookSagaRequest.BookData(field(fields, columns, "title"),
+                        field(fields, columns, "description"), genre, field(fields, columns, "photouri"))));
+    }
+
+    private static ImportRow validate(int row, CreateBookSagaRequest request) {
+        if (request.getBook() == null || isBlank(request.getBook().getTitle())) {
+            return new ImportRow(row, null, "Book title is required");
+        }
+        if (request.getGenre() == null || isBlank(request.getGenre().getName())) {
+            return new ImportRow(row, null, "Genre is required");
+        }
+        if (request.getAuthor() == null || isBlank(request.getAuthor().getName())) {
+            return new ImportRow(row, null, "Author is required");
+        }
+        if (isBlank(request.getBook().getGenreName())) {
+            request.getBook().setGenreName(request.getGenre().getName());
+        }
+        return new ImportRow(row, request, null);
+    }
+
+    private static String field(List<String> fields, Map<String, Integer> columns, String column) {
+        Integer index = columns.get(column);
+        if (index == null || index >= fields.size()) {
+            return null;
+        }
+        String value = fields.get(index).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    private static List<String> splitCsv(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+}
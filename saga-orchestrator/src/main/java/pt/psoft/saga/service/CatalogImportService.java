@@ -0,0 +1,655 @@
+package pt.psoft.saga.service;
+
+import feign.FeignException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import pt.psoft.saga.client.AuthorServiceClient;
+import pt.psoft.saga.client.BookServiceClient;
+import pt.psoft.saga.client.GenreServiceClient;
+import pt.psoft.saga.dto.CreateBookSagaRequest;
+import pt.psoft.saga.metrics.SagaMetrics;
+import pt.psoft.saga.model.ImportSagaInstance;
+import pt.psoft.saga.model.SagaState;
+import pt.psoft.saga.repository.ImportRunStore;
+import pt.psoft.saga.repository.ImportSagaRepository;
+import pt.psoft.saga.service.CatalogImportParser.ImportRow;
+import pt.psoft.saga.service.CatalogImportParser.RowReader;
+import pt.psoft.shared.dto.author.AuthorDTO;
+import pt.psoft.shared.dto.book.CreateBookRequest;
+import pt.psoft.shared.dto.genre.GenreDTO;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.function.Consumer;
+
+/**
+ * Bulk catalog import saga.
+ *
+ * Instead of one book saga per row, the upload is spooled to
+ * saga.import.spool-dir and only counted on the
+ * request thread; the import itself streams the spooled rows and
+ * 1. resolves every distinct genre and author of the upload once,
+ * 2. creates the books, at most saga.import.parallelism calls at a time,
+ * 3. compensates the genres and authors it created but no book ended up using.
+ *
+ * Rows succeed or fail individually; their status is kept in a compact
+ * ImportSagaInstance that is saved every saga.import.progress-interval rows.
+ *
+ * A run holds the import's lease in the ImportRunStore and renews it; every
+ * genre and author it creates is recorded there at once. When a run dies the
+ * recovery worker resumes the import from its saved row status: calls carry
+ * the same Idempotency-Keys, so rows created before the crash are not created
+ * again. For a replica to resume another's import, the spool dir must be shared.
+ */
+@Service
+@Slf4j
+public class CatalogImportService {
+
+    private final ImportSagaRepository importSagaRepository;
+    private final ImportRunStore importRunStore;
+    private final CatalogImportParser catalogImportParser;
+    private final CatalogResolver catalogResolver;
+    private final GenreServiceClient genreServiceClient;
+    private final AuthorServiceClient authorServiceClient;
+    private final BookServiceClient bookServiceClient;
+    private final ExecutorService sagaStepExecutor;
+    private final ThreadPoolTaskExecutor sagaWorkerExecutor;
+    private final ScheduledExecutorService sagaHeartbeatScheduler;
+    private final SagaMetrics sagaMetrics;
+    private final Path spoolDir;
+    private final Duration runLease;
+    private final int parallelism;
+    private final int maxRows;
+    private final int progressInterval;
+    private final int maxRowErrors;
+    private final String owner = UUID.randomUUID().toString();
+
+    public CatalogImportService(ImportSagaRepository importSagaRepository,
+                                ImportRunStore importRunStore,
+                                CatalogImportParser catalogImportParser,
+                                CatalogResolver catalogResolver,
+                                GenreServiceClient genreServiceClient,
+                                AuthorServiceClient authorServiceClient,
+                                BookServiceClient bookServiceClient,
+                                @Qualifier("sagaStepExecutor") ExecutorService sagaStepExecutor,
+                                @Qualifier("sagaWorkerExecutor") ThreadPoolTaskExecutor sagaWorkerExecutor,
+                                @Qualifier("sagaHeartbeatScheduler") ScheduledExecutorService sagaHeartbeatScheduler,
+                                SagaMetrics sagaMetrics,
+                                @Value("${saga.import.spool-dir:${java.io.tmpdir}/catalog-imports}") String spoolDir,
+                                @Value("${saga.import.lease-ms:30000}") long leaseMs,
+                                @Value("${saga.import.parallelism:32}") int parallelism,
+                                @Value("${saga.import.max-rows:200000}") int maxRows,
+                                @Value("${saga.import.progress-interval:1000}") int progressInterval,
+                                @Value("${saga.import.max-row-errors:1000}") int maxRowErrors) {
+        this.importSagaRepository = importSagaRepository;
+        this.importRunStore = importRunStore;
+        this.catalogImportParser = catalogImportParser;
+        this.catalogResolver = catalogResolver;
+        this.genreServiceClient = genreServiceClient;
+        this.authorServiceClient = authorServiceClient;
+        this.bookServiceClient = bookServiceClient;
+        this.sagaStepExecutor = sagaStepExecutor;
+        this.sagaWorkerExecutor = sagaWorkerExecutor;
+        this.sagaHeartbeatScheduler = sagaHeartbeatScheduler;
+        this.sagaMetrics = sagaMetrics;
+        this.spoolDir = Path.of(spoolDir);
+        this.runLease = Duration.ofMillis(leaseMs);
+        this.parallelism = parallelism;
+        this.maxRows = maxRows;
+        this.progressInterval = progressInterval;
+        this.maxRowErrors = maxRowErrors;
+    }
+
+    /**
+     * Spool and count the upload, save the import saga and queue it on the saga worker pool.
+     * Throws IllegalArgumentException for an unusable upload and
+     * TaskRejectedException when the worker pool is saturated.
+     */
+    public ImportSagaInstance startImport(InputStream input, String format) throws IOException {
+        Files.createDirectories(spoolDir);
+        Path upload = Files.createTempFile(spoolDir, "upload-", ".part");
+        ImportSagaInstance saga;
+        try {
+            Files.copy(input, upload, StandardCopyOption.REPLACE_EXISTING);
+            saga = ImportSagaInstance.create(format, countRows(upload, format));
+            Files.move(upload, spoolFile(saga.getImportId()), StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(upload);
+            throw e;
+        }
+
+        String importId = saga.getImportId();
+        importSagaRepository.save(saga);
+        importRunStore.track(importId);
+
+        try {
+            sagaWorkerExecutor.execute(() -> execute(importId));
+        } catch (TaskRejectedException e) {
+            log.warn("⚠️ Saga worker pool saturated, rejecting Import: {}", importId);
+            saga.setState(SagaState.FAILED);
+            saga.setErrorMessage("Import rejected: orchestrator is at capacity");
+            saga.setCompletedAt(LocalDateTime.now());
+            importSagaRepository.save(saga);
+            finish(importId);
+            throw e;
+        }
+
+        log.info("📥 Import queued: {} ({} rows)", importId, saga.getTotalRows());
+        return saga;
+    }
+
+    public ImportSagaInstance getImport(String importId) {
+        return importSagaRepository.findById(importId)
+                .orElseThrow(() -> new RuntimeException("Import not found: " + importId));
+    }
+
+    /**
+     * Called by the recovery worker for an import whose run stopped renewing its
+     * deadline: queue it again. The queued run takes the lease, so an import
+     * that is in fact still running is left alone.
+     */
+    public void resume(String importId) {
+        ImportSagaInstance saga = importSagaRepository.findById(importId).orElse(null);
+        if (saga == null || saga.getState().isTerminal()) {
+            // Expired, or finished after the index was read
+            importRunStore.finished(importId);
+            return;
+        }
+
+        // Give the queued run a new deadline, so the next recovery round does not queue it again
+        importRunStore.track(importId);
+        log.warn("🩹 Queueing abandoned Import {} (state {})", importId, saga.getState());
+        sagaWorkerExecutor.execute(() -> execute(importId));
+    }
+
+    private void execute(String importId) {
+        if (!importRunStore.acquireLease(importId, owner, runLease)) {
+            log.info("Import {} is run by another worker", importId);
+            return;
+        }
+        long period = Math.max(1, runLease.toMillis() / 3);
+        ScheduledFuture<?> heartbeat = sagaHeartbeatScheduler.scheduleAtFixedRate(
+                () -> renewLease(importId), period, period, TimeUnit.MILLISECONDS);
+
+        try {
+            ImportSagaInstance saga = importSagaRepository.findById(importId).orElse(null);
+            if (saga == null || saga.getState().isTerminal()) {
+                // Finished by an earlier run
+                importRunStore.finished(importId);
+                return;
+            }
+            run(new ImportRun(saga, importRunStore.findCreated(importId)));
+        } finally {
+            heartbeat.cancel(false);
+            importRunStore.releaseLease(importId, owner);
+        }
+    }
+
+    private void renewLease(String importId) {
+        try {
+            if (!importRunStore.heartbeat(importId, owner, runLease)) {
+                log.error("❌ Import {} lost its lease while running", importId);
+            }
+        } catch (Exception e) {
+            // Retried on the next beat; a failure must not cancel the schedule
+            log.warn("Could not renew the lease of Import {}: {}", importId, e.getMessage());
+        }
+    }
+
+    private void run(ImportRun run) {
+        ImportSagaInstance saga = run.saga;
+        if (saga.getState() == SagaState.STARTED) {
+            log.info("🎯 Starting Import: {}", saga.getImportId());
+        } else {
+            log.info("🩹 Resuming Import: {} (state {}, {} rows done)", saga.getImportId(), saga.getState(),
+                    saga.getCreated() + saga.getFailed() + saga.getInvalid());
+        }
+
+        try {
+            if (!Files.exists(spoolFile(saga.getImportId()))) {
+                abandon(run, "Import upload is no longer available");
+                return;
+            }
+
+            // STEP 1: Resolve each distinct genre and author once
+            saga.setState(SagaState.RESOLVING_GENRE_AND_AUTHOR);
+            importSagaRepository.save(run.snapshot());
+            resolveGenresAndAuthors(run);
+
+            // STEP 2: Create the books
+            saga.setState(SagaState.CREATING_BOOK);
+            run.creatingBooks = true;
+            importSagaRepository.save(run.snapshot());
+            createBooks(run);
+
+            // STEP 3: Remove what was created for nothing
+            compensateUnused(run);
+
+            if (saga.getState() != SagaState.COMPENSATION_FAILED) {
+                saga.setState(SagaState.COMPLETED);
+            }
+            saga.setCompletedAt(LocalDateTime.now());
+            importSagaRepository.save(run.snapshot());
+            finish(saga.getImportId());
+
+            log.info("✅ Import {} finished: {} created, {} failed, {} invalid", saga.getImportId(),
+                    saga.getCreated(), saga.getFailed(), saga.getInvalid());
+
+        } catch (InterruptedException e) {
+            // Shutting down: the saved progress stays, and recovery resumes the import
+            Thread.currentThread().interrupt();
+            log.warn("⏸️ Import {} interrupted, left for recovery", saga.getImportId());
+            importSagaRepository.save(run.snapshot());
+
+        } catch (Exception e) {
+            log.error("❌ Import failed: {}", saga.getImportId(), e);
+            abandon(run, e.getMessage());
+        }
+    }
+
+    /**
+     * Fail the import. What it created is compensated if no book call was made
+     * yet; after that a book may refer to it, so it is left in place.
+     */
+    private void abandon(ImportRun run, String reason) {
+        ImportSagaInstance saga = run.saga;
+        if (!run.creatingBooks) {
+            compensateUnused(run);
+        } else if (!run.createdGenres.isEmpty() || !run.createdAuthors.isEmpty()) {
+            log.warn("⚠️ Import {} failed while creating books; its {} genres and {} authors are left in place",
+                    saga.getImportId(), run.createdGenres.size(), run.createdAuthors.size());
+        }
+        if (saga.getState() != SagaState.COMPENSATION_FAILED) {
+            saga.setState(SagaState.FAILED);
+            saga.setErrorMessage(reason);
+        }
+        saga.setCompletedAt(LocalDateTime.now());
+        importSagaRepository.save(run.snapshot());
+        finish(saga.getImportId());
+    }
+
+    private void finish(String importId) {
+        importRunStore.finished(importId);
+        try {
+            Files.deleteIfExists(spoolFile(importId));
+        } catch (IOException e) {
+            log.warn("Could not delete the upload of Import {}: {}", importId, e.getMessage());
+        }
+    }
+
+    private void resolveGenresAndAuthors(ImportRun run) throws InterruptedException, IOException {
+        Map<String, CreateBookSagaRequest.GenreData> genres = new LinkedHashMap<>();
+        Map<String, CreateBookSagaRequest.AuthorData> authors = new LinkedHashMap<>();
+        try (RowReader rows = openSpool(run)) {
+            ImportRow row;
+            while ((row = rows.next()) != null) {
+                if (row.valid()) {
+                    genres.putIfAbsent(genreKey(row.request().getGenre().getName()), row.request().getGenre());
+                    authors.putIfAbsent(authorKey(row.request().getAuthor().getName()), row.request().getAuthor());
+                } else if (run.status(row.row()) == ImportSagaInstance.ROW_PENDING) {
+                    run.invalid(row.row(), row.error());
+                }
+            }
+        }
+        log.info("📝 [IMPORT] Resolving {} distinct genres and {} distinct authors", genres.size(), authors.size());
+
+        String importId = run.saga.getImportId();
+        forEachBounded(items(new ArrayList<>(genres.entrySet())), entry -> {
+            StepOutcome<GenreDTO> genre = catalogResolver.resolveGenre(entry.getValue(),
+                    importId + ":genre:" + nameKey(entry.getKey()));
+            run.genres.put(entry.getKey(), genre);
+            if (genre.succeeded() && !genre.existing()) {
+                run.genreCreated(entry.getKey(), Long.parseLong(genre.value().getId()));
+            }
+        }, run);
+        forEachBounded(items(new ArrayList<>(authors.entrySet())), entry -> {
+            StepOutcome<AuthorDTO> author = catalogResolver.resolveAuthor(entry.getValue(),
+                    importId + ":author:" + nameKey(entry.getKey()));
+            run.authors.put(entry.getKey(), author);
+            if (author.succeeded() && !author.existing()) {
+                run.authorCreated(entry.getKey(), author.value().getAuthorNumber());
+            }
+        }, run);
+    }
+
+    private void createBooks(ImportRun run) throws InterruptedException, IOException {
+        try (RowReader rows = openSpool(run)) {
+            forEachBounded(() -> nextPendingRow(run, rows), row -> createBook(run, row), run);
+        }
+    }
+
+    /**
+     * Next valid row without an outcome; rows created by an earlier run of the
+     * import are skipped, but still mark their genre and author as used
+     */
+    private ImportRow nextPendingRow(ImportRun run, RowReader rows) throws IOException {
+        ImportRow row;
+        while ((row = rows.next()) != null) {
+            if (!row.valid()) {
+                continue;
+            }
+            char status = run.status(row.row());
+            if (status == ImportSagaInstance.ROW_PENDING) {
+                return row;
+            }
+            if (status == ImportSagaInstance.ROW_CREATED) {
+                run.used(genreKey(row.request().getGenre().getName()), authorKey(row.request().getAuthor().getName()));
+            }
+        }
+        return null;
+    }
+
+    private void createBook(ImportRun run, ImportRow row) {
+        String genreKey = genreKey(row.request().getGenre().getName());
+        String authorKey = authorKey(row.request().getAuthor().getName());
+        StepOutcome<GenreDTO> genre = run.genres.get(genreKey);
+        StepOutcome<AuthorDTO> author = run.authors.get(authorKey);
+
+        if (!genre.succeeded()) {
+            run.failed(row.row(), "Genre could not be resolved: " + genre.error().getMessage());
+            return;
+        }
+        if (!author.succeeded()) {
+            run.failed(row.row(), "Author could not be resolved: " + author.error().getMessage());
+            return;
+        }
+
+        try {
+            CreateBookSagaRequest.BookData book = row.request().getBook();
+            bookServiceClient.createBook(run.saga.getImportId() + ":row:" + row.row(), new CreateBookRequest(
+                    book.getTitle(),
+                    book.getDescription(),
+                    genre.value().getGenre(),
+                    List.of(author.value().getAuthorNumber()),
+                    book.getPhotoURI()
+            ));
+            run.created(row.row(), genreKey, authorKey);
+        } catch (Exception e) {
+            run.failed(row.row(), e.getMessage());
+        }
+    }
+
+    /**
+     * Delete the genres and authors this import created but no book refers to.
+     * Safe to repeat: an entity deleted by an earlier run counts as compensated.
+     */
+    private void compensateUnused(ImportRun run) {
+        List<Long> authorNumbers = new ArrayList<>();
+        List<Long> genreIds = new ArrayList<>();
+        run.createdAuthors.forEach((nameKey, authorNumber) -> {
+            if (!run.usedAuthors.containsKey(nameKey)) {
+                authorNumbers.add(authorNumber);
+            }
+        });
+        run.createdGenres.forEach((nameKey, genreId) -> {
+            if (!run.usedGenres.containsKey(nameKey)) {
+                genreIds.add(genreId);
+            }
+        });
+        if (authorNumbers.isEmpty() && genreIds.isEmpty()) {
+            return;
+        }
+
+        log.warn("🔄 [IMPORT] Compensating {} unused authors and {} unused genres of Import: {}",
+                authorNumbers.size(), genreIds.size(), run.saga.getImportId());
+        sagaMetrics.compensationStarted(SagaMetrics.IMPORT);
+        run.saga.setState(SagaState.COMPENSATING);
+        run.saga.setAuthorsCompensated(0);
+        run.saga.setGenresCompensated(0);
+        importSagaRepository.save(run.snapshot());
+
+        List<String> failures = new ArrayList<>();
+        for (Long authorNumber : authorNumbers) {
+            catalogResolver.forgetAuthor(authorNumber);
+            try {
+                authorServiceClient.deleteAuthor(authorNumber);
+                run.saga.setAuthorsCompensated(run.saga.getAuthorsCompensated() + 1);
+            } catch (FeignException.NotFound e) {
+                // Deleted by an earlier run
+                run.saga.setAuthorsCompensated(run.saga.getAuthorsCompensated() + 1);
+            } catch (Exception e) {
+                log.error("❌ [COMPENSATE] Failed to delete Author: authorNumber={}", authorNumber, e);
+                failures.add("author " + authorNumber);
+            }
+        }
+        for (Long genreId : genreIds) {
+            catalogResolver.forgetGenre(genreId);
+            try {
+                genreServiceClient.deleteGenre(genreId);
+                run.saga.setGenresCompensated(run.saga.getGenresCompensated() + 1);
+            } catch (FeignException.NotFound e) {
+                // Deleted by an earlier run
+                run.saga.setGenresCompensated(run.saga.getGenresCompensated() + 1);
+            } catch (Exception e) {
+                log.error("❌ [COMPENSATE] Failed to delete Genre: ID={}", genreId, e);
+                failures.add("genre " + genreId);
+            }
+        }
+
+        if (!failures.isEmpty()) {
+            sagaMetrics.compensationFailed(SagaMetrics.IMPORT);
+            run.saga.setState(SagaState.COMPENSATION_FAILED);
+            run.saga.setErrorMessage("Compensation failed for " + String.join(", ", failures));
+        }
+    }
+
+    /**
+     * Run the action for every item on virtual threads, at most parallelism at a
+     * time, saving progress every progressInterval items. Items are pulled from
+     * the source only as permits free up. Returns when all are done.
+     */
+    private <T> void forEachBounded(Source<T> items, Consumer<T> action, ImportRun run)
+            throws InterruptedException, IOException {
+        Semaphore permits = new Semaphore(parallelism);
+        int submitted = 0;
+        T item;
+        while ((item = items.next()) != null) {
+            T current = item;
+            permits.acquire();
+            try {
+                sagaStepExecutor.execute(() -> {
+                    try {
+                        action.accept(current);
+                    } finally {
+                        permits.release();
+                    }
+                });
+            } catch (RuntimeException e) {
+                permits.release();
+                throw e;
+            }
+            if (++submitted % progressInterval == 0) {
+                importSagaRepository.save(run.snapshot());
+            }
+        }
+        permits.acquire(parallelism);
+        permits.release(parallelism);
+    }
+
+    /**
+     * Items one at a time; null once exhausted
+     */
+    @FunctionalInterface
+    private interface Source<T> {
+        T next() throws IOException;
+    }
+
+    private static <T> Source<T> items(List<T> list) {
+        Iterator<T> iterator = list.iterator();
+        return () -> iterator.hasNext() ? iterator.next() : null;
+    }
+
+    private int countRows(Path upload, String format) throws IOException {
+        int rows = 0;
+        try (RowReader reader = catalogImportParser.reader(Files.newInputStream(upload), format, maxRows)) {
+            while (reader.next() != null) {
+                rows++;
+            }
+        }
+        return rows;
+    }
+
+    private RowReader openSpool(ImportRun run) throws IOException {
+        return catalogImportParser.reader(Files.newInputStream(spoolFile(run.saga.getImportId())),
+                run.saga.getFormat(), maxRows);
+    }
+
+    private Path spoolFile(String importId) {
+        return spoolDir.resolve(importId + ".upload");
+    }
+
+    /**
+     * Genres are found by exact name (genre-service and CatalogLookupCache match exactly)
+     */
+    private static String genreKey(String name) {
+        return name;
+    }
+
+    /**
+     * Authors are found case insensitively, as author-service matches
+     */
+    private static String authorKey(String name) {
+        return name.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * ASCII form of a dedupe key, usable in an Idempotency-Key header
+     */
+    private static String nameKey(String key) {
+        return UUID.nameUUIDFromBytes(key.getBytes(StandardCharsets.UTF_8)).toString();
+    }
+
+    /**
+     * In-memory state of a running import, written concurrently by the row
+     * tasks and copied into the saga record by the import thread.
+     * Built from the saved saga, so a resumed run continues where the last save left off.
+     */
+    private final class ImportRun {
+
+        private static final String GENRE = "genre:";
+        private static final String AUTHOR = "author:";
+
+        private final ImportSagaInstance saga;
+        private final AtomicIntegerArray rowStatus;
+        private final Map<Integer, String> rowErrors = new ConcurrentHashMap<>();
+        private final AtomicInteger created = new AtomicInteger();
+        private final AtomicInteger failed = new AtomicInteger();
+        private final AtomicInteger invalid = new AtomicInteger();
+        private final Map<String, StepOutcome<GenreDTO>> genres = new ConcurrentHashMap<>();
+        private final Map<String, StepOutcome<AuthorDTO>> authors = new ConcurrentHashMap<>();
+        // Created entities and the ones books use, by nameKey
+        private final Map<String, Long> createdGenres = new ConcurrentHashMap<>();
+        private final Map<String, Long> createdAuthors = new ConcurrentHashMap<>();
+        private final Map<String, Boolean> usedGenres = new ConcurrentHashMap<>();
+        private final Map<String, Boolean> usedAuthors = new ConcurrentHashMap<>();
+        private boolean creatingBooks;
+
+        private ImportRun(ImportSagaInstance saga, Map<String, Long> createdEntities) {
+            this.saga = saga;
+            this.rowStatus = new AtomicIntegerArray(saga.getTotalRows());
+            String status = saga.getRowStatus();
+            for (int i = 0; i < rowStatus.length(); i++) {
+                rowStatus.set(i, status != null && i < status.length() ? status.charAt(i) : ImportSagaInstance.ROW_PENDING);
+            }
+            if (saga.getRowErrors() != null) {
+                rowErrors.putAll(saga.getRowErrors());
+            }
+            created.set(saga.getCreated());
+            failed.set(saga.getFailed());
+            invalid.set(saga.getInvalid());
+            createdEntities.forEach((entity, id) -> {
+                if (entity.startsWith(GENRE)) {
+                    createdGenres.put(entity.substring(GENRE.length()), id);
+                } else if (entity.startsWith(AUTHOR)) {
+                    createdAuthors.put(entity.substring(AUTHOR.length()), id);
+                }
+            });
+            creatingBooks = saga.getState() == SagaState.CREATING_BOOK || saga.getState() == SagaState.COMPENSATING;
+        }
+
+        private char status(int row) {
+            return (char) rowStatus.get(row - 1);
+        }
+
+        private void genreCreated(String genreKey, long genreId) {
+            String nameKey = nameKey(genreKey);
+            createdGenres.put(nameKey, genreId);
+            importRunStore.markCreated(saga.getImportId(), GENRE + nameKey, genreId);
+        }
+
+        private void authorCreated(String authorKey, long authorNumber) {
+            String nameKey = nameKey(authorKey);
+            createdAuthors.put(nameKey, authorNumber);
+            importRunStore.markCreated(saga.getImportId(), AUTHOR + nameKey, authorNumber);
+        }
+
+        private void used(String genreKey, String authorKey) {
+            usedGenres.put(nameKey(genreKey), Boolean.TRUE);
+            usedAuthors.put(nameKey(authorKey), Boolean.TRUE);
+        }
+
+        private void created(int row, String genreKey, String authorKey) {
+            rowStatus.set(row - 1, ImportSagaInstance.ROW_CREATED);
+            created.incrementAndGet();
+            used(genreKey, authorKey);
+        }
+
+        private void failed(int row, String error) {
+            rowStatus.set(row - 1, ImportSagaInstance.ROW_FAILED);
+            failed.incrementAndGet();
+            error(row, error);
+        }
+
+        private void invalid(int row, String error) {
+            rowStatus.set(row - 1, ImportSagaInstance.ROW_INVALID);
+            invalid.incrementAndGet();
+            error(row, error);
+        }
+
+        private void error(int row, String error) {
+            if (rowErrors.size() < maxRowErrors) {
+                rowErrors.put(row, error != null ? error : "Unknown error");
+            }
+        }
+
+        private ImportSagaInstance snapshot() {
+            char[] status = new char[rowStatus.length()];
+            for (int i = 0; i < status.length; i++) {
+                status[i] = (char) rowStatus.get(i);
+            }
+            saga.setRowStatus(new String(status));
+            saga.setRowErrors(new LinkedHashMap<>(rowErrors));
+            saga.setCreated(created.get());
+            saga.setFailed(failed.get());
+            saga.setInvalid(invalid.get());
+            saga.setGenresCreated(createdGenres.size());
+            saga.setAuthorsCreated(createdAuthors.size());
+            return saga;
+        }
+    }
+}
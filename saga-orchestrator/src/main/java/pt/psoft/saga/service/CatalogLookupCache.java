@@ -0,0 +1,152 @@
+package pt.psoft.saga.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import pt.psoft.shared.dto.author.AuthorDTO;
+import pt.psoft.shared.dto.genre.GenreDTO;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Name to entity cache of the genres and authors sagas have resolved.
+ *
+ * Lets most sagas skip the remote find-by-name lookups. Entries are dropped
+ * when the entity is deleted or updated (GenreDeleted/AuthorDeleted events from
+ * lms.events, or a compensation of this instance) and expire after ttl-seconds
+ * in case an event is missed.
+ *
+ * A lookup that started before an eviction is not cached: callers take a
+ * generation() before the remote call and hand it back to put.
+ */
+@Component
+@Slf4j
+public class CatalogLookupCache {
+
+    private final NameCache<GenreDTO> genres = new NameCache<>(GenreDTO::getId);
+    private final NameCache<AuthorDTO> authors =
+            new NameCache<>(author -> author.getAuthorNumber() != null ? author.getAuthorNumber().toString() : null);
+    private final AtomicLong generation = new AtomicLong();
+    private final long ttlMillis;
+    private final int maxEntries;
+
+    public CatalogLookupCache(@Value("${saga.lookup-cache.ttl-seconds:600}") long ttlSeconds,
+                              @Value("${saga.lookup-cache.max-entries:10000}") int maxEntries) {
+        this.ttlMillis = ttlSeconds * 1000;
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Current generation, to be taken before a remote lookup
+     */
+    public long generation() {
+        return generation.get();
+    }
+
+    /**
+     * Cached genre of that exact name, null on a miss
+     */
+    public GenreDTO genre(String name) {
+        return genres.get(name);
+    }
+
+    public void putGenre(String name, GenreDTO genre, long generation) {
+        put(genres, name, genre, generation);
+    }
+
+    /**
+     * Cached author of that name (case insensitive, as author-service matches), null on a miss
+     */
+    public AuthorDTO author(String name) {
+        return authors.get(authorKey(name));
+    }
+
+    public void putAuthor(String name, AuthorDTO author, long generation) {
+        put(authors, authorKey(name), author, generation);
+    }
+
+    public void evictGenre(String genreId) {
+        generation.incrementAndGet();
+        genres.evictById(genreId);
+    }
+
+    public void evictAuthor(Long authorNumber) {
+        generation.incrementAndGet();
+        authors.evictById(String.valueOf(authorNumber));
+    }
+
+    /**
+     * Drop everything, e.g. when an event could not be read
+     */
+    public void clear() {
+        generation.incrementAndGet();
+        genres.entries.clear();
+        authors.entries.clear();
+    }
+
+    private <T> void put(NameCache<T> cache, String key, T value, long lookupGeneration) {
+        if (key == null || value == null || generation.get() != lookupGeneration) {
+            return;
+        }
+        Entry<T> entry = cache.put(key, value, System.currentTimeMillis() + ttlMillis, maxEntries);
+        // An eviction may have run between the check and the put
+        if (generation.get() != lookupGeneration) {
+            cache.entries.remove(key, entry);
+        }
+    }
+
+    private static String authorKey(String name) {
+        return name != null ? name.trim().toLowerCase(Locale.ROOT) : null;
+    }
+
+    private record Entry<T>(T value, long expiresAt) {
+    }
+
+    private static final class NameCache<T> {
+
+        private final Map<String, Entry<T>> entries = new ConcurrentHashMap<>();
+        private final Function<T, String> idOf;
+
+        private NameCache(Function<T, String> idOf) {
+            this.idOf = idOf;
+        }
+
+        T get(String key) {
+            if (key == null) {
+                return null;
+            }
+            Entry<T> entry = entries.get(key);
+            if (entry == null) {
+                return null;
+            }
+            if (entry.expiresAt() < System.currentTimeMillis()) {
+                entries.remove(key, entry);
+                return null;
+            }
+            return entry.value();
+        }
+
+        Entry<T> put(String key, T value, long expiresAt, int maxEntries) {
+            if (entries.size() >= maxEntries) {
+                long now = System.currentTimeMillis();
+                entries.values().removeIf(entry -> entry.expiresAt() < now);
+                if (entries.size() >= maxEntries) {
+                    log.debug("Lookup cache full ({} entries), clearing", entries.size());
+                    entries.clear();
+                }
+            }
+            Entry<T> entry = new Entry<>(value, expiresAt);
+            entries.put(key, entry);
+            return entry;
+        }
+
+        void evictById(String id) {
+            entries.values().removeIf(entry -> Objects.equals(idOf.apply(entry.value()), id));
+        }
+    }
+}
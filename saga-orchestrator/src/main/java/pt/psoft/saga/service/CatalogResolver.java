@@ -0,0 +1,168 @@
+package pt.psoft.saga.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import pt.psoft.saga.client.AuthorServiceClient;
+import pt.psoft.saga.client.GenreServiceClient;
+import pt.psoft.saga.client.HedgedRequestExecutor;
+import pt.psoft.saga.dto.CreateBookSagaRequest;
+import pt.psoft.saga.model.SagaStep;
+import pt.psoft.shared.dto.author.AuthorDTO;
+import pt.psoft.shared.dto.author.CreateAuthorRequest;
+import pt.psoft.shared.dto.genre.CreateGenreRequest;
+import pt.psoft.shared.dto.genre.GenreDTO;
+
+/**
+ * Find-or-create of the genres and authors a book refers to.
+ *
+ * Shared by the book saga and the bulk import. The methods never throw and do
+ * not touch saga state, so they can run on any thread; the caller applies the
+ * outcome. The caller's idempotency key makes a repeated creation return the
+ * entity created the first time.
+ *
+ * Resolved names are kept in the CatalogLookupCache, so repeated genres and
+ * authors skip the remote lookup. Remote lookups are hedged, so one slow
+ * replica does not hold up the saga.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class CatalogResolver {
+
+    private final GenreServiceClient genreServiceClient;
+    private final AuthorServiceClient authorServiceClient;
+    private final CatalogLookupCache lookupCache;
+    private final HedgedRequestExecutor hedgedRequestExecutor;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * STEP 1: Create Genre (or use existing)
+     */
+    public StepOutcome<GenreDTO> resolveGenre(CreateBookSagaRequest.GenreData genreData, String idempotencyKey) {
+        log.info("📝 [STEP 1] Creating/Finding Genre: {}", genreData.getName());
+        long started = System.nanoTime();
+
+        GenreDTO cached = lookupCache.genre(genreData.getName());
+        if (cached != null) {
+            log.info("📌 [STEP 1] Genre already exists (cached): {}", genreData.getName());
+            return StepOutcome.success(cached, true,
+                    SagaStep.success("FOUND_GENRE", "genre-service", "CACHED", toJson(cached)).took(started));
+        }
+
+        try {
+            GenreDTO genreResponse;
+            boolean isExisting = false;
+            long generation = lookupCache.generation();
+
+            // First, try to find existing genre
+            try {
+                genreResponse = hedgedRequestExecutor.get("genre-service", "findByName",
+                        () -> genreServiceClient.findByName(genreData.getName()));
+                if (genreResponse != null) {
+                    log.info("📌 [STEP 1] Genre already exists: {}", genreData.getName());
+                    isExisting = true;
+                }
+            } catch (Exception e) {
+                // Genre not found, will create new one
+                genreResponse = null;
+            }
+
+            // Create new genre if not found
+            if (genreResponse == null) {
+                CreateGenreRequest genreRequest = new CreateGenreRequest(genreData.getName());
+                genreResponse = genreServiceClient.createGenre(idempotencyKey, genreRequest);
+                log.info("✅ [STEP 1] Genre created: ID={}", genreResponse.getId());
+            }
+            lookupCache.putGenre(genreData.getName(), genreResponse, generation);
+
+            SagaStep step = SagaStep.success(isExisting ? "FOUND_GENRE" : "CREATE_GENRE", "genre-service",
+                    isExisting ? "FIND" : "CREATE", toJson(genreResponse)).took(started);
+            return StepOutcome.success(genreResponse, isExisting, step);
+
+        } catch (Exception e) {
+            log.error("❌ [STEP 1] Genre creation failed", e);
+            return StepOutcome.failure(
+                    SagaStep.failure("CREATE_GENRE", "genre-service", "CREATE", e.getMessage()).took(started), e);
+        }
+    }
+
+    /**
+     * STEP 2: Create Author (or use existing)
+     */
+    public StepOutcome<AuthorDTO> resolveAuthor(CreateBookSagaRequest.AuthorData authorData, String idempotencyKey) {
+        log.info("📝 [STEP 2] Creating/Finding Author: {}", authorData.getName());
+        long started = System.nanoTime();
+
+        AuthorDTO cached = lookupCache.author(authorData.getName());
+        if (cached != null) {
+            log.info("📌 [STEP 2] Author already exists (cached): {}", authorData.getName());
+            return StepOutcome.success(cached, true,
+                    SagaStep.success("FOUND_AUTHOR", "author-service", "CACHED", toJson(cached)).took(started));
+        }
+
+        try {
+            AuthorDTO authorResponse;
+            boolean isExisting = false;
+            long generation = lookupCache.generation();
+
+            // First, try to find existing author by exact name
+            try {
+                authorResponse = hedgedRequestExecutor.get("author-service", "findByExactName",
+                        () -> authorServiceClient.findByExactName(authorData.getName()));
+                if (authorResponse != null) {
+                    log.info("📌 [STEP 2] Author already exists: {}", authorData.getName());
+                    isExisting = true;
+                }
+            } catch (Exception e) {
+                // Author not found, will create new one
+                authorResponse = null;
+            }
+
+            // Create new author if not found
+            if (authorResponse == null) {
+                CreateAuthorRequest authorRequest = new CreateAuthorRequest(
+                        authorData.getName(),
+                        authorData.getBio(),
+                        authorData.getPhotoURI()
+                );
+                authorResponse = authorServiceClient.createAuthor(idempotencyKey, authorRequest);
+                log.info("✅ [STEP 2] Author created: authorNumber={}", authorResponse.getAuthorNumber());
+            }
+            lookupCache.putAuthor(authorData.getName(), authorResponse, generation);
+
+            SagaStep step = SagaStep.success(isExisting ? "FOUND_AUTHOR" : "CREATE_AUTHOR", "author-service",
+                    isExisting ? "FIND" : "CREATE", toJson(authorResponse)).took(started);
+            return StepOutcome.success(authorResponse, isExisting, step);
+
+        } catch (Exception e) {
+            log.error("❌ [STEP 2] Author creation failed", e);
+            return StepOutcome.failure(
+                    SagaStep.failure("CREATE_AUTHOR", "author-service", "CREATE", e.getMessage()).took(started), e);
+        }
+    }
+
+    /**
+     * Drop a genre that is being deleted (compensation) from the lookup cache
+     */
+    public void forgetGenre(Long genreId) {
+        lookupCache.evictGenre(String.valueOf(genreId));
+    }
+
+    /**
+     * Drop an author that is being deleted (compensation) from the lookup cache
+     */
+    public void forgetAuthor(Long authorNumber) {
+        lookupCache.evictAuthor(authorNumber);
+    }
+
+    private String toJson(Object obj) {
+        try {
+            return objectMapper.writeValueAsString(obj);
+        } catch (JsonProcessingException e) {
+            return obj.toString();
+        }
+    }
+}
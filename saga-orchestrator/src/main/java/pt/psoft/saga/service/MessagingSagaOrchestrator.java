@@ -0,0 +1,354 @@
+package pt.psoft.saga.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import pt.psoft.saga.config.RabbitMQConfig;
+import pt.psoft.saga.dto.CreateBookSagaRequest;
+import pt.psoft.saga.model.SagaInstance;
+import pt.psoft.saga.model.SagaState;
+import pt.psoft.saga.model.SagaStep;
+import pt.psoft.saga.repository.SagaStore;
+import pt.psoft.shared.dto.author.AuthorDTO;
+import pt.psoft.shared.dto.author.CreateAuthorRequest;
+import pt.psoft.shared.dto.book.BookDTO;
+import pt.psoft.shared.dto.genre.CreateGenreRequest;
+import pt.psoft.shared.dto.genre.GenreDTO;
+import pt.psoft.shared.messaging.SagaCommand;
+import pt.psoft.shared.messaging.SagaReply;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs book sagas as command/reply messages over lms.events (messaging mode).
+ *
+ * Each step is a SagaCommand consumed by the owning service, and its SagaReply
+ * moves the saga on, on whichever replica receives it. No thread waits on a
+ * step: the saga lives in the SagaStore together with the correlation ids of
+ * the replies it awaits.
+ * - ResolveGenre and ResolveAuthor are sent together (names in the lookup
+ *   cache are skipped), CreateBook once both succeeded
+ * - while a reply is awaited the saga's deadline is the step timeout; the
+ *   recovery worker hands timed-out sagas to recover(), which resends the
+ *   missing commands up to max-step-retries times; a command keeps its
+ *   correlation id across resends, so a late reply to the first send still counts
+ * - replies are applied under the saga's lease, so they are serialized with
+ *   each other and with recovery; a reply for a busy saga is retried after a
+ *   delay (see RabbitMQConfig)
+ * - a reply that is no longer awaited is a duplicate and ignored; one that
+ *   arrives after the saga gave up is compensated if it created something
+ *
+ * Compensation is the orchestrator's.
+ */
+@Service
+@Slf4j
+public class MessagingSagaOrchestrator {
+
+    private final SagaStore sagaStore;
+    private final SagaOrchestrator sagaOrchestrator;
+    private final CatalogLookupCache lookupCache;
+    private final RabbitTemplate rabbitTemplate;
+    private final SagaCompletionNotifier sagaCompletionNotifier;
+    private final ObjectMapper objectMapper;
+    private final long stepTimeoutMs;
+    private final int maxStepRetries;
+    private final Duration leaseDuration;
+
+    public MessagingSagaOrchestrator(SagaStore sagaStore,
+                                     SagaOrchestrator sagaOrchestrator,
+                                     CatalogLookupCache lookupCache,
+                                     RabbitTemplate rabbitTemplate,
+                                     SagaCompletionNotifier sagaCompletionNotifier,
+                                     ObjectMapper objectMapper,
+                                     @Value("${saga.messaging.step-timeout-ms:60000}") long stepTimeoutMs,
+                                     @Value("${saga.messaging.max-step-retries:3}") int maxStepRetries,
+                                     @Value("${saga.messaging.reply-lease-ms:30000}") long replyLeaseMs) {
+        this.sagaStore = sagaStore;
+        this.sagaOrchestrator = sagaOrchestrator;
+        this.lookupCache = lookupCache;
+        this.rabbitTemplate = rabbitTemplate;
+        this.sagaCompletionNotifier = sagaCompletionNotifier;
+        this.objectMapper = objectMapper;
+        this.stepTimeoutMs = stepTimeoutMs;
+        this.maxStepRetries = maxStepRetries;
+        this.leaseDuration = Duration.ofMillis(replyLeaseMs);
+    }
+
+    /**
+     * Create the saga and send its first commands; returns once they are published.
+     * Throws AmqpException (the saga is then marked FAILED) when the broker is unavailable.
+     */
+    public SagaInstance start(CreateBookSagaRequest request) {
+        SagaInstance saga = sagaOrchestrator.startSaga(request);
+        saga.setMessaging(true);
+
+        long started = System.nanoTime();
+        GenreDTO genre = lookupCache.genre(request.getGenre().getName());
+        if (genre != null) {
+            saga.setGenreId(Long.parseLong(genre.getId()));
+            saga.setGenreResponse(toJson(genre));
+            saga.addStep(SagaStep.success("FOUND_GENRE", "genre-service", "CACHED", saga.getGenreResponse()).took(started));
+        }
+        AuthorDTO author = lookupCache.author(request.getAuthor().getName());
+        if (author != null) {
+            saga.setAuthorNumber(author.getAuthorNumber());
+            saga.setAuthorResponse(toJson(author));
+            saga.addStep(SagaStep.success("FOUND_AUTHOR", "author-service", "CACHED", saga.getAuthorResponse()).took(started));
+        }
+
+        try {
+            send(saga, nextCommands(saga, request));
+        } catch (AmqpException e) {
+            // Replies to commands already published are compensated on arrival
+            log.error("❌ Could not send the commands of Saga {}", saga.getSagaId(), e);
+            sagaOrchestrator.rejectSaga(saga, "Saga rejected: message broker unavailable");
+            throw e;
+        }
+
+        log.info("📤 Saga {} started in messaging mode: {}", saga.getSagaId(), request.getBook().getTitle());
+        return saga;
+    }
+
+    /**
+     * Apply a command reply and send the next commands
+     */
+    public void onReply(SagaReply reply) {
+        String sagaId = reply.getSagaId();
+        String owner = "reply:" + reply.getCorrelationId();
+        if (!sagaStore.acquireLease(sagaId, owner, leaseDuration)) {
+            throw new SagaBusyException("Saga " + sagaId + " is busy, reply " + reply.getCorrelationId() + " will be retried");
+        }
+
+        try {
+            SagaInstance saga = sagaStore.findById(sagaId).orElse(null);
+            if (saga == null) {
+                log.warn("⚠️ Reply {} for unknown or expired Saga {}", reply.getType(), sagaId);
+                return;
+            }
+            if (!saga.getPendingCommands().remove(reply.getCorrelationId())) {
+                log.debug("Ignoring duplicate reply {} for Saga {}", reply.getCorrelationId(), sagaId);
+                return;
+            }
+
+            log.info("📥 [{}] Reply for Saga {}: {}", reply.getType(), sagaId, reply.isSuccess() ? "success" : reply.getError());
+            boolean gaveUp = saga.getState().isTerminal() || saga.getState() == SagaState.COMPENSATING;
+            record(saga, reply);
+
+            if (gaveUp) {
+                compensateLateReply(saga, reply);
+            } else if (SagaCommand.CREATE_BOOK.equals(reply.getType())) {
+                finishBook(saga, reply);
+            } else {
+                afterResolution(saga, reply);
+            }
+        } finally {
+            sagaStore.releaseLease(sagaId, owner);
+        }
+    }
+
+    /**
+     * Called by the recovery worker when a messaging saga timed out:
+     * resend the commands without a reply, or give up after max-step-retries
+     */
+    public void recover(SagaInstance saga) {
+        boolean awaiting = saga.getState() == SagaState.RESOLVING_GENRE_AND_AUTHOR
+                || saga.getState() == SagaState.CREATING_BOOK;
+        if (!awaiting) {
+            sagaOrchestrator.recover(saga);
+            return;
+        }
+
+        int retries = saga.getRetryCount() != null ? saga.getRetryCount() : 0;
+        if (retries >= maxStepRetries) {
+            log.warn("⏱️ Saga {} got no reply in state {} after {} resends", saga.getSagaId(), saga.getState(), retries);
+            sagaOrchestrator.failAndCompensate(saga, "No reply in state " + saga.getState() + " after " + retries + " resends");
+            return;
+        }
+
+        // The awaited correlation ids stay: the resend reuses them, and the first send may still reply
+        saga.incrementRetry();
+        log.warn("⏱️ Saga {} timed out in state {}, resending (attempt {})", saga.getSagaId(), saga.getState(), retries + 1);
+        send(saga, nextCommands(saga, request(saga)));
+    }
+
+    private void afterResolution(SagaInstance saga, SagaReply reply) {
+        if (!reply.isSuccess()) {
+            boolean genre = SagaCommand.RESOLVE_GENRE.equals(reply.getType());
+            saga.setState(genre ? SagaState.GENRE_CREATION_FAILED : SagaState.AUTHOR_CREATION_FAILED);
+            saga.setErrorMessage("Failed to create " + (genre ? "genre: " : "author: ") + reply.getError());
+        }
+
+        if (!saga.getPendingCommands().isEmpty()) {
+            // Wait for the other branch, so whatever it creates is recorded before compensating
+            sagaStore.save(saga, stepTimeoutMs);
+            return;
+        }
+
+        if (saga.getState() == SagaState.GENRE_CREATION_FAILED || saga.getState() == SagaState.AUTHOR_CREATION_FAILED) {
+            sagaStore.save(saga);
+            sagaOrchestrator.failAndCompensate(saga, saga.getErrorMessage());
+            return;
+        }
+
+        send(saga, nextCommands(saga, request(saga)));
+    }
+
+    private void finishBook(SagaInstance saga, SagaReply reply) {
+        if (!reply.isSuccess()) {
+            saga.setState(SagaState.BOOK_CREATION_FAILED);
+            sagaStore.save(saga);
+            sagaOrchestrator.failAndCompensate(saga, "Failed to create book: " + reply.getError());
+            return;
+        }
+
+        saga.complete();
+        sagaStore.save(saga);
+        sagaCompletionNotifier.finished(saga.getSagaId());
+        log.info("✅ Saga completed successfully: {}", saga.getSagaId());
+    }
+
+    /**
+     * The saga already failed; undo what the late step created
+     */
+    private void compensateLateReply(SagaInstance saga, SagaReply reply) {
+        if (!reply.isSuccess() || reply.isExisting()) {
+            sagaStore.save(saga);
+            return;
+        }
+        if (SagaCommand.CREATE_BOOK.equals(reply.getType())) {
+            log.error("❌ Book created after Saga {} gave up, not compensated: {}", saga.getSagaId(), reply.getPayload());
+            sagaStore.save(saga);
+            return;
+        }
+        log.warn("🔄 {} of Saga {} created an entity after the saga gave up, compensating", reply.getType(), saga.getSagaId());
+        sagaOrchestrator.failAndCompensate(saga, saga.getErrorMessage());
+    }
+
+    /**
+     * Record the step and the entity of a reply on the saga
+     */
+    private void record(SagaInstance saga, SagaReply reply) {
+        String type = reply.getType();
+        String service = switch (type) {
+            case SagaCommand.RESOLVE_GENRE -> "genre-service";
+            case SagaCommand.RESOLVE_AUTHOR -> "author-service";
+            default -> "book-service";
+        };
+        String entity = switch (type) {
+            case SagaCommand.RESOLVE_GENRE -> "GENRE";
+            case SagaCommand.RESOLVE_AUTHOR -> "AUTHOR";
+            default -> "BOOK";
+        };
+
+        SagaStep step = reply.isSuccess()
+                ? SagaStep.success((reply.isExisting() ? "FOUND_" : "CREATE_") + entity, service,
+                        reply.isExisting() ? "FIND" : "CREATE", reply.getPayload())
+                : SagaStep.failure("CREATE_" + entity, service, "CREATE", reply.getError());
+        step.setDurationMs(Math.max(0, System.currentTimeMillis() - reply.getSentAt()));
+        saga.addStep(step);
+
+        if (!reply.isSuccess()) {
+            return;
+        }
+        switch (type) {
+            case SagaCommand.RESOLVE_GENRE -> {
+                GenreDTO genre = fromJson(reply.getPayload(), GenreDTO.class);
+                saga.setGenreId(Long.parseLong(genre.getId()));
+                saga.setGenreCreated(!reply.isExisting());
+                saga.setGenreResponse(reply.getPayload());
+                lookupCache.putGenre(genre.getGenre(), genre, lookupCache.generation());
+            }
+            case SagaCommand.RESOLVE_AUTHOR -> {
+                AuthorDTO author = fromJson(reply.getPayload(), AuthorDTO.class);
+                saga.setAuthorNumber(author.getAuthorNumber());
+                saga.setAuthorCreated(!reply.isExisting());
+                saga.setAuthorResponse(reply.getPayload());
+                lookupCache.putAuthor(author.getName(), author, lookupCache.generation());
+            }
+            default -> {
+                BookDTO book = fromJson(reply.getPayload(), BookDTO.class);
+                saga.setBookId(book.getIsbn().hashCode() * 1L); // Temporary ID since Book uses ISBN
+                saga.setBookResponse(reply.getPayload());
+            }
+        }
+    }
+
+    /**
+     * Commands still needed to move the saga on, from what it has recorded
+     */
+    private List<SagaCommand> nextCommands(SagaInstance saga, CreateBookSagaRequest request) {
+        List<SagaCommand> commands = new ArrayList<>();
+        if (saga.getGenreResponse() == null) {
+            commands.add(command(saga, SagaCommand.RESOLVE_GENRE, ":genre",
+                    new CreateGenreRequest(request.getGenre().getName())));
+        }
+        if (saga.getAuthorResponse() == null) {
+            CreateBookSagaRequest.AuthorData author = request.getAuthor();
+            commands.add(command(saga, SagaCommand.RESOLVE_AUTHOR, ":author",
+                    new CreateAuthorRequest(author.getName(), author.getBio(), author.getPhotoURI())));
+        }
+
+        if (!commands.isEmpty()) {
+            saga.setState(SagaState.RESOLVING_GENRE_AND_AUTHOR);
+            return commands;
+        }
+        saga.setState(SagaState.CREATING_BOOK);
+        return List.of(command(saga, SagaCommand.CREATE_BOOK, ":book",
+                SagaOrchestrator.toBookRequest(request.getBook(), saga.getAuthorNumber())));
+    }
+
+    /**
+     * Record the commands as awaited, then publish them
+     */
+    private void send(SagaInstance saga, List<SagaCommand> commands) {
+        commands.forEach(command -> saga.getPendingCommands().add(command.getCorrelationId()));
+        sagaStore.save(saga, stepTimeoutMs);
+
+        for (SagaCommand command : commands) {
+            rabbitTemplate.convertAndSend(RabbitMQConfig.EXCHANGE_NAME, routingKey(command.getType()), toJson(command));
+            log.info("📤 [{}] Sent for Saga {} ({})", command.getType(), saga.getSagaId(), command.getCorrelationId());
+        }
+    }
+
+    private SagaCommand command(SagaInstance saga, String type, String keySuffix, Object payload) {
+        // Same idempotency keys as the synchronous saga, so a resend never duplicates;
+        // one command per step, so the key doubles as its stable correlation id
+        String key = saga.getSagaId() + keySuffix;
+        return new SagaCommand(key, saga.getSagaId(), type, key, SagaReply.ROUTING_KEY,
+                System.currentTimeMillis(), toJson(payload));
+    }
+
+    private static String routingKey(String type) {
+        return switch (type) {
+            case SagaCommand.RESOLVE_GENRE -> SagaCommand.ROUTING_KEY_RESOLVE_GENRE;
+            case SagaCommand.RESOLVE_AUTHOR -> SagaCommand.ROUTING_KEY_RESOLVE_AUTHOR;
+            default -> SagaCommand.ROUTING_KEY_CREATE_BOOK;
+        };
+    }
+
+    private CreateBookSagaRequest request(SagaInstance saga) {
+        return fromJson(saga.getRequestPayload(), CreateBookSagaRequest.class);
+    }
+
+    private <T> T fromJson(String json, Class<T> type) {
+        try {
+            return objectMapper.readValue(json, type);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unreadable " + type.getSimpleName() + ": " + e.getOriginalMessage(), e);
+        }
+    }
+
+    private String toJson(Object obj) {
+        try {
+            return objectMapper.writeValueAsString(obj);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize " + obj.getClass().getSimpleName(), e);
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package pt.psoft.saga.service;
+
+/**
+ * A reply arrived while another reply or the recovery worker holds the saga's lease;
+ * the reply is retried after a delay
+ */
+public class SagaBusyException extends RuntimeException {
+
+    public SagaBusyException(String message) {
+        super(message);
+    }
+}
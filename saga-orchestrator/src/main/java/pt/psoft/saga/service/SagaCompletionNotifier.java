@@ -0,0 +1,47 @@
+package pt.psoft.saga.service;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-process notifications of finished sagas, used to answer long polls.
+ *
+ * Only sagas run by this instance are notified; a poller waiting on another
+ * replica falls back to reading the saga when its wait times out.
+ */
+@Component
+public class SagaCompletionNotifier {
+
+    private final Map<String, Set<CompletableFuture<Void>>> waiters = new ConcurrentHashMap<>();
+
+    /**
+     * Future completed when the saga finishes; register before reading the
+     * saga state so a completion in between is not missed
+     */
+    public CompletableFuture<Void> register(String sagaId) {
+        CompletableFuture<Void> finished = new CompletableFuture<>();
+        waiters.computeIfAbsent(sagaId, id -> ConcurrentHashMap.newKeySet()).add(finished);
+        return finished;
+    }
+
+    public void unregister(String sagaId, CompletableFuture<Void> finished) {
+        waiters.computeIfPresent(sagaId, (id, futures) -> {
+            futures.remove(finished);
+            return futures.isEmpty() ? null : futures;
+        });
+    }
+
+    /**
+     * Wake everyone waiting on the saga
+     */
+    public void finished(String sagaId) {
+        Set<CompletableFuture<Void>> futures = waiters.remove(sagaId);
+        if (futures != null) {
+            futures.forEach(future -> future.complete(null));
+        }
+    }
+}
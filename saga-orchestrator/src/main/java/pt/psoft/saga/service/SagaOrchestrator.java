@@ -2,26 +2,34 @@ package pt.psoft.saga.service;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import lombok.RequiredArgsConstructor;
+import feign.FeignException;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import pt.psoft.saga.client.AuthorServiceClient;
 import pt.psoft.saga.client.BookServiceClient;
 import pt.psoft.saga.client.GenreServiceClient;
 import pt.psoft.saga.dto.CreateBookSagaRequest;
 import pt.psoft.saga.dto.CreateBookSagaResponse;
+import pt.psoft.saga.metrics.SagaMetrics;
 import pt.psoft.saga.model.SagaInstance;
 import pt.psoft.saga.model.SagaState;
 import pt.psoft.saga.model.SagaStep;
-import pt.psoft.saga.repository.SagaRepository;
+import pt.psoft.saga.repository.SagaStore;
 import pt.psoft.shared.dto.author.AuthorDTO;
-import pt.psoft.shared.dto.author.CreateAuthorRequest;
 import pt.psoft.shared.dto.book.BookDTO;
 import pt.psoft.shared.dto.book.CreateBookRequest;
-import pt.psoft.shared.dto.genre.CreateGenreRequest;
 import pt.psoft.shared.dto.genre.GenreDTO;
 
+import java.time.Duration;
 import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Saga Orchestrator - Coordinates distributed transactions
@@ -29,17 +37,55 @@ import java.util.List;
  * Orchestrates the creation of Book + Author + Genre across 3 microservices
  * Implements compensation logic for rollback on failures
  * Uses shared-kernel DTOs for service communication
+ *
+ * A run holds the saga's lease in the SagaStore from start to end and renews
+ * it, together with the saga's deadline, every third of saga.run.lease-ms.
+ * The recovery worker therefore only sees a saga once its run has stopped,
+ * on this replica or any other.
  */
 @Service
-@RequiredArgsConstructor
 @Slf4j
 public class SagaOrchestrator {
 
-    private final SagaRepository sagaRepository;
+    private final SagaStore sagaStore;
     private final GenreServiceClient genreServiceClient;
     private final AuthorServiceClient authorServiceClient;
     private final BookServiceClient bookServiceClient;
+    private final CatalogResolver catalogResolver;
     private final ObjectMapper objectMapper;
+    private final ExecutorService sagaStepExecutor;
+    private final SagaCompletionNotifier sagaCompletionNotifier;
+    private final SagaMetrics sagaMetrics;
+    private final ScheduledExecutorService sagaHeartbeatScheduler;
+    private final Duration runLease;
+    private final int maxCompensationRetries;
+    private final String runOwner = "run:" + UUID.randomUUID();
+
+    public SagaOrchestrator(SagaStore sagaStore,
+                            GenreServiceClient genreServiceClient,
+                            AuthorServiceClient authorServiceClient,
+                            BookServiceClient bookServiceClient,
+                            CatalogResolver catalogResolver,
+                            ObjectMapper objectMapper,
+                            @Qualifier("sagaStepExecutor") ExecutorService sagaStepExecutor,
+                            SagaCompletionNotifier sagaCompletionNotifier,
+                            SagaMetrics sagaMetrics,
+                            @Qualifier("sagaHeartbeatScheduler") ScheduledExecutorService sagaHeartbeatScheduler,
+                            @Value("${saga.run.lease-ms:30000}") long runLeaseMs,
+                            @Value("${saga.compensation.max-retries:3}") int maxCompensationRetries) {
+        this.sagaStore = sagaStore;
+        this.genreServiceClient = genreServiceClient;
+        this.authorServiceClient = authorServiceClient;
+        this.bookServiceClient = bookServiceClient;
+        this.catalogResolver = catalogResolver;
+        this.objectMapper = objectMapper;
+        this.sagaStepExecutor = sagaStepExecutor;
+        this.sagaCompletionNotifier = sagaCompletionNotifier;
+        this.sagaMetrics = sagaMetrics;
+        this.sagaHeartbeatScheduler = sagaHeartbeatScheduler;
+        this.runLease = Duration.ofMillis(runLeaseMs);
+        this.maxCompensationRetries = maxCompensationRetries;
+    }
 
     /**
      * Execute Saga for Book creation
@@ -47,148 +93,228 @@ public class SagaOrchestrator {
     public CreateBookSagaResponse createBook(CreateBookSagaRequest request) {
         log.info("🎯 Starting Saga for Book creation: {}", request.getBook().getTitle());
 
-        // Create and save saga instance
+        return runSaga(startSaga(request), request);
+    }
+
+    /**
+     * Create and save the saga instance of a request, in state STARTED
+     */
+    public SagaInstance startSaga(CreateBookSagaRequest request) {
         SagaInstance saga = createSagaInstance(request);
-        saga = sagaRepository.save(saga);
+        return sagaStore.save(saga);
+    }
 
-        try {
-            // STEP 1: Create Genre
-            saga = executeGenreCreation(saga, request.getGenre());
+    /**
+     * Create and save the saga instance of a request queued for a background run,
+     * which is resumed by recovery if it has not started by runBy (epoch ms)
+     */
+    public SagaInstance acceptSaga(CreateBookSagaRequest request, long runBy) {
+        SagaInstance saga = createSagaInstance(request);
+        return sagaStore.saveAccepted(saga, runBy);
+    }
+
+    /**
+     * The request a saga was created from
+     */
+    public CreateBookSagaRequest requestOf(SagaInstance saga) throws JsonProcessingException {
+        return objectMapper.readValue(saga.getRequestPayload(), CreateBookSagaRequest.class);
+    }
+
+    /**
+     * Run the steps of a started saga.
+     * Throws after compensating when a step fails, and without running when the
+     * saga is no longer STARTED or another run or recovery holds it.
+     */
+    public CreateBookSagaResponse runSaga(SagaInstance saga, CreateBookSagaRequest request) {
+        String sagaId = saga.getSagaId();
+        if (!sagaStore.acquireLease(sagaId, runOwner, runLease)) {
+            throw new IllegalStateException("Saga " + sagaId + " is held by another run or a recovery");
+        }
+        SagaState current = sagaStore.findState(sagaId).orElse(null);
+        if (current != SagaState.STARTED) {
+            // Run or recovered elsewhere since it was queued; the queued instance is stale
+            sagaStore.releaseLease(sagaId, runOwner);
+            throw new IllegalStateException("Saga " + sagaId + " is " + current + ", not running it again");
+        }
 
-            // STEP 2: Create Author
-            saga = executeAuthorCreation(saga, request.getAuthor());
+        long period = Math.max(1, runLease.toMillis() / 3);
+        ScheduledFuture<?> heartbeat = sagaHeartbeatScheduler.scheduleAtFixedRate(
+                () -> renewLease(sagaId), period, period, TimeUnit.MILLISECONDS);
+
+        try {
+            // STEPS 1 + 2: Create Genre and Author (independent, run concurrently)
+            saga = executeGenreAndAuthorResolution(saga, request.getGenre(), request.getAuthor());
 
             // STEP 3: Create Book
             saga = executeBookCreation(saga, request.getBook(), saga.getGenreId());
 
             // Complete saga
             saga.complete();
-            saga = sagaRepository.save(saga);
+            saga = sagaStore.save(saga);
 
             log.info("✅ Saga completed successfully: {}", saga.getSagaId());
             return buildSuccessResponse(saga);
 
         } catch (Exception e) {
             log.error("❌ Saga failed: {}. Starting compensation...", saga.getSagaId(), e);
+            // FAILED is final only for sagas that need no compensation,
+            // so it is persisted together with COMPENSATING
             saga.fail(e.getMessage());
-            saga = sagaRepository.save(saga);
 
             // Execute compensation
             compensate(saga);
 
             throw new RuntimeException("Saga failed: " + e.getMessage(), e);
+
+        } finally {
+            heartbeat.cancel(false);
+            sagaStore.releaseLease(sagaId, runOwner);
+            sagaCompletionNotifier.finished(sagaId);
+        }
+    }
+
+    private void renewLease(String sagaId) {
+        try {
+            if (!sagaStore.heartbeat(sagaId, runOwner, runLease)) {
+                log.error("❌ Saga {} lost its lease while running", sagaId);
+            }
+        } catch (Exception e) {
+            // Retried on the next beat; a failure must not cancel the schedule
+            log.warn("Could not renew the lease of Saga {}: {}", sagaId, e.getMessage());
         }
     }
 
     /**
-     * STEP 1: Create Genre (or use existing)
+     * Finish a saga whose run was abandoned (crash, or no progress within
+     * saga.timeout). The caller holds the saga's lease. Safe to repeat:
+     * - STARTED was never run and is left to its queued run (or to the accepted index)
+     * - BOOK_CREATED is completed
+     * - CREATING_BOOK is resumed by creating the book
+     * - any other in-flight state is compensated, deleting only what the saga
+     *   recorded as created (already deleted entities count as compensated)
      */
-    private SagaInstance executeGenreCreation(SagaInstance saga, CreateBookSagaRequest.GenreData genreData) {
-        log.info("📝 [STEP 1] Creating/Finding Genre: {}", genreData.getName());
+    public void recover(SagaInstance saga) {
+        String sagaId = saga.getSagaId();
+        if (saga.getState().isTerminal() || saga.getState() == SagaState.STARTED) {
+            sagaStore.removeFromRecoveryIndex(sagaId);
+            return;
+        }
 
-        saga.setState(SagaState.CREATING_GENRE);
-        saga = sagaRepository.save(saga);
+        log.warn("🩹 Recovering Saga {} abandoned in state {}", sagaId, saga.getState());
+        saga.incrementRetry();
 
         try {
-            GenreDTO genreResponse;
-            boolean isExisting = false;
-
-            // First, try to find existing genre
-            try {
-                genreResponse = genreServiceClient.findByName(genreData.getName());
-                if (genreResponse != null) {
-                    log.info("📌 [STEP 1] Genre already exists: {}", genreData.getName());
-                    isExisting = true;
+            switch (saga.getState()) {
+                case BOOK_CREATED -> {
+                    saga.complete();
+                    sagaStore.save(saga);
+                    log.info("✅ Recovered Saga completed: {}", sagaId);
+                }
+                case CREATING_BOOK -> resumeBookCreation(saga);
+                default -> {
+                    if (saga.getState() != SagaState.COMPENSATING) {
+                        saga.fail("Saga abandoned in state " + saga.getState());
+                    }
+                    compensate(saga);
                 }
-            } catch (Exception e) {
-                // Genre not found, will create new one
-                genreResponse = null;
-            }
-
-            // Create new genre if not found
-            if (genreResponse == null) {
-                CreateGenreRequest genreRequest = new CreateGenreRequest(genreData.getName());
-                genreResponse = genreServiceClient.createGenre(genreRequest);
-                log.info("✅ [STEP 1] Genre created: ID={}", genreResponse.getId());
             }
+        } finally {
+            sagaCompletionNotifier.finished(sagaId);
+        }
+    }
 
-            saga.setGenreId(Long.parseLong(genreResponse.getId()));
-            saga.setGenreResponse(toJson(genreResponse));
-            saga.setState(SagaState.GENRE_CREATED);
-            saga.addStep(SagaStep.success(isExisting ? "FOUND_GENRE" : "CREATE_GENRE", "genre-service",
-                    isExisting ? "FIND" : "CREATE", toJson(genreResponse)));
-            saga = sagaRepository.save(saga);
-
-            return saga;
-
+    /**
+     * STEP 3 again for a recovered saga; the book request is rebuilt from the payload
+     */
+    private void resumeBookCreation(SagaInstance saga) {
+        try {
+            CreateBookSagaRequest request = requestOf(saga);
+            saga = executeBookCreation(saga, request.getBook(), saga.getGenreId());
+            saga.complete();
+            sagaStore.save(saga);
+            log.info("✅ Recovered Saga completed: {}", saga.getSagaId());
         } catch (Exception e) {
-            log.error("❌ [STEP 1] Genre creation failed", e);
-            saga.setState(SagaState.GENRE_CREATION_FAILED);
-            saga.addStep(SagaStep.failure("CREATE_GENRE", "genre-service", "CREATE", e.getMessage()));
-            sagaRepository.save(saga);
-            throw new RuntimeException("Failed to create genre: " + e.getMessage(), e);
+            log.error("❌ Recovered Saga failed: {}. Starting compensation...", saga.getSagaId(), e);
+            saga.fail(e.getMessage());
+            compensate(saga);
         }
     }
 
     /**
-     * STEP 2: Create Author (or use existing)
+     * Fail a started saga that could not be run; nothing was created yet
      */
-    private SagaInstance executeAuthorCreation(SagaInstance saga, CreateBookSagaRequest.AuthorData authorData) {
-        log.info("📝 [STEP 2] Creating/Finding Author: {}", authorData.getName());
-
-        saga.setState(SagaState.CREATING_AUTHOR);
-        saga = sagaRepository.save(saga);
+    public void rejectSaga(SagaInstance saga, String reason) {
+        saga.fail(reason);
+        sagaStore.save(saga);
+        sagaCompletionNotifier.finished(saga.getSagaId());
+    }
 
-        try {
-            AuthorDTO authorResponse = null;
-            boolean isExisting = false;
-
-            // First, try to find existing author by name
-            try {
-                List<AuthorDTO> existingAuthors = authorServiceClient.findByName(authorData.getName());
-                if (existingAuthors != null && !existingAuthors.isEmpty()) {
-                    // Find exact match
-                    for (AuthorDTO author : existingAuthors) {
-                        if (author.getName().equalsIgnoreCase(authorData.getName())) {
-                            authorResponse = author;
-                            isExisting = true;
-                            log.info("📌 [STEP 2] Author already exists: {}", authorData.getName());
-                            break;
-                        }
-                    }
-                }
-            } catch (Exception e) {
-                // Author not found, will create new one
-                authorResponse = null;
+    /**
+     * STEPS 1 + 2: Resolve Genre and Author concurrently.
+     *
+     * The two steps are independent, so each runs on its own virtual thread and
+     * the saga waits for both before the book is created. Both branches always
+     * run to completion, so whatever one of them created is recorded (and later
+     * compensated) even when the other fails. The branches do not touch the
+     * saga instance; their outcomes are applied here, on the calling thread.
+     */
+    private SagaInstance executeGenreAndAuthorResolution(SagaInstance saga,
+                                                         CreateBookSagaRequest.GenreData genreData,
+                                                         CreateBookSagaRequest.AuthorData authorData) {
+        log.info("📝 [STEP 1+2] Resolving Genre '{}' and Author '{}' concurrently",
+                genreData.getName(), authorData.getName());
+
+        saga.setState(SagaState.RESOLVING_GENRE_AND_AUTHOR);
+        saga = sagaStore.save(saga);
+        String sagaId = saga.getSagaId();
+
+        // A created entity is recorded at once, so a crash before the join cannot leak it
+        CompletableFuture<StepOutcome<GenreDTO>> genreFuture = CompletableFuture.supplyAsync(() -> {
+            StepOutcome<GenreDTO> outcome = catalogResolver.resolveGenre(genreData, sagaId + ":genre");
+            if (outcome.succeeded() && !outcome.existing()) {
+                sagaStore.markGenreCreated(sagaId, Long.parseLong(outcome.value().getId()));
             }
-
-            // Create new author if not found
-            if (authorResponse == null) {
-                CreateAuthorRequest authorRequest = new CreateAuthorRequest(
-                        authorData.getName(),
-                        authorData.getBio(),
-                        authorData.getPhotoURI()
-                );
-                authorResponse = authorServiceClient.createAuthor(authorRequest);
-                log.info("✅ [STEP 2] Author created: authorNumber={}", authorResponse.getAuthorNumber());
+            return outcome;
+        }, sagaStepExecutor);
+        CompletableFuture<StepOutcome<AuthorDTO>> authorFuture = CompletableFuture.supplyAsync(() -> {
+            StepOutcome<AuthorDTO> outcome = catalogResolver.resolveAuthor(authorData, sagaId + ":author");
+            if (outcome.succeeded() && !outcome.existing()) {
+                sagaStore.markAuthorCreated(sagaId, outcome.value().getAuthorNumber());
             }
+            return outcome;
+        }, sagaStepExecutor);
 
-            saga.setAuthorNumber(authorResponse.getAuthorNumber());
-            saga.setAuthorResponse(toJson(authorResponse));
-            saga.setState(SagaState.AUTHOR_CREATED);
-            saga.addStep(SagaStep.success(isExisting ? "FOUND_AUTHOR" : "CREATE_AUTHOR", "author-service",
-                    isExisting ? "FIND" : "CREATE", toJson(authorResponse)));
-            saga = sagaRepository.save(saga);
+        StepOutcome<GenreDTO> genre = genreFuture.join();
+        StepOutcome<AuthorDTO> author = authorFuture.join();
 
-            return saga;
+        saga.addStep(genre.step());
+        saga.addStep(author.step());
 
-        } catch (Exception e) {
-            log.error("❌ [STEP 2] Author creation failed", e);
+        if (genre.succeeded()) {
+            saga.setGenreId(Long.parseLong(genre.value().getId()));
+            saga.setGenreCreated(!genre.existing());
+            saga.setGenreResponse(toJson(genre.value()));
+        }
+        if (author.succeeded()) {
+            saga.setAuthorNumber(author.value().getAuthorNumber());
+            saga.setAuthorCreated(!author.existing());
+            saga.setAuthorResponse(toJson(author.value()));
+        }
+
+        if (!genre.succeeded()) {
+            saga.setState(SagaState.GENRE_CREATION_FAILED);
+            sagaStore.save(saga);
+            throw new RuntimeException("Failed to create genre: " + genre.error().getMessage(), genre.error());
+        }
+        if (!author.succeeded()) {
             saga.setState(SagaState.AUTHOR_CREATION_FAILED);
-            saga.addStep(SagaStep.failure("CREATE_AUTHOR", "author-service", "CREATE", e.getMessage()));
-            sagaRepository.save(saga);
-            throw new RuntimeException("Failed to create author: " + e.getMessage(), e);
+            sagaStore.save(saga);
+            throw new RuntimeException("Failed to create author: " + author.error().getMessage(), author.error());
         }
+
+        // Persisted together with CREATING_BOOK, before the book call
+        saga.setState(SagaState.GENRE_AND_AUTHOR_RESOLVED);
+        return saga;
     }
 
     /**
@@ -198,26 +324,20 @@ public class SagaOrchestrator {
         log.info("📝 [STEP 3] Creating Book: {}", bookData.getTitle());
 
         saga.setState(SagaState.CREATING_BOOK);
-        saga = sagaRepository.save(saga);
+        saga = sagaStore.save(saga);
+        long started = System.nanoTime();
 
         try {
-            // Note: Genre is passed by NAME in CreateBookRequest (from uploaded file)
-            // But we need to map genreId to genre name - for now using the original genre name
-            CreateBookRequest bookRequest = new CreateBookRequest(
-                    bookData.getTitle(),
-                    bookData.getDescription(),
-                    bookData.getGenreName(), // Use genre name from request
-                    List.of(saga.getAuthorNumber()), // Single author for now
-                    bookData.getPhotoURI()
-            );
-
-            BookDTO bookResponse = bookServiceClient.createBook(bookRequest);
+            CreateBookRequest bookRequest = toBookRequest(bookData, saga.getAuthorNumber());
+
+            // Same key on retries and on recovery, so the book is created at most once
+            BookDTO bookResponse = bookServiceClient.createBook(saga.getSagaId() + ":book", bookRequest);
 
             saga.setBookId(bookResponse.getIsbn().hashCode() * 1L); // Temporary ID since Book uses ISBN
             saga.setBookResponse(toJson(bookResponse));
             saga.setState(SagaState.BOOK_CREATED);
-            saga.addStep(SagaStep.success("CREATE_BOOK", "book-service", "CREATE", toJson(bookResponse)));
-            saga = sagaRepository.save(saga);
+            saga.addStep(SagaStep.success("CREATE_BOOK", "book-service", "CREATE", toJson(bookResponse)).took(started));
+            saga = sagaStore.save(saga);
 
             log.info("✅ [STEP 3] Book created: ISBN={}", bookResponse.getIsbn());
             return saga;
@@ -225,8 +345,8 @@ public class SagaOrchestrator {
         } catch (Exception e) {
             log.error("❌ [STEP 3] Book creation failed", e);
             saga.setState(SagaState.BOOK_CREATION_FAILED);
-            saga.addStep(SagaStep.failure("CREATE_BOOK", "book-service", "CREATE", e.getMessage()));
-            sagaRepository.save(saga);
+            saga.addStep(SagaStep.failure("CREATE_BOOK", "book-service", "CREATE", e.getMessage()).took(started));
+            sagaStore.save(saga);
             throw new RuntimeException("Failed to create book: " + e.getMessage(), e);
         }
     }
@@ -236,32 +356,36 @@ public class SagaOrchestrator {
      */
     private void compensate(SagaInstance saga) {
         log.warn("🔄 Starting compensation for Saga: {}", saga.getSagaId());
+        sagaMetrics.compensationStarted(SagaMetrics.BOOK);
 
         saga.startCompensation();
-        saga = sagaRepository.save(saga);
+        saga = sagaStore.save(saga);
 
         try {
             // Compensate in REVERSE order: Book → Author → Genre
 
-            // Only compensate if the step succeeded
-            if (saga.getAuthorNumber() != null) {
+            // Only compensate what this saga created; found entities belong to others
+            if (saga.isAuthorCreated()) {
                 compensateAuthor(saga);
             }
 
-            if (saga.getGenreId() != null) {
+            if (saga.isGenreCreated()) {
                 compensateGenre(saga);
             }
 
             saga.compensated();
-            saga = sagaRepository.save(saga);
+            saga = sagaStore.save(saga);
 
             log.info("✅ Compensation completed for Saga: {}", saga.getSagaId());
 
         } catch (Exception e) {
             log.error("❌ Compensation failed for Saga: {}", saga.getSagaId(), e);
-            saga.setState(SagaState.COMPENSATION_FAILED);
+            sagaMetrics.compensationFailed(SagaMetrics.BOOK);
+            // Left in COMPENSATING, the recovery worker retries it after saga.timeout
+            int retries = saga.getRetryCount() != null ? saga.getRetryCount() : 0;
+            saga.setState(retries < maxCompensationRetries ? SagaState.COMPENSATING : SagaState.COMPENSATION_FAILED);
             saga.setErrorMessage("Compensation failed: " + e.getMessage());
-            sagaRepository.save(saga);
+            sagaStore.save(saga);
         }
     }
 
@@ -271,13 +395,20 @@ public class SagaOrchestrator {
     private void compensateGenre(SagaInstance saga) {
         log.info("🔄 [COMPENSATE] Deleting Genre: ID={}", saga.getGenreId());
 
+        long started = System.nanoTime();
+        catalogResolver.forgetGenre(saga.getGenreId());
         try {
             genreServiceClient.deleteGenre(saga.getGenreId());
-            saga.addStep(SagaStep.success("COMPENSATE_GENRE", "genre-service", "DELETE", "Genre deleted"));
+            saga.addStep(SagaStep.success("COMPENSATE_GENRE", "genre-service", "DELETE", "Genre deleted").took(started));
+            saga.setGenreCreated(false);
             log.info("✅ [COMPENSATE] Genre deleted: ID={}", saga.getGenreId());
+        } catch (FeignException.NotFound e) {
+            // Deleted by an earlier attempt
+            saga.addStep(SagaStep.success("COMPENSATE_GENRE", "genre-service", "DELETE", "Genre already deleted").took(started));
+            saga.setGenreCreated(false);
         } catch (Exception e) {
             log.error("❌ [COMPENSATE] Failed to delete Genre: ID={}", saga.getGenreId(), e);
-            saga.addStep(SagaStep.failure("COMPENSATE_GENRE", "genre-service", "DELETE", e.getMessage()));
+            saga.addStep(SagaStep.failure("COMPENSATE_GENRE", "genre-service", "DELETE", e.getMessage()).took(started));
             throw e;
         }
     }
@@ -288,13 +419,20 @@ public class SagaOrchestrator {
     private void compensateAuthor(SagaInstance saga) {
         log.info("🔄 [COMPENSATE] Deleting Author: authorNumber={}", saga.getAuthorNumber());
 
+        long started = System.nanoTime();
+        catalogResolver.forgetAuthor(saga.getAuthorNumber());
         try {
             authorServiceClient.deleteAuthor(saga.getAuthorNumber());
-            saga.addStep(SagaStep.success("COMPENSATE_AUTHOR", "author-service", "DELETE", "Author deleted"));
+            saga.addStep(SagaStep.success("COMPENSATE_AUTHOR", "author-service", "DELETE", "Author deleted").took(started));
+            saga.setAuthorCreated(false);
             log.info("✅ [COMPENSATE] Author deleted: authorNumber={}", saga.getAuthorNumber());
+        } catch (FeignException.NotFound e) {
+            // Deleted by an earlier attempt
+            saga.addStep(SagaStep.success("COMPENSATE_AUTHOR", "author-service", "DELETE", "Author already deleted").took(started));
+            saga.setAuthorCreated(false);
         } catch (Exception e) {
             log.error("❌ [COMPENSATE] Failed to delete Author: authorNumber={}", saga.getAuthorNumber(), e);
-            saga.addStep(SagaStep.failure("COMPENSATE_AUTHOR", "author-service", "DELETE", e.getMessage()));
+            saga.addStep(SagaStep.failure("COMPENSATE_AUTHOR", "author-service", "DELETE", e.getMessage()).took(started));
             throw e;
         }
     }
@@ -303,14 +441,37 @@ public class SagaOrchestrator {
      * Get Saga status
      */
     public CreateBookSagaResponse getSagaStatus(String sagaId) {
-        SagaInstance saga = sagaRepository.findBySagaId(sagaId)
+        SagaInstance saga = sagaStore.findById(sagaId)
                 .orElseThrow(() -> new RuntimeException("Saga not found: " + sagaId));
 
         return buildSuccessResponse(saga);
     }
 
+    /**
+     * Fail a saga whose steps ran elsewhere (messaging mode) and compensate what it created
+     */
+    public void failAndCompensate(SagaInstance saga, String reason) {
+        if (saga.getState() != SagaState.COMPENSATING) {
+            saga.fail(reason);
+        }
+        compensate(saga);
+        sagaCompletionNotifier.finished(saga.getSagaId());
+    }
+
     // Helper methods
 
+    static CreateBookRequest toBookRequest(CreateBookSagaRequest.BookData bookData, Long authorNumber) {
+        // Note: Genre is passed by NAME in CreateBookRequest (from uploaded file)
+        // But we need to map genreId to genre name - for now using the original genre name
+        return new CreateBookRequest(
+                bookData.getTitle(),
+                bookData.getDescription(),
+                bookData.getGenreName(), // Use genre name from request
+                List.of(authorNumber), // Single author for now
+                bookData.getPhotoURI()
+        );
+    }
+
     private SagaInstance createSagaInstance(CreateBookSagaRequest request) {
         try {
             return SagaInstance.create(objectMapper.writeValueAsString(request));
@@ -327,7 +488,7 @@ public class SagaOrchestrator {
         }
     }
 
-    private CreateBookSagaResponse buildSuccessResponse(SagaInstance saga) {
+    CreateBookSagaResponse buildSuccessResponse(SagaInstance saga) {
         try {
             CreateBookSagaResponse.GenreResponse genreResp = null;
             CreateBookSagaResponse.AuthorResponse authorResp = null;
@@ -377,4 +538,4 @@ public class SagaOrchestrator {
             throw new RuntimeException("Failed to build response", e);
         }
     }
-}
\ No newline at end of file
+}
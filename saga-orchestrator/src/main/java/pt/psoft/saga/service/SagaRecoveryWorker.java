@@ -0,0 +1,158 @@
+package pt.psoft.saga.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import pt.psoft.saga.model.SagaInstance;
+import pt.psoft.saga.model.SagaState;
+import pt.psoft.saga.repository.ImportRunStore;
+import pt.psoft.saga.repository.SagaStore;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Finishes sagas abandoned by a crashed or stuck orchestrator.
+ *
+ * Sagas whose deadline in the in-flight index has passed are read with a
+ * range query (cost proportional to the expired sagas, not to all sagas).
+ * Each is recovered under its lease, so with several replicas only one acts
+ * on a saga, and never on one that is still running: a run holds the same
+ * lease. SagaOrchestrator.recover is safe to repeat if a lease expires
+ * mid-recovery. Sagas run in messaging mode go to MessagingSagaOrchestrator,
+ * which resends the commands whose replies are overdue.
+ *
+ * Sagas accepted for a background run that never started (their queue was
+ * lost) are queued again with AsyncSagaService.resume; SagaOrchestrator.runSaga
+ * takes the lease and runs only a saga that is still STARTED.
+ *
+ * Bulk imports have their own in-flight index; an abandoned one is queued
+ * again with CatalogImportService.resume, which continues from its saved rows.
+ */
+@Component
+@Slf4j
+public class SagaRecoveryWorker {
+
+    private final SagaStore sagaStore;
+    private final SagaOrchestrator sagaOrchestrator;
+    private final MessagingSagaOrchestrator messagingSagaOrchestrator;
+    private final ImportRunStore importRunStore;
+    private final CatalogImportService catalogImportService;
+    private final AsyncSagaService asyncSagaService;
+    private final boolean enabled;
+    private final int batchSize;
+    private final Duration leaseDuration;
+    private final String owner = UUID.randomUUID().toString();
+
+    public SagaRecoveryWorker(SagaStore sagaStore,
+                              SagaOrchestrator sagaOrchestrator,
+                              MessagingSagaOrchestrator messagingSagaOrchestrator,
+                              ImportRunStore importRunStore,
+                              CatalogImportService catalogImportService,
+                              AsyncSagaService asyncSagaService,
+                              @Value("${saga.recovery.enabled:true}") boolean enabled,
+                              @Value("${saga.recovery.batch-size:100}") int batchSize,
+                              @Value("${saga.recovery.lease-ms:120000}") long leaseMs) {
+        this.sagaStore = sagaStore;
+        this.sagaOrchestrator = sagaOrchestrator;
+        this.messagingSagaOrchestrator = messagingSagaOrchestrator;
+        this.importRunStore = importRunStore;
+        this.catalogImportService = catalogImportService;
+        this.asyncSagaService = asyncSagaService;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.leaseDuration = Duration.ofMillis(leaseMs);
+    }
+
+    @Scheduled(fixedDelayString = "${saga.recovery.interval-ms:15000}",
+            initialDelayString = "${saga.recovery.initial-delay-ms:30000}")
+    public void recoverAbandonedSagas() {
+        if (!enabled) {
+            return;
+        }
+
+        List<String> abandoned = sagaStore.findAbandoned(System.currentTimeMillis(), batchSize);
+        if (abandoned.isEmpty()) {
+            return;
+        }
+        log.info("🩹 Found {} abandoned sagas", abandoned.size());
+
+        for (String sagaId : abandoned) {
+            // A running saga's lease is held and renewed by its run
+            if (!sagaStore.acquireLease(sagaId, owner, leaseDuration)) {
+                continue;
+            }
+            try {
+                sagaStore.findById(sagaId).ifPresentOrElse(
+                        saga -> {
+                            if (saga.isMessaging()) {
+                                messagingSagaOrchestrator.recover(saga);
+                            } else {
+                                sagaOrchestrator.recover(saga);
+                            }
+                        },
+                        // Expired with its TTL
+                        () -> sagaStore.removeFromRecoveryIndex(sagaId));
+            } catch (Exception e) {
+                log.error("❌ Recovery of Saga {} failed", sagaId, e);
+            } finally {
+                sagaStore.releaseLease(sagaId, owner);
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${saga.recovery.interval-ms:15000}",
+            initialDelayString = "${saga.recovery.initial-delay-ms:30000}")
+    public void resumeAcceptedSagas() {
+        if (!enabled) {
+            return;
+        }
+
+        List<String> overdue = sagaStore.findOverdueAccepted(System.currentTimeMillis(), batchSize);
+        if (overdue.isEmpty()) {
+            return;
+        }
+        log.info("🩹 Found {} accepted sagas that never started", overdue.size());
+
+        for (String sagaId : overdue) {
+            try {
+                Optional<SagaInstance> saga = sagaStore.findById(sagaId);
+                if (saga.isEmpty() || saga.get().getState() != SagaState.STARTED) {
+                    // Expired with its TTL, or run since
+                    sagaStore.removeFromAcceptedIndex(sagaId);
+                } else if (!asyncSagaService.resume(saga.get())) {
+                    // Pool saturated: the rest would be rejected too
+                    break;
+                }
+            } catch (Exception e) {
+                log.error("❌ Resuming accepted Saga {} failed", sagaId, e);
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${saga.recovery.interval-ms:15000}",
+            initialDelayString = "${saga.recovery.initial-delay-ms:30000}")
+    public void recoverAbandonedImports() {
+        if (!enabled) {
+            return;
+        }
+
+        List<String> abandoned = importRunStore.findAbandoned(System.currentTimeMillis(), batchSize);
+        if (abandoned.isEmpty()) {
+            return;
+        }
+        log.info("🩹 Found {} abandoned imports", abandoned.size());
+
+        for (String importId : abandoned) {
+            try {
+                // The resumed run takes the import's lease, so a live run is left alone
+                catalogImportService.resume(importId);
+            } catch (Exception e) {
+                log.error("❌ Recovery of Import {} failed", importId, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package pt.psoft.saga.service;
+
+import pt.psoft.saga.model.SagaStep;
+
+/**
+ * Result of a step run off the saga thread: the value, or the step's failure
+ */
+record StepOutcome<T>(T value, boolean existing, SagaStep step, Exception error) {
+
+    static <T> StepOutcome<T> success(T value, boolean existing, SagaStep step) {
+        return new StepOutcome<>(value, existing, step, null);
+    }
+
+    static <T> StepOutcome<T> failure(SagaStep step, Exception error) {
+        return new StepOutcome<>(null, false, step, error);
+    }
+
+    boolean succeeded() {
+        return error == null;
+    }
+}
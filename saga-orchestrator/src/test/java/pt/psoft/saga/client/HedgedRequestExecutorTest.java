@@ -0,0 +1,81 @@
+package pt.psoft.saga.client;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for HedgedRequestExecutor
+ */
+@DisplayName("HedgedRequestExecutor Tests")
+class HedgedRequestExecutorTest {
+
+    private ExecutorService executor;
+    private SimpleMeterRegistry meterRegistry;
+    private HedgedRequestExecutor hedgedRequestExecutor;
+
+    @BeforeEach
+    void setUp() {
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        meterRegistry = new SimpleMeterRegistry();
+        // Too few samples for a percentile, so requests are hedged after max-delay (50 ms)
+        hedgedRequestExecutor = new HedgedRequestExecutor(executor, meterRegistry, true, 0.95, 50, 10, 50);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("Should answer with the hedged request when the first one is slow")
+    void shouldAnswerWithHedgeWhenFirstIsSlow() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        long started = System.nanoTime();
+        String result = hedgedRequestExecutor.get("genre-service", "findByName", () -> {
+            if (attempts.incrementAndGet() == 1) {
+                sleep(5000);
+                return "slow";
+            }
+            return "fast";
+        });
+
+        assertEquals("fast", result);
+        assertTrue(System.nanoTime() - started < 2_000_000_000L);
+        assertEquals(1.0, meterRegistry.get("saga.client.hedges.won").counter().count());
+    }
+
+    @Test
+    @DisplayName("Should rethrow the request's exception when both attempts fail")
+    void shouldRethrowWhenBothAttemptsFail() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () ->
+                hedgedRequestExecutor.get("author-service", "findByExactName", () -> {
+                    if (attempts.incrementAndGet() == 1) {
+                        sleep(200);
+                    }
+                    throw new IllegalArgumentException("404");
+                }));
+
+        assertEquals("404", exception.getMessage());
+        assertEquals(2, attempts.get());
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
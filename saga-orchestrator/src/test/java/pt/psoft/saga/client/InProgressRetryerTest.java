@@ -0,0 +1,65 @@
+package pt.psoft.saga.client;
+
+import feign.FeignException;
+import feign.Request;
+import feign.Response;
+import feign.RetryableException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import pt.psoft.shared.web.IdempotencyFilter;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for InProgressRetryer
+ */
+@DisplayName("InProgressRetryer Tests")
+class InProgressRetryerTest {
+
+    private static final Request REQUEST = Request.create(Request.HttpMethod.POST, "http://genre-service/api/genres",
+            Map.of(), new byte[0], StandardCharsets.UTF_8, null);
+
+    @Test
+    @DisplayName("Should make only the in-progress 409 retryable")
+    void shouldDecodeInProgressConflictAsRetryable() {
+        InProgressRetryer.Decoder decoder = new InProgressRetryer.Decoder();
+
+        Exception inProgress = decoder.decode("createGenre", response(Map.of(IdempotencyFilter.IN_PROGRESS_HEADER, List.of("true"))));
+        Exception conflict = decoder.decode("createGenre", response(Map.of()));
+
+        assertInstanceOf(RetryableException.class, inProgress);
+        assertEquals(409, ((RetryableException) inProgress).status());
+        assertFalse(conflict instanceof RetryableException);
+        assertInstanceOf(FeignException.Conflict.class, conflict);
+    }
+
+    @Test
+    @DisplayName("Should retry a 409 until max-wait, and propagate other errors at once")
+    void shouldRetryConflictUntilMaxWait() {
+        InProgressRetryer retryer = new InProgressRetryer(30, 10, 20);
+        RetryableException inProgress = new RetryableException(409, "in progress", Request.HttpMethod.POST, (Long) null, REQUEST);
+        RetryableException timeout = new RetryableException(-1, "read timed out", Request.HttpMethod.POST, (Long) null, REQUEST);
+
+        retryer.continueOrPropagate(inProgress);
+        retryer.continueOrPropagate(inProgress);
+        assertThrows(RetryableException.class, () -> retryer.continueOrPropagate(inProgress));
+
+        assertThrows(RetryableException.class, () -> retryer.clone().continueOrPropagate(timeout));
+        assertDoesNotThrow(() -> retryer.clone().continueOrPropagate(inProgress));
+    }
+
+    private static Response response(Map<String, Collection<String>> headers) {
+        return Response.builder()
+                .status(409)
+                .reason("Conflict")
+                .request(REQUEST)
+                .headers(headers)
+                .body("{}", StandardCharsets.UTF_8)
+                .build();
+    }
+}
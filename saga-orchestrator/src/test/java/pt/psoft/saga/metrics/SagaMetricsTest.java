@@ -0,0 +1,60 @@
+package pt.psoft.saga.metrics;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import pt.psoft.saga.model.SagaState;
+import pt.psoft.saga.model.SagaStep;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for SagaMetrics
+ */
+@DisplayName("SagaMetrics Tests")
+class SagaMetricsTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private SagaMetrics sagaMetrics;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        sagaMetrics = new SagaMetrics(meterRegistry);
+    }
+
+    @Test
+    @DisplayName("Should time steps by step, service and outcome")
+    void shouldTimeStepsByOutcome() {
+        SagaStep created = SagaStep.success("CREATE_GENRE", "genre-service", "CREATE", "{}");
+        created.setDurationMs(120L);
+        SagaStep failed = SagaStep.failure("CREATE_GENRE", "genre-service", "CREATE", "timeout");
+        failed.setDurationMs(5000L);
+
+        sagaMetrics.recordStep(created);
+        sagaMetrics.recordStep(failed);
+        sagaMetrics.recordStep(SagaStep.success("CREATE_GENRE", "genre-service", "CREATE", "{}"));
+
+        Timer success = meterRegistry.get("saga.step.duration")
+                .tags("step", "CREATE_GENRE", "service", "genre-service", "outcome", "success").timer();
+        assertEquals(1, success.count());
+        assertEquals(120.0, success.totalTime(TimeUnit.MILLISECONDS));
+        assertEquals(1, meterRegistry.get("saga.step.duration").tag("outcome", "failure").timer().count());
+    }
+
+    @Test
+    @DisplayName("Should report in-flight sagas per state, zero for states not listed")
+    void shouldReportInFlightByState() {
+        sagaMetrics.updateInFlight(Map.of(SagaState.CREATING_BOOK, 3L, SagaState.COMPENSATING, 1L));
+        sagaMetrics.updateInFlight(Map.of(SagaState.CREATING_BOOK, 2L));
+
+        assertEquals(2.0, meterRegistry.get("saga.in-flight").tag("state", "CREATING_BOOK").gauge().value());
+        assertEquals(0.0, meterRegistry.get("saga.in-flight").tag("state", "COMPENSATING").gauge().value());
+        assertTrue(meterRegistry.find("saga.in-flight").tag("state", "COMPLETED").gauges().isEmpty());
+    }
+}
@@ -0,0 +1,44 @@
+package pt.psoft.saga.repository;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import pt.psoft.saga.model.SagaStep;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for SagaStepCodec
+ */
+@DisplayName("SagaStepCodec Tests")
+class SagaStepCodecTest {
+
+    @Test
+    @DisplayName("Should round-trip a successful step")
+    void shouldRoundTripSuccessfulStep() {
+        SagaStep step = SagaStep.success("CREATE_GENRE", "genre-service", "CREATE", "{\"id\":\"7\",\"genre\":\"Ação\"}");
+        step.setExecutedAt(LocalDateTime.of(2024, 5, 1, 10, 15, 30, 123_000_000));
+        step.setDurationMs(42L);
+
+        assertEquals(step, SagaStepCodec.decode(SagaStepCodec.encode(step)));
+    }
+
+    @Test
+    @DisplayName("Should round-trip a failed step without optional fields")
+    void shouldRoundTripFailedStep() {
+        SagaStep step = SagaStep.builder()
+                .stepName("CREATE_AUTHOR")
+                .service("author-service")
+                .action("CREATE")
+                .errorMessage("Author Service unavailable")
+                .build();
+
+        SagaStep decoded = SagaStepCodec.decode(SagaStepCodec.encode(step));
+
+        assertEquals(step, decoded);
+        assertFalse(decoded.isSuccess());
+        assertNull(decoded.getDurationMs());
+        assertNull(decoded.getResponse());
+    }
+}
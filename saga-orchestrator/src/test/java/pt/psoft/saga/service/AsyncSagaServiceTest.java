@@ -0,0 +1,117 @@
+package pt.psoft.saga.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import pt.psoft.saga.dto.CreateBookSagaRequest;
+import pt.psoft.saga.model.SagaInstance;
+import pt.psoft.saga.repository.SagaStore;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for AsyncSagaService
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("AsyncSagaService Tests")
+class AsyncSagaServiceTest {
+
+    @Mock
+    private SagaOrchestrator sagaOrchestrator;
+
+    @Mock
+    private MessagingSagaOrchestrator messagingSagaOrchestrator;
+
+    @Mock
+    private SagaStore sagaStore;
+
+    @Mock
+    private ThreadPoolTaskExecutor sagaWorkerExecutor;
+
+    private AsyncSagaService asyncSagaService;
+
+    @BeforeEach
+    void setUp() {
+        asyncSagaService = new AsyncSagaService(sagaOrchestrator, messagingSagaOrchestrator, sagaStore,
+                sagaWorkerExecutor, "orchestration", 120000);
+    }
+
+    @Test
+    @DisplayName("Should accept the saga with a resume deadline before queueing it")
+    void shouldAcceptBeforeQueueing() {
+        SagaInstance saga = SagaInstance.create("{}");
+        long before = System.currentTimeMillis();
+        when(sagaOrchestrator.acceptSaga(any(), anyLong())).thenReturn(saga);
+
+        asyncSagaService.submit(request());
+
+        ArgumentCaptor<Long> runBy = ArgumentCaptor.forClass(Long.class);
+        verify(sagaOrchestrator).acceptSaga(any(), runBy.capture());
+        assertTrue(runBy.getValue() >= before + 120000);
+        ArgumentCaptor<Runnable> task = ArgumentCaptor.forClass(Runnable.class);
+        verify(sagaWorkerExecutor).execute(task.capture());
+
+        task.getValue().run();
+        verify(sagaOrchestrator).runSaga(eq(saga), any());
+    }
+
+    @Test
+    @DisplayName("Should leave queued sagas to recovery once shutting down")
+    void shouldNotStartQueuedSagasOnShutdown() {
+        SagaInstance saga = SagaInstance.create("{}");
+        when(sagaOrchestrator.acceptSaga(any(), anyLong())).thenReturn(saga);
+        asyncSagaService.submit(request());
+        ArgumentCaptor<Runnable> task = ArgumentCaptor.forClass(Runnable.class);
+        verify(sagaWorkerExecutor).execute(task.capture());
+
+        asyncSagaService.stopAccepting();
+        task.getValue().run();
+
+        verify(sagaOrchestrator, never()).runSaga(any(), any());
+        assertThrows(TaskRejectedException.class, () -> asyncSagaService.submit(request()));
+    }
+
+    @Test
+    @DisplayName("Should queue an accepted saga again and push its deadline")
+    void shouldResumeAcceptedSaga() throws Exception {
+        SagaInstance saga = SagaInstance.create("{}");
+        when(sagaOrchestrator.requestOf(saga)).thenReturn(request());
+        doAnswer(invocation -> {
+            invocation.<Runnable>getArgument(0).run();
+            return null;
+        }).when(sagaWorkerExecutor).execute(any(Runnable.class));
+
+        assertTrue(asyncSagaService.resume(saga));
+
+        verify(sagaStore).rescheduleAccepted(eq(saga.getSagaId()), anyLong());
+        verify(sagaOrchestrator).runSaga(eq(saga), any());
+    }
+
+    @Test
+    @DisplayName("Should keep an accepted saga in the index when the pool is saturated")
+    void shouldKeepAcceptedSagaWhenSaturated() throws Exception {
+        SagaInstance saga = SagaInstance.create("{}");
+        when(sagaOrchestrator.requestOf(saga)).thenReturn(request());
+        doThrow(new TaskRejectedException("full")).when(sagaWorkerExecutor).execute(any(Runnable.class));
+
+        assertFalse(asyncSagaService.resume(saga));
+
+        verify(sagaOrchestrator, never()).rejectSaga(any(), any());
+        verify(sagaStore, never()).removeFromAcceptedIndex(any());
+    }
+
+    private static CreateBookSagaRequest request() {
+        return new CreateBookSagaRequest(
+                new CreateBookSagaRequest.GenreData("Science Fiction"),
+                new CreateBookSagaRequest.AuthorData("Isaac Asimov", "Writer", null),
+                new CreateBookSagaRequest.BookData("Foundation", "", "Science Fiction", null));
+    }
+}
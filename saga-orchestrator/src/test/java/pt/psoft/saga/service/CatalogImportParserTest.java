@@ -0,0 +1,72 @@
+package pt.psoft.saga.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import pt.psoft.saga.service.CatalogImportParser.ImportRow;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for CatalogImportParser
+ */
+@DisplayName("CatalogImportParser Tests")
+class CatalogImportParserTest {
+
+    private final CatalogImportParser parser = new CatalogImportParser(new ObjectMapper());
+
+    @Test
+    @DisplayName("Should parse CSV rows with quoted fields and flag invalid rows")
+    void shouldParseCsv() throws IOException {
+        String csv = """
+                Title,Genre,Author,Description
+                Foundation,Science Fiction,Isaac Asimov,"Psychohistory, ""the"" science"
+                ,Fantasy,Someone,
+                """;
+
+        List<ImportRow> rows = parser.parse(stream(csv), CatalogImportParser.CSV, 10);
+
+        assertEquals(2, rows.size());
+        assertTrue(rows.get(0).valid());
+        assertEquals("Psychohistory, \"the\" science", rows.get(0).request().getBook().getDescription());
+        assertEquals("Science Fiction", rows.get(0).request().getBook().getGenreName());
+        assertEquals("Isaac Asimov", rows.get(0).request().getAuthor().getName());
+        assertFalse(rows.get(1).valid());
+        assertEquals(2, rows.get(1).row());
+    }
+
+    @Test
+    @DisplayName("Should parse NDJSON rows and keep malformed lines as invalid rows")
+    void shouldParseNdjson() throws IOException {
+        String ndjson = """
+                {"genre":{"name":"Drama"},"author":{"name":"Ibsen"},"book":{"title":"A Doll's House"}}
+                {not json}
+                """;
+
+        List<ImportRow> rows = parser.parse(stream(ndjson), CatalogImportParser.NDJSON, 10);
+
+        assertEquals(2, rows.size());
+        assertTrue(rows.get(0).valid());
+        assertEquals("Drama", rows.get(0).request().getBook().getGenreName());
+        assertFalse(rows.get(1).valid());
+    }
+
+    @Test
+    @DisplayName("Should reject uploads without the required columns or over the row limit")
+    void shouldRejectUnusableUploads() {
+        assertThrows(IllegalArgumentException.class,
+                () -> parser.parse(stream("title,genre\nA,B\n"), CatalogImportParser.CSV, 10));
+        assertThrows(IllegalArgumentException.class,
+                () -> parser.parse(stream("title,genre,author\nA,B,C\nD,E,F\n"), CatalogImportParser.CSV, 1));
+    }
+
+    private static InputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,256 @@
+package pt.psoft.saga.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import pt.psoft.saga.client.AuthorServiceClient;
+import pt.psoft.saga.client.BookServiceClient;
+import pt.psoft.saga.client.GenreServiceClient;
+import pt.psoft.saga.client.HedgedRequestExecutor;
+import pt.psoft.saga.metrics.SagaMetrics;
+import pt.psoft.saga.model.ImportSagaInstance;
+import pt.psoft.saga.model.SagaState;
+import pt.psoft.saga.repository.ImportRunStore;
+import pt.psoft.saga.repository.ImportSagaRepository;
+import pt.psoft.shared.dto.author.AuthorDTO;
+import pt.psoft.shared.dto.book.BookDTO;
+import pt.psoft.shared.dto.genre.GenreDTO;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for CatalogImportService
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("CatalogImportService Tests")
+class CatalogImportServiceTest {
+
+    @Mock
+    private ImportSagaRepository importSagaRepository;
+
+    @Mock
+    private ImportRunStore importRunStore;
+
+    @Mock
+    private GenreServiceClient genreServiceClient;
+
+    @Mock
+    private AuthorServiceClient authorServiceClient;
+
+    @Mock
+    private BookServiceClient bookServiceClient;
+
+    @Mock
+    private ThreadPoolTaskExecutor sagaWorkerExecutor;
+
+    @TempDir
+    private Path spoolDir;
+
+    private final AtomicReference<ImportSagaInstance> stored = new AtomicReference<>();
+    private ExecutorService sagaStepExecutor;
+    private ScheduledExecutorService heartbeatScheduler;
+    private CatalogImportService catalogImportService;
+
+    @BeforeEach
+    void setUp() {
+        sagaStepExecutor = Executors.newVirtualThreadPerTaskExecutor();
+        heartbeatScheduler = Executors.newSingleThreadScheduledExecutor();
+        ObjectMapper objectMapper = new ObjectMapper();
+        CatalogResolver catalogResolver = new CatalogResolver(genreServiceClient, authorServiceClient,
+                new CatalogLookupCache(600, 1000),
+                new HedgedRequestExecutor(sagaStepExecutor, new SimpleMeterRegistry(), true, 0.95, 50, 20, 1000),
+                objectMapper);
+        catalogImportService = new CatalogImportService(importSagaRepository, importRunStore,
+                new CatalogImportParser(objectMapper), catalogResolver, genreServiceClient, authorServiceClient,
+                bookServiceClient, sagaStepExecutor, sagaWorkerExecutor, heartbeatScheduler,
+                new SagaMetrics(new SimpleMeterRegistry()), spoolDir.toString(), 30000, 4, 1000, 100, 100);
+
+        // Queued runs execute at once, on the calling thread
+        lenient().doAnswer(invocation -> {
+            ((Runnable) invocation.getArgument(0)).run();
+            return null;
+        }).when(sagaWorkerExecutor).execute(any(Runnable.class));
+        lenient().when(importSagaRepository.save(any(ImportSagaInstance.class))).thenAnswer(invocation -> {
+            stored.set(invocation.getArgument(0));
+            return invocation.getArgument(0);
+        });
+        lenient().when(importSagaRepository.findById(anyString()))
+                .thenAnswer(invocation -> Optional.ofNullable(stored.get()));
+        lenient().when(importRunStore.acquireLease(anyString(), anyString(), any())).thenReturn(true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        sagaStepExecutor.close();
+        heartbeatScheduler.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("Should stream the spooled upload, create the books and drop the upload")
+    void shouldImportSpooledUpload() throws IOException {
+        when(genreServiceClient.findByName("Science Fiction")).thenReturn(null);
+        when(genreServiceClient.createGenre(anyString(), any())).thenReturn(new GenreDTO("7", "Science Fiction"));
+        when(authorServiceClient.findByExactName("Isaac Asimov"))
+                .thenReturn(new AuthorDTO(42L, "Isaac Asimov", "Writer", null, 0L));
+        when(bookServiceClient.createBook(anyString(), any())).thenReturn(book());
+
+        ImportSagaInstance saga = catalogImportService.startImport(csv("""
+                title,genre,author
+                Foundation,Science Fiction,Isaac Asimov
+                ,Science Fiction,Isaac Asimov
+                """), CatalogImportParser.CSV);
+
+        assertEquals(SagaState.COMPLETED, saga.getState());
+        assertEquals(2, saga.getTotalRows());
+        assertEquals(1, saga.getCreated());
+        assertEquals(1, saga.getInvalid());
+        assertEquals("CI", saga.getRowStatus());
+        assertEquals(1, saga.getGenresCreated());
+        verify(importRunStore).markCreated(saga.getImportId(), "genre:" + nameKey("Science Fiction"), 7L);
+        verify(bookServiceClient).createBook(eq(saga.getImportId() + ":row:1"),
+                argThat(book -> book.getAuthorIds().equals(List.of(42L))));
+        verify(genreServiceClient, never()).deleteGenre(anyLong());
+        verify(importRunStore).finished(saga.getImportId());
+        assertEquals(0, spooledFiles());
+    }
+
+    @Test
+    @DisplayName("Should resolve genres by exact name and create each book with its resolved genre")
+    void shouldKeepGenresThatDifferOnlyInCase() throws IOException {
+        when(genreServiceClient.findByName("Fantasy")).thenReturn(new GenreDTO("7", "Fantasy"));
+        when(genreServiceClient.findByName("fantasy")).thenReturn(null);
+        when(genreServiceClient.createGenre(anyString(), any())).thenReturn(new GenreDTO("9", "fantasy"));
+        when(authorServiceClient.findByExactName("Ursula K. Le Guin"))
+                .thenReturn(new AuthorDTO(42L, "Ursula K. Le Guin", "Writer", null, 0L));
+        when(bookServiceClient.createBook(anyString(), any())).thenReturn(book());
+
+        ImportSagaInstance saga = catalogImportService.startImport(csv("""
+                title,genre,author
+                A Wizard of Earthsea,Fantasy,Ursula K. Le Guin
+                The Tombs of Atuan,fantasy,Ursula K. Le Guin
+                """), CatalogImportParser.CSV);
+
+        assertEquals(2, saga.getCreated());
+        verify(bookServiceClient).createBook(eq(saga.getImportId() + ":row:1"),
+                argThat(book -> book.getGenre().equals("Fantasy")));
+        verify(bookServiceClient).createBook(eq(saga.getImportId() + ":row:2"),
+                argThat(book -> book.getGenre().equals("fantasy")));
+        // the created genre is used by its book, so it is kept
+        verify(genreServiceClient, never()).deleteGenre(anyLong());
+    }
+
+    @Test
+    @DisplayName("Should compensate a created genre no book ended up using")
+    void shouldCompensateUnusedGenre() throws IOException {
+        when(genreServiceClient.findByName("Science Fiction")).thenReturn(null);
+        when(genreServiceClient.createGenre(anyString(), any())).thenReturn(new GenreDTO("7", "Science Fiction"));
+        when(authorServiceClient.findByExactName("Isaac Asimov"))
+                .thenReturn(new AuthorDTO(42L, "Isaac Asimov", "Writer", null, 0L));
+        when(bookServiceClient.createBook(anyString(), any())).thenThrow(new RuntimeException("Book Service unavailable"));
+
+        ImportSagaInstance saga = catalogImportService.startImport(csv("""
+                title,genre,author
+                Foundation,Science Fiction,Isaac Asimov
+                """), CatalogImportParser.CSV);
+
+        assertEquals(SagaState.COMPLETED, saga.getState());
+        assertEquals(1, saga.getFailed());
+        assertEquals(1, saga.getGenresCompensated());
+        verify(genreServiceClient).deleteGenre(7L);
+        verify(authorServiceClient, never()).deleteAuthor(anyLong());
+    }
+
+    @Test
+    @DisplayName("Should resume an interrupted import from its saved rows and compensate what the first run created")
+    void shouldResumeInterruptedImport() throws IOException {
+        ImportSagaInstance saga = ImportSagaInstance.create(CatalogImportParser.CSV, 2);
+        saga.setState(SagaState.CREATING_BOOK);
+        saga.setRowStatus(ImportSagaInstance.ROW_CREATED + "" + ImportSagaInstance.ROW_PENDING);
+        saga.setCreated(1);
+        stored.set(saga);
+        Files.writeString(spoolDir.resolve(saga.getImportId() + ".upload"), """
+                title,genre,author
+                Foundation,Science Fiction,Isaac Asimov
+                Ghosts,Drama,Henrik Ibsen
+                """);
+        // Both genres were created by the crashed run, so the lookups now find them
+        when(importRunStore.findCreated(saga.getImportId())).thenReturn(Map.of(
+                "genre:" + nameKey("Science Fiction"), 7L,
+                "genre:" + nameKey("Drama"), 8L));
+        when(genreServiceClient.findByName("Science Fiction")).thenReturn(new GenreDTO("7", "Science Fiction"));
+        when(genreServiceClient.findByName("Drama")).thenReturn(new GenreDTO("8", "Drama"));
+        when(authorServiceClient.findByExactName("Isaac Asimov"))
+                .thenReturn(new AuthorDTO(42L, "Isaac Asimov", "Writer", null, 0L));
+        when(authorServiceClient.findByExactName("Henrik Ibsen"))
+                .thenReturn(new AuthorDTO(43L, "Henrik Ibsen", "Playwright", null, 0L));
+        when(bookServiceClient.createBook(anyString(), any())).thenThrow(new RuntimeException("Book Service unavailable"));
+
+        catalogImportService.resume(saga.getImportId());
+
+        assertEquals(SagaState.COMPLETED, saga.getState());
+        assertEquals("CF", saga.getRowStatus());
+        verify(bookServiceClient, never()).createBook(eq(saga.getImportId() + ":row:1"), any());
+        verify(bookServiceClient).createBook(eq(saga.getImportId() + ":row:2"), any());
+        verify(genreServiceClient).deleteGenre(8L);
+        verify(genreServiceClient, never()).deleteGenre(7L);
+        verify(importRunStore).finished(saga.getImportId());
+        assertEquals(0, spooledFiles());
+    }
+
+    @Test
+    @DisplayName("Should leave an import whose lease is held by a live run")
+    void shouldNotResumeImportHeldElsewhere() {
+        ImportSagaInstance saga = ImportSagaInstance.create(CatalogImportParser.CSV, 1);
+        stored.set(saga);
+        when(importRunStore.acquireLease(eq(saga.getImportId()), anyString(), any())).thenReturn(false);
+
+        catalogImportService.resume(saga.getImportId());
+
+        assertEquals(SagaState.STARTED, saga.getState());
+        verifyNoInteractions(genreServiceClient, authorServiceClient, bookServiceClient);
+        verify(importRunStore, never()).finished(anyString());
+    }
+
+    private long spooledFiles() throws IOException {
+        try (Stream<Path> files = Files.list(spoolDir)) {
+            return files.count();
+        }
+    }
+
+    private static ByteArrayInputStream csv(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String nameKey(String key) {
+        return UUID.nameUUIDFromBytes(key.getBytes(StandardCharsets.UTF_8)).toString();
+    }
+
+    private static BookDTO book() {
+        return new BookDTO("9780553293357", "Foundation", "", "Science Fiction", List.of(42L), null, 0L);
+    }
+}
@@ -0,0 +1,44 @@
+package pt.psoft.saga.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import pt.psoft.shared.dto.author.AuthorDTO;
+import pt.psoft.shared.dto.genre.GenreDTO;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for CatalogLookupCache
+ */
+@DisplayName("CatalogLookupCache Tests")
+class CatalogLookupCacheTest {
+
+    private final CatalogLookupCache cache = new CatalogLookupCache(600, 1000);
+
+    @Test
+    @DisplayName("Should drop entries of deleted genres and authors")
+    void shouldEvictById() {
+        cache.putGenre("Science Fiction", new GenreDTO("7", "Science Fiction"), cache.generation());
+        cache.putAuthor("Isaac Asimov", new AuthorDTO(42L, "Isaac Asimov", null, null, 0L), cache.generation());
+
+        assertEquals("7", cache.genre("Science Fiction").getId());
+        assertEquals(42L, cache.author(" isaac asimov ").getAuthorNumber());
+
+        cache.evictGenre("7");
+        cache.evictAuthor(42L);
+
+        assertNull(cache.genre("Science Fiction"));
+        assertNull(cache.author("Isaac Asimov"));
+    }
+
+    @Test
+    @DisplayName("Should not cache a lookup that started before an eviction")
+    void shouldIgnoreLookupOverlappingEviction() {
+        long generation = cache.generation();
+        cache.evictGenre("7");
+
+        cache.putGenre("Science Fiction", new GenreDTO("7", "Science Fiction"), generation);
+
+        assertNull(cache.genre("Science Fiction"));
+    }
+}
@@ -0,0 +1,202 @@
+package pt.psoft.saga.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import pt.psoft.saga.client.AuthorServiceClient;
+import pt.psoft.saga.client.BookServiceClient;
+import pt.psoft.saga.client.GenreServiceClient;
+import pt.psoft.saga.client.HedgedRequestExecutor;
+import pt.psoft.saga.dto.CreateBookSagaRequest;
+import pt.psoft.saga.metrics.SagaMetrics;
+import pt.psoft.saga.model.SagaInstance;
+import pt.psoft.saga.model.SagaState;
+import pt.psoft.saga.repository.SagaStore;
+import pt.psoft.shared.dto.author.AuthorDTO;
+import pt.psoft.shared.dto.book.BookDTO;
+import pt.psoft.shared.dto.genre.GenreDTO;
+import pt.psoft.shared.messaging.SagaCommand;
+import pt.psoft.shared.messaging.SagaReply;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for MessagingSagaOrchestrator
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("MessagingSagaOrchestrator Tests")
+class MessagingSagaOrchestratorTest {
+
+    @Mock
+    private SagaStore sagaStore;
+
+    @Mock
+    private GenreServiceClient genreServiceClient;
+
+    @Mock
+    private AuthorServiceClient authorServiceClient;
+
+    @Mock
+    private BookServiceClient bookServiceClient;
+
+    @Mock
+    private RabbitTemplate rabbitTemplate;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private ExecutorService sagaStepExecutor;
+    private ScheduledExecutorService heartbeatScheduler;
+    private MessagingSagaOrchestrator messagingSagaOrchestrator;
+
+    @BeforeEach
+    void setUp() {
+        sagaStepExecutor = Executors.newVirtualThreadPerTaskExecutor();
+        heartbeatScheduler = Executors.newSingleThreadScheduledExecutor();
+        CatalogLookupCache lookupCache = new CatalogLookupCache(600, 1000);
+        SagaCompletionNotifier notifier = new SagaCompletionNotifier();
+        CatalogResolver catalogResolver = new CatalogResolver(genreServiceClient, authorServiceClient, lookupCache, hedged(), objectMapper);
+        SagaOrchestrator sagaOrchestrator = new SagaOrchestrator(sagaStore, genreServiceClient, authorServiceClient,
+                bookServiceClient, catalogResolver, objectMapper, sagaStepExecutor, notifier,
+                new SagaMetrics(new SimpleMeterRegistry()), heartbeatScheduler, 30000, 3);
+        messagingSagaOrchestrator = new MessagingSagaOrchestrator(sagaStore, sagaOrchestrator, lookupCache,
+                rabbitTemplate, notifier, objectMapper, 60000, 3, 30000);
+
+        when(sagaStore.save(any(SagaInstance.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(sagaStore.save(any(SagaInstance.class), anyLong())).thenAnswer(invocation -> invocation.getArgument(0));
+    }
+
+    @AfterEach
+    void tearDown() {
+        sagaStepExecutor.close();
+        heartbeatScheduler.shutdownNow();
+    }
+
+    private HedgedRequestExecutor hedged() {
+        return new HedgedRequestExecutor(sagaStepExecutor, new SimpleMeterRegistry(), true, 0.95, 50, 20, 1000);
+    }
+
+    @Test
+    @DisplayName("Should send CreateBook once both resolve replies arrived, and complete on its reply")
+    void shouldCompleteSagaFromReplies() throws Exception {
+        SagaInstance saga = messagingSagaOrchestrator.start(request());
+        stubStore(saga);
+
+        List<SagaCommand> resolve = sentCommands();
+        assertEquals(2, resolve.size());
+        assertEquals(SagaState.RESOLVING_GENRE_AND_AUTHOR, saga.getState());
+        SagaCommand genre = command(resolve, SagaCommand.RESOLVE_GENRE);
+        SagaCommand author = command(resolve, SagaCommand.RESOLVE_AUTHOR);
+        assertEquals(saga.getSagaId() + ":genre", genre.getIdempotencyKey());
+
+        messagingSagaOrchestrator.onReply(SagaReply.success(genre, false,
+                objectMapper.writeValueAsString(new GenreDTO("7", "Science Fiction"))));
+        assertEquals(2, sentCommands().size());
+
+        messagingSagaOrchestrator.onReply(SagaReply.success(author, true,
+                objectMapper.writeValueAsString(new AuthorDTO(42L, "Isaac Asimov", "Writer", null, 0L))));
+        SagaCommand book = command(sentCommands(), SagaCommand.CREATE_BOOK);
+        assertEquals(SagaState.CREATING_BOOK, saga.getState());
+        assertTrue(book.getPayload().contains("42"));
+
+        // Redelivered reply: already applied
+        messagingSagaOrchestrator.onReply(SagaReply.success(author, true,
+                objectMapper.writeValueAsString(new AuthorDTO(42L, "Isaac Asimov", "Writer", null, 0L))));
+        assertEquals(3, sentCommands().size());
+
+        messagingSagaOrchestrator.onReply(SagaReply.success(book, false, objectMapper.writeValueAsString(
+                new BookDTO("9780553293357", "Foundation", "", "Science Fiction", List.of(42L), null, 0L))));
+
+        assertEquals(SagaState.COMPLETED, saga.getState());
+        assertTrue(saga.isGenreCreated());
+        assertFalse(saga.isAuthorCreated());
+        verifyNoInteractions(genreServiceClient, authorServiceClient, bookServiceClient);
+    }
+
+    @Test
+    @DisplayName("Should compensate the created genre when the author reply is a failure")
+    void shouldCompensateCreatedGenreWhenAuthorFails() throws Exception {
+        SagaInstance saga = messagingSagaOrchestrator.start(request());
+        stubStore(saga);
+        List<SagaCommand> resolve = sentCommands();
+
+        messagingSagaOrchestrator.onReply(SagaReply.failure(command(resolve, SagaCommand.RESOLVE_AUTHOR),
+                "Author Service unavailable"));
+        messagingSagaOrchestrator.onReply(SagaReply.success(command(resolve, SagaCommand.RESOLVE_GENRE), false,
+                objectMapper.writeValueAsString(new GenreDTO("7", "Science Fiction"))));
+
+        assertEquals(SagaState.COMPENSATED, saga.getState());
+        verify(genreServiceClient).deleteGenre(7L);
+        assertEquals(2, sentCommands().size());
+    }
+
+    @Test
+    @DisplayName("Should accept a late reply to the first send after a timeout resend")
+    void shouldAcceptLateReplyAfterResend() throws Exception {
+        SagaInstance saga = messagingSagaOrchestrator.start(request());
+        stubStore(saga);
+        SagaCommand genre = command(sentCommands(), SagaCommand.RESOLVE_GENRE);
+
+        messagingSagaOrchestrator.recover(saga);
+        SagaCommand resent = command(sentCommands().subList(2, 4), SagaCommand.RESOLVE_GENRE);
+        assertEquals(genre.getCorrelationId(), resent.getCorrelationId());
+
+        messagingSagaOrchestrator.onReply(SagaReply.success(genre, false,
+                objectMapper.writeValueAsString(new GenreDTO("7", "Science Fiction"))));
+
+        assertEquals(7L, saga.getGenreId());
+        assertTrue(saga.getPendingCommands().contains(command(sentCommands(), SagaCommand.RESOLVE_AUTHOR).getCorrelationId()));
+    }
+
+    @Test
+    @DisplayName("Should ask for a delayed retry of a reply for a busy saga")
+    void shouldRetryReplyForBusySaga() {
+        SagaInstance saga = messagingSagaOrchestrator.start(request());
+        when(sagaStore.acquireLease(eq(saga.getSagaId()), anyString(), any())).thenReturn(false);
+
+        assertThrows(SagaBusyException.class, () -> messagingSagaOrchestrator.onReply(
+                SagaReply.failure(new SagaCommand(saga.getSagaId() + ":genre", saga.getSagaId(),
+                        SagaCommand.RESOLVE_GENRE, saga.getSagaId() + ":genre", SagaReply.ROUTING_KEY, 0L, "{}"), "x")));
+    }
+
+    private void stubStore(SagaInstance saga) {
+        when(sagaStore.acquireLease(eq(saga.getSagaId()), anyString(), any())).thenReturn(true);
+        when(sagaStore.findById(saga.getSagaId())).thenReturn(Optional.of(saga));
+    }
+
+    private List<SagaCommand> sentCommands() throws Exception {
+        ArgumentCaptor<Object> sent = ArgumentCaptor.forClass(Object.class);
+        verify(rabbitTemplate, atLeastOnce()).convertAndSend(eq("lms.events"), anyString(), sent.capture());
+        List<SagaCommand> commands = new ArrayList<>();
+        for (Object json : sent.getAllValues()) {
+            commands.add(objectMapper.readValue((String) json, SagaCommand.class));
+        }
+        return commands;
+    }
+
+    private static SagaCommand command(List<SagaCommand> commands, String type) {
+        return commands.stream().filter(c -> type.equals(c.getType())).findFirst().orElseThrow();
+    }
+
+    private static CreateBookSagaRequest request() {
+        return new CreateBookSagaRequest(
+                new CreateBookSagaRequest.GenreData("Science Fiction"),
+                new CreateBookSagaRequest.AuthorData("Isaac Asimov", "Writer", null),
+                new CreateBookSagaRequest.BookData("Foundation", "", "Science Fiction", null));
+    }
+}
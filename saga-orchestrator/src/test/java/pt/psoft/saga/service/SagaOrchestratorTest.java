@@ -0,0 +1,222 @@
+package pt.psoft.saga.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import pt.psoft.saga.client.AuthorServiceClient;
+import pt.psoft.saga.client.BookServiceClient;
+import pt.psoft.saga.client.GenreServiceClient;
+import pt.psoft.saga.client.HedgedRequestExecutor;
+import pt.psoft.saga.dto.CreateBookSagaRequest;
+import pt.psoft.saga.metrics.SagaMetrics;
+import pt.psoft.saga.dto.CreateBookSagaResponse;
+import pt.psoft.saga.model.SagaInstance;
+import pt.psoft.saga.model.SagaState;
+import pt.psoft.saga.repository.SagaStore;
+import pt.psoft.shared.dto.author.AuthorDTO;
+import pt.psoft.shared.dto.book.BookDTO;
+import pt.psoft.shared.dto.genre.GenreDTO;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for SagaOrchestrator
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("SagaOrchestrator Tests")
+class SagaOrchestratorTest {
+
+    @Mock
+    private SagaStore sagaStore;
+
+    @Mock
+    private GenreServiceClient genreServiceClient;
+
+    @Mock
+    private AuthorServiceClient authorServiceClient;
+
+    @Mock
+    private BookServiceClient bookServiceClient;
+
+    private ExecutorService sagaStepExecutor;
+    private ScheduledExecutorService heartbeatScheduler;
+    private SagaOrchestrator sagaOrchestrator;
+
+    @BeforeEach
+    void setUp() {
+        sagaStepExecutor = Executors.newVirtualThreadPerTaskExecutor();
+        heartbeatScheduler = Executors.newSingleThreadScheduledExecutor();
+        ObjectMapper objectMapper = new ObjectMapper();
+        CatalogResolver catalogResolver = new CatalogResolver(genreServiceClient, authorServiceClient,
+                new CatalogLookupCache(600, 1000), hedged(), objectMapper);
+        sagaOrchestrator = new SagaOrchestrator(sagaStore, genreServiceClient, authorServiceClient,
+                bookServiceClient, catalogResolver, objectMapper, sagaStepExecutor, new SagaCompletionNotifier(),
+                new SagaMetrics(new SimpleMeterRegistry()), heartbeatScheduler, 30000, 3);
+        when(sagaStore.save(any(SagaInstance.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        // A fresh saga: free lease, still STARTED in the store
+        lenient().when(sagaStore.acquireLease(anyString(), anyString(), any())).thenReturn(true);
+        lenient().when(sagaStore.findState(anyString())).thenReturn(Optional.of(SagaState.STARTED));
+    }
+
+    @AfterEach
+    void tearDown() {
+        sagaStepExecutor.close();
+        heartbeatScheduler.shutdownNow();
+    }
+
+    private HedgedRequestExecutor hedged() {
+        return new HedgedRequestExecutor(sagaStepExecutor, new SimpleMeterRegistry(), true, 0.95, 50, 20, 1000);
+    }
+
+    @Test
+    @DisplayName("Should resolve genre and author, then create the book")
+    void shouldCreateBook() {
+        when(genreServiceClient.findByName("Science Fiction")).thenReturn(null);
+        when(genreServiceClient.createGenre(anyString(), any())).thenReturn(new GenreDTO("7", "Science Fiction"));
+        when(authorServiceClient.findByExactName("Isaac Asimov"))
+                .thenReturn(new AuthorDTO(42L, "Isaac Asimov", "Writer", null, 0L));
+        when(bookServiceClient.createBook(anyString(), any()))
+                .thenReturn(new BookDTO("9780553293357", "Foundation", "", "Science Fiction", List.of(42L), null, 0L));
+
+        CreateBookSagaResponse response = sagaOrchestrator.createBook(request());
+
+        assertEquals(SagaState.COMPLETED, response.getState());
+        assertEquals(7L, response.getGenre().getId());
+        assertEquals(42L, response.getAuthor().getAuthorNumber());
+        verify(bookServiceClient).createBook(eq(response.getSagaId() + ":book"),
+                argThat(book -> book.getAuthorIds().equals(List.of(42L))));
+    }
+
+    @Test
+    @DisplayName("Should skip the remote lookups for names resolved by an earlier saga")
+    void shouldResolveRepeatedNamesFromCache() {
+        when(genreServiceClient.findByName("Science Fiction")).thenReturn(new GenreDTO("7", "Science Fiction"));
+        when(authorServiceClient.findByExactName("Isaac Asimov"))
+                .thenReturn(new AuthorDTO(42L, "Isaac Asimov", "Writer", null, 0L));
+        when(bookServiceClient.createBook(anyString(), any()))
+                .thenReturn(new BookDTO("9780553293357", "Foundation", "", "Science Fiction", List.of(42L), null, 0L));
+
+        sagaOrchestrator.createBook(request());
+        CreateBookSagaResponse second = sagaOrchestrator.createBook(request());
+
+        assertEquals(SagaState.COMPLETED, second.getState());
+        assertEquals(42L, second.getAuthor().getAuthorNumber());
+        verify(genreServiceClient, times(1)).findByName("Science Fiction");
+        verify(authorServiceClient, times(1)).findByExactName("Isaac Asimov");
+    }
+
+    @Test
+    @DisplayName("Should compensate the created genre when author creation fails")
+    void shouldCompensateCreatedGenreWhenAuthorFails() {
+        when(genreServiceClient.findByName("Science Fiction")).thenThrow(new RuntimeException("404"));
+        when(genreServiceClient.createGenre(anyString(), any())).thenReturn(new GenreDTO("7", "Science Fiction"));
+        when(authorServiceClient.findByExactName("Isaac Asimov")).thenReturn(null);
+        when(authorServiceClient.createAuthor(anyString(), any())).thenThrow(new RuntimeException("Author Service unavailable"));
+
+        RuntimeException exception = assertThrows(RuntimeException.class, () -> sagaOrchestrator.createBook(request()));
+
+        assertTrue(exception.getMessage().contains("Failed to create author"));
+        verify(genreServiceClient).deleteGenre(7L);
+        verify(authorServiceClient, never()).deleteAuthor(anyLong());
+        verifyNoInteractions(bookServiceClient);
+    }
+
+    @Test
+    @DisplayName("Should not delete a genre the saga only found")
+    void shouldNotCompensateFoundGenre() {
+        when(genreServiceClient.findByName("Science Fiction")).thenReturn(new GenreDTO("7", "Science Fiction"));
+        when(authorServiceClient.findByExactName("Isaac Asimov")).thenReturn(null);
+        when(authorServiceClient.createAuthor(anyString(), any())).thenThrow(new RuntimeException("Author Service unavailable"));
+
+        assertThrows(RuntimeException.class, () -> sagaOrchestrator.createBook(request()));
+
+        verify(genreServiceClient, never()).deleteGenre(anyLong());
+        verify(genreServiceClient, never()).createGenre(anyString(), any());
+    }
+
+    @Test
+    @DisplayName("Should compensate what an abandoned saga created")
+    void shouldCompensateAbandonedSaga() {
+        SagaInstance saga = SagaInstance.create("{}");
+        saga.setState(SagaState.RESOLVING_GENRE_AND_AUTHOR);
+        saga.setGenreId(7L);
+        saga.setGenreCreated(true);
+
+        sagaOrchestrator.recover(saga);
+
+        verify(genreServiceClient).deleteGenre(7L);
+        verifyNoInteractions(authorServiceClient, bookServiceClient);
+        assertEquals(SagaState.COMPENSATED, saga.getState());
+        assertEquals(1, saga.getRetryCount());
+    }
+
+    @Test
+    @DisplayName("Should not run a queued saga that was already failed or recovered")
+    void shouldNotRunStaleSaga() {
+        SagaInstance saga = sagaOrchestrator.startSaga(request());
+        when(sagaStore.findState(saga.getSagaId())).thenReturn(Optional.of(SagaState.COMPENSATED));
+
+        assertThrows(IllegalStateException.class, () -> sagaOrchestrator.runSaga(saga, request()));
+
+        verifyNoInteractions(genreServiceClient, authorServiceClient, bookServiceClient);
+        verify(sagaStore).releaseLease(eq(saga.getSagaId()), anyString());
+    }
+
+    @Test
+    @DisplayName("Should not run a saga whose lease is held elsewhere")
+    void shouldNotRunSagaHeldElsewhere() {
+        SagaInstance saga = sagaOrchestrator.startSaga(request());
+        when(sagaStore.acquireLease(eq(saga.getSagaId()), anyString(), any())).thenReturn(false);
+
+        assertThrows(IllegalStateException.class, () -> sagaOrchestrator.runSaga(saga, request()));
+
+        verifyNoInteractions(genreServiceClient, authorServiceClient, bookServiceClient);
+    }
+
+    @Test
+    @DisplayName("Should leave a saga that was never run to its queued run")
+    void shouldNotRecoverStartedSaga() {
+        SagaInstance saga = SagaInstance.create("{}");
+
+        sagaOrchestrator.recover(saga);
+
+        assertEquals(SagaState.STARTED, saga.getState());
+        verify(sagaStore).removeFromRecoveryIndex(saga.getSagaId());
+        verifyNoInteractions(genreServiceClient, authorServiceClient, bookServiceClient);
+    }
+
+    @Test
+    @DisplayName("Should complete an abandoned saga whose book was created")
+    void shouldCompleteAbandonedSagaWithBook() {
+        SagaInstance saga = SagaInstance.create("{}");
+        saga.setState(SagaState.BOOK_CREATED);
+        saga.setGenreId(7L);
+        saga.setGenreCreated(true);
+
+        sagaOrchestrator.recover(saga);
+
+        assertEquals(SagaState.COMPLETED, saga.getState());
+        verifyNoInteractions(genreServiceClient, authorServiceClient, bookServiceClient);
+    }
+
+    private static CreateBookSagaRequest request() {
+        return new CreateBookSagaRequest(
+                new CreateBookSagaRequest.GenreData("Science Fiction"),
+                new CreateBookSagaRequest.AuthorData("Isaac Asimov", "Writer", null),
+                new CreateBookSagaRequest.BookData("Foundation", "", "Science Fiction", null));
+    }
+}
@@ -16,7 +16,10 @@ import pt.psoft.shared.events.genre.GenreCreatedEvent;
 import pt.psoft.shared.events.genre.GenreDeletedEvent;
 import pt.psoft.shared.events.genre.GenreUpdatedEvent;
 import pt.psoft.shared.events.lending.LendingCreatedEvent;
+import pt.psoft.shared.events.lending.LendingOverdueEvent;
 import pt.psoft.shared.events.lending.LendingReturnedEvent;
+import pt.psoft.shared.events.lending.WaitlistOfferedEvent;
+import pt.psoft.shared.events.reader.ReaderCreatedEvent;
 import pt.psoft.shared.events.review.ReviewCreatedEvent;
 
 import java.io.Serializable;
@@ -43,6 +46,10 @@ import java.util.UUID;
         // Lending Events
         @JsonSubTypes.Type(value = LendingCreatedEvent.class, name = "LendingCreated"),
         @JsonSubTypes.Type(value = LendingReturnedEvent.class, name = "LendingReturned"),
+        @JsonSubTypes.Type(value = LendingOverdueEvent.class, name = "LendingOverdue"),
+        @JsonSubTypes.Type(value = WaitlistOfferedEvent.class, name = "WaitlistOffered"),
+        // Reader Events
+        @JsonSubTypes.Type(value = ReaderCreatedEvent.class, name = "ReaderCreated"),
         // Review Events
         @JsonSubTypes.Type(value = ReviewCreatedEvent.class, name = "ReviewCreated")
 })
@@ -0,0 +1,54 @@
+package pt.psoft.shared.events.lending;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonTypeName;
+import lombok.*;
+import pt.psoft.shared.events.DomainEvent;
+
+import java.time.LocalDate;
+
+/**
+ * Domain Event emitted once when an outstanding Lending passes its limit date
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode(callSuper = true)
+@JsonTypeName("LendingOverdue")
+public class LendingOverdueEvent extends DomainEvent {
+
+    @JsonProperty("lendingNumber")
+    private String lendingNumber;
+
+    @JsonProperty("bookId")
+    private String bookId;
+
+    @JsonProperty("readerNumber")
+    private String readerNumber;
+
+    @JsonFormat(pattern = "yyyy-MM-dd")
+    @JsonProperty("limitDate")
+    private LocalDate limitDate;
+
+    @JsonProperty("daysOverdue")
+    private Integer daysOverdue;
+
+    @JsonProperty("fineAmountInCents")
+    private Integer fineAmountInCents;
+
+    @Override
+    public String getEventType() {
+        return "OVERDUE";
+    }
+
+    @Override
+    public String getAggregateType() {
+        return "LENDING";
+    }
+
+    @Override
+    public String getAggregateId() {
+        return lendingNumber;
+    }
+}
@@ -0,0 +1,48 @@
+package pt.psoft.shared.events.lending;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonTypeName;
+import lombok.*;
+import pt.psoft.shared.events.DomainEvent;
+
+import java.time.LocalDateTime;
+
+/**
+ * Domain Event emitted when a returned copy is held for the next reader on a book's waitlist
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode(callSuper = true)
+@JsonTypeName("WaitlistOffered")
+public class WaitlistOfferedEvent extends DomainEvent {
+
+    @JsonProperty("waitlistEntryId")
+    private Long waitlistEntryId;
+
+    @JsonProperty("bookId")
+    private String bookId;
+
+    @JsonProperty("readerNumber")
+    private String readerNumber;
+
+    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    @JsonProperty("offerExpiresAt")
+    private LocalDateTime offerExpiresAt;
+
+    @Override
+    public String getEventType() {
+        return "OFFERED";
+    }
+
+    @Override
+    public String getAggregateType() {
+        return "WAITLIST";
+    }
+
+    @Override
+    public String getAggregateId() {
+        return String.valueOf(waitlistEntryId);
+    }
+}
@@ -0,0 +1,41 @@
+package pt.psoft.shared.events.reader;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonTypeName;
+import lombok.*;
+import pt.psoft.shared.events.DomainEvent;
+
+/**
+ * Domain Event emitted when a Reader is registered
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode(callSuper = true)
+@JsonTypeName("ReaderCreated")
+public class ReaderCreatedEvent extends DomainEvent {
+
+    @JsonProperty("readerId")
+    private Long readerId;
+
+    @JsonProperty("readerNumber")
+    private String readerNumber;
+
+    @JsonProperty("active")
+    private boolean active;
+
+    @Override
+    public String getEventType() {
+        return "CREATED";
+    }
+
+    @Override
+    public String getAggregateType() {
+        return "READER";
+    }
+
+    @Override
+    public String getAggregateId() {
+        return readerNumber;
+    }
+}
@@ -0,0 +1,19 @@
+package pt.psoft.shared.exceptions;
+
+/**
+ * Thrown when a read model has not yet caught up with a consistency token
+ * within the allowed wait. Clients should retry after {@link #getRetryAfterSeconds()}.
+ */
+public class StaleReadException extends ConflictException {
+
+    private final long retryAfterSeconds;
+
+    public StaleReadException(String resource, String identifier, long requiredVersion, long retryAfterSeconds) {
+        super(String.format("%s %s has not reached version %d yet", resource, identifier, requiredVersion));
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,85 @@
+package pt.psoft.shared.messaging;
+
+import pt.psoft.shared.exceptions.StaleReadException;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+
+/**
+ * Read-your-writes support for CQRS read models.
+ *
+ * Command endpoints return the aggregate version as a consistency token
+ * ({@link #CONSISTENCY_TOKEN_HEADER}). Query endpoints call {@link #await} with it;
+ * projections call {@link #signal} after committing an aggregate, which wakes
+ * the waiters for that aggregate. Waiters also re-check on a short interval,
+ * because with competing consumers the event may be projected by another replica.
+ */
+public class ProjectionProgress {
+
+    public static final String CONSISTENCY_TOKEN_HEADER = "X-Consistency-Token";
+
+    private final Map<String, CompletableFuture<Void>> waiters = new ConcurrentHashMap<>();
+    private final Duration maxWait;
+    private final Duration pollInterval;
+
+    public ProjectionProgress(Duration maxWait, Duration pollInterval) {
+        this.maxWait = maxWait;
+        this.pollInterval = pollInterval;
+    }
+
+    /**
+     * Wake everybody waiting on the given aggregate
+     */
+    public void signal(String aggregateId) {
+        CompletableFuture<Void> waiter = waiters.remove(aggregateId);
+        if (waiter != null) {
+            waiter.complete(null);
+        }
+    }
+
+    /**
+     * Block until the projected version of an aggregate reaches {@code requiredVersion}.
+     *
+     * @param versionLookup reads the current projected version, bypassing caches
+     * @throws StaleReadException if the projection does not catch up within the max wait
+     */
+    public void await(String resource, String aggregateId, long requiredVersion,
+                      Function<String, Optional<Long>> versionLookup) {
+        long deadline = System.nanoTime() + maxWait.toNanos();
+
+        while (true) {
+            // register before checking so a concurrent signal is never missed
+            CompletableFuture<Void> waiter = waiters.computeIfAbsent(aggregateId, id -> new CompletableFuture<>());
+            try {
+                Optional<Long> current = versionLookup.apply(aggregateId);
+                if (current.isPresent() && current.get() >= requiredVersion) {
+                    return;
+                }
+
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    throw new StaleReadException(resource, aggregateId, requiredVersion,
+                            Math.max(1, maxWait.toSeconds()));
+                }
+
+                waiter.get(Math.min(remaining, pollInterval.toNanos()), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException | ExecutionException e) {
+                // poll again
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new StaleReadException(resource, aggregateId, requiredVersion, 1);
+            } finally {
+                // no-op if signal already took it; otherwise don't leave it behind
+                // (a waiter sharing it still re-checks on the poll interval)
+                waiters.remove(aggregateId, waiter);
+            }
+        }
+    }
+}
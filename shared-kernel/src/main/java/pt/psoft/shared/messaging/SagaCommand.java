@@ -0,0 +1,41 @@
+package pt.psoft.shared.messaging;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Command sent by the saga orchestrator over lms.events when it runs in
+ * messaging mode. The service answers with a {@link SagaReply} published to
+ * replyTo, carrying the same correlationId.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SagaCommand {
+
+    // Command types
+    public static final String RESOLVE_GENRE = "ResolveGenre";
+    public static final String RESOLVE_AUTHOR = "ResolveAuthor";
+    public static final String CREATE_BOOK = "CreateBook";
+
+    // Routing keys
+    public static final String ROUTING_KEY_RESOLVE_GENRE = "command.genre.resolve";
+    public static final String ROUTING_KEY_RESOLVE_AUTHOR = "command.author.resolve";
+    public static final String ROUTING_KEY_CREATE_BOOK = "command.book.create";
+
+    private String correlationId;
+    private String sagaId;
+    private String type;
+
+    // Same key on every resend, so the command takes effect at most once
+    private String idempotencyKey;
+
+    private String replyTo;
+
+    // Epoch millis, echoed in the reply to time the step
+    private long sentAt;
+
+    // JSON of the request DTO (CreateGenreRequest, CreateAuthorRequest, CreateBookRequest)
+    private String payload;
+}
@@ -0,0 +1,37 @@
+package pt.psoft.shared.messaging;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.time.Duration;
+
+/**
+ * Registers the {@link SagaCommandProcessor} of a service that consumes saga commands
+ * (idempotency.saga-commands.enabled=true). Keys are namespaced by
+ * idempotency.service, which defaults to spring.application.name.
+ */
+@AutoConfiguration(afterName = {
+        "org.springframework.boot.autoconfigure.data.redis.RedisAutoConfiguration",
+        "org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration"})
+@ConditionalOnClass(StringRedisTemplate.class)
+@ConditionalOnProperty(prefix = "idempotency.saga-commands", name = "enabled", havingValue = "true")
+public class SagaCommandAutoConfiguration {
+
+    @Bean
+    @ConditionalOnMissingBean
+    public SagaCommandProcessor sagaCommandProcessor(
+            StringRedisTemplate redisTemplate,
+            ObjectMapper objectMapper,
+            @Value("${idempotency.service:${spring.application.name}}") String service,
+            @Value("${idempotency.ttl-hours:24}") long ttlHours,
+            @Value("${idempotency.lock-seconds:120}") long lockSeconds) {
+        return new SagaCommandProcessor(redisTemplate, objectMapper, service,
+                Duration.ofHours(ttlHours), Duration.ofSeconds(lockSeconds));
+    }
+}
@@ -0,0 +1,158 @@
+package pt.psoft.shared.messaging;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import pt.psoft.shared.exceptions.BusinessException;
+
+import java.time.Duration;
+import java.util.function.Function;
+
+/**
+ * Runs saga commands at most once per idempotency key.
+ *
+ * Like the Idempotency-Key filter, the first delivery claims the key in Redis
+ * (SET NX) and its reply is stored for the configured TTL; a redelivery or a
+ * resend by the orchestrator gets the stored reply back (with its own
+ * correlation id) instead of running again. A delivery arriving while the
+ * first one still runs is dropped, the first one replies.
+ *
+ * Business failures (BusinessException, IllegalArgumentException) are
+ * replied and stored like successes. Anything else releases the key and is
+ * rethrown, so the broker redelivers the command.
+ *
+ * Services that consume saga commands get one from SagaCommandAutoConfiguration
+ * (idempotency.saga-commands.enabled=true) and send the
+ * returned replies with its own RabbitTemplate.
+ */
+@Slf4j
+public class SagaCommandProcessor {
+
+    private static final String IN_PROGRESS = "";
+
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final String keyPrefix;
+    private final Duration ttl;
+    private final Duration lockTtl;
+
+    /**
+     * @param service name used in the Redis keys ("saga-command:{service}:...")
+     * @param ttl     how long replies are kept for redeliveries
+     * @param lockTtl how long a running command holds its key
+     */
+    public SagaCommandProcessor(StringRedisTemplate redisTemplate, ObjectMapper objectMapper,
+                                String service, Duration ttl, Duration lockTtl) {
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        this.keyPrefix = "saga-command:" + service + ":";
+        this.ttl = ttl;
+        this.lockTtl = lockTtl;
+    }
+
+    /**
+     * Parse a command message; null (and logged) when it is not a command
+     */
+    public SagaCommand read(String message) {
+        try {
+            return objectMapper.readValue(message, SagaCommand.class);
+        } catch (JsonProcessingException e) {
+            log.error("Dropping unreadable saga command: {}", message, e);
+            return null;
+        }
+    }
+
+    /**
+     * The command's payload as the given request type
+     */
+    public <T> T payload(SagaCommand command, Class<T> type) {
+        try {
+            return objectMapper.readValue(command.getPayload(), type);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Invalid " + command.getType() + " payload: " + e.getOriginalMessage(), e);
+        }
+    }
+
+    public String write(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize " + value.getClass().getSimpleName(), e);
+        }
+    }
+
+    /**
+     * Reply to the command, running it unless it already ran; null when another
+     * delivery of the command is still running
+     */
+    public SagaReply process(SagaCommand command, Function<SagaCommand, SagaReply> execution) {
+        String key = keyPrefix + command.getIdempotencyKey();
+
+        Boolean claimed;
+        try {
+            claimed = redisTemplate.opsForValue().setIfAbsent(key, IN_PROGRESS, lockTtl);
+        } catch (DataAccessException e) {
+            log.warn("Idempotency store unavailable, running {} without deduplication: {}",
+                    command.getType(), e.getMessage());
+            return execute(command, execution);
+        }
+
+        if (!Boolean.TRUE.equals(claimed)) {
+            return replay(key, command);
+        }
+
+        SagaReply reply;
+        try {
+            reply = execute(command, execution);
+        } catch (RuntimeException e) {
+            release(key);
+            throw e;
+        }
+        store(key, reply);
+        return reply;
+    }
+
+    private SagaReply execute(SagaCommand command, Function<SagaCommand, SagaReply> execution) {
+        try {
+            return execution.apply(command);
+        } catch (BusinessException | IllegalArgumentException e) {
+            log.info("{} of Saga {} rejected: {}", command.getType(), command.getSagaId(), e.getMessage());
+            return SagaReply.failure(command, e.getMessage());
+        }
+    }
+
+    private SagaReply replay(String key, SagaCommand command) {
+        String stored = redisTemplate.opsForValue().get(key);
+        if (stored == null || stored.equals(IN_PROGRESS)) {
+            log.debug("{} of Saga {} is already being processed", command.getType(), command.getSagaId());
+            return null;
+        }
+        try {
+            SagaReply reply = objectMapper.readValue(stored, SagaReply.class);
+            reply.setCorrelationId(command.getCorrelationId());
+            reply.setSentAt(command.getSentAt());
+            return reply;
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unreadable stored reply under " + key, e);
+        }
+    }
+
+    private void store(String key, SagaReply reply) {
+        try {
+            redisTemplate.opsForValue().set(key, write(reply), ttl);
+        } catch (DataAccessException e) {
+            log.warn("Could not store reply for command key {}: {}", key, e.getMessage());
+            release(key);
+        }
+    }
+
+    private void release(String key) {
+        try {
+            redisTemplate.delete(key);
+        } catch (DataAccessException e) {
+            log.warn("Could not release command key {}: {}", key, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package pt.psoft.shared.messaging;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Outcome of a {@link SagaCommand}
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SagaReply {
+
+    public static final String ROUTING_KEY = "reply.saga.catalog";
+
+    private String correlationId;
+    private String sagaId;
+    private String type;
+    private boolean success;
+
+    // The entity already existed (found, not created)
+    private boolean existing;
+
+    // JSON of the resulting DTO on success
+    private String payload;
+    private String error;
+    private long sentAt;
+
+    public static SagaReply success(SagaCommand command, boolean existing, String payload) {
+        return new SagaReply(command.getCorrelationId(), command.getSagaId(), command.getType(),
+                true, existing, payload, null, command.getSentAt());
+    }
+
+    public static SagaReply failure(SagaCommand command, String error) {
+        return new SagaReply(command.getCorrelationId(), command.getSagaId(), command.getType(),
+                false, false, null, error, command.getSentAt());
+    }
+}
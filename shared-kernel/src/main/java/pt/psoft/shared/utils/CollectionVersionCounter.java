@@ -0,0 +1,72 @@
+package pt.psoft.shared.utils;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Collection-level change counter shared by all replicas (Redis INCR).
+ * Used as the ETag of collection/search endpoints: any change to the
+ * collection invalidates every collection ETag.
+ *
+ * Each service registers one for its collection ("books", "authors", ...).
+ */
+@Slf4j
+public class CollectionVersionCounter {
+
+    private final StringRedisTemplate redisTemplate;
+    private final String collection;
+    private final String key;
+
+    public CollectionVersionCounter(StringRedisTemplate redisTemplate, String collection) {
+        this.redisTemplate = redisTemplate;
+        this.collection = collection;
+        this.key = collection + ":collection-version";
+    }
+
+    /**
+     * Current collection ETag, or null if Redis is unavailable (no conditional GET then)
+     */
+    public String currentETag() {
+        try {
+            String value = redisTemplate.opsForValue().get(key);
+            if (value == null) {
+                // seed with the clock so a reset Redis never reissues an old counter value
+                redisTemplate.opsForValue().setIfAbsent(key, String.valueOf(System.currentTimeMillis()));
+                value = redisTemplate.opsForValue().get(key);
+            }
+            return collection + "-" + value;
+        } catch (Exception e) {
+            log.warn("Collection version unavailable: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Bump the counter after the current transaction commits (immediately if there is none)
+     */
+    public void incrementAfterCommit() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    increment();
+                }
+            });
+        } else {
+            increment();
+        }
+    }
+
+    /**
+     * Bump the counter now (callers already running after commit)
+     */
+    public void increment() {
+        try {
+            redisTemplate.opsForValue().increment(key);
+        } catch (Exception e) {
+            log.warn("Failed to bump collection version: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package pt.psoft.shared.utils;
+
+/**
+ * Helpers for HTTP conditional GET (If-None-Match)
+ */
+public class ETags {
+
+    private ETags() {
+    }
+
+    /**
+     * True if the If-None-Match header value matches the (unquoted) entity tag.
+     * Handles lists, weak validators and "*".
+     */
+    public static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || etag == null) {
+            return false;
+        }
+        String quoted = "\"" + etag + "\"";
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(quoted) || tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,43 @@
+package pt.psoft.shared.web;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.time.Duration;
+
+/**
+ * Registers the {@link IdempotencyFilter} on a service's command paths
+ * (idempotency.url-patterns, comma separated). Keys are namespaced by
+ * idempotency.service, which defaults to spring.application.name.
+ */
+@AutoConfiguration(afterName = {
+        "org.springframework.boot.autoconfigure.data.redis.RedisAutoConfiguration",
+        "org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration"})
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@ConditionalOnClass({StringRedisTemplate.class, FilterRegistrationBean.class})
+@ConditionalOnProperty(prefix = "idempotency", name = "url-patterns")
+public class IdempotencyAutoConfiguration {
+
+    @Bean
+    @ConditionalOnMissingBean(name = "idempotencyFilter")
+    public FilterRegistrationBean<IdempotencyFilter> idempotencyFilter(
+            StringRedisTemplate redisTemplate,
+            ObjectMapper objectMapper,
+            @Value("${idempotency.service:${spring.application.name}}") String service,
+            @Value("${idempotency.url-patterns}") String[] urlPatterns,
+            @Value("${idempotency.ttl-hours:24}") long ttlHours,
+            @Value("${idempotency.lock-seconds:120}") long lockSeconds) {
+        FilterRegistrationBean<IdempotencyFilter> registration = new FilterRegistrationBean<>(new IdempotencyFilter(
+                redisTemplate, objectMapper, service, Duration.ofHours(ttlHours), Duration.ofSeconds(lockSeconds)));
+        registration.addUrlPatterns(urlPatterns);
+        return registration;
+    }
+}
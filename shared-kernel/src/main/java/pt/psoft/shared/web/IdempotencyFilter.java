@@ -0,0 +1,178 @@
+package pt.psoft.shared.web;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.Principal;
+import java.time.Duration;
+import java.util.Set;
+
+/**
+ * Idempotency-Key support for command endpoints.
+ *
+ * The first POST/PUT/PATCH/DELETE carrying an Idempotency-Key claims the key
+ * in Redis (SET NX) and runs; its response is stored under the key for the
+ * configured TTL. A replay of the key gets the stored response back with an
+ * Idempotency-Replayed header instead of running again; a replay while the
+ * first request is still running gets 409 with Retry-After and an
+ * Idempotency-In-Progress header, so clients can tell it from a real conflict.
+ *
+ * Keys are scoped by caller, method and path. Server errors (5xx) and 409/429
+ * responses are not stored, so the request can be retried with the same key.
+ * When Redis is unavailable requests run without deduplication.
+ *
+ * IdempotencyAutoConfiguration registers the filter on a service's command
+ * paths (idempotency.url-patterns).
+ */
+@Slf4j
+public class IdempotencyFilter extends OncePerRequestFilter {
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotency-Replayed";
+    public static final String IN_PROGRESS_HEADER = "Idempotency-In-Progress";
+
+    private static final Set<String> METHODS = Set.of("POST", "PUT", "PATCH", "DELETE");
+    private static final String IN_PROGRESS = "";
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final String keyPrefix;
+    private final Duration ttl;
+    private final Duration lockTtl;
+
+    /**
+     * Stored response of a completed request
+     */
+    record StoredResponse(int status, String contentType, String location, String etag, String body) {
+    }
+
+    /**
+     * @param service name used in the Redis keys ("idempotency:{service}:...")
+     * @param ttl     how long responses are kept for replays
+     * @param lockTtl how long a running request holds its key (longer than any request)
+     */
+    public IdempotencyFilter(StringRedisTemplate redisTemplate, ObjectMapper objectMapper,
+                             String service, Duration ttl, Duration lockTtl) {
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        this.keyPrefix = "idempotency:" + service + ":";
+        this.ttl = ttl;
+        this.lockTtl = lockTtl;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !METHODS.contains(request.getMethod()) || request.getHeader(HEADER) == null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        String idempotencyKey = request.getHeader(HEADER).trim();
+        if (idempotencyKey.isEmpty() || idempotencyKey.length() > MAX_KEY_LENGTH) {
+            response.sendError(HttpStatus.BAD_REQUEST.value(),
+                    HEADER + " must be 1 to " + MAX_KEY_LENGTH + " characters");
+            return;
+        }
+        String key = redisKey(request, idempotencyKey);
+
+        Boolean claimed;
+        try {
+            claimed = redisTemplate.opsForValue().setIfAbsent(key, IN_PROGRESS, lockTtl);
+        } catch (DataAccessException e) {
+            log.warn("Idempotency store unavailable, running request without deduplication: {}", e.getMessage());
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        if (!Boolean.TRUE.equals(claimed)) {
+            replay(key, response);
+            return;
+        }
+
+        ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+        try {
+            filterChain.doFilter(request, wrapper);
+        } catch (IOException | ServletException | RuntimeException e) {
+            release(key);
+            throw e;
+        }
+
+        int status = wrapper.getStatus();
+        if (status >= 500 || status == HttpStatus.CONFLICT.value() || status == HttpStatus.TOO_MANY_REQUESTS.value()) {
+            release(key);
+        } else {
+            store(key, new StoredResponse(status, wrapper.getContentType(),
+                    wrapper.getHeader(HttpHeaders.LOCATION), wrapper.getHeader(HttpHeaders.ETAG),
+                    new String(wrapper.getContentAsByteArray(), StandardCharsets.UTF_8)));
+        }
+        wrapper.copyBodyToResponse();
+    }
+
+    private void replay(String key, HttpServletResponse response) throws IOException {
+        String stored = redisTemplate.opsForValue().get(key);
+        if (stored == null || stored.equals(IN_PROGRESS)) {
+            response.setStatus(HttpStatus.CONFLICT.value());
+            response.setHeader(IN_PROGRESS_HEADER, "true");
+            response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.getWriter().write(
+                    "{\"error\":\"A request with this Idempotency-Key is still being processed\"}");
+            return;
+        }
+
+        StoredResponse original = objectMapper.readValue(stored, StoredResponse.class);
+        response.setStatus(original.status());
+        if (original.contentType() != null) {
+            response.setContentType(original.contentType());
+        }
+        if (original.location() != null) {
+            response.setHeader(HttpHeaders.LOCATION, original.location());
+        }
+        if (original.etag() != null) {
+            response.setHeader(HttpHeaders.ETAG, original.etag());
+        }
+        response.setHeader(REPLAYED_HEADER, "true");
+        byte[] body = original.body().getBytes(StandardCharsets.UTF_8);
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
+    }
+
+    private void store(String key, StoredResponse stored) {
+        try {
+            redisTemplate.opsForValue().set(key, objectMapper.writeValueAsString(stored), ttl);
+        } catch (JsonProcessingException | DataAccessException e) {
+            log.warn("Could not store response for idempotency key {}: {}", key, e.getMessage());
+            release(key);
+        }
+    }
+
+    private void release(String key) {
+        try {
+            redisTemplate.delete(key);
+        } catch (DataAccessException e) {
+            log.warn("Could not release idempotency key {}: {}", key, e.getMessage());
+        }
+    }
+
+    private String redisKey(HttpServletRequest request, String idempotencyKey) {
+        Principal principal = request.getUserPrincipal();
+        String caller = principal != null ? principal.getName() : "anonymous";
+        return keyPrefix + caller + ":" + request.getMethod() + ":" + request.getRequestURI() + ":" + idempotencyKey;
+    }
+}
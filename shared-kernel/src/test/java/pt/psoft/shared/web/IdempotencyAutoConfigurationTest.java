@@ -0,0 +1,71 @@
+package pt.psoft.shared.web;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.boot.test.context.runner.WebApplicationContextRunner;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Unit tests for IdempotencyAutoConfiguration
+ */
+@DisplayName("IdempotencyAutoConfiguration Tests")
+class IdempotencyAutoConfigurationTest {
+
+    private final WebApplicationContextRunner contextRunner = new WebApplicationContextRunner()
+            .withConfiguration(AutoConfigurations.of(IdempotencyAutoConfiguration.class))
+            .withBean(StringRedisTemplate.class, () -> mock(StringRedisTemplate.class))
+            .withBean(ObjectMapper.class, ObjectMapper::new)
+            .withPropertyValues("spring.application.name=lending-service");
+
+    @Test
+    @DisplayName("Should register the filter on the configured command paths")
+    void shouldRegisterFilterOnUrlPatterns() {
+        contextRunner
+                .withPropertyValues("idempotency.url-patterns=/api/v1/lendings,/api/v1/lendings/*")
+                .run(context -> {
+                    assertTrue(context.containsBean("idempotencyFilter"));
+                    FilterRegistrationBean<?> registration = context.getBean("idempotencyFilter", FilterRegistrationBean.class);
+                    assertInstanceOf(IdempotencyFilter.class, registration.getFilter());
+                    assertEquals(Set.of("/api/v1/lendings", "/api/v1/lendings/*"), Set.copyOf(registration.getUrlPatterns()));
+                });
+    }
+
+    @Test
+    @DisplayName("Should stay off without idempotency.url-patterns")
+    void shouldNotRegisterWithoutUrlPatterns() {
+        contextRunner.run(context -> {
+            assertNull(context.getStartupFailure());
+            assertFalse(context.containsBean("idempotencyFilter"));
+        });
+    }
+
+    @Test
+    @DisplayName("Should stay off outside servlet web applications")
+    void shouldNotRegisterOutsideWebApplications() {
+        new ApplicationContextRunner()
+                .withConfiguration(AutoConfigurations.of(IdempotencyAutoConfiguration.class))
+                .withBean(StringRedisTemplate.class, () -> mock(StringRedisTemplate.class))
+                .withBean(ObjectMapper.class, ObjectMapper::new)
+                .withPropertyValues("idempotency.url-patterns=/api/v1/lendings")
+                .run(context -> assertFalse(context.containsBean("idempotencyFilter")));
+    }
+
+    @Test
+    @DisplayName("Should back off when the service defines its own idempotencyFilter")
+    void shouldBackOffForCustomFilter() {
+        FilterRegistrationBean<IdempotencyFilter> custom = new FilterRegistrationBean<>();
+        contextRunner
+                .withPropertyValues("idempotency.url-patterns=/api/v1/lendings")
+                .withBean("idempotencyFilter", FilterRegistrationBean.class, () -> custom)
+                .run(context -> assertSame(custom, context.getBean("idempotencyFilter")));
+    }
+}
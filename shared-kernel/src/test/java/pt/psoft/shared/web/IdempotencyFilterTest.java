@@ -0,0 +1,195 @@
+package pt.psoft.shared.web;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for IdempotencyFilter.
+ * Redis runs against an in-memory map that applies SET NX, SET, GET and DEL.
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("IdempotencyFilter Tests")
+class IdempotencyFilterTest {
+
+    private static final String PATH = "/api/v1/lendings";
+    private static final String KEY = "idempotency:lending-service:1,reader@mail.com:POST:" + PATH + ":abc-123";
+    private static final Duration TTL = Duration.ofHours(24);
+    private static final Duration LOCK_TTL = Duration.ofSeconds(120);
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    @Mock
+    private ValueOperations<String, String> valueOperations;
+
+    private final Map<String, String> redis = new HashMap<>();
+    private final AtomicInteger runs = new AtomicInteger();
+
+    private IdempotencyFilter idempotencyFilter;
+
+    @BeforeEach
+    void setUp() {
+        idempotencyFilter = new IdempotencyFilter(redisTemplate, new ObjectMapper(), "lending-service", TTL, LOCK_TTL);
+        lenient().when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        lenient().when(valueOperations.setIfAbsent(anyString(), anyString(), eq(LOCK_TTL))).thenAnswer(invocation ->
+                redis.putIfAbsent(invocation.getArgument(0), invocation.getArgument(1)) == null);
+        lenient().doAnswer(invocation -> redis.put(invocation.getArgument(0), invocation.getArgument(1)))
+                .when(valueOperations).set(anyString(), anyString(), eq(TTL));
+        lenient().when(valueOperations.get(anyString())).thenAnswer(invocation -> redis.get(invocation.<String>getArgument(0)));
+        lenient().when(redisTemplate.delete(anyString())).thenAnswer(invocation -> redis.remove(invocation.<String>getArgument(0)) != null);
+    }
+
+    @Test
+    @DisplayName("Should claim the key, store the response and replay it without running again")
+    void shouldStoreAndReplayResponse() throws Exception {
+        MockHttpServletResponse first = run(request("1,reader@mail.com"), created());
+
+        assertEquals(201, first.getStatus());
+        assertEquals("{\"lendingNumber\":\"2024/1\"}", first.getContentAsString());
+        assertNotNull(redis.get(KEY));
+
+        MockHttpServletResponse replay = run(request("1,reader@mail.com"), created());
+
+        assertEquals(1, runs.get());
+        assertEquals(201, replay.getStatus());
+        assertEquals(PATH + "/2024/1", replay.getHeader(HttpHeaders.LOCATION));
+        assertEquals("\"0\"", replay.getHeader(HttpHeaders.ETAG));
+        assertEquals("true", replay.getHeader(IdempotencyFilter.REPLAYED_HEADER));
+        assertTrue(replay.getContentType().startsWith("application/json"));
+        assertEquals("{\"lendingNumber\":\"2024/1\"}", replay.getContentAsString());
+    }
+
+    @Test
+    @DisplayName("Should answer 409 with in-progress headers while the first request runs")
+    void shouldRejectReplayInProgress() throws Exception {
+        redis.put(KEY, "");
+
+        MockHttpServletResponse response = run(request("1,reader@mail.com"), created());
+
+        assertEquals(0, runs.get());
+        assertEquals(409, response.getStatus());
+        assertEquals("true", response.getHeader(IdempotencyFilter.IN_PROGRESS_HEADER));
+        assertEquals("1", response.getHeader(HttpHeaders.RETRY_AFTER));
+        assertNull(response.getHeader(IdempotencyFilter.REPLAYED_HEADER));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {500, 503, 409, 429})
+    @DisplayName("Should release the key on retryable responses")
+    void shouldReleaseKeyOnRetryableStatus(int status) throws Exception {
+        FilterChain failing = (req, res) -> {
+            runs.incrementAndGet();
+            ((HttpServletResponse) res).setStatus(status);
+        };
+
+        MockHttpServletResponse response = run(request("1,reader@mail.com"), failing);
+
+        assertEquals(status, response.getStatus());
+        assertFalse(redis.containsKey(KEY));
+        verify(valueOperations, never()).set(anyString(), anyString(), any(Duration.class));
+
+        // the retry runs again
+        run(request("1,reader@mail.com"), created());
+        assertEquals(2, runs.get());
+    }
+
+    @Test
+    @DisplayName("Should release the key when the request throws")
+    void shouldReleaseKeyOnException() {
+        FilterChain throwing = (req, res) -> {
+            throw new IllegalStateException("boom");
+        };
+
+        assertThrows(IllegalStateException.class, () -> run(request("1,reader@mail.com"), throwing));
+        assertFalse(redis.containsKey(KEY));
+    }
+
+    @Test
+    @DisplayName("Should run the request without deduplication when Redis is down")
+    void shouldFallThroughWhenRedisIsDown() throws Exception {
+        doThrow(new RedisConnectionFailureException("down"))
+                .when(valueOperations).setIfAbsent(anyString(), anyString(), any(Duration.class));
+
+        MockHttpServletResponse response = run(request("1,reader@mail.com"), created());
+
+        assertEquals(1, runs.get());
+        assertEquals(201, response.getStatus());
+        assertEquals("{\"lendingNumber\":\"2024/1\"}", response.getContentAsString());
+        verify(valueOperations, never()).set(anyString(), anyString(), any(Duration.class));
+    }
+
+    @Test
+    @DisplayName("Should scope keys per principal")
+    void shouldScopeKeyPerPrincipal() throws Exception {
+        run(request("1,reader@mail.com"), created());
+        MockHttpServletResponse other = run(request("2,other@mail.com"), created());
+
+        assertEquals(2, runs.get());
+        assertNull(other.getHeader(IdempotencyFilter.REPLAYED_HEADER));
+        assertTrue(redis.containsKey(KEY));
+        assertTrue(redis.containsKey("idempotency:lending-service:2,other@mail.com:POST:" + PATH + ":abc-123"));
+    }
+
+    @Test
+    @DisplayName("Should leave reads and requests without a key alone")
+    void shouldNotFilterReadsOrRequestsWithoutKey() throws Exception {
+        MockHttpServletRequest read = request("1,reader@mail.com");
+        read.setMethod("GET");
+        MockHttpServletRequest withoutKey = new MockHttpServletRequest("POST", PATH);
+
+        run(read, created());
+        run(withoutKey, created());
+
+        assertEquals(2, runs.get());
+        verifyNoInteractions(redisTemplate);
+    }
+
+    private MockHttpServletResponse run(MockHttpServletRequest request, FilterChain chain) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        idempotencyFilter.doFilter(request, response, chain);
+        return response;
+    }
+
+    private FilterChain created() {
+        return (req, res) -> {
+            runs.incrementAndGet();
+            HttpServletResponse response = (HttpServletResponse) res;
+            response.setStatus(201);
+            response.setHeader(HttpHeaders.LOCATION, PATH + "/2024/1");
+            response.setHeader(HttpHeaders.ETAG, "\"0\"");
+            response.setContentType("application/json");
+            response.getWriter().write("{\"lendingNumber\":\"2024/1\"}");
+        };
+    }
+
+    private static MockHttpServletRequest request(String principal) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", PATH);
+        request.addHeader(IdempotencyFilter.HEADER, "abc-123");
+        request.setUserPrincipal(() -> principal);
+        return request;
+    }
+}